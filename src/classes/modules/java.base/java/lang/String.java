@@ -18,6 +18,8 @@
 
 package java.lang;
 
+import gov.nasa.jpf.annotation.FilterField;
+
 import java.io.ObjectStreamField;
 import java.io.UnsupportedEncodingException;
 import java.nio.charset.Charset;
@@ -58,8 +60,8 @@ implements java.io.Serializable, Comparable<String>, CharSequence {
 	static final byte LATIN1 = 0;
 	static final byte UTF16 = 1;
 
-	/** Cache the hash code for the string */
-	private int hash; // Default to 0
+	/** Cache the hash code for the string, which is not part of the program state */
+	@FilterField private int hash; // Default to 0
 
 	private static final long serialVersionUID = -6849794470754667710L;
 
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ *        http://www.apache.org/licenses/LICENSE-2.0. 
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * a single threaded program that mostly executes native peer methods of
+ * java.lang.String and java.util.concurrent.atomic classes, which is useful
+ * to measure MJI call overhead (e.g. with gov.nasa.jpf.tool.PeerBenchmark)
+ */
+public class PeerCalls {
+
+  static int strings (String s, String t) {
+    int n = 0;
+
+    n += s.hashCode();
+    n += s.indexOf('x');
+    n += s.indexOf("lazy", 2);
+    n += s.charAt(n & 7);
+    if (s.equals(t)) {
+      n++;
+    }
+    if (s.startsWith("The")) {
+      n++;
+    }
+    n += s.compareTo(t);
+    n += s.substring(4, 9).length();
+
+    return n;
+  }
+
+  static long atomics (AtomicInteger ai, AtomicIntegerArray aa, AtomicReference<String> ar, String s) {
+    long n = 0;
+
+    n += ai.incrementAndGet();
+    n += ai.getAndAdd(3);
+    if (ai.compareAndSet(42, 0)) {
+      n++;
+    }
+    n += aa.addAndGet(1, 7);
+    n += aa.getAndIncrement(0);
+    if (ar.compareAndSet(null, s)) {
+      n++;
+    }
+    ar.set(null);
+
+    return n;
+  }
+
+  public static void main (String[] args) {
+    int rounds = (args.length > 0) ? Integer.parseInt(args[0]) : 10000;
+    String s = "The quick brown fox jumps over the lazy dog";
+    String t = "The quick brown fox jumps over the lazy cat";
+    AtomicInteger ai = new AtomicInteger();
+    AtomicIntegerArray aa = new AtomicIntegerArray(2);
+    AtomicReference<String> ar = new AtomicReference<String>();
+    long n = 0;
+
+    for (int i = 0; i < rounds; i++) {
+      n += strings(s, t);
+      n += atomics(ai, aa, ar, s);
+    }
+
+    System.out.println("result: " + n);
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ *        http://www.apache.org/licenses/LICENSE-2.0. 
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+/**
+ * a single threaded, compute bound program that does not create any choices,
+ * which is useful to measure raw interpreter throughput (e.g. with
+ * gov.nasa.jpf.tool.ListenerBenchmark)
+ */
+public class Sieve {
+
+  static int countPrimes (int n) {
+    boolean[] composite = new boolean[n+1];
+    int count = 0;
+
+    for (int i = 2; i <= n; i++) {
+      if (!composite[i]) {
+        count++;
+        for (int j = i*2; j <= n; j += i) {
+          composite[j] = true;
+        }
+      }
+    }
+    return count;
+  }
+
+  public static void main (String[] args) {
+    int rounds = (args.length > 0) ? Integer.parseInt(args[0]) : 10;
+    int n = 0;
+
+    for (int i = 0; i < rounds; i++) {
+      n = countPrimes(100000);
+    }
+
+    System.out.println("primes: " + n);
+  }
+}
@@ -1503,7 +1503,7 @@ public class Config extends Properties {
 
   /**
    * return memory size in bytes, or 'defValue' if not in dictionary. Encoding
-   * can have a 'M' or 'k' postfix, values have to be positive integers (decimal
+   * can have a 'G', 'M' or 'k' postfix, values have to be positive integers (decimal
    * notation)
    */
   public long getMemorySize(String key, long defValue) {
@@ -1515,7 +1515,9 @@ public class Config extends Properties {
       try {
         char c = v.charAt(n);
 
-        if ((c == 'M') || (c == 'm')) {
+        if ((c == 'G') || (c == 'g')) {
+          sz = Long.parseLong(v.substring(0, n)) << 30;
+        } else if ((c == 'M') || (c == 'm')) {
           sz = Long.parseLong(v.substring(0, n)) << 20;
         } else if ((c == 'K') || (c == 'k')) {
           sz = Long.parseLong(v.substring(0, n)) << 10;
@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.nasa.jpf;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * a child-first JPFClassLoader that gives JPF its own class space, i.e. its
+ * own set of static fields (VM.vm, ThreadInfo.currentThread, ClassLoaderInfo.loadedClasses,
+ * peer state etc.). This is what allows several JPF instances to run concurrently
+ * within the same host VM, each one on its own host thread.
+ *
+ * All classes that can be found in our URLs are loaded by this loader, except of
+ * the ones listed in 'sharedClasses', which only hold run independent host data
+ * and hence are loaded from the parent (i.e. shared between class spaces).
+ * Host VM classes are always loaded from the parent.
+ *
+ * Since classes of different class spaces are not assignment compatible, the
+ * parent can only talk to the isolated JPF by means of host VM types, e.g. by
+ * calling static methods such as JPF.runIsolated(String[]) through invokeStatic()
+ *
+ * Note that the class space is not reset between JPF runs, i.e. sequential
+ * runs within the same IsolatingClassLoader behave like sequential runs
+ * within the same (normal) host VM
+ */
+public class IsolatingClassLoader extends JPFClassLoader {
+
+  static {
+    ClassLoader.registerAsParallelCapable();
+  }
+
+  /**
+   * classes that are loaded parent-first, i.e. are shared between all class spaces
+   */
+  static HashSet<String> sharedClasses = new HashSet<String>(Arrays.asList(
+      "gov.nasa.jpf.jvm.ClassFileCache",
+      "gov.nasa.jpf.search.WorkPool",
+      "gov.nasa.jpf.util.test.TestResult",
+      "gov.nasa.jpf.vm.ConcurrentStateSet$Table"
+  ));
+
+  public static synchronized void addSharedClass (String clsName){
+    sharedClasses.add(clsName);
+  }
+
+  static synchronized boolean isSharedClass (String clsName){
+    return sharedClasses.contains(clsName);
+  }
+
+  static boolean isHostClass (String clsName){
+    return clsName.startsWith("java.") || clsName.startsWith("javax.") ||
+           clsName.startsWith("jdk.") || clsName.startsWith("sun.") || clsName.startsWith("com.sun.");
+  }
+
+  /**
+   * the code source locations of the provided classes. Use this to create
+   * an IsolatingClassLoader that holds the same JPF classes as the parent
+   */
+  public static URL[] getCodeSourceURLs (Class<?>... classes){
+    List<URL> list = new ArrayList<URL>();
+
+    for (Class<?> cls : classes){
+      CodeSource cs = cls.getProtectionDomain().getCodeSource();
+      if (cs != null && cs.getLocation() != null){
+        URL url = cs.getLocation();
+        if (!list.contains(url)){
+          list.add(url);
+        }
+      }
+    }
+
+    return list.toArray(new URL[list.size()]);
+  }
+
+  /**
+   * the code source locations of the JPF core classes (main, peers and annotations)
+   * as seen by our parent, plus the ones of the provided classes (e.g. tests)
+   */
+  public static URL[] getJPFCodeSourceURLs (ClassLoader parent, Class<?>... classes){
+    List<Class<?>> list = new ArrayList<Class<?>>();
+
+    for (String clsName : new String[] { "gov.nasa.jpf.JPF",
+                                         "gov.nasa.jpf.vm.JPF_java_lang_Object",
+                                         "gov.nasa.jpf.annotation.MJI" }){
+      try {
+        list.add(parent.loadClass(clsName));
+      } catch (ClassNotFoundException x){
+        // not a separate code source, nothing to add
+      }
+    }
+    list.addAll(Arrays.asList(classes));
+
+    return getCodeSourceURLs(list.toArray(new Class<?>[list.size()]));
+  }
+
+  public IsolatingClassLoader (URL[] urls, ClassLoader parent){
+    super(urls, null, parent);
+  }
+
+  /**
+   * create a class space for the JPF classes of our own loader, and the provided classes
+   */
+  public IsolatingClassLoader (Class<?>... classes){
+    this(getJPFCodeSourceURLs(IsolatingClassLoader.class.getClassLoader(), classes),
+         IsolatingClassLoader.class.getClassLoader());
+  }
+
+  @Override
+  protected Class<?> loadClass (String name, boolean resolve) throws ClassNotFoundException {
+    if (isHostClass(name) || isSharedClass(name)){
+      return super.loadClass(name, resolve); // parent first
+    }
+
+    synchronized (getClassLoadingLock(name)) {
+      Class<?> cls = findLoadedClass(name);
+
+      if (cls == null){
+        try {
+          cls = findClass(name);
+        } catch (ClassNotFoundException x){
+          return super.loadClass(name, resolve); // not ours, try the parent
+        }
+      }
+
+      if (resolve){
+        resolveClass(cls);
+      }
+      return cls;
+    }
+  }
+
+  /**
+   * call a public static method of a class within this class space. Arguments
+   * and return value have to be of host VM (or shared) types. The call is
+   * executed in the current thread, with this loader as its context class loader
+   */
+  public Object invokeStatic (String clsName, String mthName, Class<?>[] argTypes, Object... args) throws Throwable {
+    Thread thread = Thread.currentThread();
+    ClassLoader contextLoader = thread.getContextClassLoader();
+
+    try {
+      thread.setContextClassLoader(this);
+
+      Class<?> cls = loadClass(clsName);
+      Method m = cls.getMethod(mthName, argTypes);
+      return m.invoke(null, args);
+
+    } catch (InvocationTargetException x){
+      throw x.getCause();
+
+    } finally {
+      thread.setContextClassLoader(contextLoader);
+    }
+  }
+
+  /**
+   * run JPF within this class space, returning the descriptions of all errors
+   * that were found
+   */
+  @SuppressWarnings("unchecked")
+  public List<String> runJPF (String... args){
+    try {
+      return (List<String>) invokeStatic("gov.nasa.jpf.JPF", "runIsolated", new Class<?>[] { String[].class }, (Object)args);
+
+    } catch (RuntimeException | java.lang.Error x){
+      throw x;
+    } catch (Throwable t){
+      throw new JPFException(t);
+    }
+  }
+}
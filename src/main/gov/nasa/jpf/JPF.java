@@ -34,6 +34,7 @@ import gov.nasa.jpf.vm.VMListener;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Logger;
 
 
@@ -595,7 +596,44 @@ public class JPF implements Runnable {
   public static Config createConfig (String[] args) {
     return new Config(args);
   }
-  
+
+  /**
+   * entry for runs within an isolated class space (see IsolatingClassLoader).
+   * Since our caller does not share our JPF classes, we only return host
+   * types, i.e. the descriptions of the errors that were found
+   */
+  public static List<String> runIsolated (String[] args) {
+    return runIsolated(new JPF(createConfig(args)));
+  }
+
+  /**
+   * entry for isolated runs that use the (already processed) entries of
+   * another Config, e.g. ParallelDFSearch workers
+   */
+  public static List<String> runIsolated (Map<String,String> entries) {
+    Config conf = createConfig(new String[0]);
+    conf.clear();
+    for (Map.Entry<String,String> e : entries.entrySet()) {
+      conf.put(e.getKey(), e.getValue());
+    }
+
+    return runIsolated(new JPF(conf));
+  }
+
+  static List<String> runIsolated (JPF jpf) {
+    jpf.run();
+
+    List<String> errors = new ArrayList<String>();
+    List<Error> searchErrors = jpf.getSearchErrors();
+    if (searchErrors != null) {
+      for (Error e : searchErrors) {
+        errors.add(e.getDescription());
+      }
+    }
+
+    return errors;
+  }
+
   /**
    * runs the verification.
    */
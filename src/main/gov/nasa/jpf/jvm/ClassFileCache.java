@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.nasa.jpf.jvm;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * class file related data that only depends on the host VM, i.e. does not
+ * change while we are running and can be shared between all JPF instances
+ * of this process.
+ *
+ * This class is also shared between JPF instances that run in their own
+ * class space (see IsolatingClassLoader), which is why it must not use
+ * any other JPF types
+ */
+public class ClassFileCache {
+
+  static final String UNNAMED_MODULE = new String(""); // identity compared
+
+  public static final long DEFAULT_MAX_JRT_DATA_SIZE = 32*1024*1024;
+
+  // class file contents in access order, i.e. we drop the least recently used
+  // entries once the total size exceeds maxJRTDataSize
+  static final LinkedHashMap<String,byte[]> jrtClassData = new LinkedHashMap<String,byte[]>(1024, 0.75f, true);
+  static long jrtDataSize;
+  static long maxJRTDataSize = DEFAULT_MAX_JRT_DATA_SIZE;
+
+  static ConcurrentHashMap<String,String> moduleNames = new ConcurrentHashMap<String,String>();
+
+  /**
+   * get the contents of a class file from the run-time image, or null if
+   * there is no such entry. Lookups of missing classes are rare, so we
+   * don't cache those.
+   *
+   * Callers can replace but must not modify the returned data
+   */
+  public static byte[] getJRTClassData (String entryName) {
+    byte[] data;
+    synchronized (jrtClassData) {
+      data = jrtClassData.get(entryName);
+    }
+
+    if (data == null) {
+      // don't hold the lock while reading, other JPF instances might load classes concurrently
+      FileSystem fs = FileSystems.getFileSystem(URI.create("jrt:/"));
+      try {
+        data = Files.readAllBytes(fs.getPath("modules", entryName));
+      } catch (IOException e) {
+        return null;
+      }
+      putJRTClassData(entryName, data);
+    }
+
+    return data;
+  }
+
+  static void putJRTClassData (String entryName, byte[] data) {
+    synchronized (jrtClassData) {
+      if (data.length <= maxJRTDataSize) {
+        byte[] old = jrtClassData.put(entryName, data);
+        if (old != null) {
+          jrtDataSize -= old.length;
+        }
+        jrtDataSize += data.length;
+        trimJRTClassData();
+      }
+    }
+  }
+
+  static void trimJRTClassData () {
+    Iterator<byte[]> it = jrtClassData.values().iterator();
+    while (jrtDataSize > maxJRTDataSize && it.hasNext()) {
+      jrtDataSize -= it.next().length;
+      it.remove();
+    }
+  }
+
+  /**
+   * set the upper bound for the total size of cached class file contents.
+   * Note this is process wide, i.e. it also affects other JPF instances
+   */
+  public static void setMaxJRTDataSize (long maxSize) {
+    synchronized (jrtClassData) {
+      maxJRTDataSize = maxSize;
+      trimJRTClassData();
+    }
+  }
+
+  public static long getJRTDataSize () {
+    synchronized (jrtClassData) {
+      return jrtDataSize;
+    }
+  }
+
+  public static void clearJRTClassData () {
+    synchronized (jrtClassData) {
+      jrtClassData.clear();
+      jrtDataSize = 0;
+    }
+  }
+
+  /**
+   * get the name of the host VM module of a class, or null if the class
+   * is not known to the host VM or not in a named module
+   */
+  public static String getModuleName (String hostClsName) {
+    String moduleName = moduleNames.get(hostClsName);
+    if (moduleName == null) {
+      try {
+        moduleName = Class.forName(hostClsName).getModule().getName();
+      } catch (ClassNotFoundException e) {
+        moduleName = null;
+      }
+      moduleNames.put(hostClsName, (moduleName != null) ? moduleName : UNNAMED_MODULE);
+    }
+
+    return (moduleName != UNNAMED_MODULE) ? moduleName : null;
+  }
+}
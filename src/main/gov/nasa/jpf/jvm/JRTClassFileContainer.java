@@ -2,12 +2,6 @@ package gov.nasa.jpf.jvm;
 
 import gov.nasa.jpf.vm.ClassFileMatch;
 
-import java.io.IOException;
-import java.net.URI;
-import java.nio.file.FileSystem;
-import java.nio.file.FileSystems;
-import java.nio.file.Files;
-
 /**
  * ClassFileContainer to hold classes from the run-time image
  * Uses the new URL scheme, jrt, to references the classes stored in the run-time image
@@ -21,13 +15,14 @@ public class JRTClassFileContainer extends JVMClassFileContainer {
 
     @Override
     public ClassFileMatch getMatch(String clsName) {
-        FileSystem fs = FileSystems.getFileSystem(URI.create("jrt:/"));
-        byte[] data;
-        try {
-            data = Files.readAllBytes(fs.getPath("modules", getClassEntryURL(clsName)));
-            return new JVMClassFileMatch(clsName, getClassURL(clsName), data);
-        } catch (IOException e) {
+        // the run-time image does not change while we are running, i.e. the
+        // class file contents are kept across JPF runs (see ClassFileCache)
+        byte[] data = ClassFileCache.getJRTClassData(getClassEntryURL(clsName));
+        if (data == null) {
             return null;
         }
+
+        // ClassFiles can replace but not modify their data, so we can share it
+        return new JVMClassFileMatch(clsName, getClassURL(clsName), data);
     }
 }
@@ -755,6 +755,8 @@ public class JVMClassInfo extends ClassInfo {
   protected static StringSetMatcher excludeNestedInit;
 
   protected static boolean init (Config config){
+    ClassFileCache.setMaxJRTDataSize(config.getLong("jvm.jrt_cache_size", ClassFileCache.DEFAULT_MAX_JRT_DATA_SIZE));
+
     nestedInit = config.getBoolean("jvm.nested_init", false);
     if (nestedInit){
       includeNestedInit =  StringSetMatcher.getNonEmpty(config.getStringArray("jvm.nested_init.include"));
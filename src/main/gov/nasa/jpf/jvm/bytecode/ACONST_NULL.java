@@ -17,6 +17,7 @@
  */
 package gov.nasa.jpf.jvm.bytecode;
 
+import gov.nasa.jpf.vm.bytecode.FusableInstruction;
 import gov.nasa.jpf.vm.Instruction;
 import gov.nasa.jpf.vm.MJIEnv;
 import gov.nasa.jpf.vm.StackFrame;
@@ -27,7 +28,7 @@ import gov.nasa.jpf.vm.ThreadInfo;
  * Push null
  * ... => ..., null
  */
-public class ACONST_NULL extends Instruction implements JVMInstruction {
+public class ACONST_NULL extends Instruction implements JVMInstruction, FusableInstruction {
   
   @Override
   public Instruction execute (ThreadInfo ti) {
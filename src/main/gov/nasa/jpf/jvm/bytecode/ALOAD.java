@@ -17,6 +17,7 @@
  */
 package gov.nasa.jpf.jvm.bytecode;
 
+import gov.nasa.jpf.vm.bytecode.FusableInstruction;
 import gov.nasa.jpf.vm.Instruction;
 import gov.nasa.jpf.vm.StackFrame;
 import gov.nasa.jpf.vm.ThreadInfo;
@@ -26,7 +27,7 @@ import gov.nasa.jpf.vm.ThreadInfo;
  * Load reference from local variable
  * ... => ..., objectref
  */
-public class ALOAD extends JVMLocalVariableInstruction {
+public class ALOAD extends JVMLocalVariableInstruction implements FusableInstruction {
 
   public ALOAD(int index){
     super(index);
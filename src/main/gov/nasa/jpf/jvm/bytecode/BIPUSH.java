@@ -17,6 +17,7 @@
  */
 package gov.nasa.jpf.jvm.bytecode;
 
+import gov.nasa.jpf.vm.bytecode.FusableInstruction;
 import gov.nasa.jpf.vm.Instruction;
 import gov.nasa.jpf.vm.StackFrame;
 import gov.nasa.jpf.vm.ThreadInfo;
@@ -26,7 +27,7 @@ import gov.nasa.jpf.vm.ThreadInfo;
  * Push byte
  * ... => ..., value
  */
-public class BIPUSH extends Instruction implements JVMInstruction {
+public class BIPUSH extends Instruction implements JVMInstruction, FusableInstruction {
   private int value;
 
   public BIPUSH() {} // this is going away
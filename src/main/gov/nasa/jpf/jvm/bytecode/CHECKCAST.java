@@ -19,9 +19,11 @@ package gov.nasa.jpf.jvm.bytecode;
 
 import gov.nasa.jpf.vm.Instruction;
 import gov.nasa.jpf.vm.ClassInfo;
+import gov.nasa.jpf.vm.ClassLoaderInfo;
 import gov.nasa.jpf.vm.ElementInfo;
 import gov.nasa.jpf.vm.LoadOnJPFRequired;
 import gov.nasa.jpf.vm.MJIEnv;
+import gov.nasa.jpf.vm.MethodInfo;
 import gov.nasa.jpf.vm.StackFrame;
 import gov.nasa.jpf.vm.ThreadInfo;
 import gov.nasa.jpf.vm.Types;
@@ -34,6 +36,12 @@ import gov.nasa.jpf.vm.Types;
 public class CHECKCAST extends Instruction implements JVMInstruction {
   String type;
 
+  // resolution caches - the referenced class is resolved by the class loader
+  // of our method, the (non-array) cast type by the one of the object class
+  boolean isResolved;
+  ClassLoaderInfo targetCl;
+  ClassInfo targetCi;
+
   public CHECKCAST() {} // this is going away
 
   public CHECKCAST(String typeName){
@@ -55,7 +63,7 @@ public class CHECKCAST extends Instruction implements JVMInstruction {
     } else {
       boolean isValid = false;
 
-      if(Types.isReferenceSignature(type)) {
+      if(!isResolved && Types.isReferenceSignature(type)) {
         String t;
         if(Types.isArray(type)) {
           // retrieve the component terminal
@@ -70,6 +78,7 @@ public class CHECKCAST extends Instruction implements JVMInstruction {
         } catch(LoadOnJPFRequired lre) {
           return ti.getPC();
         }
+        isResolved = true;
       }
 
       ElementInfo e = ti.getElementInfo(objref);
@@ -83,7 +92,7 @@ public class CHECKCAST extends Instruction implements JVMInstruction {
         }
 
       } else { // non-array types
-        isValid = e.getClassInfo().isInstanceOf(type);
+        isValid = eci.isInstanceOf( getTargetClassInfo(eci));
       }
 
       if (!isValid) {
@@ -96,6 +105,29 @@ public class CHECKCAST extends Instruction implements JVMInstruction {
   }
 
 
+  protected ClassInfo getTargetClassInfo (ClassInfo eci) {
+    ClassLoaderInfo cl = eci.getClassLoaderInfo();
+
+    if (targetCi == null || cl != targetCl) {
+      targetCi = cl.getResolvedClassInfo(type);
+      targetCl = cl;
+    }
+
+    return targetCi;
+  }
+
+  @Override
+  public Instruction typeSafeClone(MethodInfo mi) {
+    CHECKCAST clone = (CHECKCAST) super.typeSafeClone(mi);
+
+    // the clone belongs to a different ClassInfo, i.e. might use a different class loader
+    clone.isResolved = false;
+    clone.targetCl = null;
+    clone.targetCi = null;
+
+    return clone;
+  }
+
   @Override
   public int getLength() {
     return 3; // opcode, index1, index2
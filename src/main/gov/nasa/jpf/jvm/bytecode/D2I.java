@@ -17,6 +17,7 @@
  */
 package gov.nasa.jpf.jvm.bytecode;
 
+import gov.nasa.jpf.vm.bytecode.FusableInstruction;
 import gov.nasa.jpf.vm.Instruction;
 import gov.nasa.jpf.vm.StackFrame;
 import gov.nasa.jpf.vm.ThreadInfo;
@@ -26,7 +27,7 @@ import gov.nasa.jpf.vm.ThreadInfo;
  * Convert double to int
  * ..., value => ..., result
  */
-public class D2I extends Instruction implements JVMInstruction {
+public class D2I extends Instruction implements JVMInstruction, FusableInstruction {
 
   @Override
   public Instruction execute (ThreadInfo ti) {
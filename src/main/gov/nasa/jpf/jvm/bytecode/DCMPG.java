@@ -17,12 +17,14 @@
  */
 package gov.nasa.jpf.jvm.bytecode;
 
+import gov.nasa.jpf.vm.bytecode.FusableInstruction;
+
 
 /**
  * Compare double
  * ..., value1, value2 => ..., result
  */
-public class DCMPG extends DoubleCompareInstruction {
+public class DCMPG extends DoubleCompareInstruction implements FusableInstruction {
 
   @Override
   protected int conditionValue(double v1, double v2) {
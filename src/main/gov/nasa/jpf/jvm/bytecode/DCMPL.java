@@ -17,13 +17,13 @@
  */
 package gov.nasa.jpf.jvm.bytecode;
 
-
+import gov.nasa.jpf.vm.bytecode.FusableInstruction;
 
 /**
  * Compare double
  * ..., value1, value2 => ..., result
  */
-public class DCMPL extends DoubleCompareInstruction {
+public class DCMPL extends DoubleCompareInstruction implements FusableInstruction {
 
 
   @Override
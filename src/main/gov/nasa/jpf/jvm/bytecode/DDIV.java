@@ -17,6 +17,7 @@
  */
 package gov.nasa.jpf.jvm.bytecode;
 
+import gov.nasa.jpf.vm.bytecode.FusableInstruction;
 import gov.nasa.jpf.vm.Instruction;
 import gov.nasa.jpf.vm.StackFrame;
 import gov.nasa.jpf.vm.ThreadInfo;
@@ -26,7 +27,7 @@ import gov.nasa.jpf.vm.ThreadInfo;
  * Divide double
  * ..., value1, value2 => ..., result
  */
-public class DDIV extends Instruction implements JVMInstruction {
+public class DDIV extends Instruction implements JVMInstruction, FusableInstruction {
 
   @Override
   public Instruction execute (ThreadInfo ti) {
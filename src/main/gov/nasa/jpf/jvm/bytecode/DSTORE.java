@@ -17,6 +17,7 @@
  */
 package gov.nasa.jpf.jvm.bytecode;
 
+import gov.nasa.jpf.vm.bytecode.FusableInstruction;
 import gov.nasa.jpf.vm.bytecode.StoreInstruction;
 import gov.nasa.jpf.vm.Instruction;
 import gov.nasa.jpf.vm.StackFrame;
@@ -26,7 +27,7 @@ import gov.nasa.jpf.vm.ThreadInfo;
  * Store double into local variable
  * ..., value => ...
  */
-public class DSTORE extends JVMLocalVariableInstruction implements StoreInstruction  {
+public class DSTORE extends JVMLocalVariableInstruction implements StoreInstruction, FusableInstruction {
 
   public DSTORE(int localVarIndex) {
     super(localVarIndex);
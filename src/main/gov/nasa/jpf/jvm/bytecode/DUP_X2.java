@@ -17,6 +17,7 @@
  */
 package gov.nasa.jpf.jvm.bytecode;
 
+import gov.nasa.jpf.vm.bytecode.FusableInstruction;
 import gov.nasa.jpf.vm.Instruction;
 import gov.nasa.jpf.vm.StackFrame;
 import gov.nasa.jpf.vm.ThreadInfo;
@@ -25,7 +26,7 @@ import gov.nasa.jpf.vm.ThreadInfo;
 /**
  * DOCUMENT ME!
  */
-public class DUP_X2 extends Instruction implements JVMInstruction {
+public class DUP_X2 extends Instruction implements JVMInstruction, FusableInstruction {
 
   @Override
   public Instruction execute (ThreadInfo ti) {
@@ -17,6 +17,7 @@
  */
 package gov.nasa.jpf.jvm.bytecode;
 
+import gov.nasa.jpf.vm.bytecode.FusableInstruction;
 import gov.nasa.jpf.vm.Instruction;
 import gov.nasa.jpf.vm.StackFrame;
 import gov.nasa.jpf.vm.ThreadInfo;
@@ -26,7 +27,7 @@ import gov.nasa.jpf.vm.ThreadInfo;
  * Load float from local variable
  * ... => ..., value
  */
-public class FLOAD extends JVMLocalVariableInstruction {
+public class FLOAD extends JVMLocalVariableInstruction implements FusableInstruction {
 
   public FLOAD(int localVarIndex){
     super(localVarIndex);
@@ -17,6 +17,7 @@
  */
 package gov.nasa.jpf.jvm.bytecode;
 
+import gov.nasa.jpf.vm.bytecode.FusableInstruction;
 import gov.nasa.jpf.vm.bytecode.StoreInstruction;
 import gov.nasa.jpf.vm.Instruction;
 import gov.nasa.jpf.vm.StackFrame;
@@ -27,7 +28,7 @@ import gov.nasa.jpf.vm.ThreadInfo;
  * Store float into local variable
  * ..., value => ...
  */
-public class FSTORE extends JVMLocalVariableInstruction implements StoreInstruction {
+public class FSTORE extends JVMLocalVariableInstruction implements StoreInstruction, FusableInstruction {
 
   public FSTORE(int localVarIndex) {
     super(localVarIndex);
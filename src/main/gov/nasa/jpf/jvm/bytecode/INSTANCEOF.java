@@ -17,9 +17,13 @@
  */
 package gov.nasa.jpf.jvm.bytecode;
 
+import gov.nasa.jpf.vm.ClassInfo;
+import gov.nasa.jpf.vm.ClassLoaderInfo;
+import gov.nasa.jpf.vm.ElementInfo;
 import gov.nasa.jpf.vm.Instruction;
 import gov.nasa.jpf.vm.LoadOnJPFRequired;
 import gov.nasa.jpf.vm.MJIEnv;
+import gov.nasa.jpf.vm.MethodInfo;
 import gov.nasa.jpf.vm.StackFrame;
 import gov.nasa.jpf.vm.ThreadInfo;
 import gov.nasa.jpf.vm.Types;
@@ -32,6 +36,12 @@ import gov.nasa.jpf.vm.Types;
 public class INSTANCEOF extends Instruction implements JVMInstruction {
   private String typeSignature;
 
+  // resolution caches - the referenced class is resolved by the class loader
+  // of our method, the (non-array) type by the one of the object class
+  boolean isResolved;
+  ClassLoaderInfo targetCl;
+  ClassInfo targetCi;
+
 
   /**
    * typeName is of a/b/C notation
@@ -42,7 +52,7 @@ public class INSTANCEOF extends Instruction implements JVMInstruction {
 
   @Override
   public Instruction execute (ThreadInfo ti) {
-    if(Types.isReferenceSignature(typeSignature)) {
+    if(!isResolved && Types.isReferenceSignature(typeSignature)) {
       String t;
       if(Types.isArray(typeSignature)) {
         // retrieve the component terminal
@@ -57,6 +67,7 @@ public class INSTANCEOF extends Instruction implements JVMInstruction {
       } catch(LoadOnJPFRequired lre) {
         return ti.getPC();
       }
+      isResolved = true;
     }
 
     StackFrame frame = ti.getModifiableTopFrame();
@@ -64,7 +75,7 @@ public class INSTANCEOF extends Instruction implements JVMInstruction {
 
     if (objref == MJIEnv.NULL) {
       frame.push(0);
-    } else if (ti.getElementInfo(objref).instanceOf(typeSignature)) {
+    } else if (isInstanceOf(ti.getElementInfo(objref))) {
       frame.push(1);
     } else {
       frame.push(0);
@@ -73,6 +84,35 @@ public class INSTANCEOF extends Instruction implements JVMInstruction {
     return getNext(ti);
   }
   
+  protected boolean isInstanceOf (ElementInfo ei) {
+    if (typeSignature.charAt(0) == 'L') {
+      ClassInfo eci = ei.getClassInfo();
+      ClassLoaderInfo cl = eci.getClassLoaderInfo();
+
+      if (targetCi == null || cl != targetCl) {
+        targetCi = cl.getResolvedClassInfo( Types.getTypeName(typeSignature));
+        targetCl = cl;
+      }
+
+      return eci.isInstanceOf(targetCi);
+
+    } else {
+      return ei.instanceOf(typeSignature);
+    }
+  }
+
+  @Override
+  public Instruction typeSafeClone(MethodInfo mi) {
+    INSTANCEOF clone = (INSTANCEOF) super.typeSafeClone(mi);
+
+    // the clone belongs to a different ClassInfo, i.e. might use a different class loader
+    clone.isResolved = false;
+    clone.targetCl = null;
+    clone.targetCi = null;
+
+    return clone;
+  }
+
   public String getType() {
 	  return typeSignature;
   }
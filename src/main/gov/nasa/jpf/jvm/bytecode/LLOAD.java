@@ -17,6 +17,7 @@
  */
 package gov.nasa.jpf.jvm.bytecode;
 
+import gov.nasa.jpf.vm.bytecode.FusableInstruction;
 import gov.nasa.jpf.vm.Instruction;
 import gov.nasa.jpf.vm.StackFrame;
 import gov.nasa.jpf.vm.ThreadInfo;
@@ -26,7 +27,7 @@ import gov.nasa.jpf.vm.ThreadInfo;
  * Load long from local variable
  * ... => ..., value
  */
-public class LLOAD extends JVMLocalVariableInstruction {
+public class LLOAD extends JVMLocalVariableInstruction implements FusableInstruction {
 
   public LLOAD(int localVarIndex){
     super(localVarIndex);
@@ -17,6 +17,7 @@
  */
 package gov.nasa.jpf.jvm.bytecode;
 
+import gov.nasa.jpf.vm.bytecode.FusableInstruction;
 import gov.nasa.jpf.vm.bytecode.StoreInstruction;
 import gov.nasa.jpf.vm.Instruction;
 import gov.nasa.jpf.vm.StackFrame;
@@ -27,7 +28,7 @@ import gov.nasa.jpf.vm.ThreadInfo;
  * Store long into local variable
  * ..., value => ...
  */
-public class LSTORE extends JVMLocalVariableInstruction implements StoreInstruction {
+public class LSTORE extends JVMLocalVariableInstruction implements StoreInstruction, FusableInstruction {
 
   public LSTORE(int localVarIndex){
     super(localVarIndex);
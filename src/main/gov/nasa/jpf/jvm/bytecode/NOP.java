@@ -17,6 +17,7 @@
  */
 package gov.nasa.jpf.jvm.bytecode;
 
+import gov.nasa.jpf.vm.bytecode.FusableInstruction;
 import gov.nasa.jpf.vm.Instruction;
 import gov.nasa.jpf.vm.ThreadInfo;
 
@@ -25,7 +26,7 @@ import gov.nasa.jpf.vm.ThreadInfo;
  * Do nothing
  *    No change
  */
-public class NOP extends Instruction implements JVMInstruction {
+public class NOP extends Instruction implements JVMInstruction, FusableInstruction {
   
   public NOP () {
     // nothing to do
@@ -37,6 +37,19 @@ public abstract class VirtualInvocation extends InstanceInvocation {
   
   ClassInfo lastCalleeCi; // cached for performance
 
+  // the per call site polymorphic inline cache, keyed by receiver ClassInfo
+  // identity. Once it is full, the call site is megamorphic and we go to the
+  // dispatch table of the receiver class (ClassInfo.getVirtualMethod())
+  static final int PIC_SIZE = 4;
+
+  ClassInfo[] picClasses;
+  MethodInfo[] picMethods;
+  int[] picVersions; // methodVersion of the callee class when we cached it
+
+  // set once we are linked
+  int selectorId = -1;
+  MethodInfo privateCallee; // private method of the calling class with our name, or null
+
   protected VirtualInvocation () {}
 
   protected VirtualInvocation (String clsDescriptor, String methodName, String signature){
@@ -153,54 +166,114 @@ public abstract class VirtualInvocation extends InstanceInvocation {
   public MethodInfo getInvokedMethod (ThreadInfo ti, int objRef) {
 
     if (objRef != MJIEnv.NULL) {
-      // First check if the method to be called is private.
-      // It is a private method call if and only if:
-      //   1. receiver is a instance of current class (the class that current PC resides in)
-      //   2. callee method is declared in current class
-      //   3. called method is private
-      ClassInfo receiverClass = ti.getClassInfo(objRef);
-      ClassInfo currentClass = ti.getPC().getMethodInfo().getClassInfo();
-      boolean isReceiverInstanceOfCurrentClass = (receiverClass.getSuperClass(currentClass.getName()) != null);
-      if (isReceiverInstanceOfCurrentClass) {
-        MethodInfo calleeMethod = currentClass.getMethod(mname, false);
-        if (calleeMethod != null && calleeMethod.isPrivate()) {
-          invokedMethod = calleeMethod;
-          lastCalleeCi = currentClass;
-          lastObj = objRef;
-          return invokedMethod;
+      ClassInfo cci = ti.getClassInfo(objRef);
+
+      if (selectorId < 0) {
+        link(ti);
+      }
+
+      MethodInfo callee = getCachedMethod(cci);
+      if (callee == null) {
+        callee = resolveMethod(cci);
+        if (callee != null) {
+          cacheMethod(cci, callee);
         }
       }
 
-      lastObj = objRef;
+      if (callee != null) {
+        invokedMethod = callee;
+        lastCalleeCi = (callee == privateCallee) ? callee.getClassInfo() : cci;
+        lastObj = objRef;
+      } else {
+        invokedMethod = null;
+        lastCalleeCi = null;
+        lastObj = MJIEnv.NULL;
+      }
 
-      ClassInfo cci = ti.getClassInfo(objRef);
+    } else {
+      lastObj = MJIEnv.NULL;
+      lastCalleeCi = null;
+      invokedMethod = null;
+    }
 
-      if (lastCalleeCi != cci) { // callee ClassInfo has changed
-        lastCalleeCi = cci;
-        invokedMethod = cci.getMethod(mname, true);
+    return invokedMethod;
+  }
 
-        if (invokedMethod == null) {
-          invokedMethod = cci.getDefaultMethod(mname);
+  /**
+   * the receiver independent part of the method lookup, which we only do once
+   */
+  protected void link (ThreadInfo ti) {
+    ClassInfo currentClass = (mi != null) ? mi.getClassInfo() : ti.getPC().getMethodInfo().getClassInfo();
 
-          if (invokedMethod == null) {
-            // We might be looking for a method with signature Object instead of specific class.
-            invokedMethod = cci.getMethod(generalizeName(mname), true);
-          }
+    MethodInfo calleeMethod = currentClass.getMethod(mname, false);
+    if (calleeMethod != null && calleeMethod.isPrivate()) {
+      privateCallee = calleeMethod;
+    }
+
+    selectorId = ti.getVM().getSelectorId(mname);
+  }
 
-          if (invokedMethod == null) {
-            lastObj = MJIEnv.NULL;
-            lastCalleeCi = null;
+  protected MethodInfo getCachedMethod (ClassInfo cci) {
+    ClassInfo[] classes = picClasses;
+
+    if (classes != null) {
+      for (int i = 0; i < classes.length; i++) {
+        ClassInfo ci = classes[i];
+        if (ci == cci) {
+          MethodInfo callee = picMethods[i];
+          if (callee.getClassInfo().getMethodVersion() == picVersions[i]) {
+            return callee;
           }
+          return null; // callee got replaced or overridden, cacheMethod() updates the entry
+        } else if (ci == null) {
+          break;
         }
       }
+    }
 
-    } else {
-      lastObj = MJIEnv.NULL;
-      lastCalleeCi = null;
-      invokedMethod = null;
+    return null;
+  }
+
+  protected void cacheMethod (ClassInfo cci, MethodInfo callee) {
+    if (picClasses == null) {
+      picClasses = new ClassInfo[PIC_SIZE];
+      picMethods = new MethodInfo[PIC_SIZE];
+      picVersions = new int[PIC_SIZE];
     }
 
-    return invokedMethod;
+    for (int i = 0; i < PIC_SIZE; i++) {
+      ClassInfo ci = picClasses[i];
+      if (ci == null || ci == cci) {
+        picMethods[i] = callee;
+        picVersions[i] = callee.getClassInfo().getMethodVersion();
+        picClasses[i] = cci;
+        return;
+      }
+    }
+    // megamorphic, we only use the dispatch table of the receiver class
+  }
+
+  /**
+   * the full method lookup for a receiver class that is not in our inline cache
+   */
+  protected MethodInfo resolveMethod (ClassInfo cci) {
+    // It is a private method call if and only if:
+    //   1. receiver is a instance of current class (the class that current PC resides in)
+    //   2. callee method is declared in current class
+    //   3. called method is private
+    // (2) and (3) are receiver independent and were checked in link()
+    if (privateCallee != null && cci.isInstanceOf(privateCallee.getClassInfo())) {
+      return privateCallee; // constant time check through the super class display
+    }
+
+    MethodInfo callee = cci.getVirtualMethod(selectorId, mname);
+
+    if (callee == null) {
+      // We might be looking for a method with signature Object instead of specific class.
+      callee = cci.getMethod(generalizeName(mname), true);
+    }
+
+    return callee;
   }
 
   protected String generalizeName(String mname) {
@@ -240,6 +313,12 @@ public abstract class VirtualInvocation extends InstanceInvocation {
 
       clone.lastCalleeCi = null;
       clone.invokedMethod = null;
+
+      clone.picClasses = null;
+      clone.picMethods = null;
+      clone.picVersions = null;
+      clone.selectorId = -1;
+      clone.privateCallee = null;
     } catch (CloneNotSupportedException e) {
       e.printStackTrace();
     }
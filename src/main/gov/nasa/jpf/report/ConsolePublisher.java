@@ -20,12 +20,14 @@ package gov.nasa.jpf.report;
 import gov.nasa.jpf.Config;
 import gov.nasa.jpf.Error;
 import gov.nasa.jpf.util.Left;
+import gov.nasa.jpf.vm.ApproximateStateSet;
 import gov.nasa.jpf.vm.ClassInfo;
 import gov.nasa.jpf.vm.ClassLoaderInfo;
 import gov.nasa.jpf.vm.Instruction;
 import gov.nasa.jpf.vm.VM;
 import gov.nasa.jpf.vm.MethodInfo;
 import gov.nasa.jpf.vm.Path;
+import gov.nasa.jpf.vm.StateSet;
 import gov.nasa.jpf.vm.Step;
 import gov.nasa.jpf.vm.Transition;
 
@@ -368,6 +370,12 @@ public class ConsolePublisher extends Publisher {
     pw.println("elapsed time:       " + formatHMS(reporter.getElapsedTime()));
     pw.println("states:             new=" + stat.newStates + ",visited=" + stat.visitedStates
             + ",backtracked=" + stat.backtracked + ",end=" + stat.endStates);
+    StateSet stateSet = reporter.getVM().getStateSet();
+    if (stateSet instanceof ApproximateStateSet){
+      ApproximateStateSet approx = (ApproximateStateSet)stateSet;
+      pw.printf("bitstate:           hashFactor=%.1f,omissionProbability=%.3g%n",
+                approx.getHashFactor(), approx.getOmissionProbability());
+    }
     pw.println("search:             maxDepth=" + stat.maxDepth + ",constraints=" + stat.constraints);
     pw.println("choice generators:  thread=" + stat.threadCGs
             + " (signal=" + stat.signalCGs + ",lock=" + stat.monitorCGs + ",sharedRef=" + stat.sharedAccessCGs
@@ -93,10 +93,6 @@ public class Statistics extends ListenerAdapter implements Cloneable {
     gcCycles++;
   }
   
-  @Override
-  public void instructionExecuted (VM vm, ThreadInfo ti, Instruction nextInsn, Instruction executedInsn){
-    insns++;
-  }
 
   @Override
   public void choiceGeneratorSet (VM vm, ChoiceGenerator<?> newCG){
@@ -144,8 +140,18 @@ public class Statistics extends ListenerAdapter implements Cloneable {
     nReleasedObjects++;
   }
   
+  // we don't count instructions with instructionExecuted() since that would
+  // be the only reason for a per-instruction listener notification. We sample
+  // the VM counter instead, which also has to happen when the search ends
+  // without advancing the state (e.g. after a backtrack or property violation)
+  protected void updateInsns (Search search){
+    insns = search.getVM().getExecutedInstructions();
+  }
+
   @Override
   public void stateAdvanced (Search search){
+    updateInsns(search);
+    
     long m = Runtime.getRuntime().totalMemory();
     if (m > maxUsed) {
       maxUsed = m;
@@ -185,4 +191,14 @@ public class Statistics extends ListenerAdapter implements Cloneable {
     constraints++;
   }
 
+  @Override
+  public void propertyViolated (Search search){
+    updateInsns(search);
+  }
+
+  @Override
+  public void searchFinished (Search search){
+    updateInsns(search);
+  }
+
 }
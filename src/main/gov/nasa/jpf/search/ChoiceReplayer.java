@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ *        http://www.apache.org/licenses/LICENSE-2.0. 
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package gov.nasa.jpf.search;
+
+import gov.nasa.jpf.ListenerAdapter;
+import gov.nasa.jpf.vm.ChoiceGenerator;
+import gov.nasa.jpf.vm.VM;
+
+/**
+ * a VMListener that re-creates a state by forcing the choices of a choice
+ * trace, i.e. the choice indices of all ChoiceGenerators on the path from
+ * the state where the replay starts.
+ *
+ * Searches use this to store states as (compact) choice traces instead of
+ * RestorableVMStates, at the cost of re-executing the replayed transitions.
+ * Note that host side effects of those transitions (native peers, console
+ * output) are repeated
+ */
+public class ChoiceReplayer extends ListenerAdapter {
+
+  int[] trace;
+  int idx;
+  int end;
+
+  /**
+   * answer the choice trace of the current state, i.e. the choice indices
+   * of all ChoiceGenerators on the current path
+   */
+  public static int[] getChoiceTrace (VM vm) {
+    ChoiceGenerator<?>[] cgs = vm.getChoiceGenerators();
+    if (cgs == null) { // root state
+      return new int[0];
+    }
+
+    int[] trace = new int[cgs.length];
+    for (int i = 0; i < cgs.length; i++) {
+      trace[i] = cgs[i].getProcessedNumberOfChoices() - 1;
+    }
+    return trace;
+  }
+
+  /**
+   * force the choices trace[from]..trace[to-1] for the next ChoiceGenerator advances
+   */
+  public void start (int[] trace, int from, int to) {
+    if (from < to) {
+      this.trace = trace;
+      this.idx = from;
+      this.end = to;
+    } else {
+      this.trace = null;
+    }
+  }
+
+  public void start (int[] trace) {
+    start(trace, 0, trace.length);
+  }
+
+  public void stop () {
+    trace = null;
+  }
+
+  public boolean isReplaying () {
+    return trace != null;
+  }
+
+  /**
+   * index of the next trace entry to replay
+   */
+  public int getNextIndex () {
+    return (trace != null) ? idx : end;
+  }
+
+  /**
+   * replay trace[from]..trace[to-1] by executing transitions. This does not
+   * cause any search notifications. Answers false if the trace could not be
+   * replayed, i.e. a transition did not execute
+   */
+  public boolean replay (VM vm, int[] trace, int from, int to) {
+    start(trace, from, to);
+
+    while (this.trace != null) {
+      if (!vm.forward()) {
+        stop();
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public void choiceGeneratorAdvanced (VM vm, ChoiceGenerator<?> cg) {
+    if (trace != null) {
+      cg.select(trace[idx++]);
+      if (idx == end) {
+        trace = null;
+      }
+    }
+  }
+}
@@ -0,0 +1,495 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.nasa.jpf.search;
+
+import gov.nasa.jpf.Config;
+import gov.nasa.jpf.IsolatingClassLoader;
+import gov.nasa.jpf.JPFConfigException;
+import gov.nasa.jpf.JPFException;
+import gov.nasa.jpf.report.Reporter;
+import gov.nasa.jpf.vm.ChoiceGenerator;
+import gov.nasa.jpf.vm.ConcurrentStateSet;
+import gov.nasa.jpf.vm.RestorableVMState;
+import gov.nasa.jpf.vm.StateSet;
+import gov.nasa.jpf.vm.SystemState;
+import gov.nasa.jpf.vm.VM;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * a depth first search that splits the state space into work items which are
+ * processed by a number of workers ('search.parallel.workers') on their own
+ * threads.
+ *
+ * A work item is a choice trace, i.e. the choice indices of all ChoiceGenerators
+ * on the path from the initial state. Items are kept in a WorkPool, from which
+ * each worker takes its own items depth first and steals the oldest items of
+ * other workers if it runs out of work. A worker turns its item into a program
+ * state by restoring its initial state and replaying the trace, which means we
+ * don't have to keep RestorableVMStates for queued items. The subtree below the
+ * replayed state is then searched with normal DFS backtracking.
+ *
+ * Work is split at non-cascaded ChoiceGenerators with more than one choice:
+ * if the pool holds fewer items than we have workers, the remaining choices
+ * of such a CG are donated as new items, and the CG is marked done so that
+ * we don't backtrack into them locally.
+ *
+ * This search is worker 0 and uses the VM of the JPF instance it belongs to.
+ * All other workers run their own JPF (with its own VM) within an isolated
+ * class space, since VM, heap and current thread are still class space wide
+ * singletons. Workers are configured with the entries of our Config and find
+ * the pool through its 'search.parallel.pool' id. States are matched against
+ * a ConcurrentStateSet table that is shared by all workers, i.e. each state is
+ * only expanded once. Without state matching (no vm.storage.class), workers
+ * just search disjoint subtrees.
+ *
+ * Workers don't report. Property violations they find are passed back as choice
+ * traces, which are replayed by this search once all workers are finished, so
+ * that errors are reported by the normal Search mechanism and
+ * search.multiple_errors keeps its semantics.
+ *
+ * Note that replay re-executes prefix transitions, i.e. host side effects of
+ * those transitions (native peers, console output) are repeated, and that
+ * configured listener classes have to be loadable from the JPF code sources
+ * or the Config class loader.
+ */
+public class ParallelDFSearch extends Search {
+
+  static final long IDLE_NANOS = 50000;
+
+  protected WorkPool pool;
+  protected String poolId; // null if we are a worker
+  protected int workerId;
+
+  protected ConcurrentStateSet stateSet;
+  protected ChoiceReplayer replayer = new ChoiceReplayer();
+  protected RestorableVMState initState;
+
+  protected int nReplayed; // number of replayed transitions
+  protected int nDonated;
+
+  public ParallelDFSearch (Config config, VM vm) {
+    super(config, vm);
+
+    StateSet states = vm.getStateSet();
+    if (states != null) {
+      if (!(states instanceof ConcurrentStateSet)) {
+        throw new JPFConfigException("ParallelDFSearch requires vm.storage.class=gov.nasa.jpf.vm.ConcurrentStateSet");
+      }
+      stateSet = (ConcurrentStateSet) states;
+    }
+
+    String id = config.getString("search.parallel.pool");
+    if (id != null) {
+      pool = WorkPool.get(id);
+      if (pool == null) {
+        throw new JPFConfigException("unknown search.parallel.pool: " + id);
+      }
+      workerId = config.getInt("search.parallel.worker");
+
+      if (stateSet != null) {
+        stateSet.setTable(pool.getStateTable());
+      }
+
+    } else {
+      int n = config.getInt("search.parallel.workers", Runtime.getRuntime().availableProcessors());
+      pool = new WorkPool(Math.max(n, 1), (stateSet != null) ? stateSet.getTable() : null);
+      poolId = WorkPool.register(pool);
+    }
+  }
+
+  public boolean isWorker () {
+    return poolId == null;
+  }
+
+  @Override
+  public void setReporter (Reporter reporter) {
+    if (!isWorker()) { // worker errors are reported by the search that owns the pool
+      super.setReporter(reporter);
+    }
+  }
+
+  @Override
+  public boolean requestBacktrack () {
+    doBacktrack = true;
+    return true;
+  }
+
+  @Override
+  public boolean supportsBacktrack () {
+    return true;
+  }
+
+  public int getNumberOfWorkers () {
+    return pool.getNumberOfWorkers();
+  }
+
+  public int getNumberOfReplayedTransitions () {
+    return nReplayed;
+  }
+
+  /**
+   * VM.isNewState() compares the state id with the state set size before the
+   * add, which does not work if other workers add states concurrently
+   */
+  @Override
+  public boolean isNewState () {
+    SystemState ss = vm.getSystemState();
+
+    if (stateSet == null || !vm.transitionOccurred() || ss.isForced() || ss.isIgnored()) {
+      return vm.isNewState();
+    } else {
+      return stateSet.isNewState();
+    }
+  }
+
+  @Override
+  public void cleanUp () {
+    if (poolId != null) {
+      WorkPool.unregister(poolId);
+    }
+    super.cleanUp();
+  }
+
+  @Override
+  public void search () {
+    vm.addListener(replayer);
+    initState = vm.getRestorableState();
+
+    notifySearchStarted();
+
+    if (isWorker()) {
+      work();
+      pool.addReplayed(nReplayed);
+
+    } else {
+      List<Thread> threads = new ArrayList<Thread>();
+      pool.push(0, new int[0]);
+
+      try {
+        Map<String,String> entries = getWorkerEntries();
+        for (int i = 1; i < pool.getNumberOfWorkers(); i++) {
+          threads.add(startWorker(i, entries));
+        }
+
+        work();
+
+      } finally {
+        pool.stop();
+        for (Thread t : threads) {
+          try {
+            t.join();
+          } catch (InterruptedException ix) {
+            Thread.currentThread().interrupt();
+          }
+        }
+      }
+
+      Throwable failure = pool.getFailure();
+      if (failure != null) {
+        throw new JPFException("parallel search worker failed", failure);
+      }
+
+      pool.addReplayed(nReplayed);
+      replayWorkerErrors();
+
+      log.info("parallel DFS workers: ", pool.getNumberOfWorkers(), ", items: ", pool.getNumberOfItems(),
+               ", stolen: ", pool.getNumberOfStolenItems(), ", replayed transitions: ", pool.getNumberOfReplayedTransitions());
+    }
+
+    vm.removeListener(replayer);
+    log.info("parallel DFS worker ", workerId, " replayed transitions: ", nReplayed, ", donated items: ", nDonated);
+
+    notifySearchFinished();
+  }
+
+  protected boolean isTerminated () {
+    return done || pool.isDone();
+  }
+
+  /**
+   * the worker loop, which processes items until there are no pending items left
+   */
+  protected void work () {
+    boolean isFirst = true;
+
+    while (!isTerminated()) {
+      int[] trace = pool.poll(workerId);
+
+      if (trace != null) {
+        if (!isFirst) {
+          vm.restoreState(initState);
+          depth = 0;
+          notifyStateRestored();
+        }
+        isFirst = false;
+
+        try {
+          explore(trace);
+        } finally {
+          pool.itemFinished();
+        }
+
+      } else if (pool.hasPendingItems()) {
+        LockSupport.parkNanos(IDLE_NANOS); // somebody else might still donate
+
+      } else {
+        break;
+      }
+    }
+  }
+
+  /**
+   * the entries of our Config, to be used by the workers we start
+   */
+  protected Map<String,String> getWorkerEntries () {
+    Map<String,String> entries = new HashMap<String,String>();
+    for (Map.Entry<Object,Object> e : config.entrySet()) {
+      entries.put((String)e.getKey(), (String)e.getValue());
+    }
+    entries.put("search.parallel.pool", poolId);
+    return entries;
+  }
+
+  protected IsolatingClassLoader createWorkerClassSpace () {
+    ClassLoader parent = config.getClassLoader();
+    List<URL> urls = new ArrayList<URL>(Arrays.asList(
+        IsolatingClassLoader.getJPFCodeSourceURLs(parent, vm.getClass(), getClass())));
+
+    if (parent instanceof URLClassLoader) { // extensions
+      for (URL url : ((URLClassLoader)parent).getURLs()) {
+        if (!urls.contains(url)) {
+          urls.add(url);
+        }
+      }
+    }
+
+    return new IsolatingClassLoader(urls.toArray(new URL[urls.size()]), parent);
+  }
+
+  protected Thread startWorker (final int id, Map<String,String> entries) {
+    final Map<String,String> workerEntries = new HashMap<String,String>(entries);
+    workerEntries.put("search.parallel.worker", Integer.toString(id));
+
+    Thread t = new Thread("search-worker-" + id) {
+      @Override
+      public void run () {
+        try {
+          IsolatingClassLoader cl = createWorkerClassSpace();
+          cl.invokeStatic("gov.nasa.jpf.JPF", "runIsolated", new Class<?>[] { Map.class }, workerEntries);
+        } catch (Throwable x) {
+          pool.fail(x);
+        }
+      }
+    };
+
+    t.setDaemon(true);
+    t.start();
+    return t;
+  }
+
+  /**
+   * reproduce the property violations that were found by other workers, which
+   * we can only report from this VM
+   */
+  protected void replayWorkerErrors () {
+    for (int[] trace : pool.getErrorTraces()) {
+      if (done) { // not search.multiple_errors, we already have one
+        break;
+      }
+
+      vm.restoreState(initState);
+      depth = 0;
+      notifyStateRestored();
+
+      replayer.start(trace);
+      do {
+        if (!forward()) {
+          break;
+        }
+        depth++;
+
+        if (currentError != null) {
+          notifyPropertyViolated();
+          hasPropertyTermination();
+          break;
+        }
+      } while (replayer.isReplaying());
+
+      if (currentError == null) {
+        replayer.stop();
+        log.warning("failed to reproduce worker error for choice trace ", Arrays.toString(trace));
+      }
+    }
+  }
+
+  /**
+   * replay all but the last choice of the trace without search notifications.
+   * The last choice is the donated one, which explore() executes as a normal
+   * forward with notifications and state matching
+   */
+  protected boolean replayPrefix (int[] trace) {
+    replayer.start(trace);
+
+    while (replayer.getNextIndex() < trace.length - 1) {
+      if (!vm.forward()) {
+        log.warning("replay of work item failed at choice ", replayer.getNextIndex());
+        replayer.stop();
+        return false;
+      }
+      nReplayed++;
+    }
+
+    depth = vm.getPathLength();
+    return true;
+  }
+
+  /**
+   * search the subtree of a work item, which is the DFSearch loop that stops
+   * once we would have to backtrack above the item root
+   */
+  protected void explore (int[] trace) {
+    int baseDepth = 0;
+    boolean depthLimitReached = false;
+    boolean needForward = true;
+
+    if (trace.length > 0) {
+      if (!replayPrefix(trace)) {
+        return;
+      }
+      baseDepth = depth;
+
+      // the donated transition
+      if (!forward()) {
+        notifyStateProcessed();
+        return;
+      }
+      depth++;
+      notifyStateAdvanced();
+
+      if (!checkForward()) {
+        return;
+      }
+      if (depth >= depthLimit) {
+        depthLimitReached = true;
+        notifySearchConstraintHit("depth limit reached: " + depthLimit);
+      }
+      needForward = false;
+    }
+
+    while (!isTerminated()) {
+      if (!needForward) {
+        if (checkAndResetBacktrackRequest() || !isNewState() || isEndState() || isIgnoredState() || depthLimitReached) {
+          if (depth == baseDepth || !backtrack()) {
+            break; // done with this subtree
+          }
+
+          depthLimitReached = false;
+          depth--;
+          notifyStateBacktracked();
+        }
+      }
+      needForward = false;
+
+      if (forward()) {
+        depth++;
+        notifyStateAdvanced();
+
+        donateChoices();
+
+        if (!checkForward()) {
+          break;
+        }
+        if (depth >= depthLimit) {
+          depthLimitReached = true;
+          notifySearchConstraintHit("depth limit reached: " + depthLimit);
+        }
+
+      } else { // forward did not execute any instructions
+        notifyStateProcessed();
+      }
+    }
+  }
+
+  /**
+   * property and memory checks after a successful forward. Answers false if
+   * the search has to terminate
+   */
+  protected boolean checkForward () {
+    if (currentError != null) {
+      if (isWorker()) {
+        pool.addErrorTrace(ChoiceReplayer.getChoiceTrace(vm));
+      }
+      notifyPropertyViolated();
+
+      if (hasPropertyTermination()) {
+        pool.stop();
+        return false;
+      }
+      // for search.multiple_errors we go on, hasPropertyTermination() requested a backtrack
+    }
+
+    if (!checkStateSpaceLimit()) {
+      notifySearchConstraintHit("memory limit reached: " + minFreeMemory);
+      done = true;
+      pool.stop();
+      return false;
+    }
+
+    return true;
+  }
+
+  /**
+   * if the pool is running low, turn the remaining choices of the CG we just
+   * advanced into work items
+   */
+  protected void donateChoices () {
+    if (pool.getNumberOfQueuedItems() >= pool.getNumberOfWorkers()) {
+      return;
+    }
+
+    ChoiceGenerator<?> cg = vm.getChoiceGenerator();
+    if (cg == null || cg.isDone() || cg.isCascaded() || cg.getCascadedParent() != null) {
+      return;
+    }
+
+    int n = cg.getTotalNumberOfChoices();
+    if (n < 2 || cg.getProcessedNumberOfChoices() != 1) {
+      return;
+    }
+
+    int[] prefix = ChoiceReplayer.getChoiceTrace(vm);
+
+    // push in reverse order so that the owner processes them in choice order
+    for (int j = n - 1; j > 0; j--) {
+      int[] trace = prefix.clone();
+      trace[trace.length - 1] = j;
+      pool.push(workerId, trace);
+      nDonated++;
+    }
+
+    cg.setDone();
+  }
+}
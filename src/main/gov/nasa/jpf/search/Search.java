@@ -400,7 +400,8 @@ public abstract class Search {
    * Performs the actual notification and resets the request, hence this call should only happen from within JPFs main thread
    */
   public void checkAndResetProbeRequest(){
-    if (notifyProbeListeners.compareAndSet(true, false)){
+    // this is called for each instruction, so we avoid the CAS if there is no request
+    if (notifyProbeListeners.get() && notifyProbeListeners.compareAndSet(true, false)){
       notifySearchProbed();
     }
   }
@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.nasa.jpf.search;
+
+import gov.nasa.jpf.vm.ConcurrentStateSet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * the work items, termination state and state table of a ParallelDFSearch.
+ *
+ * Search workers run in their own class spaces (see IsolatingClassLoader), i.e.
+ * the pool is loaded parent first and can only use host VM types and other
+ * shared types. Workers look up their pool by means of the id that is passed
+ * in as 'search.parallel.pool'.
+ *
+ * A work item is a choice trace. Each worker owns a deque of items: it takes
+ * its own items from the tail (depth first order) and steals from the head of
+ * other workers' deques (the oldest, i.e. biggest subtrees). The search is
+ * finished once there are no pending items, i.e. no queued item and no item
+ * that is still processed by a worker.
+ */
+public final class WorkPool {
+
+  static final ConcurrentHashMap<String,WorkPool> pools = new ConcurrentHashMap<String,WorkPool>();
+  static final AtomicInteger nextId = new AtomicInteger();
+
+  public static String register (WorkPool pool) {
+    String id = "pool-" + nextId.incrementAndGet();
+    pools.put(id, pool);
+    return id;
+  }
+
+  public static WorkPool get (String id) {
+    return pools.get(id);
+  }
+
+  public static void unregister (String id) {
+    pools.remove(id);
+  }
+
+  final List<ConcurrentLinkedDeque<int[]>> deques;
+  final ConcurrentStateSet.Table stateTable; // null if we don't match states
+
+  final AtomicInteger nQueued = new AtomicInteger();
+  final AtomicInteger nPending = new AtomicInteger(); // queued + processed items
+
+  final ConcurrentLinkedQueue<int[]> errorTraces = new ConcurrentLinkedQueue<int[]>();
+  volatile boolean done;
+  volatile Throwable failure;
+
+  // statistics
+  final AtomicInteger nItems = new AtomicInteger();
+  final AtomicInteger nStolen = new AtomicInteger();
+  final AtomicLong nReplayed = new AtomicLong();
+
+  public WorkPool (int nWorkers, ConcurrentStateSet.Table stateTable) {
+    deques = new ArrayList<ConcurrentLinkedDeque<int[]>>(nWorkers);
+    for (int i = 0; i < nWorkers; i++) {
+      deques.add(new ConcurrentLinkedDeque<int[]>());
+    }
+    this.stateTable = stateTable;
+  }
+
+  public int getNumberOfWorkers () {
+    return deques.size();
+  }
+
+  public ConcurrentStateSet.Table getStateTable () {
+    return stateTable;
+  }
+
+  public void push (int worker, int[] trace) {
+    nPending.incrementAndGet();
+    nQueued.incrementAndGet();
+    deques.get(worker).addLast(trace);
+  }
+
+  /**
+   * get the next item for this worker, or null if there currently is none.
+   * The caller has to call itemFinished() once it has processed the item
+   */
+  public int[] poll (int worker) {
+    int n = deques.size();
+    int[] trace = deques.get(worker).pollLast();
+
+    if (trace == null) {
+      for (int i = 1; i < n; i++) {
+        trace = deques.get((worker + i) % n).pollFirst();
+        if (trace != null) {
+          nStolen.incrementAndGet();
+          break;
+        }
+      }
+    }
+
+    if (trace != null) {
+      nQueued.decrementAndGet();
+      nItems.incrementAndGet();
+    }
+    return trace;
+  }
+
+  public void itemFinished () {
+    nPending.decrementAndGet();
+  }
+
+  public boolean hasPendingItems () {
+    return nPending.get() > 0;
+  }
+
+  public int getNumberOfQueuedItems () {
+    return nQueued.get();
+  }
+
+  public void stop () {
+    done = true;
+  }
+
+  public boolean isDone () {
+    return done;
+  }
+
+  public void fail (Throwable t) {
+    if (failure == null) {
+      failure = t;
+    }
+    done = true;
+  }
+
+  public Throwable getFailure () {
+    return failure;
+  }
+
+  /**
+   * property violations found by workers that do not report, i.e. have to be
+   * reproduced by the search that owns the pool
+   */
+  public void addErrorTrace (int[] trace) {
+    errorTraces.add(trace);
+  }
+
+  public List<int[]> getErrorTraces () {
+    return new ArrayList<int[]>(errorTraces);
+  }
+
+  public void addReplayed (int n) {
+    nReplayed.addAndGet(n);
+  }
+
+  public int getNumberOfItems () {
+    return nItems.get();
+  }
+
+  public int getNumberOfStolenItems () {
+    return nStolen.get();
+  }
+
+  public long getNumberOfReplayedTransitions () {
+    return nReplayed.get();
+  }
+}
@@ -18,11 +18,16 @@
 package gov.nasa.jpf.search.heuristic;
 
 import gov.nasa.jpf.Config;
+import gov.nasa.jpf.JPFConfigException;
+import gov.nasa.jpf.search.ChoiceReplayer;
 import gov.nasa.jpf.search.Search;
+import gov.nasa.jpf.vm.RestorableVMState;
 import gov.nasa.jpf.vm.VM;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 
 /**
@@ -55,12 +60,45 @@ public abstract class HeuristicSearch extends Search {
    */
   protected boolean isBeamSearch;
 
+  // to re-create states that only have a choice trace
+  protected RestorableVMState initState;
+  protected ChoiceReplayer replayer = new ChoiceReplayer();
+  protected int nReplayed;
+
+  /*
+   * do we queue compact ReplayNodes instead of RestorableVMStates. If so, we
+   * keep the RestorableVMStates of the last expanded parents in a LRU cache,
+   * to bound the replay cost for their siblings
+   */
+  protected boolean useReplayNodes;
+  protected ReplayNode parentNode;
+  protected Map<ReplayNode,RestorableVMState> replayCache;
+  protected int nCacheHits;
+
   
   public HeuristicSearch (Config config, VM vm) {
     super(config, vm);
+
+    // we restore queued states, which are not on the current path
+    if (!vm.getHeap().supportsNonPathRestore()) {
+      throw new JPFConfigException(getClass().getName() + " cannot restore states with vm.heap.class="
+                                   + vm.getHeap().getClass().getName());
+    }
     
     useAstar = config.getBoolean("search.heuristic.astar");
     isBeamSearch = config.getBoolean("search.heuristic.beam_search");
+    
+    useReplayNodes = config.getBoolean("search.heuristic.replay_states", false);
+    if (useReplayNodes) {
+      final int cacheSize = config.getInt("search.heuristic.replay_cache", 256);
+      
+      replayCache = new LinkedHashMap<ReplayNode,RestorableVMState>(cacheSize, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry (Map.Entry<ReplayNode,RestorableVMState> eldest) {
+          return size() > cacheSize;
+        }
+      };
+    }
   }
 
   
@@ -164,16 +202,90 @@ public abstract class HeuristicSearch extends Search {
 
   
   private void restoreState (HeuristicState hState) {    
-    vm.restoreState(hState.getVMState());
+    RestorableVMState vmState = hState.getVMState();
+    ReplayNode node = hState.getReplayNode();
+    
+    if (vmState != null) {
+      vm.restoreState(vmState);
+    } else if (node != null) {
+      replayState(node);
+    } else {
+      replayState(initState, hState.getChoiceTrace(), 0);
+    }
+    
+    if (useReplayNodes) {
+      if (node == null) { // new trie root
+        node = new ReplayNode(null, ChoiceReplayer.getChoiceTrace(vm));
+      }
+      if (vmState == null) {
+        vmState = vm.getRestorableState();
+      }
+      replayCache.put(node, vmState);
+      parentNode = node;
+    }
 
     // note we have to query the depth from the VM because the state is taken from the queue
     // and we have no idea when it was entered there
     depth = vm.getPathLength();
     notifyStateRestored();
   }
+  
+  /**
+   * create a compact handle for the current state, which has to be a child
+   * of the parentState
+   */
+  protected ReplayNode createReplayNode () {
+    return ReplayNode.createChild(parentNode, ChoiceReplayer.getChoiceTrace(vm));
+  }
    
+  /**
+   * re-create a state by replaying its choices from the nearest ancestor
+   * that is still in the replayCache, or from the initial state
+   */
+  protected void replayState (ReplayNode node) {
+    for (ReplayNode n = node; n != null; n = n.getParent()) {
+      RestorableVMState vmState = replayCache.get(n);
+      if (vmState != null) {
+        nCacheHits++;
+        replayState(vmState, node.getChoiceTrace(), n.getLength());
+        return;
+      }
+    }
+    
+    replayState(initState, node.getChoiceTrace(), 0);
+  }
+  
+  /**
+   * re-create a state by restoring the start state and replaying
+   * trace[from]..trace[trace.length-1]
+   */
+  protected void replayState (RestorableVMState start, int[] trace, int from) {
+    vm.restoreState(start);
+    
+    vm.addListener(replayer);
+    if (!replayer.replay(vm, trace, from, trace.length)) {
+      log.warning("replay of choice trace failed at choice ", replayer.getNextIndex());
+    }
+    vm.removeListener(replayer);
+    
+    nReplayed += trace.length - from;
+  }
+  
+  public int getNumberOfReplayedTransitions () {
+    return nReplayed;
+  }
+  
+  public int getNumberOfReplayCacheHits () {
+    return nCacheHits;
+  }
+  
   @Override
   public void search () {
+    
+    initState = vm.getRestorableState();
+    if (useReplayNodes) {
+      parentNode = new ReplayNode(null, new int[0]);
+    }
         
     queueCurrentState();
     notifyStateStored();
@@ -195,6 +307,10 @@ public abstract class HeuristicSearch extends Search {
       }
     }
     
+    if (nReplayed > 0) {
+      log.info("replayed transitions: ", nReplayed, ", replay cache hits: ", nCacheHits);
+    }
+    
     notifySearchFinished();
   }
 
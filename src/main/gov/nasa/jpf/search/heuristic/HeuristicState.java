@@ -30,16 +30,54 @@ public abstract class HeuristicState {
   
   protected RestorableVMState vmState;
   protected int     stateId;
+  
+  // optional choice trace from the initial state, which can be used to
+  // re-create the state if we don't have (or dropped) the vmState
+  protected int[] choiceTrace;
+  
+  // optional compact handle that only stores the choices from the parent state
+  protected ReplayNode replayNode;
     
   public HeuristicState (VM vm) {
     stateId = vm.getStateId();
     vmState = vm.getRestorableState();
   }
   
+  /**
+   * a state that has to be re-created by replaying its choice trace
+   */
+  public HeuristicState (int stateId, int[] choiceTrace) {
+    this.stateId = stateId;
+    this.choiceTrace = choiceTrace;
+  }
+  
+  /**
+   * a state that has to be re-created by replaying the choices of its ReplayNode
+   */
+  public HeuristicState (int stateId, ReplayNode replayNode) {
+    this.stateId = stateId;
+    this.replayNode = replayNode;
+  }
+  
   public RestorableVMState getVMState () {
     return vmState;
   }
   
+  public int[] getChoiceTrace () {
+    if (choiceTrace == null && replayNode != null) {
+      return replayNode.getChoiceTrace();
+    }
+    return choiceTrace;
+  }
+  
+  public void setChoiceTrace (int[] choiceTrace) {
+    this.choiceTrace = choiceTrace;
+  }
+  
+  public ReplayNode getReplayNode () {
+    return replayNode;
+  }
+  
   public int getStateId() {
     return stateId;
   }
@@ -34,6 +34,18 @@ public class PrioritizedState extends HeuristicState implements Comparable<Prior
     this.heuristicValue = heuristicValue;
   }
 
+  public PrioritizedState(int stateId, int heuristicValue, int[] choiceTrace) {
+    super(stateId, choiceTrace);
+    
+    this.heuristicValue = heuristicValue;
+  }
+
+  public PrioritizedState(int stateId, int heuristicValue, ReplayNode replayNode) {
+    super(stateId, replayNode);
+    
+    this.heuristicValue = heuristicValue;
+  }
+
   public int getPriority () {
     return heuristicValue;
   }
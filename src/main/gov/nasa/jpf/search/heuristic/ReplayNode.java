@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ *        http://www.apache.org/licenses/LICENSE-2.0. 
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package gov.nasa.jpf.search.heuristic;
+
+import java.util.Arrays;
+
+/**
+ * a compact handle for a queued state, which only stores the choice indices
+ * of the transition that leads from its parent state to this state. Nodes form a
+ * trie over choice traces in which each edge covers all ChoiceGenerators of a
+ * transition (i.e. chains of states that were not queued are compressed into
+ * a single edge), and the choice trace of a state is the concatenation of the
+ * edges from the root.
+ *
+ * The VM state is re-created by replaying the trace from the nearest ancestor
+ * we still have a RestorableVMState for (see HeuristicSearch)
+ */
+public class ReplayNode {
+
+  protected final ReplayNode parent;
+  protected final int[] choices;
+  protected final int length;  // length of the choice trace up to and including this node
+
+  public ReplayNode (ReplayNode parent, int[] choices) {
+    this.parent = parent;
+    this.choices = choices;
+    this.length = (parent != null) ? parent.length + choices.length : choices.length;
+  }
+
+  /**
+   * create a child node from the full choice trace of a successor state
+   */
+  public static ReplayNode createChild (ReplayNode parent, int[] trace) {
+    int from = (parent != null) ? parent.length : 0;
+    return new ReplayNode(parent, Arrays.copyOfRange(trace, from, trace.length));
+  }
+
+  public ReplayNode getParent() {
+    return parent;
+  }
+
+  public int getLength() {
+    return length;
+  }
+
+  public int[] getChoiceTrace () {
+    int[] trace = new int[length];
+    for (ReplayNode n = this; n != null; n = n.parent) {
+      System.arraycopy(n.choices, 0, trace, n.length - n.choices.length, n.choices.length);
+    }
+    return trace;
+  }
+
+  @Override
+  public String toString() {
+    return "ReplayNode" + Arrays.toString(getChoiceTrace());
+  }
+}
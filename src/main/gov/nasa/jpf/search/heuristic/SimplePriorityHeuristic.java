@@ -19,6 +19,7 @@
 package gov.nasa.jpf.search.heuristic;
 
 import gov.nasa.jpf.Config;
+import gov.nasa.jpf.search.ChoiceReplayer;
 import gov.nasa.jpf.util.Predicate;
 import gov.nasa.jpf.vm.ThreadInfo;
 import gov.nasa.jpf.vm.VM;
@@ -26,17 +27,28 @@ import gov.nasa.jpf.vm.VM;
 /**
  * a heuristic that is based on static priorities that are determined
  * at state storage time
+ *
+ * if 'search.heuristic.spill' is set, states that exceed the queue limit
+ * are not dropped but spilled to disk as choice traces (see SpillingPriorityQueue)
  */
 public abstract class SimplePriorityHeuristic extends HeuristicSearch {
 
   StaticPriorityQueue queue;
   
+  // do we have to record choice traces for spilled states
+  protected boolean isSpilling;
+  
   protected Predicate<ThreadInfo> aliveThread;
   
   public SimplePriorityHeuristic (Config config, VM vm) {
     super(config,vm);
 
-    queue = new StaticPriorityQueue(config);
+    isSpilling = config.getBoolean("search.heuristic.spill", false);
+    if (isSpilling) {
+      queue = new SpillingPriorityQueue(config);
+    } else {
+      queue = new StaticPriorityQueue(config);
+    }
     
     aliveThread = new Predicate<ThreadInfo>() {
       @Override
@@ -71,7 +83,15 @@ public abstract class SimplePriorityHeuristic extends HeuristicSearch {
       }
     }
     
-    PrioritizedState hState = new PrioritizedState(vm,heuristicValue);
+    PrioritizedState hState;
+    if (useReplayNodes) {
+      hState = new PrioritizedState(vm.getStateId(), heuristicValue, createReplayNode());
+    } else {
+      hState = new PrioritizedState(vm,heuristicValue);
+      if (isSpilling) {
+        hState.setChoiceTrace(ChoiceReplayer.getChoiceTrace(vm));
+      }
+    }
     
     queue.add(hState);
     
@@ -80,20 +100,10 @@ public abstract class SimplePriorityHeuristic extends HeuristicSearch {
   
   @Override
   protected HeuristicState getNextQueuedState () {
-    
-    //HeuristicState hState = queue.pollFirst();  // only Java 1.6
-    //if (isBeanSearch) { queue.clear(); }
-    //return hState;
-
-    if (queue.size() == 0) {                      // the dreaded Java 1.5 version
-      return null;
-    }
-    HeuristicState hState = queue.first();
+    HeuristicState hState = queue.pollFirst();
     
     if (isBeamSearch) {
       queue.clear();
-    } else {
-      queue.remove(hState);      
     }
     
     return hState;
@@ -101,6 +111,9 @@ public abstract class SimplePriorityHeuristic extends HeuristicSearch {
 
   @Override
   public int getQueueSize() {
+    if (isSpilling) {
+      return ((SpillingPriorityQueue)queue).getTotalSize();
+    }
     return queue.size();
   }
   
@@ -0,0 +1,285 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.nasa.jpf.search.heuristic;
+
+import gov.nasa.jpf.Config;
+import gov.nasa.jpf.JPFException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * a StaticPriorityQueue that does not drop states once 'search.heuristic.queue_limit'
+ * is reached, but spills the lower priority half of the queue to disk.
+ *
+ * Spilled states are stored as sorted runs of (priority, stateId, choice trace)
+ * records in temp files within 'search.heuristic.spill_dir', and are re-created
+ * by the search by replaying their choice trace from the initial state. Choice
+ * indices are stored as variable length ints, i.e. usually take one byte per
+ * transition. The next state is the minimum of the in-memory head and all run
+ * heads. If there are too many runs, we merge them into a single one.
+ *
+ * This only works if queued states carry their choice trace (see
+ * SimplePriorityHeuristic)
+ */
+@SuppressWarnings("serial")
+public class SpillingPriorityQueue extends StaticPriorityQueue {
+
+  static final int MAX_RUNS = 16;
+
+  /**
+   * a sorted sequence of spilled states, with the first one preloaded
+   */
+  static class Run {
+    File file;
+    DataInputStream in;
+    PrioritizedState head;
+    int remaining;
+
+    Run (File file, int size) throws IOException {
+      this.file = file;
+      remaining = size;
+      in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+      advance();
+    }
+
+    void advance () throws IOException {
+      if (remaining > 0) {
+        head = read(in);
+        remaining--;
+      } else {
+        head = null;
+        close();
+      }
+    }
+
+    void close () {
+      try {
+        in.close();
+      } catch (IOException iox) {
+        // nothing we can do
+      }
+      file.delete();
+    }
+  }
+
+  File spillDir;
+  ArrayList<Run> runs = new ArrayList<Run>();
+  int nSpilled;       // currently spilled states
+  int nTotalSpilled;  // states that were written, including merges
+
+  public SpillingPriorityQueue (Config config) {
+    super(config);
+
+    String dir = config.getString("search.heuristic.spill_dir");
+    spillDir = (dir != null) ? new File(dir) : new File(System.getProperty("java.io.tmpdir"));
+    if (!spillDir.isDirectory() && !spillDir.mkdirs()) {
+      throw new JPFException("cannot create spill directory: " + spillDir);
+    }
+  }
+
+  //--- the record format
+
+  static void writeVarInt (DataOutputStream out, int v) throws IOException {
+    while ((v & ~0x7f) != 0) {
+      out.writeByte((v & 0x7f) | 0x80);
+      v >>>= 7;
+    }
+    out.writeByte(v);
+  }
+
+  static int readVarInt (DataInputStream in) throws IOException {
+    int v = 0;
+    for (int shift = 0; ; shift += 7) {
+      int b = in.readByte();
+      v |= (b & 0x7f) << shift;
+      if ((b & 0x80) == 0) {
+        return v;
+      }
+    }
+  }
+
+  static void write (DataOutputStream out, PrioritizedState s) throws IOException {
+    int[] trace = s.getChoiceTrace();
+    if (trace == null) {
+      throw new JPFException("cannot spill state without choice trace: " + s);
+    }
+
+    out.writeInt(s.heuristicValue);
+    out.writeInt(s.stateId);
+    writeVarInt(out, trace.length);
+    for (int i = 0; i < trace.length; i++) {
+      writeVarInt(out, trace[i] + 1); // choice indices can be -1
+    }
+  }
+
+  static PrioritizedState read (DataInputStream in) throws IOException {
+    int heuristicValue = in.readInt();
+    int stateId = in.readInt();
+    int[] trace = new int[readVarInt(in)];
+    for (int i = 0; i < trace.length; i++) {
+      trace[i] = readVarInt(in) - 1;
+    }
+    return new PrioritizedState(stateId, heuristicValue, trace);
+  }
+
+  //--- spilling
+
+  protected File createRunFile () throws IOException {
+    File f = File.createTempFile("jpf-queue-", ".run", spillDir);
+    f.deleteOnExit();
+    return f;
+  }
+
+  /**
+   * write the lower priority half of the in-memory queue as a new run. We spill
+   * at least one state, otherwise StaticPriorityQueue.add() would drop states
+   * for a queue_limit of 1
+   */
+  protected void spill () {
+    if (isEmpty()) {
+      return;
+    }
+    int n = Math.max(1, size() / 2);
+
+    PrioritizedState[] spilled = new PrioritizedState[n];
+    for (int i = n-1; i >= 0; i--) {
+      spilled[i] = pollLast();
+    }
+
+    try {
+      File f = createRunFile();
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(f)));
+      try {
+        for (PrioritizedState s : spilled) {
+          write(out, s);
+        }
+      } finally {
+        out.close();
+      }
+
+      runs.add(new Run(f, n));
+      nSpilled += n;
+      nTotalSpilled += n;
+
+      if (runs.size() > MAX_RUNS) {
+        mergeRuns();
+      }
+
+    } catch (IOException iox) {
+      throw new JPFException("failed to spill queue: " + iox);
+    }
+  }
+
+  protected Run getMinRun () {
+    Run min = null;
+    for (Run r : runs) {
+      if (r.head != null && (min == null || r.head.compareTo(min.head) < 0)) {
+        min = r;
+      }
+    }
+    return min;
+  }
+
+  protected void mergeRuns () throws IOException {
+    File f = createRunFile();
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(f)));
+    int n = 0;
+
+    try {
+      for (Run r = getMinRun(); r != null; r = getMinRun()) {
+        write(out, r.head);
+        r.advance();
+        n++;
+      }
+    } finally {
+      out.close();
+    }
+
+    runs.clear();
+    runs.add(new Run(f, n));
+    nTotalSpilled += n;
+  }
+
+  //--- the queue interface
+
+  @Override
+  public boolean add (PrioritizedState s) {
+    if (size() >= maxQueueSize) {
+      spill();
+    }
+    return super.add(s);
+  }
+
+  @Override
+  public PrioritizedState pollFirst () {
+    Run r = getMinRun();
+
+    if (r != null && (isEmpty() || r.head.compareTo(first()) < 0)) {
+      PrioritizedState s = r.head;
+      try {
+        r.advance();
+      } catch (IOException iox) {
+        throw new JPFException("failed to read spilled queue: " + iox);
+      }
+      if (r.head == null) {
+        runs.remove(r);
+      }
+      nSpilled--;
+      return s;
+
+    } else {
+      return super.pollFirst();
+    }
+  }
+
+  @Override
+  public void clear () {
+    super.clear();
+
+    for (Run r : runs) {
+      r.close();
+    }
+    runs.clear();
+    nSpilled = 0;
+  }
+
+  @Override
+  public boolean isQueueLimitReached () {
+    return false; // we don't drop states
+  }
+
+  public int getNumberOfSpilledStates () {
+    return nSpilled;
+  }
+
+  public int getTotalNumberOfSpilledStates () {
+    return nTotalSpilled;
+  }
+
+  public int getTotalSize () {
+    return size() + nSpilled;
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ *        http://www.apache.org/licenses/LICENSE-2.0. 
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package gov.nasa.jpf.tool;
+
+import gov.nasa.jpf.Config;
+import gov.nasa.jpf.JPF;
+import gov.nasa.jpf.ListenerAdapter;
+import gov.nasa.jpf.search.Search;
+import gov.nasa.jpf.vm.Instruction;
+import gov.nasa.jpf.vm.ThreadInfo;
+import gov.nasa.jpf.vm.VM;
+
+import java.util.Arrays;
+
+/**
+ * simple benchmark driver that measures raw interpreter throughput (executed
+ * instructions per second) of a JPF run with 0, 1 and 5 listeners attached.
+ * We use two kinds of listeners: 'idle' listeners that only observe search
+ * events (like Statistics or most properties), and 'insn' listeners that
+ * observe instructionExecuted(). The former should not cost anything per
+ * instruction.
+ *
+ * Each configuration is run 'rounds' times (the first one only serves as a
+ * warm up), and we report the best round. Output of the runs is suppressed.
+ *
+ * usage: java gov.nasa.jpf.tool.ListenerBenchmark [-rounds <n>] <jpf args> <app> {<app args>}
+ * e.g.   java gov.nasa.jpf.tool.ListenerBenchmark +classpath=build/examples DiningPhil 4
+ */
+public class ListenerBenchmark {
+
+  public static class IdleListener extends ListenerAdapter {
+    public int nStates;
+
+    @Override
+    public void stateAdvanced (Search search) {
+      nStates++;
+    }
+  }
+
+  public static class InsnListener extends ListenerAdapter {
+    public long nInsns;
+
+    @Override
+    public void instructionExecuted (VM vm, ThreadInfo ti, Instruction nextInsn, Instruction executedInsn) {
+      nInsns++;
+    }
+  }
+
+  static final int[] N_LISTENERS = { 0, 1, 5 };
+
+  static int rounds = 5;
+  static String[] jpfArgs;
+
+  static boolean readOptions (String[] args) {
+    int i = 0;
+    if (args.length > 1 && args[0].equals("-rounds")) {
+      try {
+        rounds = Integer.parseInt(args[1]);
+      } catch (NumberFormatException x) {
+        return false;
+      }
+      i = 2;
+    }
+
+    if (i >= args.length || rounds < 2) {
+      return false;
+    }
+
+    jpfArgs = Arrays.copyOfRange(args, i, args.length);
+    return true;
+  }
+
+  static void showUsage () {
+    System.out.println("usage: java gov.nasa.jpf.tool.ListenerBenchmark [-rounds <n>] <jpf args> <app> {<app args>}");
+    System.out.println("  runs <app> with 0, 1 and 5 listeners and reports instructions per second");
+  }
+
+  static Config createConfig () {
+    Config conf = JPF.createConfig(jpfArgs);
+
+    // we don't want to measure output
+    conf.setProperty("report.console.start", "");
+    conf.setProperty("report.console.finished", "");
+    conf.setProperty("report.console.property_violation", "");
+    conf.setProperty("log.level", "severe");
+
+    return conf;
+  }
+
+  /**
+   * run JPF with n listeners, answers executed instructions per second
+   */
+  static double run (int n, boolean observeInsns) {
+    JPF jpf = new JPF(createConfig());
+    for (int i = 0; i < n; i++) {
+      if (observeInsns) {
+        jpf.addListener(new InsnListener());
+      } else {
+        jpf.addListener(new IdleListener());
+      }
+    }
+
+    long t0 = System.nanoTime();
+    jpf.run();
+    long t = System.nanoTime() - t0;
+
+    return jpf.getVM().getExecutedInstructions() * 1e9 / t;
+  }
+
+  public static void main (String[] args) {
+    if (!readOptions(args)) {
+      showUsage();
+      return;
+    }
+
+    // we interleave the configurations so that they all see the same JIT state.
+    // config 0 is without listeners, then (idle,insn) pairs for each N_LISTENERS > 0
+    int nConfigs = 1 + 2 * (N_LISTENERS.length - 1);
+    double[] best = new double[nConfigs];
+
+    for (int r = 0; r < rounds; r++) {
+      int c = 0;
+      for (int n : N_LISTENERS) {
+        for (int k = 0; k < 2; k++) {
+          if (n == 0 && k == 1) {
+            continue;
+          }
+          double ips = run(n, k == 1);
+          if (r > 0 && ips > best[c]) { // first round is warm up
+            best[c] = ips;
+          }
+          c++;
+        }
+      }
+    }
+
+    System.out.printf("listeners=0:        %,12.0f insn/sec%n", best[0]);
+    for (int i = 1, c = 1; i < N_LISTENERS.length; i++, c += 2) {
+      System.out.printf("listeners=%d idle:   %,12.0f insn/sec (%.2f)%n", N_LISTENERS[i], best[c], best[c] / best[0]);
+      System.out.printf("listeners=%d insn:   %,12.0f insn/sec (%.2f)%n", N_LISTENERS[i], best[c+1], best[c+1] / best[0]);
+    }
+  }
+}
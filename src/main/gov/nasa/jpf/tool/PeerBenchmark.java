@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ *        http://www.apache.org/licenses/LICENSE-2.0. 
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package gov.nasa.jpf.tool;
+
+import gov.nasa.jpf.Config;
+import gov.nasa.jpf.JPF;
+
+import java.util.Arrays;
+
+/**
+ * simple benchmark driver that compares native peer dispatch through
+ * MethodHandles with reflection calls ('vm.peer_method_handles'). This is most
+ * meaningful for apps that spend their time in native peers, such as the
+ * PeerCalls example, which uses the String and atomic peers
+ *
+ * Each configuration is run 'rounds' times (the first one only serves as a
+ * warm up), and we report the best round. Output of the runs is suppressed.
+ *
+ * usage: java gov.nasa.jpf.tool.PeerBenchmark [-rounds <n>] <jpf args> <app> {<app args>}
+ * e.g.   java gov.nasa.jpf.tool.PeerBenchmark +classpath=build/examples PeerCalls 10000
+ */
+public class PeerBenchmark {
+
+  static int rounds = 5;
+  static String[] jpfArgs;
+
+  static boolean readOptions (String[] args) {
+    int i = 0;
+    if (args.length > 1 && args[0].equals("-rounds")) {
+      try {
+        rounds = Integer.parseInt(args[1]);
+      } catch (NumberFormatException x) {
+        return false;
+      }
+      i = 2;
+    }
+
+    if (i >= args.length || rounds < 2) {
+      return false;
+    }
+
+    jpfArgs = Arrays.copyOfRange(args, i, args.length);
+    return true;
+  }
+
+  static void showUsage () {
+    System.out.println("usage: java gov.nasa.jpf.tool.PeerBenchmark [-rounds <n>] <jpf args> <app> {<app args>}");
+    System.out.println("  runs <app> with MethodHandle and reflection peer dispatch and reports run times");
+  }
+
+  static Config createConfig (boolean useMethodHandles) {
+    Config conf = JPF.createConfig(jpfArgs);
+
+    // we don't want to measure output
+    conf.setProperty("report.console.start", "");
+    conf.setProperty("report.console.finished", "");
+    conf.setProperty("report.console.property_violation", "");
+    conf.setProperty("log.level", "severe");
+
+    conf.setProperty("vm.peer_method_handles", Boolean.toString(useMethodHandles));
+
+    return conf;
+  }
+
+  /**
+   * run JPF, answers elapsed nanoseconds
+   */
+  static long run (boolean useMethodHandles, long[] insns) {
+    JPF jpf = new JPF(createConfig(useMethodHandles));
+
+    long t0 = System.nanoTime();
+    jpf.run();
+    long t = System.nanoTime() - t0;
+
+    insns[0] = jpf.getVM().getExecutedInstructions();
+    return t;
+  }
+
+  public static void main (String[] args) {
+    if (!readOptions(args)) {
+      showUsage();
+      return;
+    }
+
+    String[] names = { "reflection", "handles" };
+    long[] best = { Long.MAX_VALUE, Long.MAX_VALUE };
+    long[] insns = new long[1];
+
+    // we interleave the configurations so that they both see the same JIT state
+    for (int r = 0; r < rounds; r++) {
+      for (int c = 0; c < 2; c++) {
+        long t = run(c == 1, insns);
+        if (r > 0 && t < best[c]) { // first round is warm up
+          best[c] = t;
+        }
+      }
+    }
+
+    for (int c = 0; c < 2; c++) {
+      System.out.printf("%-12s %,8d ms  %,12.0f insn/sec (%.2f)%n", names[c] + ':', best[c] / 1000000,
+                        insns[0] * 1e9 / best[c], (double)best[0] / best[c]);
+    }
+  }
+}
@@ -52,6 +52,11 @@ public class RunTest extends Run {
   public static final int QUIET = 0x8;
 
   static final String TESTJPF_CLS = "gov.nasa.jpf.util.test.TestJPF";
+  static final String PARALLEL_RUNNER_CLS = "gov.nasa.jpf.util.test.ParallelTestRunner";
+
+  static boolean parallel;  // run test methods concurrently within isolated class spaces
+  static int nWorkers;      // number of parallel workers, 0 means number of processors
+  static String reportDir;  // where to write JUnit reports of parallel runs
   
   static Config config;
 
@@ -86,6 +91,17 @@ public class RunTest extends Run {
         } else if ("-quiet".equals(a)){
           args[i] = null;
           mask |= QUIET;
+
+        } else if (a.startsWith("-parallel")){
+          args[i] = null;
+          parallel = true;
+          if (a.startsWith("-parallel=")){
+            nWorkers = Integer.parseInt(a.substring(10));
+          }
+
+        } else if (a.startsWith("-report=")){
+          args[i] = null;
+          reportDir = a.substring(8);
         }
       }
     }
@@ -103,6 +119,8 @@ public class RunTest extends Run {
     System.out.println("               | -log : print configuration initialization steps");
     System.out.println("               | -show : print configuration dictionary contents"); 
     System.out.println("               | -quiet : don't show System.out test output");
+    System.out.println("               | -parallel[=<n>] : run test methods concurrently on <n> workers");
+    System.out.println("               | -report=<dir> : write JUnit reports of parallel runs to <dir>");
     System.out.println("               | +<key>=<value>  : add or override <key>/<value> pair to global config");
     System.out.println("               | +test.<key>=<value>  : add or override <key>/<value> pair in test config");
     System.out.println("  <class>      : application class name");
@@ -168,6 +186,11 @@ public class RunTest extends Run {
       return;
     }
     
+    if (parallel){
+      runParallel(cl, testClasses, testArgs, options);
+      return;
+    }
+
     int nTested = 0;
     int nPass = 0;
     
@@ -210,6 +233,42 @@ public class RunTest extends Run {
     System.out.printf("tested classes: %d, passed: %d\n", nTested, nPass);
   }
 
+  /**
+   * the "<key>=<value>" pairs of all "test.<key>" config entries, which are
+   * otherwise retrieved by TestJPF from our config
+   */
+  static String[] getGlobalTestArgs (){
+    String[] testKeys = config.getKeysStartingWith("test.");
+    String[] globalArgs = new String[testKeys.length];
+
+    for (int i=0; i<testKeys.length; i++){
+      globalArgs[i] = testKeys[i].substring(5) + '=' + config.getString(testKeys[i]);
+    }
+
+    return globalArgs;
+  }
+
+  static void runParallel (JPFClassLoader cl, List<Class<?>> testClasses, String[] testArgs, int options){
+    try {
+      Class<?> runnerCls = cl.loadClass(PARALLEL_RUNNER_CLS);
+      Method runTests = runnerCls.getMethod("runTests", List.class, String[].class, String[].class,
+                                            int.class, boolean.class, String.class);
+
+      Boolean passed = (Boolean) runTests.invoke(null, testClasses, testArgs, getGlobalTestArgs(),
+                                                 nWorkers, isOptionEnabled(QUIET, options), reportDir);
+      if (!passed){
+        System.exit(1);
+      }
+
+    } catch (ClassNotFoundException | NoSuchMethodException x) {
+      error("incompatible " + PARALLEL_RUNNER_CLS + " version: " + x);
+    } catch (IllegalAccessException x) {
+      error(x.getMessage());
+    } catch (InvocationTargetException ix) {
+      error(ix.getCause().toString());
+    }
+  }
+
   static Class<?> loadTestClass (JPFClassLoader cl, Class<?> testJpfCls, String testClsName){
     try {
       Class<?> testCls = cl.loadClass(testClsName);
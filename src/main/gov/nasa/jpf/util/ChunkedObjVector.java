@@ -0,0 +1,279 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.nasa.jpf.util;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * an object vector that stores its elements in fixed size chunks, which are
+ * copied on write after a snapshot was taken. Snapshots therefore only have to
+ * copy the chunk table, and share all chunks that did not change since the
+ * previous snapshot, i.e. the per-snapshot cost depends on the number of
+ * modified chunks rather than the number of elements.
+ *
+ * Chunks that were copied (or created) since the last snapshot/restore are
+ * the only ones that can contain elements which were set since then, which
+ * can be used to process just the modified elements.
+ */
+public class ChunkedObjVector<E> implements Iterable<E> {
+
+  public static final int DEFAULT_CHUNK_BITS = 5; // 32 elements per chunk
+
+  /**
+   * the immutable state of a ChunkedObjVector. Chunks are shared between
+   * snapshots and the vector
+   */
+  public static class Snapshot<E> {
+    final Object[][] chunks;
+    final int size;
+
+    Snapshot (Object[][] chunks, int size){
+      this.chunks = chunks;
+      this.size = size;
+    }
+
+    /**
+     * number of chunk table slots, which is what we pay per snapshot
+     * in addition to modified chunks
+     */
+    public int getNumberOfChunks() {
+      return chunks.length;
+    }
+  }
+
+  protected final int chunkBits;
+  protected final int chunkMask;
+
+  protected Object[][] chunks;
+  protected boolean[] owned; // chunk can be modified in place (not shared with snapshots)
+  protected int size;        // max set index + 1
+
+
+  public ChunkedObjVector (int chunkBits){
+    this.chunkBits = chunkBits;
+    this.chunkMask = (1 << chunkBits) -1;
+
+    chunks = new Object[8][];
+    owned = new boolean[8];
+  }
+
+  public ChunkedObjVector (){
+    this(DEFAULT_CHUNK_BITS);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public int getChunkSize() {
+    return chunkMask + 1;
+  }
+
+  @SuppressWarnings("unchecked")
+  public E get (int idx) {
+    int ci = idx >>> chunkBits;
+    if (ci < chunks.length) {
+      Object[] chunk = chunks[ci];
+      if (chunk != null) {
+        return (E) chunk[idx & chunkMask];
+      }
+    }
+    return null;
+  }
+
+  protected Object[] getModifiableChunk (int ci){
+    if (ci >= chunks.length) {
+      int newLength = Math.max(chunks.length * 2, ci + 1);
+      Object[][] newChunks = new Object[newLength][];
+      System.arraycopy(chunks, 0, newChunks, 0, chunks.length);
+      chunks = newChunks;
+
+      boolean[] newOwned = new boolean[newLength];
+      System.arraycopy(owned, 0, newOwned, 0, owned.length);
+      owned = newOwned;
+    }
+
+    Object[] chunk = chunks[ci];
+    if (!owned[ci]) {
+      if (chunk == null) {
+        chunk = new Object[chunkMask + 1];
+      } else {
+        chunk = chunk.clone();
+      }
+      chunks[ci] = chunk;
+      owned[ci] = true;
+    }
+
+    return chunk;
+  }
+
+  public void set (int idx, E e){
+    Object[] chunk = getModifiableChunk(idx >>> chunkBits);
+    chunk[idx & chunkMask] = e;
+
+    if (idx >= size) {
+      size = idx + 1;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  public E remove (int idx){
+    E e = get(idx);
+
+    if (e != null) {
+      Object[] chunk = getModifiableChunk(idx >>> chunkBits);
+      chunk[idx & chunkMask] = null;
+
+      if (idx + 1 == size) {
+        int j = idx - 1;
+        for (; j >= 0 && get(j) == null; j--);
+        size = j + 1;
+      }
+    }
+
+    return e;
+  }
+
+  //--- snapshots
+
+  public Snapshot<E> getSnapshot(){
+    int nChunks = (size + chunkMask) >>> chunkBits;
+    Object[][] snapChunks = new Object[nChunks][];
+    System.arraycopy(chunks, 0, snapChunks, 0, nChunks);
+
+    for (int i = 0; i < nChunks; i++) {
+      owned[i] = false;
+    }
+
+    return new Snapshot<E>(snapChunks, size);
+  }
+
+  public void restore (Snapshot<E> snap){
+    Object[][] snapChunks = snap.chunks;
+    int nChunks = snapChunks.length;
+
+    if (chunks.length < nChunks) {
+      chunks = new Object[nChunks][];
+      owned = new boolean[nChunks];
+    }
+
+    System.arraycopy(snapChunks, 0, chunks, 0, nChunks);
+    for (int i = 0; i < nChunks; i++) {
+      owned[i] = false;
+    }
+    for (int i = nChunks; i < chunks.length; i++) {
+      chunks[i] = null;
+      owned[i] = false;
+    }
+
+    size = snap.size;
+  }
+
+  //--- iteration and processing
+
+  @SuppressWarnings("unchecked")
+  public void process (Processor<E> processor){
+    int nChunks = (size + chunkMask) >>> chunkBits;
+    for (int i = 0; i < nChunks; i++) {
+      Object[] chunk = chunks[i];
+      if (chunk != null) {
+        for (int j = 0; j < chunk.length; j++) {
+          Object o = chunk[j];
+          if (o != null) {
+            processor.process((E)o);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * process all non-null elements in chunks that were modified since the
+   * last snapshot or restore. This includes all elements that were set
+   * since then, but can also include unmodified elements that share the chunk
+   */
+  @SuppressWarnings("unchecked")
+  public void processModified (Processor<E> processor){
+    int nChunks = (size + chunkMask) >>> chunkBits;
+    for (int i = 0; i < nChunks; i++) {
+      if (owned[i]) {
+        Object[] chunk = chunks[i];
+        for (int j = 0; j < chunk.length; j++) {
+          Object o = chunk[j];
+          if (o != null) {
+            processor.process((E)o);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * iterator over all non-null elements
+   */
+  protected class NonNullIterator implements Iterator<E>, Iterable<E> {
+    int idx = nextIndex(0);
+
+    int nextIndex (int i){
+      for (; i < size; i++) {
+        Object[] chunk = chunks[i >>> chunkBits];
+        if (chunk == null) {
+          i |= chunkMask; // skip the whole chunk
+        } else if (chunk[i & chunkMask] != null) {
+          return i;
+        }
+      }
+      return size;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return idx < size;
+    }
+
+    @Override
+    public E next() {
+      if (idx >= size) {
+        throw new NoSuchElementException();
+      }
+      E e = get(idx);
+      idx = nextIndex(idx + 1);
+      return e;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+      return this;
+    }
+  }
+
+  @Override
+  public Iterator<E> iterator() {
+    return new NonNullIterator();
+  }
+
+  public Iterable<E> elements() {
+    return new NonNullIterator();
+  }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.nasa.jpf.util;
+
+/**
+ * a large int storage that is split into fixed size pages, which are copied
+ * on write after a snapshot was taken. Clients allocate contiguous blocks that
+ * never span pages, so that a block can be accessed as (page, offset) without
+ * any further indirection.
+ *
+ * Allocation is monotonic and not affected by snapshots/restores, i.e. the
+ * address of a block stays valid (but its contents are state dependent). It is
+ * up to the client to re-use or abandon blocks
+ */
+public class IntSlab {
+
+  public static final int DEFAULT_PAGE_BITS = 6; // 64 ints per page
+
+  /**
+   * the immutable state of an IntSlab, pages are shared between
+   * snapshots and the slab
+   */
+  public static class Snapshot {
+    final int[][] pages;
+
+    Snapshot (int[][] pages){
+      this.pages = pages;
+    }
+
+    public int getNumberOfPages(){
+      return pages.length;
+    }
+  }
+
+  protected final int pageBits;
+  protected final int pageMask;
+
+  protected int[][] pages;
+  protected boolean[] owned; // page can be modified in place (not shared with snapshots)
+  protected int nPages;      // number of allocated pages
+  protected int top;         // next free address
+
+  public IntSlab (int pageBits){
+    this.pageBits = pageBits;
+    this.pageMask = (1 << pageBits) - 1;
+
+    pages = new int[16][];
+    owned = new boolean[16];
+  }
+
+  public IntSlab (){
+    this(DEFAULT_PAGE_BITS);
+  }
+
+  public int getPageSize(){
+    return pageMask + 1;
+  }
+
+  public int getNumberOfPages(){
+    return nPages;
+  }
+
+  /**
+   * allocate a block of n ints that does not span pages, return its address.
+   * The block contents are not initialized
+   */
+  public int allocate (int n){
+    if (n > pageMask + 1){
+      throw new IllegalArgumentException("block exceeds page size: " + n);
+    }
+
+    int addr = top;
+    if ((addr & pageMask) + n > pageMask + 1){ // doesn't fit, skip rest of page
+      addr = (addr + pageMask) & ~pageMask;
+    }
+
+    top = addr + n;
+    int pi = (addr + Math.max(n, 1) - 1) >>> pageBits; // empty blocks also need a page
+    if (pi >= nPages){
+      ensurePages(pi + 1);
+    }
+
+    return addr;
+  }
+
+  protected void ensurePages (int n){
+    if (n > pages.length){
+      int newLength = Math.max(pages.length * 2, n);
+      int[][] newPages = new int[newLength][];
+      System.arraycopy(pages, 0, newPages, 0, nPages);
+      pages = newPages;
+
+      boolean[] newOwned = new boolean[newLength];
+      System.arraycopy(owned, 0, newOwned, 0, nPages);
+      owned = newOwned;
+    }
+
+    for (int i=nPages; i<n; i++){
+      pages[i] = new int[pageMask + 1];
+      owned[i] = true;
+    }
+    nPages = n;
+  }
+
+  //--- block access
+
+  /**
+   * the page that holds the block at addr. Note the returned array is only
+   * valid until the next snapshot/restore and must not be modified
+   */
+  public int[] getPage (int addr){
+    return pages[addr >>> pageBits];
+  }
+
+  public int getOffset (int addr){
+    return addr & pageMask;
+  }
+
+  public int[] getModifiablePage (int addr){
+    int pi = addr >>> pageBits;
+    if (!owned[pi]){
+      pages[pi] = pages[pi].clone();
+      owned[pi] = true;
+    }
+    return pages[pi];
+  }
+
+  public int get (int addr){
+    return pages[addr >>> pageBits][addr & pageMask];
+  }
+
+  public void set (int addr, int v){
+    int pi = addr >>> pageBits;
+    int[] page = pages[pi];
+    if (!owned[pi]){
+      page = page.clone();
+      pages[pi] = page;
+      owned[pi] = true;
+    }
+    page[addr & pageMask] = v;
+  }
+
+  /**
+   * zero a block (which does not span pages)
+   */
+  public void clear (int addr, int n){
+    if (n > 0){
+      int off = addr & pageMask;
+      int[] page = pages[addr >>> pageBits];
+      for (int i=off, end=off+n; i<end; i++){
+        if (page[i] != 0){
+          page = getModifiablePage(addr);
+          for (; i<end; i++){
+            page[i] = 0;
+          }
+          return;
+        }
+      }
+    }
+  }
+
+  //--- snapshots
+
+  public Snapshot getSnapshot(){
+    int[][] snapPages = new int[nPages][];
+    System.arraycopy(pages, 0, snapPages, 0, nPages);
+
+    for (int i=0; i<nPages; i++){
+      owned[i] = false;
+    }
+
+    return new Snapshot(snapPages);
+  }
+
+  /**
+   * restore the pages of a snapshot. Pages that were allocated after the
+   * snapshot was taken are kept (allocation is not state managed), but are
+   * not owned anymore since they might be shared with other snapshots
+   */
+  public void restore (Snapshot snap){
+    int[][] snapPages = snap.pages;
+    System.arraycopy(snapPages, 0, pages, 0, snapPages.length);
+
+    for (int i=0; i<nPages; i++){
+      owned[i] = false;
+    }
+  }
+}
@@ -206,16 +206,20 @@ public final class IntVector implements Comparable<IntVector>, Cloneable {
   }
 
   public void appendPacked(byte[] a){
-    int len = (a.length+3)/4;  // new data length, 4 bytes per word
-    int n = a.length >> 2; // number of full data words
-    int len1 = n << 2;
+    appendPacked(a, 0, a.length);
+  }
+
+  public void appendPacked(byte[] a, int pos, int aLen){
+    int len = (aLen+3)/4;  // new data length, 4 bytes per word
+    int n = aLen >> 2; // number of full data words
+    int len1 = pos + (n << 2);
 
     int newSize = size + len;
     if (newSize > data.length) {
       ensureCapacity(newSize);
     }
 
-    int j=0;
+    int j=pos;
     int k=size;
     int x;
     while (j<len1){
@@ -226,7 +230,7 @@ public final class IntVector implements Comparable<IntVector>, Cloneable {
       data[k++] = x;
     }
 
-    switch (a.length % 4){
+    switch (aLen % 4){
       case 0:
         break;
       case 1:
@@ -250,16 +254,20 @@ public final class IntVector implements Comparable<IntVector>, Cloneable {
 
 
   public void appendPacked(char[] a){
-    int len = (a.length+1)/2;  // new data length, 2 chars per word
-    int n = a.length >> 1; // number of full data words
-    int len1 = n << 1;
+    appendPacked(a, 0, a.length);
+  }
+
+  public void appendPacked(char[] a, int pos, int aLen){
+    int len = (aLen+1)/2;  // new data length, 2 chars per word
+    int n = aLen >> 1; // number of full data words
+    int len1 = pos + (n << 1);
 
     int newSize = size + len;
     if (newSize > data.length) {
       ensureCapacity(newSize);
     }
 
-    int j=0;
+    int j=pos;
     int k=size;
     while (j<len1){
       int x = a[j++] & 0xffff;  x <<= 16;
@@ -267,7 +275,7 @@ public final class IntVector implements Comparable<IntVector>, Cloneable {
       data[k++] = x;
     }
 
-    if (a.length % 2 > 0){
+    if (aLen % 2 > 0){
       data[k] = (a[j] & 0xffff) << 16;
     }
 
@@ -313,13 +321,17 @@ public final class IntVector implements Comparable<IntVector>, Cloneable {
 
 
   public void appendBits(long[] a){
-    int newSize = size + a.length * 2;
+    appendBits(a, 0, a.length);
+  }
+
+  public void appendBits(long[] a, int pos, int len){
+    int newSize = size + len * 2;
     if (newSize > data.length) {
       ensureCapacity(newSize);
     }
     
     int k = size;
-    for (int i = 0; i<a.length; i++){
+    for (int i = pos, end = pos + len; i<end; i++){
       long l = a[i];
       data[k++] = (int) (l >>> 32);
       data[k++] = (int) (l & 0xffffffff);
@@ -329,13 +341,17 @@ public final class IntVector implements Comparable<IntVector>, Cloneable {
   }
 
   public void appendRawBits(double[] a){
-    int newSize = size + a.length * 2;
+    appendRawBits(a, 0, a.length);
+  }
+
+  public void appendRawBits(double[] a, int pos, int len){
+    int newSize = size + len * 2;
     if (newSize > data.length) {
       ensureCapacity(newSize);
     }
 
     int k = size;
-    for (int i = 0; i<a.length; i++){
+    for (int i = pos, end = pos + len; i<end; i++){
       long l = Double.doubleToRawLongBits(a[i]);
       data[k++] = (int) (l >>> 32);
       data[k++] = (int) (l & 0xffffffff);
@@ -39,7 +39,19 @@ import java.util.logging.Logger;
  * want to
  */
 public class LogManager {
-    
+
+  /**
+   * the host logging system keeps a process wide registry of named loggers,
+   * which would be shared (incl. levels and handlers) between JPF instances
+   * that run in their own class space (see IsolatingClassLoader). We therefore
+   * use our own, unregistered base loggers
+   */
+  static class BaseLogger extends Logger {
+    BaseLogger (String name) {
+      super(name, null);
+    }
+  }
+
   static HashMap<String,JPFLogger> loggers = new HashMap<String, JPFLogger>(); // our own set
   
   static Level defaultLevel = Level.WARNING;
@@ -112,8 +124,8 @@ public class LogManager {
     JPFLogger logger = loggers.get(name);
     
     if (logger == null) {
-      // we haven't had this one yet - create and init a new one from the host logging system
-      Logger baseLogger = Logger.getLogger(name);
+      // we haven't had this one yet - create and init a new one
+      Logger baseLogger = new BaseLogger(name);
       baseLogger.setLevel( getLevel(name));
       baseLogger.addHandler(handler);
       baseLogger.setUseParentHandlers(false); // we don't want to pass this up
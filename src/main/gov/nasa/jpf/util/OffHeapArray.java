@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.nasa.jpf.util;
+
+import gov.nasa.jpf.JPFException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * a byte addressed storage area that lives outside of the Java heap, either
+ * in direct ByteBuffers or in a memory mapped file.
+ *
+ * Since a single ByteBuffer cannot exceed 2GB, the storage is split into
+ * equally sized, power-of-two segments that are allocated on demand, i.e.
+ * the array grows by adding segments and never has to copy existing data.
+ * Addresses are longs, int and long values have to be aligned to their size.
+ *
+ * Note that there is no explicit way to release direct or mapped buffers, we
+ * only drop our references and let the GC reclaim them. Mapped files are
+ * deleted on exit.
+ */
+public class OffHeapArray {
+
+  public static final int MAX_SEGMENT_SHIFT = 30; // 1GB
+  public static final int MIN_SEGMENT_SHIFT = 12; // 4KB
+
+  protected final int segmentShift;
+  protected final long segmentMask;
+
+  protected ByteBuffer[] segments;
+  protected int nSegments;
+
+  // only set if we are file backed
+  protected File file;
+  protected FileChannel channel;
+
+  /**
+   * create a storage area with segments that are big enough to hold 'segmentSize' bytes.
+   * If 'file' is null we use direct ByteBuffers, otherwise we map the file
+   */
+  public OffHeapArray (long segmentSize, File file) {
+    int shift = MIN_SEGMENT_SHIFT;
+    while (shift < MAX_SEGMENT_SHIFT && (1L << shift) < segmentSize){
+      shift++;
+    }
+    segmentShift = shift;
+    segmentMask = (1L << shift) - 1;
+
+    segments = new ByteBuffer[8];
+
+    if (file != null){
+      try {
+        this.file = file;
+        file.deleteOnExit();
+        channel = new RandomAccessFile(file, "rw").getChannel();
+      } catch (IOException iox){
+        throw new JPFException("cannot open off-heap storage file: " + file.getAbsolutePath(), iox);
+      }
+    }
+  }
+
+  public OffHeapArray (long segmentSize) {
+    this( segmentSize, null);
+  }
+
+  public long getSegmentSize() {
+    return 1L << segmentShift;
+  }
+
+  public File getFile() {
+    return file;
+  }
+
+  public boolean isMapped() {
+    return channel != null;
+  }
+
+  /**
+   * number of bytes we can currently address without growing
+   */
+  public long capacity() {
+    return (long)nSegments << segmentShift;
+  }
+
+  /**
+   * make sure we can address 'size' bytes. New segments are zero initialized
+   */
+  public void ensureCapacity (long size) {
+    int n = (int) ((size + segmentMask) >>> segmentShift);
+    if (n > nSegments){
+      if (n > segments.length){
+        ByteBuffer[] a = new ByteBuffer[Math.max(n, segments.length * 2)];
+        System.arraycopy(segments, 0, a, 0, nSegments);
+        segments = a;
+      }
+
+      for (int i = nSegments; i < n; i++){
+        segments[i] = allocateSegment(i);
+      }
+      nSegments = n;
+    }
+  }
+
+  protected ByteBuffer allocateSegment (int idx) {
+    int len = 1 << segmentShift;
+    ByteBuffer buf;
+
+    if (channel != null){
+      try {
+        // mapping beyond the current file size extends the file (zero filled)
+        buf = channel.map(FileChannel.MapMode.READ_WRITE, (long)idx << segmentShift, len);
+      } catch (IOException iox){
+        throw new JPFException("cannot map off-heap storage file: " + file.getAbsolutePath(), iox);
+      }
+    } else {
+      buf = ByteBuffer.allocateDirect(len);
+    }
+
+    return buf.order(ByteOrder.nativeOrder());
+  }
+
+  public int getInt (long addr) {
+    return segments[(int) (addr >>> segmentShift)].getInt((int) (addr & segmentMask));
+  }
+
+  public void putInt (long addr, int v) {
+    segments[(int) (addr >>> segmentShift)].putInt((int) (addr & segmentMask), v);
+  }
+
+  public long getLong (long addr) {
+    return segments[(int) (addr >>> segmentShift)].getLong((int) (addr & segmentMask));
+  }
+
+  public void putLong (long addr, long v) {
+    segments[(int) (addr >>> segmentShift)].putLong((int) (addr & segmentMask), v);
+  }
+
+  public byte getByte (long addr) {
+    return segments[(int) (addr >>> segmentShift)].get((int) (addr & segmentMask));
+  }
+
+  public void putByte (long addr, byte v) {
+    segments[(int) (addr >>> segmentShift)].put((int) (addr & segmentMask), v);
+  }
+
+  /**
+   * drop all segments and close/delete a backing file. The object cannot be
+   * used anymore after this
+   */
+  public void dispose() {
+    segments = null;
+    nSegments = 0;
+
+    if (channel != null){
+      try {
+        channel.close();
+      } catch (IOException iox){
+        // nothing we can do about it, the file gets deleted on exit anyways
+      }
+      channel = null;
+      file.delete();
+    }
+  }
+}
@@ -125,6 +125,22 @@ import java.util.NoSuchElementException;
  * operand stacks, which leads to methods with large number of local variables (to avoid
  * array allocation) and large switch statements to set respective fields. The resulting
  * programming style should only be acceptable for critical runtime optimizations.
+ * 
+ * If a map is modified many times between snapshots (e.g. by a JPF transition), clients can
+ * use transient maps that are obtained by asTransient(). A transient map stamps all nodes it
+ * creates with its Edit token and modifies them in place instead of copying them again, i.e.
+ * only the first modification of a path within a batch has to copy it. Transient maps are
+ * sealed by asPersistent(), which returns a persistent map that shares all nodes. All previous
+ * versions of a transient map have to be treated as invalid since their nodes might have been
+ * modified, only the result of asPersistent() can be used as a snapshot:
+ * 
+ * <blockquote><pre>
+ *   map = map.asTransient();
+ *   map = map.set(42, "fortytwo"); // path nodes copied once..
+ *   map = map.set(43, "fortythree"); // ..and then modified in place
+ *   PSIntMap<String> snapshot = map.asPersistent(); // map not modifiable in place anymore
+ *   map = snapshot.asTransient(); // next batch
+ * </pre></blockquote>
  */ 
 
 public class PSIntMap <V> implements Iterable<V> {
@@ -141,8 +157,18 @@ public class PSIntMap <V> implements Iterable<V> {
    * cause silent corruption of node data but will lead to follow-on exceptions such as
    * ArrayIndexOutOfBounds etc.
    */
+  /**
+   * token that identifies nodes that were created by a transient map since it
+   * was obtained by asTransient(). Sealed by asPersistent()
+   */
+  protected static final class Edit {
+    boolean isSealed;
+  }
+  
   protected abstract static class Node<E> {
     
+    Edit edit; // set if this node was created by a transient map, which can modify it in place
+    
     abstract E getElementAtLevelIndex (int i);
     
     abstract int getNumberOfElements();
@@ -919,6 +945,8 @@ public class PSIntMap <V> implements Iterable<V> {
   final protected int stagingNodeMask; // key mask for stagingNode (key | 0x1f)
   final protected Node targetNode;     // original stagingNode state that is linked into the trie
   
+  final protected Edit edit;           // non-null if this is a transient map
+  
   /**
    * the only public constructor
    */
@@ -929,15 +957,17 @@ public class PSIntMap <V> implements Iterable<V> {
     this.targetNode = null;
     this.stagingNode = null;
     this.stagingNodeMask = 0;
+    this.edit = null;
   }
   
-  protected PSIntMap (int size, int rootLevel, Node rootNode, Node<V> stagingNode, Node<V> targetNode, int stagingNodeMask){
+  protected PSIntMap (int size, int rootLevel, Node rootNode, Node<V> stagingNode, Node<V> targetNode, int stagingNodeMask, Edit edit){
     this.size = size;
     this.rootLevel = rootLevel;
     this.rootNode = rootNode;
     this.stagingNode = stagingNode;
     this.targetNode = targetNode;
     this.stagingNodeMask = stagingNodeMask;
+    this.edit = edit;
   }
   
   //--- public API
@@ -946,6 +976,36 @@ public class PSIntMap <V> implements Iterable<V> {
     return size;
   }
   
+  /**
+   * return a transient map with the same values, which modifies nodes that it created
+   * itself in place. If the receiver is a transient map it gets sealed
+   */
+  @SuppressWarnings("unchecked") // our node fields are raw
+  public PSIntMap<V> asTransient(){
+    if (edit != null){
+      edit.isSealed = true; // don't share modifiable nodes between transient maps
+    }
+    return new PSIntMap<V>( size, rootLevel, rootNode, stagingNode, targetNode, stagingNodeMask, new Edit());
+  }
+  
+  /**
+   * seal this transient map and return a persistent map with the same values. Neither
+   * this map nor any of its previous versions modifies nodes in place afterwards
+   */
+  @SuppressWarnings("unchecked") // our node fields are raw
+  public PSIntMap<V> asPersistent(){
+    if (edit == null){
+      return this;
+    } else {
+      edit.isSealed = true;
+      return new PSIntMap<V>( size, rootLevel, rootNode, stagingNode, targetNode, stagingNodeMask, null);
+    }
+  }
+  
+  public boolean isTransient(){
+    return (edit != null) && !edit.isSealed;
+  }
+  
   public V get (int key){
     if (stagingNodeMask == (key | 0x1f)){
       int idx = key & 0x1f;
@@ -986,6 +1046,35 @@ public class PSIntMap <V> implements Iterable<V> {
     }
   }
   
+  //--- node copies that are aware of transient maps
+  
+  protected <N extends Node<?>> N stamp (N node){
+    if (node != null && edit != null){
+      node.edit = edit;
+    }
+    return node;
+  }
+  
+  @SuppressWarnings("unchecked") // Node clones are raw
+  protected <E> Node<E> cloneWithReplaced (Node<E> node, int idx, E e){
+    if (edit != null && node.edit == edit && !edit.isSealed){
+      node.set(idx, e);
+      return node;
+    } else {
+      return stamp( node.cloneWithReplaced(idx, e));
+    }
+  }
+  
+  @SuppressWarnings("unchecked") // Node clones are raw
+  protected <E> Node<E> cloneWithAdded (Node<E> node, int idx, E e){
+    return stamp( node.cloneWithAdded(idx, e));
+  }
+  
+  @SuppressWarnings("unchecked") // Node clones are raw
+  protected <E> Node<E> cloneWithRemoved (Node<E> node, int idx){
+    return stamp( node.cloneWithRemoved(idx));
+  }
+  
   protected Node mergeStagingNode (){
     Node<Node> n2=null, n3=null, n4=null, n5=null, n6=null;
     int i1, i2=0, i3=0, i4=0, i5=0, i6=0;
@@ -1016,17 +1105,17 @@ public class PSIntMap <V> implements Iterable<V> {
         n = n.getElementAtLevelIndex(i2);
       case 1: 
         i1 = (k >>> 5) & 0x1f;
-        n = n.cloneWithReplaced(i1, stagingNode);
+        n = cloneWithReplaced(n, i1, stagingNode);
         if (n2 != null){
-          n = n2.cloneWithReplaced(i2, n);
+          n = cloneWithReplaced(n2, i2, n);
           if (n3 != null){
-            n = n3.cloneWithReplaced(i3, n);
+            n = cloneWithReplaced(n3, i3, n);
             if (n4 != null){
-              n = n4.cloneWithReplaced(i4, n);
+              n = cloneWithReplaced(n4, i4, n);
               if (n5 != null){
-                n = n5.cloneWithReplaced(i5, n);
+                n = cloneWithReplaced(n5, i5, n);
                 if (n6 != null){
-                  n = n6.cloneWithReplaced(i6, n);
+                  n = cloneWithReplaced(n6, i6, n);
                 }
               }
             }
@@ -1096,15 +1185,15 @@ public class PSIntMap <V> implements Iterable<V> {
         n = (Node)stagingNode;
       
         if (n1 != null){
-          n = n1.cloneWithReplaced(i1, n);
+          n = cloneWithReplaced(n1, i1, n);
           if (n2 != null) {
-            n = n2.cloneWithReplaced(i2, n);
+            n = cloneWithReplaced(n2, i2, n);
             if (n3 != null) {
-              n = n3.cloneWithReplaced(i3, n);
+              n = cloneWithReplaced(n3, i3, n);
               if (n4 != null) {
-                n = n4.cloneWithReplaced(i4, n);
+                n = cloneWithReplaced(n4, i4, n);
                 if (n5 != null) {
-                  n = n5.cloneWithReplaced(i5, n);
+                  n = cloneWithReplaced(n5, i5, n);
                 }
               }
             }
@@ -1172,7 +1261,7 @@ public class PSIntMap <V> implements Iterable<V> {
         i1 = (key >>> 5) & 0x1f;
         n0 = n.getElementAtLevelIndex(i1);
         if (n0 == null){
-          return null;
+          return this; // key not in map
         } else {
           n1 = n;
           n = (Node)n0;
@@ -1187,22 +1276,22 @@ public class PSIntMap <V> implements Iterable<V> {
           if (n0 == null || n0.getElementAtLevelIndex(i0) == null){
             return this; // key not in map
           } else {
-            n0 = n0.cloneWithRemoved(i0);
+            n0 = cloneWithRemoved(n0, i0);
           }
         }
         n = (Node)n0;
         if (n1 != null){
-          n = (n == null) ? n1.cloneWithRemoved(i1) : n1.cloneWithReplaced(i1, n);
+          n = (n == null) ? cloneWithRemoved(n1, i1) : cloneWithReplaced(n1, i1, n);
           if (n2 != null){
-            n = (n == null) ? n2.cloneWithRemoved(i2) : n2.cloneWithReplaced(i2, n);
+            n = (n == null) ? cloneWithRemoved(n2, i2) : cloneWithReplaced(n2, i2, n);
             if (n3 != null){
-              n = (n == null) ? n3.cloneWithRemoved(i3) : n3.cloneWithReplaced(i3, n);
+              n = (n == null) ? cloneWithRemoved(n3, i3) : cloneWithReplaced(n3, i3, n);
               if (n4 != null){
-                n = (n == null) ? n4.cloneWithRemoved(i4) : n4.cloneWithReplaced(i4, n);
+                n = (n == null) ? cloneWithRemoved(n4, i4) : cloneWithReplaced(n4, i4, n);
                 if (n5 != null){
-                  n = (n == null) ? n5.cloneWithRemoved(i5) : n5.cloneWithReplaced(i5, n);
+                  n = (n == null) ? cloneWithRemoved(n5, i5) : cloneWithReplaced(n5, i5, n);
                   if (n6 != null){
-                    n = (n == null) ? n6.cloneWithRemoved(i6) : n6.cloneWithReplaced(i6, n);
+                    n = (n == null) ? cloneWithRemoved(n6, i6) : cloneWithReplaced(n6, i6, n);
                   }
                 }
               }
@@ -1211,7 +1300,7 @@ public class PSIntMap <V> implements Iterable<V> {
         }
         
         if (n == null){
-          return new PSIntMap<V>();
+          return new PSIntMap<V>( 0, 0, null, null, null, 0, edit);
           
         } else {
           int newRootLevel = rootLevel;
@@ -1226,7 +1315,7 @@ public class PSIntMap <V> implements Iterable<V> {
             mergeStagingNode(key, newRootLevel, n);
           }
           
-          return new PSIntMap<V>( size-1, newRootLevel, n, n0, n0, newSb);
+          return new PSIntMap<V>( size-1, newRootLevel, n, n0, n0, newSb, edit);
         }
     }
     
@@ -1240,11 +1329,11 @@ public class PSIntMap <V> implements Iterable<V> {
       int i = key & 0x1f;
       Node<V> n = stagingNode;
       if ((n.getElementAtLevelIndex(i)) != null) { // key is in the stagingNode
-        n = n.cloneWithRemoved(i);
+        n = cloneWithRemoved(n, i);
         if (n == null){ // staging node is empty, remove target node
           return remove(newSm, true);
         } else { // non-empty staging node, just replace it
-          return new PSIntMap<V>( size-1, rootLevel, rootNode, n, targetNode, newSm);
+          return new PSIntMap<V>( size-1, rootLevel, rootNode, n, targetNode, newSm, edit);
         }
         
       } else { // key wasn't in the stagingNode
@@ -1273,12 +1362,12 @@ public class PSIntMap <V> implements Iterable<V> {
       Node<V> n = stagingNode;
       int newSize = size;
       if ((n.getElementAtLevelIndex(i)) == null) {
-        n = n.cloneWithAdded(i, value);
+        n = cloneWithAdded(n, i, value);
         newSize = size+1;
       } else {
-        n = n.cloneWithReplaced(i, value);
+        n = cloneWithReplaced(n, i, value);
       }
-      return new PSIntMap<V>( newSize, rootLevel, rootNode, n, targetNode, newSm);
+      return new PSIntMap<V>( newSize, rootLevel, rootNode, n, targetNode, newSm, edit);
       
     } else { // staging node miss
       int newRootLevel = getStartLevel(key);
@@ -1305,26 +1394,26 @@ public class PSIntMap <V> implements Iterable<V> {
     //--- expand old root upwards
     if (nOld != null){
       for (int l = rootLevel + 1; l < newRootLevel; l++) {
-        nOld = new OneNode(0, nOld);
+        nOld = stamp( new OneNode(0, nOld));
       }
     }
 
     //--- create chain of new value nodes
     int i = key & 0x1f;
-    Node nNew = new OneNode(i, value);
+    Node nNew = stamp( new OneNode(i, value));
     int shift = 5;
     Node newStagingNode = nNew;
     for (int l = 1; l < newRootLevel; l++) {
       i = (key >>> shift) & 0x1f;
-      nNew = new OneNode(i, nNew);
+      nNew = stamp( new OneNode(i, nNew));
       shift += 5;
     }
 
     //--- create new root
     i = (key >>> shift); // no remainBmp needed, top level
-    Node<Node> newRootNode = (nOld == null) ? new OneNode( i, nNew) : new BitmapNode<Node>(i, nNew, nOld);
+    Node<Node> newRootNode = (nOld == null) ? stamp( new OneNode( i, nNew)) : stamp( new BitmapNode<Node>(i, nNew, nOld));
 
-    return new PSIntMap<V>(size + 1, newRootLevel, newRootNode, newStagingNode, newStagingNode, newSm);
+    return new PSIntMap<V>(size + 1, newRootLevel, newRootNode, newStagingNode, newStagingNode, newSm, edit);
   }  
   
   /**
@@ -1348,15 +1437,15 @@ public class PSIntMap <V> implements Iterable<V> {
         i6 = key >>> 30;
         n5 = n.getElementAtLevelIndex(i6);
         if (n5 == null) {
-          n0 = new OneNode( (key & 0x1f), value);
-          n1 = new OneNode( (key >>> 5) & 0x1f, n0);
-          n2 = new OneNode( (key >>> 10) & 0x1f, n1);
-          n3 = new OneNode( (key >>> 15) & 0x1f, n2);
-          n4 = new OneNode( (key >>> 20) & 0x1f, n3);
-          n5 = new OneNode( (key >>> 25) & 0x1f, n4);
-          n = n.cloneWithAdded( i6, n5);
+          n0 = stamp( new OneNode( (key & 0x1f), value));
+          n1 = stamp( new OneNode( (key >>> 5) & 0x1f, n0));
+          n2 = stamp( new OneNode( (key >>> 10) & 0x1f, n1));
+          n3 = stamp( new OneNode( (key >>> 15) & 0x1f, n2));
+          n4 = stamp( new OneNode( (key >>> 20) & 0x1f, n3));
+          n5 = stamp( new OneNode( (key >>> 25) & 0x1f, n4));
+          n = cloneWithAdded(n, i6, n5);
           if (needsMerge) mergeStagingNode(key, rootLevel, n);
-          return new PSIntMap<V>( newSize, rootLevel, n, n0, n0, newSb);
+          return new PSIntMap<V>( newSize, rootLevel, n, n0, n0, newSb, edit);
           
         } else {
           n6 = n;
@@ -1367,18 +1456,18 @@ public class PSIntMap <V> implements Iterable<V> {
         i5 = (key >>> 25) & 0x1f;
         n4 = n.getElementAtLevelIndex(i5);
         if (n4 == null) {
-          n0 = new OneNode( (key & 0x1f), value);
-          n1 = new OneNode( (key >>> 5) & 0x1f, n0);
-          n2 = new OneNode( (key >>> 10) & 0x1f, n1);
-          n3 = new OneNode( (key >>> 15) & 0x1f, n2);
-          n4 = new OneNode( (key >>> 20) & 0x1f, n3);
-          n = n.cloneWithAdded( i5, n4);
+          n0 = stamp( new OneNode( (key & 0x1f), value));
+          n1 = stamp( new OneNode( (key >>> 5) & 0x1f, n0));
+          n2 = stamp( new OneNode( (key >>> 10) & 0x1f, n1));
+          n3 = stamp( new OneNode( (key >>> 15) & 0x1f, n2));
+          n4 = stamp( new OneNode( (key >>> 20) & 0x1f, n3));
+          n = cloneWithAdded(n, i5, n4);
 
           if (n6 != null){
-            n = n6.cloneWithReplaced( i6, n);
+            n = cloneWithReplaced(n6, i6, n);
           }
           if (needsMerge) mergeStagingNode(key, rootLevel, n);
-          return new PSIntMap<V>( newSize, rootLevel, n, n0, n0, newSb);
+          return new PSIntMap<V>( newSize, rootLevel, n, n0, n0, newSb, edit);
 
         } else {
           n5 = n;
@@ -1389,20 +1478,20 @@ public class PSIntMap <V> implements Iterable<V> {
         i4 = (key >>> 20) & 0x1f;
         n3 = n.getElementAtLevelIndex(i4);
         if (n3 == null) {
-          n0 = new OneNode( (key & 0x1f), value);
-          n1 = new OneNode( (key >>> 5) & 0x1f, n0);
-          n2 = new OneNode( (key >>> 10) & 0x1f, n1);
-          n3 = new OneNode( (key >>> 15) & 0x1f, n2);
-          n = n.cloneWithAdded( i4, n3);
+          n0 = stamp( new OneNode( (key & 0x1f), value));
+          n1 = stamp( new OneNode( (key >>> 5) & 0x1f, n0));
+          n2 = stamp( new OneNode( (key >>> 10) & 0x1f, n1));
+          n3 = stamp( new OneNode( (key >>> 15) & 0x1f, n2));
+          n = cloneWithAdded(n, i4, n3);
 
           if (n5 != null){
-            n = n5.cloneWithReplaced( i5, n);
+            n = cloneWithReplaced(n5, i5, n);
             if (n6 != null){ 
-              n = n6.cloneWithReplaced( i6, n);
+              n = cloneWithReplaced(n6, i6, n);
             }
           }
           if (needsMerge) mergeStagingNode(key, rootLevel, n);
-          return new PSIntMap<V>( newSize, rootLevel, n, n0, n0, newSb);
+          return new PSIntMap<V>( newSize, rootLevel, n, n0, n0, newSb, edit);
 
         } else {
           n4 = n;
@@ -1413,22 +1502,22 @@ public class PSIntMap <V> implements Iterable<V> {
         i3 = (key >>> 15) & 0x1f;
         n2 = n.getElementAtLevelIndex(i3);
         if (n2 == null) {
-          n0 = new OneNode( (key & 0x1f), value);
-          n1 = new OneNode( (key >>> 5) & 0x1f, n0);
-          n2 = new OneNode( (key >>> 10) & 0x1f, n1);
-          n = n.cloneWithAdded( i3, n2);
+          n0 = stamp( new OneNode( (key & 0x1f), value));
+          n1 = stamp( new OneNode( (key >>> 5) & 0x1f, n0));
+          n2 = stamp( new OneNode( (key >>> 10) & 0x1f, n1));
+          n = cloneWithAdded(n, i3, n2);
 
           if (n4 != null){
-            n = n4.cloneWithReplaced( i4, n);
+            n = cloneWithReplaced(n4, i4, n);
             if (n5 != null){
-              n = n5.cloneWithReplaced( i5, n);
+              n = cloneWithReplaced(n5, i5, n);
               if (n6 != null){ 
-                n = n6.cloneWithReplaced( i6, n);
+                n = cloneWithReplaced(n6, i6, n);
               }
             }
           }
           if (needsMerge) mergeStagingNode(key, rootLevel, n);
-          return new PSIntMap<V>( newSize, rootLevel, n, n0, n0, newSb);
+          return new PSIntMap<V>( newSize, rootLevel, n, n0, n0, newSb, edit);
 
         } else {
           n3 = n;
@@ -1439,24 +1528,24 @@ public class PSIntMap <V> implements Iterable<V> {
         i2 = (key >>> 10) & 0x1f;
         n1 = n.getElementAtLevelIndex(i2);
         if (n1 == null) {
-          n0 = new OneNode( (key & 0x1f), value);
-          n1 = new OneNode( (key >>> 5) & 0x1f, n0);
-          n = n.cloneWithAdded( i2, n1);
+          n0 = stamp( new OneNode( (key & 0x1f), value));
+          n1 = stamp( new OneNode( (key >>> 5) & 0x1f, n0));
+          n = cloneWithAdded(n, i2, n1);
 
           if (n3 != null){
-            n = n3.cloneWithReplaced( i3, n);
+            n = cloneWithReplaced(n3, i3, n);
             if (n4 != null){
-              n = n4.cloneWithReplaced( i4, n);
+              n = cloneWithReplaced(n4, i4, n);
               if (n5 != null){
-                n = n5.cloneWithReplaced( i5, n);
+                n = cloneWithReplaced(n5, i5, n);
                 if (n6 != null){ 
-                  n = n6.cloneWithReplaced( i6, n);
+                  n = cloneWithReplaced(n6, i6, n);
                 }
               }
             }
           }
           if (needsMerge) mergeStagingNode(key, rootLevel, n);
-          return new PSIntMap<V>( newSize, rootLevel, n, n0, n0, newSb);
+          return new PSIntMap<V>( newSize, rootLevel, n, n0, n0, newSb, edit);
 
         } else {
           n2 = n;
@@ -1467,26 +1556,26 @@ public class PSIntMap <V> implements Iterable<V> {
         i1 = (key >>> 5) & 0x1f;
         n0 = n.getElementAtLevelIndex(i1);
         if (n0 == null) {
-          n0 = new OneNode( (key & 0x1f), value);
-          n = n.cloneWithAdded( i1, n0);
+          n0 = stamp( new OneNode( (key & 0x1f), value));
+          n = cloneWithAdded(n, i1, n0);
 
           if (n2 != null){
-            n = n2.cloneWithReplaced( i2, n);
+            n = cloneWithReplaced(n2, i2, n);
             if (n3 != null){
-              n = n3.cloneWithReplaced( i3, n);
+              n = cloneWithReplaced(n3, i3, n);
               if (n4 != null){
-                n = n4.cloneWithReplaced( i4, n);
+                n = cloneWithReplaced(n4, i4, n);
                 if (n5 != null){
-                  n = n5.cloneWithReplaced( i5, n);
+                  n = cloneWithReplaced(n5, i5, n);
                   if (n6 != null){ 
-                    n = n6.cloneWithReplaced( i6, n);
+                    n = cloneWithReplaced(n6, i6, n);
                   }
                 }
               }
             }
           }
           if (needsMerge) mergeStagingNode(key, rootLevel, n);
-          return new PSIntMap<V>( newSize, rootLevel, n, n0, n0, newSb);
+          return new PSIntMap<V>( newSize, rootLevel, n, n0, n0, newSb, edit);
 
         } else {
           n1 = n;
@@ -1498,29 +1587,29 @@ public class PSIntMap <V> implements Iterable<V> {
         n0 = (Node<V>)n;
         if (n0 != null){
           if (n0.getElementAtLevelIndex(i0) == null) {
-            n0 = n0.cloneWithAdded(i0, value);
+            n0 = cloneWithAdded(n0, i0, value);
           } else {
-            n0 = n0.cloneWithReplaced(i0, value);
+            n0 = cloneWithReplaced(n0, i0, value);
             newSize = size;
           }
         } else { // first node
-          n0 = new OneNode( i0, value);
+          n0 = stamp( new OneNode( i0, value));
           newSize = 1;
         }
         
         n = (Node)n0;
         if (n1 != null){
-          n = n1.cloneWithReplaced( i1, n);
+          n = cloneWithReplaced(n1, i1, n);
           if (n2 != null){
-            n = n2.cloneWithReplaced( i2, n);
+            n = cloneWithReplaced(n2, i2, n);
             if (n3 != null){
-              n = n3.cloneWithReplaced( i3, n);
+              n = cloneWithReplaced(n3, i3, n);
               if (n4 != null){
-                n = n4.cloneWithReplaced( i4, n);
+                n = cloneWithReplaced(n4, i4, n);
                 if (n5 != null){
-                  n = n5.cloneWithReplaced( i5, n);
+                  n = cloneWithReplaced(n5, i5, n);
                   if (n6 != null){
-                    n = n6.cloneWithReplaced( i6, n);
+                    n = cloneWithReplaced(n6, i6, n);
                   }
                 }
               }
@@ -1528,7 +1617,7 @@ public class PSIntMap <V> implements Iterable<V> {
           } 
         }
         if (needsMerge) mergeStagingNode( key, rootLevel, n);
-        return new PSIntMap<V>( newSize, rootLevel, n, n0, n0, newSb);
+        return new PSIntMap<V>( newSize, rootLevel, n, n0, n0, newSb, edit);
     }
     
     return null; // can't get here
@@ -1721,7 +1810,7 @@ public class PSIntMap <V> implements Iterable<V> {
     int newRootLevel = rootLevel;
     int newSize = countSize( newRootLevel, node);
     
-    return new PSIntMap<V>( newSize, newRootLevel, node, null, null, 0);    
+    return new PSIntMap<V>( newSize, newRootLevel, node, null, null, 0, edit);    
   }
   
   protected final int countSize (int level, Node node){
@@ -0,0 +1,246 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.nasa.jpf.util;
+
+import java.lang.reflect.Array;
+
+/**
+ * a fixed length primitive array that is stored in pages of 2^pageBits
+ * elements, which can be shared between copies and are copied on write.
+ *
+ * Pages are primitive arrays of the component type (int[], byte[] etc.) so
+ * that typed clients can access elements with a cast. All pages have the full
+ * page size, elements beyond the array length are never accessed.
+ *
+ * New PagedArrays share a single zero page for all their pages, i.e. creating
+ * a large array only allocates the page table
+ */
+public class PagedArray {
+
+  public static final int DEFAULT_PAGE_BITS = 8; // 256 elements per page
+
+  protected final Class<?> componentType;
+  protected final int pageBits;
+  protected final int pageMask;
+  protected final int length;
+
+  protected Object[] pages;
+  protected boolean[] owned; // page can be modified in place (not shared)
+
+
+  public PagedArray (Class<?> componentType, int length, int pageBits){
+    this.componentType = componentType;
+    this.pageBits = pageBits;
+    this.pageMask = (1 << pageBits) - 1;
+    this.length = length;
+
+    int nPages = (length + pageMask) >>> pageBits;
+    pages = new Object[nPages];
+    owned = new boolean[nPages];
+
+    if (nPages > 0){
+      Object zeroPage = Array.newInstance(componentType, pageMask + 1);
+      for (int i=0; i<nPages; i++){
+        pages[i] = zeroPage;
+      }
+    }
+  }
+
+  /**
+   * create a PagedArray from the contents of a flat array
+   */
+  public PagedArray (Object values, int pageBits){
+    this(values.getClass().getComponentType(), Array.getLength(values), pageBits);
+
+    for (int i=0; i<pages.length; i++){
+      Object page = Array.newInstance(componentType, pageMask + 1);
+      int off = i << pageBits;
+      System.arraycopy(values, off, page, 0, Math.min(pageMask + 1, length - off));
+      pages[i] = page;
+      owned[i] = true;
+    }
+  }
+
+  public int length(){
+    return length;
+  }
+
+  public int getPageBits(){
+    return pageBits;
+  }
+
+  public int getPageMask(){
+    return pageMask;
+  }
+
+  public int getNumberOfPages(){
+    return pages.length;
+  }
+
+  /**
+   * the number of elements that are used in page pi
+   */
+  public int getPageLength (int pi){
+    return Math.min(pageMask + 1, length - (pi << pageBits));
+  }
+
+  /**
+   * don't modify the returned page, use getModifiablePage() to do so
+   */
+  public Object getPage (int pi){
+    return pages[pi];
+  }
+
+  public Object getModifiablePage (int pi){
+    Object page = pages[pi];
+    if (!owned[pi]){
+      Object newPage = Array.newInstance(componentType, pageMask + 1);
+      System.arraycopy(page, 0, newPage, 0, pageMask + 1);
+      pages[pi] = newPage;
+      owned[pi] = true;
+      page = newPage;
+    }
+    return page;
+  }
+
+  public boolean isSharedPage (int pi){
+    return !owned[pi];
+  }
+
+  /**
+   * create a copy of this array that shares all pages with us. Neither
+   * array owns any page afterwards
+   */
+  public PagedArray share(){
+    PagedArray a = new PagedArray(this);
+    for (int i=0; i<owned.length; i++){
+      owned[i] = false;
+    }
+    return a;
+  }
+
+  protected PagedArray (PagedArray other){
+    componentType = other.componentType;
+    pageBits = other.pageBits;
+    pageMask = other.pageMask;
+    length = other.length;
+
+    pages = other.pages.clone();
+    owned = new boolean[pages.length];
+  }
+
+  /**
+   * copy elements into a flat array of the same component type
+   */
+  public void copyTo (int srcPos, Object dst, int dstPos, int len){
+    while (len > 0){
+      int pi = srcPos >>> pageBits;
+      int off = srcPos & pageMask;
+      int n = Math.min(len, pageMask + 1 - off);
+
+      System.arraycopy(pages[pi], off, dst, dstPos, n);
+
+      srcPos += n;
+      dstPos += n;
+      len -= n;
+    }
+  }
+
+  /**
+   * copy elements from a flat array of the same component type
+   */
+  public void copyFrom (Object src, int srcPos, int dstPos, int len){
+    while (len > 0){
+      int pi = dstPos >>> pageBits;
+      int off = dstPos & pageMask;
+      int n = Math.min(len, pageMask + 1 - off);
+
+      System.arraycopy(src, srcPos, getModifiablePage(pi), off, n);
+
+      srcPos += n;
+      dstPos += n;
+      len -= n;
+    }
+  }
+
+  public Object toArray(){
+    Object a = Array.newInstance(componentType, length);
+    copyTo(0, a, 0, length);
+    return a;
+  }
+
+  /**
+   * copy elements from another PagedArray of the same component type, with
+   * System.arraycopy semantics for overlapping ranges of the same array.
+   *
+   * If source and destination positions have the same page offset, we share
+   * all pages that are completely covered instead of copying them
+   */
+  public void copy (PagedArray src, int srcPos, int dstPos, int len){
+    if (src == this){
+      if (srcPos != dstPos && len > 0){
+        Object tmp = Array.newInstance(componentType, len);
+        copyTo(srcPos, tmp, 0, len);
+        copyFrom(tmp, 0, dstPos, len);
+      }
+
+    } else if (pageBits == src.pageBits && ((srcPos ^ dstPos) & pageMask) == 0){
+      int head = Math.min(len, (pageMask + 1 - (dstPos & pageMask)) & pageMask);
+      if (head > 0){
+        copyPart(src, srcPos, dstPos, head);
+        srcPos += head;
+        dstPos += head;
+        len -= head;
+      }
+
+      for (; len > pageMask; len -= pageMask + 1){
+        int si = srcPos >>> pageBits;
+        int di = dstPos >>> pageBits;
+        pages[di] = src.pages[si];
+        owned[di] = false;
+        src.owned[si] = false;
+
+        srcPos += pageMask + 1;
+        dstPos += pageMask + 1;
+      }
+
+      if (len > 0){
+        copyPart(src, srcPos, dstPos, len);
+      }
+
+    } else {
+      copyPart(src, srcPos, dstPos, len);
+    }
+  }
+
+  protected void copyPart (PagedArray src, int srcPos, int dstPos, int len){
+    while (len > 0){
+      int si = srcPos >>> src.pageBits;
+      int so = srcPos & src.pageMask;
+      int di = dstPos >>> pageBits;
+      int dOff = dstPos & pageMask;
+      int n = Math.min(len, Math.min(src.pageMask + 1 - so, pageMask + 1 - dOff));
+
+      System.arraycopy(src.pages[si], so, getModifiablePage(di), dOff, n);
+
+      srcPos += n;
+      dstPos += n;
+      len -= n;
+    }
+  }
+}
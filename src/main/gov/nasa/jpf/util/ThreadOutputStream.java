@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.nasa.jpf.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * an OutputStream that writes to a per-thread target if the current thread
+ * (or the thread that started it) has set one, and to a default stream
+ * otherwise.
+ *
+ * If installed as System.out/err, this can be used to separate the console
+ * output of concurrent activities, such as the tests of a ParallelTestRunner
+ */
+public class ThreadOutputStream extends OutputStream {
+
+  protected OutputStream defaultOut;
+  protected InheritableThreadLocal<OutputStream> target = new InheritableThreadLocal<OutputStream>();
+
+  public ThreadOutputStream (OutputStream defaultOut){
+    this.defaultOut = defaultOut;
+  }
+
+  public OutputStream getDefaultOut(){
+    return defaultOut;
+  }
+
+  /**
+   * set the target for the current thread and the threads it starts from now
+   * on, null resets to the default stream
+   */
+  public void setThreadTarget (OutputStream os){
+    if (os != null){
+      target.set(os);
+    } else {
+      target.remove();
+    }
+  }
+
+  public OutputStream getThreadTarget(){
+    return target.get();
+  }
+
+  protected OutputStream getOut(){
+    OutputStream os = target.get();
+    return (os != null) ? os : defaultOut;
+  }
+
+  @Override
+  public void write (int b) throws IOException {
+    getOut().write(b);
+  }
+
+  @Override
+  public void write (byte[] b, int off, int len) throws IOException {
+    getOut().write(b, off, len);
+  }
+
+  @Override
+  public void flush() throws IOException {
+    getOut().flush();
+  }
+}
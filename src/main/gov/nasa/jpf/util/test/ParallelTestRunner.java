@@ -0,0 +1,473 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.nasa.jpf.util.test;
+
+import gov.nasa.jpf.IsolatingClassLoader;
+import gov.nasa.jpf.JPFException;
+import gov.nasa.jpf.util.ThreadOutputStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * runs the test methods of TestJPF suites concurrently on a bounded pool of
+ * worker threads within the same host VM.
+ *
+ * Each worker executes its tests within its own class space (see IsolatingClassLoader),
+ * which is kept for all tests of this worker, i.e. JPF classes and peers are only
+ * loaded and initialized once per worker, and run independent class file data
+ * is shared between all workers. Since tests of the same class can run concurrently
+ * on different workers, they must not depend on static state that is set by
+ * other test methods.
+ *
+ * The console output of each test is captured separately and printed once the
+ * test is finished. Results can be written as JUnit XML reports that include
+ * the accumulated JPF time, states and instructions of each test method
+ */
+public class ParallelTestRunner {
+
+  static final String TESTJPF_CLS = "gov.nasa.jpf.util.test.TestJPF";
+
+  protected int nWorkers;
+  protected String[] options = new String[0];   // TestJPF options such as "-d"
+  protected String[] globalArgs;                // "<key>=<value>" config overrides for all tests
+  protected boolean quiet;                      // don't print test output
+
+  protected List<Class<? extends TestJPF>> testClasses = new ArrayList<Class<? extends TestJPF>>();
+  protected List<TestResult> results = new ArrayList<TestResult>();
+
+  protected ThreadLocal<IsolatingClassLoader> classSpace = new ThreadLocal<IsolatingClassLoader>();
+  protected List<IsolatingClassLoader> classSpaces = new ArrayList<IsolatingClassLoader>();
+  protected List<String> cleanupErrors = new ArrayList<String>();
+
+  protected ThreadOutputStream out;
+  protected ThreadOutputStream err;
+  protected PrintStream console;
+
+  public ParallelTestRunner (int nWorkers){
+    this.nWorkers = nWorkers;
+  }
+
+  public ParallelTestRunner (){
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  public void setOptions (String... options){
+    this.options = options;
+  }
+
+  public void setGlobalArgs (String... globalArgs){
+    this.globalArgs = globalArgs;
+  }
+
+  public void setQuiet (boolean quiet){
+    this.quiet = quiet;
+  }
+
+  /**
+   * add the test methods of testCls, or all of its @Test methods if no methods are specified
+   */
+  public void addTests (Class<? extends TestJPF> testCls, String... methods){
+    if (!testClasses.contains(testCls)){
+      testClasses.add(testCls);
+    }
+
+    for (Method m : TestJPF.getTestMethods(testCls, methods)){
+      results.add(new TestResult(testCls.getName(), m.getName()));
+    }
+  }
+
+  public List<TestResult> getResults(){
+    return results;
+  }
+
+  public boolean hasFailures(){
+    if (!cleanupErrors.isEmpty()){
+      return true;
+    }
+    for (TestResult r : results){
+      if (!r.isOk()){
+        return true;
+      }
+    }
+    return false;
+  }
+
+  //--- the workers
+
+  protected IsolatingClassLoader getClassSpace() throws Throwable {
+    IsolatingClassLoader cl = classSpace.get();
+
+    if (cl == null){
+      cl = new IsolatingClassLoader(testClasses.toArray(new Class<?>[testClasses.size()]));
+      cl.invokeStatic(TESTJPF_CLS, "initIsolatedTests", new Class<?>[] { String[].class, String[].class },
+                      options, globalArgs);
+      classSpace.set(cl);
+
+      synchronized (classSpaces){
+        classSpaces.add(cl);
+      }
+    }
+
+    return cl;
+  }
+
+  protected void runTest (TestResult result){
+    ByteArrayOutputStream buf = new ByteArrayOutputStream();
+    out.setThreadTarget(buf);
+    err.setThreadTarget(buf);
+
+    try {
+      getClassSpace().invokeStatic(TESTJPF_CLS, "runIsolatedTest", new Class<?>[] { TestResult.class }, result);
+
+    } catch (Throwable t){
+      StringWriter sw = new StringWriter();
+      t.printStackTrace(new PrintWriter(sw));
+      result.setError("TEST ERROR: " + t, sw.toString());
+
+    } finally {
+      out.setThreadTarget(null);
+      err.setThreadTarget(null);
+      result.setOutput(buf.toString());
+    }
+
+    reportTestFinished(result);
+  }
+
+  protected void finishClassSpaces (){
+    for (IsolatingClassLoader cl : classSpaces){
+      try {
+        @SuppressWarnings("unchecked")
+        List<String> errors = (List<String>) cl.invokeStatic(TESTJPF_CLS, "finishIsolatedTests", new Class<?>[0]);
+        cleanupErrors.addAll(errors);
+      } catch (Throwable t){
+        cleanupErrors.add("TEST ERROR: " + t);
+      }
+    }
+    classSpaces.clear();
+  }
+
+  /**
+   * run all added tests, returning true if they all passed
+   */
+  public boolean run (){
+    PrintStream sysOut = System.out;
+    PrintStream sysErr = System.err;
+
+    console = sysOut;
+    out = new ThreadOutputStream(sysOut);
+    err = new ThreadOutputStream(sysErr);
+    System.setOut(new PrintStream(out, true));
+    System.setErr(new PrintStream(err, true));
+
+    ExecutorService pool = Executors.newFixedThreadPool(nWorkers);
+
+    try {
+      List<Future<?>> futures = new ArrayList<Future<?>>();
+      for (TestResult r : results){
+        futures.add( pool.submit(() -> runTest(r)));
+      }
+
+      for (Future<?> f : futures){
+        f.get();
+      }
+
+      pool.shutdown();
+      pool.awaitTermination(1, TimeUnit.MINUTES);
+
+      finishClassSpaces();
+
+    } catch (ExecutionException x){
+      Throwable cause = x.getCause();
+      throw new JPFException("parallel test execution failed: " + cause, cause);
+
+    } catch (Exception x){
+      throw new JPFException("parallel test execution failed: " + x, x);
+
+    } finally {
+      pool.shutdownNow();
+      System.setOut(sysOut);
+      System.setErr(sysErr);
+    }
+
+    reportResults();
+    return !hasFailures();
+  }
+
+  //--- console reporting
+
+  protected synchronized void reportTestFinished (TestResult r){
+    if (!quiet){
+      console.println();
+      console.print("......................................... testing ");
+      console.print(r.getClassName());
+      console.print('.');
+      console.print(r.getMethodName());
+      console.println("()");
+
+      console.print(r.getOutput());
+    }
+
+    if (!r.isOk()){
+      if (quiet){
+        console.println(r.getClassName() + '.' + r.getMethodName() + "():");
+      }
+      console.print(r.getTrace());
+    }
+
+    console.print("......................................... ");
+    console.print(r);
+    console.printf(" (%d ms, jpf runs: %d, states: %d, instructions: %d)\n",
+                   r.getTime(), r.getJPFRuns(), r.getStates(), r.getInstructions());
+  }
+
+  protected void reportResults (){
+    int nFailures = 0;
+    int nErrors = 0;
+
+    console.println();
+    console.println("......................................... execution of testsuites (" + nWorkers + " workers):");
+
+    for (TestResult r : results){
+      if (r.isFailed()){
+        nFailures++;
+      } else if (r.isError()){
+        nErrors++;
+      }
+
+      if (!r.isOk() || !quiet){
+        console.println(".... " + r.getClassName() + '.' + r);
+      }
+    }
+
+    for (String e : cleanupErrors){
+      nErrors++;
+      console.println(".... " + e);
+    }
+
+    console.print(".........................................");
+    console.println(" tests: " + results.size() + ", failures: " + nFailures + ", errors: " + nErrors);
+  }
+
+  //--- JUnit XML reports
+
+  static String escape (String s){
+    if (s == null){
+      return "";
+    }
+
+    StringBuilder sb = new StringBuilder(s.length());
+    for (int i=0; i<s.length(); i++){
+      char c = s.charAt(i);
+      switch (c){
+        case '<': sb.append("&lt;"); break;
+        case '>': sb.append("&gt;"); break;
+        case '&': sb.append("&amp;"); break;
+        case '"': sb.append("&quot;"); break;
+        default:
+          if (c >= 0x20 || c == '\n' || c == '\r' || c == '\t'){
+            sb.append(c);
+          } // else skip, not allowed in XML 1.0
+      }
+    }
+    return sb.toString();
+  }
+
+  static String seconds (long msec){
+    return String.format("%.3f", msec / 1000.0);
+  }
+
+  protected void writeReport (PrintWriter pw, String clsName, List<TestResult> suite){
+    int nFailures = 0;
+    int nErrors = 0;
+    long time = 0;
+    long jpfTime = 0, states = 0, insns = 0;
+
+    for (TestResult r : suite){
+      if (r.isFailed()){
+        nFailures++;
+      } else if (r.isError()){
+        nErrors++;
+      }
+      time += r.getTime();
+      jpfTime += r.getJPFTime();
+      states += r.getStates();
+      insns += r.getInstructions();
+    }
+
+    pw.println("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+    pw.printf("<testsuite name=\"%s\" tests=\"%d\" failures=\"%d\" errors=\"%d\" skipped=\"0\" time=\"%s\">\n",
+              escape(clsName), suite.size(), nFailures, nErrors, seconds(time));
+    pw.println("  <properties>");
+    pw.printf("    <property name=\"jpf.time\" value=\"%s\"/>\n", seconds(jpfTime));
+    pw.printf("    <property name=\"jpf.states\" value=\"%d\"/>\n", states);
+    pw.printf("    <property name=\"jpf.instructions\" value=\"%d\"/>\n", insns);
+    pw.println("  </properties>");
+
+    for (TestResult r : suite){
+      pw.printf("  <testcase name=\"%s\" classname=\"%s\" time=\"%s\">\n",
+                escape(r.getMethodName()), escape(clsName), seconds(r.getTime()));
+
+      pw.println("    <properties>");
+      pw.printf("      <property name=\"jpf.runs\" value=\"%d\"/>\n", r.getJPFRuns());
+      pw.printf("      <property name=\"jpf.time\" value=\"%s\"/>\n", seconds(r.getJPFTime()));
+      pw.printf("      <property name=\"jpf.states\" value=\"%d\"/>\n", r.getStates());
+      pw.printf("      <property name=\"jpf.instructions\" value=\"%d\"/>\n", r.getInstructions());
+      pw.println("    </properties>");
+
+      if (!r.isOk()){
+        String tag = r.isFailed() ? "failure" : "error";
+        pw.printf("    <%s message=\"%s\">%s</%s>\n", tag, escape(r.getMessage()), escape(r.getTrace()), tag);
+      }
+
+      String output = r.getOutput();
+      if (output != null && !output.isEmpty()){
+        pw.print("    <system-out>");
+        pw.print(escape(output));
+        pw.println("</system-out>");
+      }
+
+      pw.println("  </testcase>");
+    }
+
+    pw.println("</testsuite>");
+  }
+
+  /**
+   * write one 'TEST-<class>.xml' JUnit report per test class into the provided directory
+   */
+  public void writeReports (File dir) throws IOException {
+    if (!dir.isDirectory() && !dir.mkdirs()){
+      throw new IOException("cannot create report directory: " + dir);
+    }
+
+    Map<String,List<TestResult>> suites = new LinkedHashMap<String,List<TestResult>>();
+    for (TestResult r : results){
+      List<TestResult> suite = suites.get(r.getClassName());
+      if (suite == null){
+        suite = new ArrayList<TestResult>();
+        suites.put(r.getClassName(), suite);
+      }
+      suite.add(r);
+    }
+
+    for (Map.Entry<String,List<TestResult>> e : suites.entrySet()){
+      File f = new File(dir, "TEST-" + e.getKey() + ".xml");
+      try (PrintWriter pw = new PrintWriter(new OutputStreamWriter(new FileOutputStream(f), StandardCharsets.UTF_8))){
+        writeReport(pw, e.getKey(), e.getValue());
+      }
+    }
+  }
+
+  //--- entry points
+
+  /**
+   * entry for RunTest, which loads this class through its JPFClassLoader. Leading
+   * args starting with '-' are TestJPF options, the rest are test method names
+   */
+  public static boolean runTests (List<Class<?>> classes, String[] args, String[] globalArgs,
+                                  int nWorkers, boolean quiet, String reportDir) throws IOException {
+    int i = 0;
+    while (i < args.length && args[i] != null && args[i].startsWith("-")){
+      i++;
+    }
+    String[] options = Arrays.copyOfRange(args, 0, i);
+    String[] methods = Arrays.copyOfRange(args, i, args.length);
+
+    ParallelTestRunner runner = (nWorkers > 0) ? new ParallelTestRunner(nWorkers) : new ParallelTestRunner();
+    runner.setOptions(options);
+    runner.setGlobalArgs(globalArgs);
+    runner.setQuiet(quiet);
+
+    for (Class<?> cls : classes){
+      runner.addTests(cls.asSubclass(TestJPF.class), methods);
+    }
+
+    boolean passed = runner.run();
+
+    if (reportDir != null){
+      runner.writeReports(new File(reportDir));
+    }
+
+    return passed;
+  }
+
+  /**
+   * usage: ParallelTestRunner [-workers=<n>] [-report=<dir>] [-quiet] {<test-class>[#<method>{,<method>}]}
+   */
+  public static void main (String[] args) throws Exception {
+    int nWorkers = 0;
+    boolean quiet = false;
+    String reportDir = null;
+
+    List<String> specs = new ArrayList<String>();
+
+    for (String a : args){
+      if (a.startsWith("-workers=")){
+        nWorkers = Integer.parseInt(a.substring(9));
+      } else if (a.startsWith("-report=")){
+        reportDir = a.substring(8);
+      } else if (a.equals("-quiet") || a.equals("-q")){
+        quiet = true;
+      } else {
+        specs.add(a);
+      }
+    }
+
+    ParallelTestRunner runner = (nWorkers > 0) ? new ParallelTestRunner(nWorkers) : new ParallelTestRunner();
+    runner.setQuiet(quiet);
+
+    for (String spec : specs){
+      String[] methods = new String[0];
+      int idx = spec.indexOf('#');
+      if (idx > 0){
+        methods = spec.substring(idx+1).split(",");
+        spec = spec.substring(0, idx);
+      }
+      runner.addTests(Class.forName(spec).asSubclass(TestJPF.class), methods);
+    }
+
+    boolean passed = runner.run();
+
+    if (reportDir != null){
+      runner.writeReports(new File(reportDir));
+    }
+
+    if (!passed){
+      System.exit(1);
+    }
+  }
+}
@@ -31,9 +31,11 @@ import gov.nasa.jpf.util.Reflection;
 import gov.nasa.jpf.vm.ExceptionInfo;
 import gov.nasa.jpf.vm.NoUncaughtExceptionsProperty;
 import gov.nasa.jpf.vm.NotDeadlockedProperty;
+import gov.nasa.jpf.vm.VM;
 
 import java.io.PrintStream;
 import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -625,6 +627,112 @@ public abstract class TestJPF implements JPFShell  {
     }
   }
 
+  //--- running tests within isolated class spaces (see ParallelTestRunner)
+
+  @FilterField static TestResult currentResult; // the test we currently run, if any
+  @FilterField static ArrayList<Class<? extends TestJPF>> initializedClasses = new ArrayList<Class<? extends TestJPF>>(); // @BeforeClass done
+
+  /**
+   * entry for ParallelTestRunner workers to initialize their class space. Since
+   * the caller does not share our classes, this and the other isolated entries
+   * only use host VM and TestResult types.
+   *
+   * globalKeyValues are the "<key>=<value>" pairs that are otherwise set from
+   * the "test.<key>" properties of the RunTest config (null values remove keys)
+   */
+  public static void initIsolatedTests (String[] options, String[] globalKeyValues){
+    getOptions(options.clone());
+    globalRunDirectly = runDirectly;
+    globalShowConfig = showConfig;
+    quiet = false; // output is captured per test by the runner, we can't reset System.out
+
+    if (globalKeyValues != null){
+      globalArgs = new ArrayList<GlobalArg>();
+      for (String kv : globalKeyValues){
+        int idx = kv.indexOf('=');
+        String val = kv.substring(idx+1);
+        globalArgs.add(new GlobalArg(kv.substring(0, idx), val.equals("REMOVE") ? null : val));
+      }
+    }
+  }
+
+  /**
+   * run a single test method within the class space of a ParallelTestRunner
+   * worker. @BeforeClass methods are executed once per class space before the
+   * first test of their class, @AfterClass methods by finishIsolatedTests()
+   */
+  public static void runIsolatedTest (TestResult result){
+    long t0 = System.currentTimeMillis();
+    currentResult = result;
+
+    try {
+      Class<? extends TestJPF> testCls = Class.forName(result.getClassName()).asSubclass(TestJPF.class);
+
+      if (!initializedClasses.contains(testCls)){
+        for (Method initMethod : getBeforeClassMethods(testCls)) {
+          initMethod.invoke(null);
+        }
+        initializedClasses.add(testCls); // if this failed, we try again with the next test
+      }
+
+      Method testMethod = testCls.getMethod(result.getMethodName());
+      Object testObject = testCls.getDeclaredConstructor().newInstance();
+
+      for (Method initMethod : getBeforeMethods(testCls)){
+        invoke( initMethod, testObject);
+      }
+
+      invoke( testMethod, testObject);
+
+      for (Method cleanupMethod : getAfterMethods(testCls)){
+        invoke( cleanupMethod, testObject);
+      }
+
+    } catch (InvocationTargetException x) {
+      setResult( result, x.getCause());
+    } catch (Throwable t) {
+      setResult( result, t);
+
+    } finally {
+      currentResult = null;
+      result.setTime(System.currentTimeMillis() - t0);
+    }
+  }
+
+  static void setResult (TestResult result, Throwable cause){
+    StringWriter sw = new StringWriter();
+    cause.printStackTrace(new PrintWriter(sw));
+
+    if (cause instanceof AssertionError) {
+      result.setFailed(cause.getMessage(), sw.toString());
+    } else {
+      result.setError(cause.toString(), sw.toString());
+    }
+  }
+
+  /**
+   * run the @AfterClass methods of all classes we have executed tests for in
+   * this class space, returning the descriptions of cleanup errors
+   */
+  public static List<String> finishIsolatedTests (){
+    List<String> errors = new ArrayList<String>();
+
+    for (Class<? extends TestJPF> testCls : initializedClasses){
+      for (Method cleanupMethod : getAfterClassMethods(testCls)) {
+        try {
+          cleanupMethod.invoke(null);
+        } catch (InvocationTargetException x) {
+          errors.add(testCls.getName() + '.' + cleanupMethod.getName() + ": " + x.getCause());
+        } catch (IllegalAccessException x) {
+          errors.add(testCls.getName() + '.' + cleanupMethod.getName() + ": " + x);
+        }
+      }
+    }
+    initializedClasses.clear();
+
+    return errors;
+  }
+
   static String getProperty(String key){
     // intercepted by peer
     return null;
@@ -672,7 +780,15 @@ public abstract class TestJPF implements JPFShell  {
   protected JPF createAndRunJPF (StackTraceElement testMethod, String[] args) {
     JPF jpf = createJPF( testMethod, args);
     if (jpf != null){
-      jpf.run();
+      long t0 = System.currentTimeMillis();
+      try {
+        jpf.run();
+      } finally {
+        if (currentResult != null && jpf.getVM() != null){
+          VM vm = jpf.getVM(); // state ids start at 0
+          currentResult.addJPFRun(System.currentTimeMillis() - t0, vm.getStateCount() + 1, vm.getExecutedInstructions());
+        }
+      }
     }
     return jpf;
   }
@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.nasa.jpf.util.test;
+
+/**
+ * the outcome of a single test method execution, including the accumulated
+ * numbers of all JPF runs that were started by it.
+ *
+ * TestResults are passed between ParallelTestRunner and the isolated class
+ * spaces that execute the tests (see IsolatingClassLoader), i.e. this class
+ * is shared and must not use any other JPF types
+ */
+public class TestResult {
+
+  public static final String OK = "Ok";
+  public static final String FAILED = "Failed";
+  public static final String ERROR = "Error";
+
+  protected String className;
+  protected String methodName;
+
+  protected String status = OK;
+  protected String message;
+  protected String trace;   // stack trace of a failure or error
+  protected String output;  // System.out/err output of the test
+
+  protected long time;      // wall time of the test method in msec
+  protected long jpfTime;   // wall time of the JPF runs in msec
+  protected int jpfRuns;
+  protected long states;
+  protected long instructions;
+
+  public TestResult (String className, String methodName){
+    this.className = className;
+    this.methodName = methodName;
+  }
+
+  public String getClassName(){
+    return className;
+  }
+
+  public String getMethodName(){
+    return methodName;
+  }
+
+  public String getStatus(){
+    return status;
+  }
+
+  public boolean isOk(){
+    return status == OK;
+  }
+
+  public boolean isFailed(){
+    return status == FAILED;
+  }
+
+  public boolean isError(){
+    return status == ERROR;
+  }
+
+  public String getMessage(){
+    return message;
+  }
+
+  public String getTrace(){
+    return trace;
+  }
+
+  public void setFailed (String message, String trace){
+    status = FAILED;
+    this.message = message;
+    this.trace = trace;
+  }
+
+  public void setError (String message, String trace){
+    status = ERROR;
+    this.message = message;
+    this.trace = trace;
+  }
+
+  public String getOutput(){
+    return output;
+  }
+
+  public void setOutput (String output){
+    this.output = output;
+  }
+
+  public long getTime(){
+    return time;
+  }
+
+  public void setTime (long time){
+    this.time = time;
+  }
+
+  public void addJPFRun (long time, long states, long instructions){
+    jpfRuns++;
+    jpfTime += time;
+    this.states += states;
+    this.instructions += instructions;
+  }
+
+  public int getJPFRuns(){
+    return jpfRuns;
+  }
+
+  public long getJPFTime(){
+    return jpfTime;
+  }
+
+  public long getStates(){
+    return states;
+  }
+
+  public long getInstructions(){
+    return instructions;
+  }
+
+  @Override
+  public String toString(){
+    return methodName + ": " + status;
+  }
+}
@@ -48,6 +48,15 @@ public abstract class ArrayFields extends Fields {
   } 
   
   public abstract void copyElements (ArrayFields src, int srcPos, int dstPos, int len);
+
+  /**
+   * are values stored in pages instead of a flat array (see PagedArrayFieldsFactory)?
+   * If so, getValues() and asXArray() are expensive, and copies should use
+   * copyElements()
+   */
+  public boolean isPaged() {
+    return false;
+  }
   
   public void printElements( PrintStream ps, int max){
     int len = arrayLength();
@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.nasa.jpf.vm;
+
+import gov.nasa.jpf.Config;
+import gov.nasa.jpf.JPFConfigException;
+import gov.nasa.jpf.util.OffHeapArray;
+
+import java.io.File;
+
+/**
+ * a SPIN-style bitstate (supertrace) StateSet, which does not store states or
+ * fingerprints at all but only sets k bits per state in a (possibly huge) bit
+ * array outside of the Java heap. A state is considered to be visited if all
+ * of its k bits are already set, which means we can miss new states because
+ * of hash collisions, i.e. this is for partial coverage bug hunting in state
+ * spaces that are too large to be stored exactly.
+ *
+ * The k bit indices are derived from the 64 bit lookup3 hash of the serialized
+ * state (or the fingerprint of a StateFingerprinter serializer) by double
+ * hashing. The bit array size is 'vm.storage.bitstate_size' bytes (rounded down
+ * to a power of two, can use k/M/G postfixes), 'vm.storage.hash_functions' is k.
+ * If 'vm.storage.file' is set, the bit array is kept in memory mapped files.
+ *
+ * Since we don't keep state identities, re-visited states get the UNKNOWN_ID.
+ * This is also why search.match_depth is not supported.
+ */
+public class BitstateStateSet extends SerializingStateSet implements ApproximateStateSet {
+
+  static final long DEFAULT_SIZE = 1L << 24; // 16MB, i.e. 2^27 bits
+  static final int DEFAULT_HASH_FUNCTIONS = 3;
+
+  protected OffHeapArray bits;
+  protected long nBits;
+  protected long mask;
+  protected int k;
+
+  protected long nSetBits;
+  protected int nStates;
+
+  protected StateFingerprinter fingerprinter;
+
+  public BitstateStateSet (Config conf) {
+    this( conf.getString("vm.storage.file"),
+          conf.getMemorySize("vm.storage.bitstate_size", DEFAULT_SIZE),
+          conf.getInt("vm.storage.hash_functions", DEFAULT_HASH_FUNCTIONS));
+  }
+
+  public BitstateStateSet (String path, long size, int k) {
+    if (size < 8){
+      throw new JPFConfigException("illegal vm.storage.bitstate_size: " + size);
+    }
+    if (k <= 0){
+      throw new JPFConfigException("illegal vm.storage.hash_functions: " + k);
+    }
+
+    this.k = k;
+
+    nBits = Long.highestOneBit(size) << 3;
+    mask = nBits - 1;
+
+    File file = null;
+    if (path != null){
+      file = new File(path + ".bits");
+      File dir = file.getAbsoluteFile().getParentFile();
+      if (!dir.isDirectory() && !dir.mkdirs()){
+        throw new JPFConfigException("cannot create state storage dir: " + dir.getAbsolutePath());
+      }
+    }
+
+    long nBytes = nBits >>> 3;
+    bits = new OffHeapArray( nBytes, file);
+    bits.ensureCapacity( nBytes);
+  }
+
+  public BitstateStateSet () {
+    this( null, DEFAULT_SIZE, DEFAULT_HASH_FUNCTIONS);
+  }
+
+  @Override
+  public void attach (VM vm) {
+    super.attach(vm);
+
+    if (vm.getConfig().getBoolean("search.match_depth")){
+      throw new JPFConfigException("search.match_depth is not supported by " + getClass().getName());
+    }
+
+    if (serializer instanceof StateFingerprinter){
+      fingerprinter = (StateFingerprinter)serializer;
+    }
+  }
+
+  @Override
+  public int size () {
+    return nStates;
+  }
+
+  @Override
+  public int addCurrent () {
+    if (fingerprinter != null){
+      return addFingerprint( fingerprinter.getFingerprint());
+    } else {
+      return add( serializer.getStoringData());
+    }
+  }
+
+  @Override
+  public int add (int[] val) {
+    return addFingerprint( JenkinsStateSet.longLookup3Hash(val));
+  }
+
+  // the second hash of the double hashing scheme (Stafford variant 13 finalizer)
+  static long mix (long h) {
+    h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+    h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+    return h ^ (h >>> 31);
+  }
+
+  /**
+   * set the k bits of this hash. Answers a new state id if at least one of
+   * them was not set yet, UNKNOWN_ID otherwise
+   */
+  public int addFingerprint (long hash) {
+    long delta = mix(hash) | 1;
+    boolean isNew = false;
+
+    long idx = hash;
+    for (int i = 0; i < k; i++){
+      long bitIdx = idx & mask;
+      long addr = (bitIdx >>> 6) << 3;
+      long word = bits.getLong(addr);
+      long bit = 1L << (bitIdx & 63);
+
+      if ((word & bit) == 0){
+        bits.putLong(addr, word | bit);
+        nSetBits++;
+        isNew = true;
+      }
+
+      idx += delta;
+    }
+
+    if (isNew){
+      if (nStates == Integer.MAX_VALUE){
+        throw new JPFConfigException("state storage exhausted");
+      }
+      return nStates++;
+
+    } else {
+      return StateSet.UNKNOWN_ID;
+    }
+  }
+
+  public long getNumberOfBits() {
+    return nBits;
+  }
+
+  public int getNumberOfHashFunctions() {
+    return k;
+  }
+
+  public long getNumberOfSetBits() {
+    return nSetBits;
+  }
+
+  /**
+   * the probability that the next new state is wrongly considered to be visited,
+   * i.e. all its k bits are already set
+   */
+  @Override
+  public double getOmissionProbability() {
+    return Math.pow( (double)nSetBits / nBits, k);
+  }
+
+  /**
+   * bits per stored state, SPIN's 'hash factor'. Values above 100 usually
+   * mean a good coverage
+   */
+  @Override
+  public double getHashFactor() {
+    return (nStates > 0) ? (double)nBits / nStates : nBits;
+  }
+}
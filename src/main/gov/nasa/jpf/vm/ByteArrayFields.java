@@ -42,7 +42,15 @@ public class ByteArrayFields extends ArrayFields {
   @Override
   public void copyElements (ArrayFields src, int srcPos, int dstPos, int len){
     ByteArrayFields a = (ByteArrayFields) src;
-    System.arraycopy(a.values, srcPos, values, dstPos, len);
+    a.copyTo(srcPos, values, dstPos, len);
+  }
+
+  /**
+   * copy elements into a flat array, overridden by subclasses that don't
+   * store values in a flat array
+   */
+  protected void copyTo (int srcPos, byte[] dst, int dstPos, int len){
+    System.arraycopy(values, srcPos, dst, dstPos, len);
   }
   
   @Override
@@ -67,7 +75,10 @@ public class ByteArrayFields extends ArrayFields {
 
   @Override
   public boolean equals (Object o) {
-    if (o instanceof ByteArrayFields) {
+    if (o instanceof PagedByteArrayFields) {
+      return o.equals(this);
+
+    } else if (o instanceof ByteArrayFields) {
       ByteArrayFields other = (ByteArrayFields)o;
 
       byte[] v = values;
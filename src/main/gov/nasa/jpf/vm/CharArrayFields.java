@@ -44,7 +44,15 @@ public class CharArrayFields extends ArrayFields {
   @Override
   public void copyElements (ArrayFields src, int srcPos, int dstPos, int len){
     CharArrayFields a = (CharArrayFields) src;
-    System.arraycopy(a.values, srcPos, values, dstPos, len);
+    a.copyTo(srcPos, values, dstPos, len);
+  }
+
+  /**
+   * copy elements into a flat array, overridden by subclasses that don't
+   * store values in a flat array
+   */
+  protected void copyTo (int srcPos, char[] dst, int dstPos, int len){
+    System.arraycopy(values, srcPos, dst, dstPos, len);
   }
   
   @Override
@@ -95,7 +103,10 @@ public class CharArrayFields extends ArrayFields {
 
   @Override
   public boolean equals (Object o) {
-    if (o instanceof CharArrayFields) {
+    if (o instanceof PagedCharArrayFields) {
+      return o.equals(this);
+
+    } else if (o instanceof CharArrayFields) {
       CharArrayFields other = (CharArrayFields)o;
 
       char[] v = values;
@@ -33,6 +33,7 @@ import java.io.File;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -116,6 +117,13 @@ public class ClassInfo extends InfoObject implements Iterable<MethodInfo>, Gener
   protected static HashSet<String> autoloadAnnotations;
   protected static HashSet<String> autoloaded;
 
+  /**
+   * ids of interfaces for interfaceBits, keyed by ClassInfo equality so that
+   * interface ClassInfos which are equal but not identical get the same id.
+   * Ids are only valid within one VM, i.e. this is reset by init()
+   */
+  protected static final HashMap<ClassInfo,Integer> interfaceIds = new HashMap<ClassInfo,Integer>();
+
   /**
    * Name of the class. e.g. "java.lang.String"
    * NOTE - this is the expanded name for builtin types, e.g. "int", but NOT
@@ -206,6 +214,17 @@ public class ClassInfo extends InfoObject implements Iterable<MethodInfo>, Gener
   
   /** cache of all interfaceNames (parent interfaceNames and interface parents) - lazy eval */
   protected Set<ClassInfo> allInterfaces;
+
+  /**
+   * subtype test support (lazy eval): the superclass chain from java.lang.Object
+   * down to this class (a 'Cohen display', i.e. an ancestor of depth d is at
+   * index d), and all interfaces as a bitset that is indexed by interface id
+   */
+  protected ClassInfo[] superDisplay;
+  protected long[] interfaceBits;
+
+  /** the bit index of this interface in interfaceBits sets (lazy eval) */
+  protected int interfaceId = -1;
   
   /** Name of the package. */
   protected String packageName;
@@ -254,9 +273,32 @@ public class ClassInfo extends InfoObject implements Iterable<MethodInfo>, Gener
   // To know if class is loaded from JVM or is JPF class      
   protected boolean isJPFClass = false;
 
+  /**
+   * virtual method dispatch cache, an open addressing hash table that maps
+   * selector ids (see VM.getSelectorId()) to the methods called on instances
+   * of this class. Keys are stored as selectorId+1 so that 0 means empty,
+   * versions are the methodVersion of the cached method's class at the time
+   * we resolved it. This is filled lazily by getVirtualMethod(), i.e. it only
+   * holds the selectors that were actually called
+   */
+  protected int[] dispatchKeys;
+  protected MethodInfo[] dispatchMethods;
+  protected int[] dispatchVersions;
+  protected int dispatchCount;
+
+  /**
+   * incremented when a method of this class that was already handed out by
+   * getVirtualMethod() gets replaced or overridden, which invalidates all
+   * dispatch cache and call site entries that refer to it
+   */
+  protected int methodVersion;
+  protected boolean isDispatched;
+
   static boolean init (Config config) {
 
     ClassInfo.config = config;
+
+    interfaceIds.clear();
     
     setSourceRoots(config);
     //buildBCELModelClassPath(config);
@@ -1127,6 +1169,103 @@ public class ClassInfo extends InfoObject implements Iterable<MethodInfo>, Gener
     return mi;
   }
   
+  //--- virtual dispatch support
+
+  public int getMethodVersion() {
+    return methodVersion;
+  }
+
+  /**
+   * the method that is called by INVOKEVIRTUAL or INVOKEINTERFACE on an instance
+   * of this class, i.e. the first one found up the superclass chain, or the
+   * default method of an interface.
+   * Results are cached in our dispatch table, so that repeated lookups for
+   * the same selector are just a hash probe instead of a chain of
+   * HashMap lookups up the class hierarchy.
+   *
+   * Unresolved methods are not cached and answer null
+   */
+  public MethodInfo getVirtualMethod (int selectorId, String uniqueName) {
+    int[] keys = dispatchKeys;
+    int key = selectorId + 1;
+
+    if (keys != null) {
+      int mask = keys.length - 1;
+      for (int i = selectorId & mask; keys[i] != 0; i = (i + 1) & mask) {
+        if (keys[i] == key) {
+          MethodInfo mi = dispatchMethods[i];
+          if (mi.getClassInfo().methodVersion == dispatchVersions[i]) {
+            return mi;
+          }
+          // stale, resolve again and overwrite the entry
+          mi = resolveVirtualMethod(uniqueName);
+          if (mi != null) {
+            dispatchMethods[i] = mi;
+            dispatchVersions[i] = mi.getClassInfo().methodVersion;
+          }
+          return mi;
+        }
+      }
+    }
+
+    MethodInfo mi = resolveVirtualMethod(uniqueName);
+    if (mi != null) {
+      addDispatchEntry(key, mi);
+    }
+    return mi;
+  }
+
+  protected MethodInfo resolveVirtualMethod (String uniqueName) {
+    MethodInfo mi = getMethod(uniqueName, true);
+    if (mi == null) {
+      mi = getDefaultMethod(uniqueName);
+    }
+    if (mi != null) {
+      mi.getClassInfo().isDispatched = true;
+    }
+    return mi;
+  }
+
+  protected void addDispatchEntry (int key, MethodInfo mi) {
+    if (dispatchKeys == null) {
+      dispatchKeys = new int[8];
+      dispatchMethods = new MethodInfo[8];
+      dispatchVersions = new int[8];
+
+    } else if ((dispatchCount + 1) * 2 > dispatchKeys.length) {
+      int[] oldKeys = dispatchKeys;
+      MethodInfo[] oldMethods = dispatchMethods;
+      int[] oldVersions = dispatchVersions;
+      int n = oldKeys.length * 2;
+
+      dispatchKeys = new int[n];
+      dispatchMethods = new MethodInfo[n];
+      dispatchVersions = new int[n];
+      dispatchCount = 0;
+
+      for (int i = 0; i < oldKeys.length; i++) {
+        if (oldKeys[i] != 0) {
+          putDispatchEntry(oldKeys[i], oldMethods[i], oldVersions[i]);
+        }
+      }
+    }
+
+    putDispatchEntry(key, mi, mi.getClassInfo().methodVersion);
+  }
+
+  private void putDispatchEntry (int key, MethodInfo mi, int version) {
+    int mask = dispatchKeys.length - 1;
+    int i = (key - 1) & mask;
+    while (dispatchKeys[i] != 0) {
+      i = (i + 1) & mask;
+    }
+
+    dispatchKeys[i] = key;
+    dispatchMethods[i] = mi;
+    dispatchVersions[i] = version;
+    dispatchCount++;
+  }
+
   private boolean isSubInterfaceOf(ClassInfo classInfo) {
     assert this.isInterface() && classInfo.isInterface();
     return this == classInfo || this.getAllInterfaces().contains(classInfo);
@@ -1685,15 +1824,80 @@ public class ClassInfo extends InfoObject implements Iterable<MethodInfo>, Gener
   public boolean isInstanceOf (ClassInfo ci) {
     if (isPrimitive()) { // no inheritance for builtin types
       return (this==ci);
+
+    } else if (this == ci) {
+      return true;
+
+    } else if (ci.isInterface()) {
+      long[] bits = getInterfaceBits();
+      int id = ci.getInterfaceId();
+      int idx = id >>> 6;
+      return (idx < bits.length) && ((bits[idx] & (1L << id)) != 0);
+
     } else {
-      for (ClassInfo c = this; c != null; c = c.superClass) {
-        if (c==ci) {
-          return true;
+      ClassInfo[] display = getSuperDisplay();
+      int depth = ci.getSuperDisplay().length - 1;
+      return (depth < display.length) && (display[depth] == ci);
+    }
+  }
+
+  /**
+   * our superclass chain, starting with the root class at index 0 and
+   * ending with this class
+   */
+  protected ClassInfo[] getSuperDisplay() {
+    if (superDisplay == null) {
+      ClassInfo[] display;
+
+      if (superClass == null) {
+        display = new ClassInfo[1];
+      } else {
+        ClassInfo[] superDisp = superClass.getSuperDisplay();
+        display = new ClassInfo[superDisp.length + 1];
+        System.arraycopy(superDisp, 0, display, 0, superDisp.length);
+      }
+      display[display.length-1] = this;
+
+      superDisplay = display;
+    }
+
+    return superDisplay;
+  }
+
+  /**
+   * the set of all our interfaces, with bits indexed by interface id
+   */
+  protected long[] getInterfaceBits() {
+    if (interfaceBits == null) {
+      long[] bits = new long[0];
+
+      Set<ClassInfo> ifcs = getAllInterfaces();
+      for (ClassInfo ifc : ifcs) {
+        int id = ifc.getInterfaceId();
+        int idx = id >>> 6;
+        if (idx >= bits.length) {
+          bits = Arrays.copyOf(bits, idx + 1);
         }
+        bits[idx] |= (1L << id);
       }
 
-      return getAllInterfaces().contains(ci);
+      interfaceBits = bits;
     }
+
+    return interfaceBits;
+  }
+
+  protected int getInterfaceId() {
+    if (interfaceId < 0) {
+      Integer id = interfaceIds.get(this);
+      if (id == null) {
+        id = interfaceIds.size();
+        interfaceIds.put(this, id);
+      }
+      interfaceId = id;
+    }
+
+    return interfaceId;
   }
 
   public boolean isInnerClassOf (String enclosingName){
@@ -1985,7 +2189,33 @@ public class ClassInfo extends InfoObject implements Iterable<MethodInfo>, Gener
    * be careful, this replaces or adds MethodInfos dynamically
    */
   public MethodInfo putDeclaredMethod (MethodInfo mi){
-    return methods.put(mi.getUniqueName(), mi);
+    String uniqueName = mi.getUniqueName();
+    MethodInfo old = methods.put(uniqueName, mi);
+
+    // dispatch caches of this class and its subclasses might refer to the
+    // method we replaced, or to the one we now override
+    if (old != null) {
+      invalidateDispatch(old, mi);
+
+    } else {
+      if (superClass != null) {
+        invalidateDispatch(superClass.getMethod(uniqueName, true), mi);
+      }
+      for (ClassInfo ciIfc : getAllInterfaces()) {
+        invalidateDispatch(ciIfc.getMethod(uniqueName, false), mi);
+      }
+    }
+
+    return old;
+  }
+
+  private static void invalidateDispatch (MethodInfo shadowed, MethodInfo mi) {
+    if (shadowed != null && shadowed != mi) {
+      ClassInfo ci = shadowed.getClassInfo();
+      if (ci != null && ci.isDispatched) {
+        ci.methodVersion++;
+      }
+    }
   }
 
   public MethodInfo[] getDeclaredMethodInfos() {
@@ -2453,6 +2683,9 @@ public class ClassInfo extends InfoObject implements Iterable<MethodInfo>, Gener
     }
     interfaces = loadInterfaces(interfaceNames);
 
+    superDisplay = null;
+    interfaceBits = null;
+
     //computeInheritedAnnotations(superClass);
 
     isWeakReference = isWeakReference0();
@@ -2611,6 +2844,14 @@ public class ClassInfo extends InfoObject implements Iterable<MethodInfo>, Gener
       ci = (ClassInfo)clone();
 
       ci.classLoader = cl;
+      ci.dispatchKeys = null;
+      ci.dispatchMethods = null;
+      ci.dispatchVersions = null;
+      ci.dispatchCount = 0;
+      ci.isDispatched = false;
+      ci.superDisplay = null;
+      ci.interfaceBits = null;
+      ci.interfaceId = -1;
       ci.interfaces = new HashSet<ClassInfo>();
       ci.resolveClass();
 
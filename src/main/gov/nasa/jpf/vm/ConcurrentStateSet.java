@@ -0,0 +1,304 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.nasa.jpf.vm;
+
+import gov.nasa.jpf.Config;
+import gov.nasa.jpf.JPFConfigException;
+import gov.nasa.jpf.JPFException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * a StateSet that can be shared between several search threads within the
+ * same JVM. Fingerprints are the same lookup3 hashes as in JenkinsStateSet.
+ *
+ * The table is a lock-free, linear probing hash table in the style of the
+ * lockless tables used by multi-core explicit state model checkers: a slot
+ * is claimed by a CAS on its fingerprint, and the winner of that CAS is the
+ * one that added the state. Ids are taken from an atomic counter after the
+ * slot is claimed and then published in a parallel id array. Threads that
+ * find a claimed but not yet published slot spin until the id is visible,
+ * which is a very short window.
+ *
+ * Since we do not want to pay for concurrent resizing, the table has a fixed
+ * number of slots which is computed from 'vm.storage.capacity' (the expected
+ * number of states). We throw a JPFException if that capacity is exceeded.
+ *
+ * Each VM (search worker) needs its own serializer, i.e. workers should use
+ * their own instance obtained through share(), which uses the same table.
+ * Workers that run in different class spaces (see IsolatingClassLoader) can
+ * only share the Table itself, which therefore is public and loaded parent
+ * first. Tables are created lazily so that such workers don't allocate one
+ * before they get the shared table through setTable().
+ */
+public class ConcurrentStateSet extends SerializingStateSet {
+
+  static final double MAX_LOAD = 0.75;
+  static final int DEFAULT_CAPACITY = 1 << 22;
+  static final int MAX_SLOTS = 1 << 30;
+
+  // 0 denotes an empty slot, so we have to map the (unlikely) 0 fingerprint
+  static final long EMPTY = 0;
+  static final long ZERO_FP = 0x9e3779b97f4a7c15L;
+
+  public static final class Table {
+    public final AtomicLongArray fingerprints;
+    public final AtomicIntegerArray ids; // id + 1, 0 means not yet published
+    public final AtomicInteger nextId = new AtomicInteger();
+    public final int mask;
+    public final int maxStates;
+
+    public Table (int capacity) {
+      int slots = 1 << 4;
+      while (slots < MAX_SLOTS && slots * MAX_LOAD < capacity){
+        slots <<= 1;
+      }
+
+      fingerprints = new AtomicLongArray(slots);
+      ids = new AtomicIntegerArray(slots);
+      mask = slots - 1;
+      maxStates = (int) (slots * MAX_LOAD);
+    }
+  }
+
+  protected volatile Table table;
+  protected int capacity;
+
+  // only meaningful for the thread using this instance
+  protected boolean lastAddWasNew;
+
+  public ConcurrentStateSet (Config conf) {
+    this( conf.getInt("vm.storage.capacity", DEFAULT_CAPACITY));
+  }
+
+  public ConcurrentStateSet (int capacity) {
+    if (capacity <= 0){
+      throw new JPFConfigException("illegal vm.storage.capacity: " + capacity);
+    }
+    this.capacity = capacity;
+  }
+
+  public ConcurrentStateSet () {
+    this( DEFAULT_CAPACITY);
+  }
+
+  protected ConcurrentStateSet (Table table) {
+    this.table = table;
+  }
+
+  /**
+   * create a new StateSet that shares the fingerprint table with this one,
+   * but can be attached to a different VM
+   */
+  public ConcurrentStateSet share() {
+    return new ConcurrentStateSet(getTable());
+  }
+
+  public Table getTable() {
+    Table t = table;
+    if (t == null){
+      synchronized (this){
+        t = table;
+        if (t == null){
+          t = table = new Table(capacity);
+        }
+      }
+    }
+    return t;
+  }
+
+  /**
+   * use the table of another set, which has to happen before we add states
+   */
+  public synchronized void setTable (Table t) {
+    if (table != null && table.nextId.get() > 0){
+      throw new JPFException("cannot replace non-empty state table");
+    }
+    table = t;
+  }
+
+  @Override
+  public int size () {
+    Table t = getTable();
+    int n = t.nextId.get();
+    return (n < t.maxStates) ? n : t.maxStates;
+  }
+
+  public int getCapacity() {
+    return getTable().maxStates;
+  }
+
+  /**
+   * did the last add() of this instance add a new state. Note that we can't
+   * use size() for this since other threads might have added states in between
+   */
+  public boolean isNewState() {
+    return lastAddWasNew;
+  }
+
+  @Override
+  public int add (int[] val) {
+    int id = addFingerprint( JenkinsStateSet.longLookup3Hash(val));
+    if (id >= 0){
+      lastAddWasNew = true;
+      return id;
+    } else {
+      lastAddWasNew = false;
+      return ~id;
+    }
+  }
+
+  /**
+   * the thread safe set operation. Answers the id if the fingerprint was
+   * added by this call, and the complement (~id) if it was already in the set
+   */
+  public int addFingerprint (long fp) {
+    Table t = getTable();
+    AtomicLongArray fingerprints = t.fingerprints;
+    AtomicIntegerArray ids = t.ids;
+    int mask = t.mask;
+
+    if (fp == EMPTY){
+      fp = ZERO_FP;
+    }
+
+    int idx = (int)(fp >>> 32) & mask;
+
+    for (int i = 0; i <= mask; i++) {
+      long f = fingerprints.get(idx);
+
+      if (f == EMPTY){
+        if (t.nextId.get() >= t.maxStates){
+          throw new JPFException("concurrent state set capacity exhausted, increase vm.storage.capacity (" + t.maxStates + ')');
+        }
+
+        if (fingerprints.compareAndSet(idx, EMPTY, fp)){
+          int id = t.nextId.getAndIncrement();
+          ids.set(idx, id + 1);
+          return id;
+        }
+
+        f = fingerprints.get(idx); // somebody else claimed it, check if it's our state
+      }
+
+      if (f == fp){
+        int e;
+        while ((e = ids.get(idx)) == 0){
+          Thread.onSpinWait(); // claimed but not yet published
+        }
+        return ~(e - 1);
+      }
+
+      idx = (idx + 1) & mask;
+    }
+
+    throw new JPFException("concurrent state set full");
+  }
+
+
+  /**
+   * Main for testing speed, mostly. This uses the same loop as JenkinsStateSet.main
+   * but partitions adds and queries between a varying number of threads
+   */
+  public static void main (String[] args) {
+    try {
+      final int vlen = Integer.parseInt(args[0]);
+      final int adds = Integer.parseInt(args[1]);
+      int q = Integer.parseInt(args[2]);
+      if (q > adds) {
+        q = adds;
+        System.err.println("Truncating queries to " + q);
+      }
+      final int queries = q;
+
+      int[] nThreads = { 1, 4, 16, 64 };
+      if (args.length > 3){
+        nThreads = new int[args.length - 3];
+        for (int i=3; i<args.length; i++){
+          nThreads[i-3] = Integer.parseInt(args[i]);
+        }
+      }
+
+      //--- the single threaded reference
+      int[] v = createVector(vlen);
+      JenkinsStateSet jset = new JenkinsStateSet();
+      long t1 = System.currentTimeMillis();
+      for (int i = 0; i < adds; i++) {
+        v[0] = i * 3;
+        jset.add(v);
+      }
+      for (int i = 0; i < queries; i++) {
+        v[0] = i * 3;
+        jset.add(v);
+      }
+      long t2 = System.currentTimeMillis();
+      System.out.println("JenkinsStateSet duration: " + (t2 - t1));
+
+      for (final int n : nThreads){
+        final ConcurrentStateSet set = new ConcurrentStateSet(adds);
+        Thread[] threads = new Thread[n];
+
+        for (int k=0; k<n; k++){
+          final int tid = k;
+          threads[k] = new Thread() {
+            @Override
+            public void run() {
+              int[] tv = createVector(vlen);
+              for (int i = tid; i < adds; i += n) {
+                tv[0] = i * 3;
+                set.add(tv);
+              }
+              for (int i = tid; i < queries; i += n) {
+                tv[0] = i * 3;
+                set.add(tv);
+              }
+            }
+          };
+        }
+
+        t1 = System.currentTimeMillis();
+        for (Thread t : threads){
+          t.start();
+        }
+        for (Thread t : threads){
+          t.join();
+        }
+        t2 = System.currentTimeMillis();
+
+        if (set.size() != adds){
+          System.err.println("wrong number of states: " + set.size());
+        }
+        System.out.println("ConcurrentStateSet threads: " + n + ", duration: " + (t2 - t1));
+      }
+
+    } catch (RuntimeException | InterruptedException x) {
+      x.printStackTrace();
+      System.err.println("args:  vector_length  #adds  #queries [#threads..]");
+    }
+  }
+
+  static int[] createVector (int vlen) {
+    int[] v = new int[vlen];
+    for (int i = 0; i < vlen; i++) {
+      v[i] = i - 42;
+    }
+    return v;
+  }
+}
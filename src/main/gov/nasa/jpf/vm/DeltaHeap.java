@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ *        http://www.apache.org/licenses/LICENSE-2.0. 
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package gov.nasa.jpf.vm;
+
+import gov.nasa.jpf.Config;
+import gov.nasa.jpf.util.ChunkedObjVector;
+
+import java.util.Iterator;
+
+/**
+ * a heap that implements search global object ids (SGOIDs) like OVHeap, but
+ * stores ElementInfos in a copy-on-write ChunkedObjVector. Mementos only copy
+ * the chunk table and share all chunks that did not change since the parent
+ * state, and only ElementInfos in modified chunks have to be frozen. This makes
+ * per-state memory and storage time depend on the number of modified objects
+ * (times chunk size) instead of the heap size.
+ *
+ * Restoring still has to reset the transient attributes of all live objects.
+ *
+ * SGOID computation uses HashedAllocationContext, which means there
+ * is a chance of collisions, in which case a different heap type
+ * has to be used (we don't try to resolve collisions here)
+ * 
+ * NOTE - a reference value of 0 represents NULL, but we rather waste one
+ * unused element than doing a -1 on all gets/sets
+ */
+public class DeltaHeap extends GenericSGOIDHeap {
+  
+  //--- state management
+  static class DeltaMemento extends GenericSGOIDHeapMemento {
+    ChunkedObjVector.Snapshot<ElementInfo> eiSnap;
+    
+    DeltaMemento(DeltaHeap heap) {
+      super(heap);
+      
+      // unchanged chunks only contain objects that are already frozen
+      heap.elementInfos.processModified(ElementInfo.storer);
+      eiSnap = heap.elementInfos.getSnapshot();
+    }
+
+    @Override
+    public Heap restore(Heap inSitu) {
+      super.restore( inSitu);
+      
+      DeltaHeap heap = (DeltaHeap)inSitu;
+      heap.elementInfos.restore(eiSnap);      
+      heap.elementInfos.process(ElementInfo.restorer);
+      
+      return heap;
+    }
+  }
+  
+  //--- instance data
+  
+  ChunkedObjVector<ElementInfo> elementInfos;
+  
+  
+  //--- constructors
+  
+  public DeltaHeap (Config config, KernelState ks){
+    super(config, ks);
+    
+    elementInfos = new ChunkedObjVector<ElementInfo>(config.getInt("vm.heap.chunk_bits", ChunkedObjVector.DEFAULT_CHUNK_BITS));
+  }
+      
+  //--- the container interface
+
+  /**
+   * return number of non-null elements
+   */
+  @Override
+  public int size() {
+    return nLiveObjects;
+  }
+  
+  @Override
+  protected void set (int index, ElementInfo ei) {
+    elementInfos.set(index, ei);
+  }
+
+  /**
+   * we treat ref <= 0 as NULL reference instead of throwing an exception
+   */
+  @Override
+  public ElementInfo get (int ref) {
+    if (ref <= 0) {
+      return null;
+    } else {
+      return elementInfos.get(ref);
+    }
+  }
+
+  @Override
+  public ElementInfo getModifiable (int ref) {
+    if (ref <= 0) {
+      return null;
+    } else {
+      ElementInfo ei = elementInfos.get(ref);
+
+      if (ei != null && ei.isFrozen()) {
+        ei = ei.deepClone(); 
+        // freshly created ElementInfos are not frozen, so we don't have to defreeze
+        elementInfos.set(ref, ei);
+        markChanged(ref);
+      }
+
+      return ei;
+    }
+  }
+    
+  @Override
+  protected void remove(int ref) {
+    elementInfos.remove(ref);
+  }
+
+  @Override
+  public Iterator<ElementInfo> iterator() {
+    return elementInfos.iterator();
+  }
+
+  @Override
+  public Iterable<ElementInfo> liveObjects() {
+    return elementInfos.elements();
+  }
+
+  @Override
+  public void resetVolatiles() {
+    // we don't have any
+  }
+
+  @Override
+  public void restoreVolatiles() {
+    // we don't have any
+  }
+
+  @Override
+  public Memento<Heap> getMemento(MementoFactory factory) {
+    return factory.getMemento(this);
+  }
+
+  @Override
+  public Memento<Heap> getMemento(){
+    return new DeltaMemento(this);
+  }
+
+
+}
@@ -41,7 +41,15 @@ public class DoubleArrayFields extends ArrayFields {
   @Override
   public void copyElements (ArrayFields src, int srcPos, int dstPos, int len){
     DoubleArrayFields a = (DoubleArrayFields) src;
-    System.arraycopy(a.values, srcPos, values, dstPos, len);
+    a.copyTo(srcPos, values, dstPos, len);
+  }
+
+  /**
+   * copy elements into a flat array, overridden by subclasses that don't
+   * store values in a flat array
+   */
+  protected void copyTo (int srcPos, double[] dst, int dstPos, int len){
+    System.arraycopy(values, srcPos, dst, dstPos, len);
   }
 
   @Override
@@ -78,7 +86,10 @@ public class DoubleArrayFields extends ArrayFields {
 
   @Override
   public boolean equals (Object o) {
-    if (o instanceof DoubleArrayFields) {
+    if (o instanceof PagedDoubleArrayFields) {
+      return o.equals(this);
+
+    } else if (o instanceof DoubleArrayFields) {
       DoubleArrayFields other = (DoubleArrayFields)o;
 
       double[] v = values;
@@ -139,6 +139,10 @@ public abstract class ElementInfo implements Cloneable {
   // by state-matching. Value interpretation depends on the configured Serializer
   protected int sid;
 
+  // cached hash of the serialized object data, only valid while we are frozen,
+  // i.e. reset by defreeze(). Interpretation depends on the configured Serializer
+  protected long serializedHash;
+
 
   // helpers for state storage/restore processing, to avoid explicit iterators on
   // respective ElementInfo containers (heap,statics)
@@ -267,6 +271,18 @@ public abstract class ElementInfo implements Cloneable {
     return sid;
   }
 
+  public void setSerializedHash (long h){
+    serializedHash = h;
+  }
+
+  /**
+   * answers 0 if there is no valid cached hash, which is the case for all
+   * objects that are not frozen
+   */
+  public long getSerializedHash (){
+    return serializedHash;
+  }
+
   //--- cached mementos are only supposed to be used/set by the Restorer
 
   public Memento<ElementInfo> getCachedMemento(){
@@ -362,6 +378,7 @@ public abstract class ElementInfo implements Cloneable {
 
   public void defreeze() {
     attributes &= ~ATTR_IS_FROZEN;
+    serializedHash = 0;
   }
   
   public boolean isFrozen() {
@@ -1242,11 +1259,25 @@ public abstract class ElementInfo implements Cloneable {
     // note also this preserves values in case of a self copy
     checkIsModifiable();
 
-    Object srcVals = ((ArrayFields)eiSrc.getFields()).getValues();
-    Object dstVals = ((ArrayFields)fields).getValues();
+    ArrayFields srcFields = (ArrayFields)eiSrc.getFields();
+    ArrayFields dstFields = (ArrayFields)fields;
+
+    if ((srcFields.isPaged() || dstFields.isPaged()) && (ci == eiSrc.ci)) {
+      // don't flatten paged arrays, copyElements can share pages
+      if (srcIdx < 0 || dstIdx < 0 || length < 0 ||
+          srcIdx > srcFields.arrayLength() - length || dstIdx > dstFields.arrayLength() - length) {
+        throw new ArrayIndexOutOfBoundsException("arraycopy: index out of bounds, source " + srcIdx
+                + ", destination " + dstIdx + ", length " + length);
+      }
+      dstFields.copyElements(srcFields, srcIdx, dstIdx, length);
+
+    } else {
+      Object srcVals = srcFields.getValues();
+      Object dstVals = dstFields.getValues();
 
-    // this might throw ArrayIndexOutOfBoundsExceptions and ArrayStoreExceptions
-    System.arraycopy(srcVals, srcIdx, dstVals, dstIdx, length);
+      // this might throw ArrayIndexOutOfBoundsExceptions and ArrayStoreExceptions
+      System.arraycopy(srcVals, srcIdx, dstVals, dstIdx, length);
+    }
 
     // now take care of the attributes
     // <2do> what in case arraycopy did throw - we should only copy the changed element attrs
@@ -212,6 +212,23 @@ public abstract class Fields implements Cloneable {
 
   public abstract int[] asFieldSlots();
 
+  /**
+   * the array that holds the field slot values, starting at getFieldSlotOffset().
+   * Other than asFieldSlots(), this does not copy values if they are not
+   * stored in this object (see SlabFields). Don't modify the returned array
+   */
+  public int[] getFieldSlotStorage() {
+    return asFieldSlots();
+  }
+
+  public int getFieldSlotOffset() {
+    return 0;
+  }
+
+  public int getNumberOfFieldSlots() {
+    return asFieldSlots().length;
+  }
+
   /**
    * give an approximation of the heap size in bytes - we assume fields are word
    * aligned, hence the number of values*4 should be good. Note that this is
@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.nasa.jpf.vm;
+
+import gov.nasa.jpf.Config;
+import gov.nasa.jpf.JPF;
+import gov.nasa.jpf.search.Search;
+import gov.nasa.jpf.search.SearchListenerAdapter;
+import gov.nasa.jpf.util.JPFLogger;
+import gov.nasa.jpf.vm.serialize.FilteringSerializer;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * a JenkinsStateSet that gets the state hash directly from a StateFingerprinter
+ * serializer (such as IncrementalFilteringSerializer), i.e. does not need a
+ * state vector at all. If the configured serializer is not a StateFingerprinter,
+ * we fall back to hashing the state vector.
+ *
+ * If 'vm.storage.check_collisions' is set, we also keep the exact FilteringSerializer
+ * state vectors of all states, and report at the end of the search how many
+ * distinct states were merged by fingerprint collisions, compared to the lookup3
+ * hash of JenkinsStateSet. This is very memory intensive and only meant to
+ * evaluate fingerprint quality.
+ */
+public class FingerprintStateSet extends JenkinsStateSet {
+
+  static JPFLogger log = JPF.getLogger("gov.nasa.jpf.vm.FingerprintStateSet");
+
+  static class StateKey {
+    final int[] data;
+    final int hash;
+
+    StateKey (int[] data) {
+      this.data = data;
+      hash = Arrays.hashCode(data);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals (Object o) {
+      return (o instanceof StateKey) && Arrays.equals(data, ((StateKey)o).data);
+    }
+  }
+
+  /**
+   * the exact state bookkeeping to count collisions
+   */
+  protected class CollisionCheck extends SearchListenerAdapter {
+    StateSerializer reference;
+
+    HashMap<StateKey,Long> states = new HashMap<StateKey,Long>();
+    HashMap<Long,StateKey> fingerprintStates = new HashMap<Long,StateKey>();
+    HashMap<Long,StateKey> lookup3States = new HashMap<Long,StateKey>();
+
+    int nFingerprintCollisions;
+    int nLookup3Collisions;
+
+    CollisionCheck (VM vm) {
+      reference = new FilteringSerializer();
+      reference.attach(vm);
+    }
+
+    void add (long fp) {
+      StateKey key = new StateKey(reference.getStoringData().clone());
+      if (states.containsKey(key)) {
+        return;
+      }
+      states.put(key, fp);
+
+      StateKey k = fingerprintStates.get(fp);
+      if (k == null) {
+        fingerprintStates.put(fp, key);
+      } else {
+        nFingerprintCollisions++;
+      }
+
+      long h = longLookup3Hash(key.data);
+      k = lookup3States.get(h);
+      if (k == null) {
+        lookup3States.put(h, key);
+      } else {
+        nLookup3Collisions++;
+      }
+    }
+
+    @Override
+    public void searchFinished (Search search) {
+      String msg = "fingerprint collisions: states=" + states.size() +
+                   ", fingerprint=" + nFingerprintCollisions +
+                   ", lookup3=" + nLookup3Collisions;
+      if (nFingerprintCollisions > 0 || nLookup3Collisions > 0) {
+        log.warning(msg);
+      } else {
+        log.info(msg);
+      }
+    }
+  }
+
+  protected StateFingerprinter fingerprinter;
+
+  protected boolean checkCollisions;
+  protected CollisionCheck collisionCheck;
+
+  public FingerprintStateSet (Config config) {
+    checkCollisions = config.getBoolean("vm.storage.check_collisions", false);
+  }
+
+  public FingerprintStateSet () {
+    // nothing to configure
+  }
+
+  @Override
+  public void attach (VM vm) {
+    super.attach(vm);
+
+    if (serializer instanceof StateFingerprinter) {
+      fingerprinter = (StateFingerprinter)serializer;
+    } else {
+      log.warning("serializer is not a StateFingerprinter, hashing state vectors: ", serializer);
+    }
+
+    if (checkCollisions) {
+      collisionCheck = new CollisionCheck(vm);
+      vm.getJPF().addListener(collisionCheck);
+    }
+  }
+
+  @Override
+  public int addCurrent () {
+    long fp;
+
+    if (fingerprinter != null) {
+      fp = fingerprinter.getFingerprint();
+    } else {
+      fp = longLookup3Hash(serializer.getStoringData());
+    }
+
+    if (collisionCheck != null) {
+      collisionCheck.add(fp);
+    }
+
+    return addFingerprint(fp);
+  }
+
+  public int getNumberOfFingerprintCollisions() {
+    return (collisionCheck != null) ? collisionCheck.nFingerprintCollisions : -1;
+  }
+
+  public int getNumberOfLookup3Collisions() {
+    return (collisionCheck != null) ? collisionCheck.nLookup3Collisions : -1;
+  }
+}
@@ -19,6 +19,7 @@
 package gov.nasa.jpf.vm;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
@@ -36,6 +37,16 @@ import gov.nasa.jpf.util.Processor;
  * mark&sweep collector, change attribute management, and generic pinDownList,
  * weakReference and internString handling
  * 
+ * If vm.gc.generational is set, gc() normally only collects objects that were
+ * allocated since the last gc (the young generation). Survivors become old and
+ * are not traced again until the next full gc, which happens after
+ * vm.gc.max_promoted promotions or on an explicit System.gc(). The only old
+ * objects that can refer to young ones are the ones that became modifiable
+ * since the last gc, which is reported by the concrete heaps through
+ * markChanged(). We keep them in a remembered list and trace them as
+ * additional roots. Both lists are part of the heap state, i.e. gc cycles are
+ * deterministic along each path and don't affect state matching
+ * 
  * The concrete Heap implementors have to provide the ElementInfo collection
  * and associated getters, allocators and iterators
  */
@@ -46,11 +57,17 @@ public abstract class GenericHeap implements Heap, Iterable<ElementInfo> {
     int attributes;
     IntVector pinDownList;
     Map<Integer,IntTable<String>> internStringsMap;
+    IntVector youngList;
+    IntVector rememberedList;
+    int nPromoted;
     
     protected GenericHeapMemento (GenericHeap heap){
       // these are copy-on-first-write, so we don't have to clone
       pinDownList = heap.pinDownList;
       internStringsMap = heap.internStringsMap;
+      youngList = heap.youngList;
+      rememberedList = heap.rememberedList;
+      nPromoted = heap.nPromoted;
       attributes = heap.attributes & ATTR_STORE_MASK;
       
       heap.setStored();
@@ -61,8 +78,12 @@ public abstract class GenericHeap implements Heap, Iterable<ElementInfo> {
       GenericHeap heap = (GenericHeap) inSitu;
       heap.pinDownList = pinDownList;
       heap.internStringsMap = internStringsMap;
+      heap.youngList = youngList;
+      heap.rememberedList = rememberedList;
+      heap.nPromoted = nPromoted;
       heap.attributes = attributes;
       heap.liveBitValue = false; // always start with false after a restore
+      heap.hasValidGenerationSets = false; // rebuilt on demand
       return inSitu;
     }
   }
@@ -86,6 +107,34 @@ public abstract class GenericHeap implements Heap, Iterable<ElementInfo> {
   // and it includes IntTable per process.
   protected Map<Integer,IntTable<String>> internStringsMap;
 
+  //--- generational gc (only used if vm.gc.generational is set)
+
+  protected boolean isGenerational;
+
+  // full gc after this many promotions, -1 means only on explicit request
+  protected int maxPromoted;
+
+  // refs of objects allocated since the last gc, in allocation order
+  // this is copy-on-first-write
+  protected IntVector youngList;
+
+  // refs of old objects that became modifiable since the last gc, i.e. the only
+  // old objects that might refer to young ones
+  // this is copy-on-first-write
+  protected IntVector rememberedList;
+
+  // number of objects that were promoted since the last full gc
+  protected int nPromoted;
+
+  // transient lookup sets for youngList and rememberedList, which are lazily
+  // rebuilt after a restore
+  protected BitSet youngSet;
+  protected BitSet rememberedSet;
+  protected boolean hasValidGenerationSets;
+
+  // only set while we are in a gc cycle that collects young objects
+  protected boolean isMinorCycle;
+
   // the usual drill - the lower 2 bytes are sticky, the upper two ones 
   // hold change status and transient (transition local) flags
   protected int attributes;
@@ -98,10 +147,13 @@ public abstract class GenericHeap implements Heap, Iterable<ElementInfo> {
   static final int ATTR_PINDOWN_CHANGED   = 0x20000;
   static final int ATTR_INTERN_CHANGED    = 0x40000;
   static final int ATTR_ATTRIBUTE_CHANGED = 0x80000;
+  static final int ATTR_YOUNG_CHANGED     = 0x100000;
+  static final int ATTR_REMEMBERED_CHANGED = 0x200000;
 
   // masks and sets
   static final int ATTR_STORE_MASK = 0x0000ffff;
-  static final int ATTR_ANY_CHANGED = (ATTR_ELEMENTS_CHANGED | ATTR_PINDOWN_CHANGED | ATTR_INTERN_CHANGED | ATTR_ATTRIBUTE_CHANGED);
+  static final int ATTR_ANY_CHANGED = (ATTR_ELEMENTS_CHANGED | ATTR_PINDOWN_CHANGED | ATTR_INTERN_CHANGED | ATTR_ATTRIBUTE_CHANGED
+                                       | ATTR_YOUNG_CHANGED | ATTR_REMEMBERED_CHANGED);
 
 
   //--- these objects are only used during gc
@@ -135,6 +187,19 @@ public abstract class GenericHeap implements Heap, Iterable<ElementInfo> {
     if (config.getBoolean("vm.sweep",true)){
       attributes |= ATTR_GC;
     }
+
+    if (config.getBoolean("vm.gc.generational", false)){
+      isGenerational = true;
+      maxPromoted = config.getInt("vm.gc.max_promoted", 10000);
+
+      youngList = new IntVector();
+      rememberedList = new IntVector();
+      attributes |= (ATTR_YOUNG_CHANGED | ATTR_REMEMBERED_CHANGED);
+
+      youngSet = new BitSet();
+      rememberedSet = new BitSet();
+      hasValidGenerationSets = true;
+    }
   }
 
 
@@ -192,6 +257,96 @@ public abstract class GenericHeap implements Heap, Iterable<ElementInfo> {
     }
   }
   
+  //--- generation handling
+
+  /**
+   * rebuild the transient young and remembered sets from the stored lists, which
+   * we defer after a restore until we need them (most restored states just
+   * backtrack again without allocating, modifying or collecting anything)
+   */
+  protected void checkGenerationSets (){
+    if (!hasValidGenerationSets){
+      youngSet.clear();
+      for (int i=0; i<youngList.size(); i++){
+        youngSet.set(youngList.get(i));
+      }
+
+      rememberedSet.clear();
+      for (int i=0; i<rememberedList.size(); i++){
+        rememberedSet.set(rememberedList.get(i));
+      }
+
+      hasValidGenerationSets = true;
+    }
+  }
+
+  protected void addToYoungList (int objref){
+    checkGenerationSets();
+
+    if ((attributes & ATTR_YOUNG_CHANGED) == 0) {
+      youngList = youngList.clone();
+      attributes |= ATTR_YOUNG_CHANGED;
+    }
+    youngList.add(objref);
+    youngSet.set(objref);
+  }
+
+  protected void addToRememberedList (int objref){
+    checkGenerationSets();
+
+    if (!youngSet.get(objref) && !rememberedSet.get(objref)){
+      if ((attributes & ATTR_REMEMBERED_CHANGED) == 0) {
+        rememberedList = rememberedList.clone();
+        attributes |= ATTR_REMEMBERED_CHANGED;
+      }
+      rememberedList.add(objref);
+      rememberedSet.set(objref);
+    }
+  }
+
+  /**
+   * called at the end of each gc cycle. Young objects that survived are old now,
+   * and together with the remembered objects they only have to be remembered
+   * for the next cycle if they are still modifiable - everything that is frozen
+   * has to go through getModifiable() (and hence markChanged()) before it can
+   * get a reference to an object that is allocated after this gc.
+   * Objects allocated during the gc (beyond nYoung) stay young
+   */
+  protected void updateGenerations (int nYoung){
+    IntVector young = new IntVector();
+    IntVector remembered = new IntVector();
+
+    youngSet.clear();
+    rememberedSet.clear();
+
+    for (int i=0; i<rememberedList.size(); i++){
+      int objref = rememberedList.get(i);
+      ElementInfo ei = get(objref);
+      if (ei != null && !ei.isFrozen() && !rememberedSet.get(objref)){
+        remembered.add(objref);
+        rememberedSet.set(objref);
+      }
+    }
+
+    for (int i=0; i<youngList.size(); i++){
+      int objref = youngList.get(i);
+      ElementInfo ei = get(objref);
+      if (ei != null){
+        if (i >= nYoung){
+          young.add(objref);
+          youngSet.set(objref);
+        } else if (!ei.isFrozen() && !rememberedSet.get(objref)){
+          remembered.add(objref);
+          rememberedSet.set(objref);
+        }
+      }
+    }
+
+    youngList = young;
+    rememberedList = remembered;
+    attributes |= (ATTR_YOUNG_CHANGED | ATTR_REMEMBERED_CHANGED);
+  }
+
   //--- weak reference handling
   
   @Override
@@ -241,15 +396,22 @@ public abstract class GenericHeap implements Heap, Iterable<ElementInfo> {
   
   //--- allocators
     
+  protected Fields createInstanceFields (ClassInfo ci, int objref){
+    return ci.createInstanceFields();
+  }
+
   protected ElementInfo createObject (ClassInfo ci, ThreadInfo ti, int objref) {
     // create the thing itself
-    Fields f = ci.createInstanceFields();
+    Fields f = createInstanceFields( ci, objref);
     Monitor m = new Monitor();
     ElementInfo ei = createElementInfo( objref, ci, f, m, ti);
     
     set(objref, ei);
 
     attributes |= ATTR_ELEMENTS_CHANGED;
+    if (isGenerational){
+      addToYoungList(objref);
+    }
 
     // and do the default (const) field initialization
     ci.initializeInstanceData(ei, ti);
@@ -290,6 +452,9 @@ public abstract class GenericHeap implements Heap, Iterable<ElementInfo> {
     set(objref, ei);
 
     attributes |= ATTR_ELEMENTS_CHANGED;
+    if (isGenerational){
+      addToYoungList(objref);
+    }
 
     vm.notifyObjectCreated(ti, ei);
 
@@ -552,6 +717,9 @@ public abstract class GenericHeap implements Heap, Iterable<ElementInfo> {
     if (objref == MJIEnv.NULL) {
       return;
     }
+    if (isMinorCycle && !youngSet.get(objref)) {
+      return; // old objects are live by definition, we don't trace them
+    }
 
     ElementInfo ei = get(objref);
     if (!ei.isMarked()){ // only add objects once
@@ -633,6 +801,59 @@ public abstract class GenericHeap implements Heap, Iterable<ElementInfo> {
     }
   }
   
+  /**
+   * the minor cycle sweep, which only looks at the first nYoung young objects
+   */
+  protected void sweepYoung (int nYoung) {
+    ThreadInfo ti = vm.getCurrentThread();
+    int tid = ti.getId();
+    boolean isThreadTermination = ti.isTerminated();
+    int n = 0;
+    
+    if(vm.finalizersEnabled()) {
+      markFinalizableYoungObjects(nYoung);
+    }
+    
+    for (int i=0; i<nYoung; i++){
+      ElementInfo ei = get(youngList.get(i));
+      if (ei == null){
+        continue;
+      }
+      
+      if (ei.isMarked()){ // promote
+        ei.setUnmarked();
+        ei.setAlive(liveBitValue);
+        
+        ei.cleanUp(this, isThreadTermination, tid);
+        n++;
+        
+      } else {
+        ei.processReleaseActions();
+        
+        vm.notifyObjectReleased(ti, ei);
+        remove(ei.getObjectRef());
+      }
+    }
+    
+    nPromoted += n;
+    nLiveObjects += n; // this includes old garbage that isn't collected yet
+  }
+  
+  protected void markFinalizableYoungObjects (int nYoung) {
+    FinalizerThreadInfo tiFinalizer = vm.getFinalizerThread();
+    
+    if (tiFinalizer != null){
+      for (int i=0; i<nYoung; i++){
+        ElementInfo ei = get(youngList.get(i));
+        if (ei != null && !ei.isMarked() && ei.hasFinalizer() && !ei.isFinalized()) {
+          ei = tiFinalizer.getFinalizerQueuedInstance(ei);
+          ei.setMarked(); // make sure it's not collected before the finalizerQueue has been processed
+          ei.markRecursive(this);
+        }
+      }
+    }
+  }
+  
   protected void mark () {
     markQueue.clear();
     
@@ -645,32 +866,90 @@ public abstract class GenericHeap implements Heap, Iterable<ElementInfo> {
     markQueue.process(elementInfoMarker);    
   }
   
+  /**
+   * the minor cycle mark, which only traces young objects. Remembered objects are
+   * the only old ones that can refer to young objects, so they are traced as
+   * additional roots
+   */
+  protected void markYoung () {
+    markQueue.clear();
+    
+    markPinDownList();
+    vm.getThreadList().markRoots(this);
+    vm.getClassLoaderList().markRoots(this);
+    
+    for (int i=0; i<rememberedList.size(); i++){
+      ElementInfo ei = get(rememberedList.get(i));
+      if (ei != null){
+        ei.markRecursive(this);
+      }
+    }
+
+    markQueue.process(elementInfoMarker);    
+  }
+  
+  protected boolean isFullGcNeeded (){
+    return !isGenerational || (maxPromoted >= 0 && nPromoted >= maxPromoted);
+  }
+  
   @Override
   public void gc() {
+    gc( isFullGcNeeded());
+  }
+
+  @Override
+  public void fullGc() {
+    gc( true);
+  }
+  
+  protected void gc (boolean isFullGc) {
     vm.notifyGCBegin();
 
     weakRefs = null;
-    liveBitValue = !liveBitValue;
 
-    mark();
+    // minor cycles keep the live bit value so that old objects stay alive,
+    // promoted objects get the same value
+    if (isFullGc){
+      liveBitValue = !liveBitValue;
+    }
+
+    int nYoung = 0;
+    if (isGenerational){
+      checkGenerationSets();
+      nYoung = youngList.size();
+    }
     
-    // at this point all live objects are marked
-    sweep();
+    if (isFullGc){
+      mark();
+      // at this point all live objects are marked
+      sweep();
+      nPromoted = 0;
+      
+    } else {
+      isMinorCycle = true;
+      markYoung();
+      sweepYoung(nYoung);
+      isMinorCycle = false;
+    }
 
     cleanupWeakRefs(); // for potential nullification
 
+    if (isGenerational){
+      updateGenerations(nYoung);
+    }
+    
     vm.processPostGcActions();
     vm.notifyGCEnd();
   }
 
   /**
    * clean up reference values that are stored outside of reference fields 
-   * called from KernelState to process live ElementInfos after GC has finished
-   * and only live objects remain in the heap.
+   * of all live objects
    * 
-   * <2do> full heap enumeration is BAD - check if this can be moved into the sweep loop
+   * @deprecated not used anymore, the sweep already does this for all survivors
    */
   @Override
+  @Deprecated
   public void cleanUpDanglingReferences() {
     ThreadInfo ti = ThreadInfo.getCurrentThread();
     int tid = ti.getId();
@@ -691,6 +970,9 @@ public abstract class GenericHeap implements Heap, Iterable<ElementInfo> {
    */
   @Override
   public boolean isAlive (ElementInfo ei){
+    if (isMinorCycle && ei != null && !youngSet.get(ei.getObjectRef())){
+      return true; // old objects are not collected in minor cycles
+    }
     return (ei == null || ei.isMarkedOrAlive(liveBitValue));
   }
   
@@ -710,9 +992,16 @@ public abstract class GenericHeap implements Heap, Iterable<ElementInfo> {
     return (attributes & ATTR_ANY_CHANGED) != 0;
   }
   
+  /**
+   * called by concrete heaps when a stored (frozen) object is replaced by a
+   * modifiable copy, which is our write barrier for generational gc
+   */
   @Override
   public void markChanged(int objref) {
     attributes |= ATTR_ELEMENTS_CHANGED;
+    if (isGenerational){
+      addToRememberedList(objref);
+    }
   }
 
   public void setStored() {
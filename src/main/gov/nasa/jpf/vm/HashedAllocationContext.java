@@ -17,14 +17,8 @@
  */
 package gov.nasa.jpf.vm;
 
-// see mixinJPFStack() comments
-
 import gov.nasa.jpf.Config;
 
-import java.util.Collections;
-import java.util.List;
-import java.util.stream.Collectors;
-
 import static gov.nasa.jpf.util.OATHash.*;
 
 /**
@@ -37,17 +31,16 @@ import static gov.nasa.jpf.util.OATHash.*;
  * implementations might simply report this as a problem requiring a
  * non-lossy AllocationContext.
  * 
- * Ideally, we would like to hash the host VM thread context too (esp.
- * for system allocations), but host VM stack traces are expensive, and it is
- * arguable if would be too strict (e.g. when using a dedicated allocator
- * method called from alternative branches of the caller) 
+ * We do not hash the host VM thread context - host VM stack traces are
+ * expensive, and it is arguable if this would be too strict (e.g. when using a
+ * dedicated allocator method called from alternative branches of the caller).
+ * Allocation sites within JPF are identified by the native method on top of
+ * the SUT stack, or by the anchor of system allocations 
  * 
  * note - this is a HashMap key type which has to obey the hashCode/equals contract
  */
 public class HashedAllocationContext implements AllocationContext {
     
-  static final Throwable throwable = new Throwable(); // to avoid frequent allocations
-    
   static int mixinSUTStack (int h, ThreadInfo ti) {
     h = hashMixin( h, ti.getId());
 
@@ -71,76 +64,19 @@ public class HashedAllocationContext implements AllocationContext {
   }
   
   /*
-   * this is an optimization to cut down on host VM StackTrace acquisition, since we just need one
-   * element.
-   * 
-   * NOTE: this is more fragile than Throwable.getStackTrace() and String.equals() since it assumes
-   * availability of the sun.misc.JavaLangAccess SharedSecret and invariance of classname strings.
-   * 
-   * The robust version would be
-   *   ..
-   *   throwable.fillInStackTrace();
-   *   StackTraceElement[] ste = throwable.getStackTrace();
-   *   StackTraceElement e = ste[4];
-   *   if (e.getClassName().equals("gov.nasa.jpf.vm.MJIEnv") && e.getMethodName().startsWith("new")){ ..
-   */ 
-  
-   static final String ENV_CLSNAME = MJIEnv.class.getName();
-  
-  // <2do> this method is problematic - we should not assume a fixed stack position
-  // but we can't just mixin the whole stack since this would cause different class object
-  // allocation contexts (registerClass can happen from lots of locations).
-  // At the other end of the spectrum, MJIEnv.newXX() is not differentiating enough since
-  // those are convenience methods used from a gazillion of places that might share
-   // the same SUT state
-  static int mixinJPFStack (int h) {
-    StackWalker stackWalker = StackWalker.getInstance(Collections.emptySet(),5);
-    List<StackWalker.StackFrame> frames;
-    frames = stackWalker.walk(frames_ -> frames_.collect(Collectors.toList()));
-
-    // we know the callstack is at least 4 levels deep:
-    //   0: mixinJPFStack
-    //   1: getXAllocationContext
-    //   2: heap.getXAllocationContext
-    //   3: heap.newObject/newArray/newString
-    //   4: <allocating method>
-    //   ...
-
-    // note that it is not advisable to mixin more than the immediate newX() caller since
-    // this would create state leaks for allocations that are triggered by SUT threads and
-    // have different native paths (e.g. Class object creation caused by different SUT thread context)
-
-    StackWalker.StackFrame stackFrame = frames.get(4); // see note below regarding fixed call depth fragility
-    // TODO: this sucks - MJIEnv.newObject/newArray/newString are used from a gazillion of places that might not differ in SUT state
-    if (stackFrame.getClassName() == ENV_CLSNAME && stackFrame.getMethodName().startsWith("new")) {
-      // there is not much use to loop, since we don't have a good end condition
-      stackFrame = frames.get(5);
-    }
-
-    // NOTE - this is fragile since it is implementation dependent and differs
-    // between JPF runs
-    // the names are interned string from the class object
-    // h = hashMixin( h, System.identityHashCode(e.getClassName()));
-    // h = hashMixin( h, System.identityHashCode(e.getMethodName()));
-
-    // this should be reproducible, but the string hash is bad
-    h = hashMixin(h, stackFrame.getClassName().hashCode());
-    h = hashMixin(h, stackFrame.getMethodName().hashCode());
-    h = hashMixin(h, stackFrame.getLineNumber());
-    
-    return h;
-  }
-  
-  /*
-   * !! NOTE: these always have to be at a fixed call distance of the respective Heap.newX() call:
-   * 
-   *  ConcreteHeap.newX()
-   *    ConcreteHeap.getXAllocationContext()
-   *      ConcreteAllocationContext.getXAllocationContext()
-   *      
-   * that means the allocation site is at stack depth 4. This is not nice, but there is no
-   * good heuristic we could use instead, other than assuming there is a newObject/newArray/newString
-   * call on the stack
+   * NOTE: we don't mixin the host VM stack anymore. Walking it was the dominant cost of
+   * system and peer allocations, and it only identified the JPF method that called
+   * Heap.newX() or MJIEnv.newX(). The allocation site is now given by explicit tokens:
+   *
+   *  - SUT allocations from native peers have the NativeStackFrame on top of the SUT
+   *    stack, i.e. mixinSUTStack() already includes the global id of the native method,
+   *    which is assigned when the peer method is bound (see NativeMethodInfo)
+   *  - system allocations are identified by the anchor the caller passes into
+   *    Heap.newSystemObject/newSystemArray/newSystemString/newSystemThrowable
+   *
+   * Different allocations of the same type from the same site are distinguished by the
+   * allocation count of the context, which is deterministic since the JPF code executed
+   * by a single instruction or native method does not depend on the search order
    */
   
   /**
@@ -156,9 +92,6 @@ public class HashedAllocationContext implements AllocationContext {
     //--- the SUT execution context (allocating ThreadInfo and its stack)
     h = mixinSUTStack( h, ti);
     
-    //--- the JPF execution context (from where in the JPF code the allocation happens)
-    h = mixinJPFStack( h);
-    
     h = hashFinalize(h);
     HashedAllocationContext ctx = new HashedAllocationContext(h);
 
@@ -181,9 +114,6 @@ public class HashedAllocationContext implements AllocationContext {
     h = hashMixin(h, 0x14040118);
     h = hashMixin(h, anchor);
     
-    //--- the JPF execution context (from where in the JPF code the allocation happens)
-    h = mixinJPFStack( h);
-    
     h = hashFinalize(h);
     HashedAllocationContext ctx = new HashedAllocationContext(h);
 
@@ -30,6 +30,12 @@ public interface Heap extends Iterable<ElementInfo> {
 
   void gc();
 
+  // collect all unreachable objects, even if gc() only collects the ones that
+  // were allocated since the last gc (see GenericHeap)
+  default void fullGc() {
+    gc();
+  }
+
   boolean isOutOfMemory();
 
   void setOutOfMemory(boolean isOutOfMemory);
@@ -71,7 +77,13 @@ public interface Heap extends Iterable<ElementInfo> {
 
   void unmarkAll();
 
-  void cleanUpDanglingReferences();
+  /**
+   * @deprecated not used anymore, the sweep already cleans up the survivors
+   */
+  @Deprecated
+  default void cleanUpDanglingReferences() {
+    // nothing
+  }
 
   boolean isAlive (ElementInfo ei);
 
@@ -84,7 +96,7 @@ public interface Heap extends Iterable<ElementInfo> {
   boolean hasChanged();
 
 
-  // <2do> this will go away
+  // notification that a stored object got replaced by a modifiable copy
   void markChanged(int objref);
 
   void resetVolatiles();
@@ -96,4 +108,10 @@ public interface Heap extends Iterable<ElementInfo> {
 
   Memento<Heap> getMemento(MementoFactory factory);
   Memento<Heap> getMemento();
+
+  // can we restore mementos of states that are not on the current path, i.e.
+  // is this heap usable for searches that don't just backtrack
+  default boolean supportsNonPathRestore() {
+    return true;
+  }
 }
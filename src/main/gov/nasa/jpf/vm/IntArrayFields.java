@@ -42,7 +42,15 @@ public class IntArrayFields extends ArrayFields {
   @Override
   public void copyElements (ArrayFields src, int srcPos, int dstPos, int len){
     IntArrayFields a = (IntArrayFields) src;
-    System.arraycopy(a.values, srcPos, values, dstPos, len);
+    a.copyTo(srcPos, values, dstPos, len);
+  }
+
+  /**
+   * copy elements into a flat array, overridden by subclasses that don't
+   * store values in a flat array
+   */
+  protected void copyTo (int srcPos, int[] dst, int dstPos, int len){
+    System.arraycopy(values, srcPos, dst, dstPos, len);
   }
   
   @Override
@@ -79,7 +87,10 @@ public class IntArrayFields extends ArrayFields {
 
   @Override
   public boolean equals (Object o) {
-    if (o instanceof IntArrayFields) {
+    if (o instanceof PagedIntArrayFields) {
+      return o.equals(this);
+
+    } else if (o instanceof IntArrayFields) {
       IntArrayFields other = (IntArrayFields)o;
 
       int[] v = values;
@@ -59,13 +59,20 @@ public class JenkinsStateSet extends SerializingStateSet {
   }
  
   public static long longLookup3Hash(int[] val) {
+    return longLookup3Hash(val, val.length);
+  }
+
+  /**
+   * hash the first 'len' elements of 'val'
+   */
+  public static long longLookup3Hash(int[] val, int len) {
     // Jenkins' LOOKUP3 hash  (May 2006)
     int a = 0x510fb60d;
-    int b = 0xa4cb30d9 + (val.length);
+    int b = 0xa4cb30d9 + (len);
     int c = 0x9e3779b9;
 
     int i;
-    int max = val.length - 2;
+    int max = len - 2;
     for (i = 0; i < max; i += 3) {
       a += val[i];
       b += val[i + 1];
@@ -77,13 +84,13 @@ public class JenkinsStateSet extends SerializingStateSet {
       b -= a;  b ^= (a << 19)^ (a >>> 13);  a += c;
       c -= b;  c ^= (b << 4) ^ (b >>> 28);  b += a;
     }
-    switch (val.length - i) {
+    switch (len - i) {
     case 2:
-      c += val[val.length - 2];
-      b += val[val.length - 1];
+      c += val[len - 2];
+      b += val[len - 1];
       break;
     case 1:
-      b += val[val.length - 1];
+      b += val[len - 1];
       break;
     }
     c ^= b; c -= (b << 14) ^ (b >>> 18);
@@ -101,6 +108,13 @@ public class JenkinsStateSet extends SerializingStateSet {
   @Override
   public int add (int[] val) {
     long hash = longLookup3Hash(val); // this is the expensive part
+    return addFingerprint(hash);
+  }
+
+  /**
+   * add a state that is already hashed. Answers the state id
+   */
+  public int addFingerprint (long hash) {
     int i;
     
     // hash table lookup & add; open-addressed, double hashing
@@ -159,8 +159,20 @@ public class KernelState implements Restorable<KernelState> {
   }
 
   public void gc () {
-        
-    heap.gc();
+    gc( false);
+  }
+
+  /**
+   * @param isFullGc collect old objects even if the heap normally only collects
+   * the ones that were allocated since the last gc
+   */
+  public void gc (boolean isFullGc) {
+    
+    if (isFullGc) {
+      heap.fullGc();
+    } else {
+      heap.gc();
+    }
 
     // we might have stored stale references in live objects
     // (ElementInfos on the heap have already been cleaned up in the gc)
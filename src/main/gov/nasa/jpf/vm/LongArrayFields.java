@@ -41,7 +41,15 @@ public class LongArrayFields extends ArrayFields {
   @Override
   public void copyElements (ArrayFields src, int srcPos, int dstPos, int len){
     LongArrayFields a = (LongArrayFields) src;
-    System.arraycopy(a.values, srcPos, values, dstPos, len);
+    a.copyTo(srcPos, values, dstPos, len);
+  }
+
+  /**
+   * copy elements into a flat array, overridden by subclasses that don't
+   * store values in a flat array
+   */
+  protected void copyTo (int srcPos, long[] dst, int dstPos, int len){
+    System.arraycopy(values, srcPos, dst, dstPos, len);
   }
 
   @Override
@@ -79,7 +87,10 @@ public class LongArrayFields extends ArrayFields {
 
   @Override
   public boolean equals (Object o) {
-    if (o instanceof LongArrayFields) {
+    if (o instanceof PagedLongArrayFields) {
+      return o.equals(this);
+
+    } else if (o instanceof LongArrayFields) {
       LongArrayFields other = (LongArrayFields)o;
 
       long[] v = values;
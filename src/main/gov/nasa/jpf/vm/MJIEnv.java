@@ -108,7 +108,7 @@ public class MJIEnv {
   }
 
   public void gc() {
-    heap.gc();
+    heap.fullGc();
   }
 
   public void forceState (){
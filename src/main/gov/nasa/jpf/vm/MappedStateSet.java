@@ -0,0 +1,240 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.nasa.jpf.vm;
+
+import gov.nasa.jpf.Config;
+import gov.nasa.jpf.JPFConfigException;
+import gov.nasa.jpf.util.OffHeapArray;
+
+import java.io.File;
+
+/**
+ * a JenkinsStateSet variant that keeps fingerprints and the open addressed
+ * hash table outside of the Java heap, either in direct buffers or in
+ * memory mapped files (if 'vm.storage.file' is set). This is for very large
+ * state spaces that would otherwise cause GC stalls or 'search.min_free'
+ * aborts.
+ *
+ * Fingerprints are stored in id order in an OffHeapArray that grows by adding
+ * segments, i.e. they are never copied. The hash table is rehashed incrementally:
+ * once the load limit is reached we allocate a table of twice the size, add new
+ * states only to the new table and migrate a few of the old entries with each
+ * new state. Lookups check the new table first and the old one while the
+ * migration is still in progress.
+ *
+ * 'vm.storage.capacity' is the expected number of states, which is used to
+ * size the initial table and the storage segments.
+ */
+public class MappedStateSet extends SerializingStateSet {
+
+  static final double MAX_LOAD = 0.7;
+  static final int DEFAULT_CAPACITY = 1 << 20;
+  static final long MIN_SLOTS = 1 << 16;
+  static final long MAX_SLOTS = 1L << 32;
+
+  // number of old table entries we migrate per new state
+  static final int REHASH_STEP = 4;
+
+  protected File baseFile;
+
+  int lastStateId = -1;
+
+  // fingerprint of state i is stored at i*8
+  OffHeapArray fingerprints;
+
+  // table entries are (state id + 1), 0 means empty slot
+  OffHeapArray table;
+  long mask;
+  int nextRehash;
+
+  // the table we are migrating from. All ids < migrateEnd are in here
+  OffHeapArray oldTable;
+  long oldMask;
+  int migrated;
+  int migrateEnd;
+
+  int nTables; // used to create unique file names
+
+  public MappedStateSet (Config conf) {
+    this( conf.getString("vm.storage.file"), conf.getInt("vm.storage.capacity", DEFAULT_CAPACITY));
+  }
+
+  public MappedStateSet (String path, int capacity) {
+    if (capacity <= 0){
+      throw new JPFConfigException("illegal vm.storage.capacity: " + capacity);
+    }
+
+    if (path != null){
+      baseFile = new File(path);
+      File dir = baseFile.getAbsoluteFile().getParentFile();
+      if (!dir.isDirectory() && !dir.mkdirs()){
+        throw new JPFConfigException("cannot create state storage dir: " + dir.getAbsolutePath());
+      }
+    }
+
+    fingerprints = new OffHeapArray( (long)capacity * 8, getFile("fp"));
+
+    long slots = MIN_SLOTS;
+    while (slots < MAX_SLOTS && slots * MAX_LOAD < capacity){
+      slots <<= 1;
+    }
+    table = createTable(slots);
+    mask = slots - 1;
+    nextRehash = (int) (MAX_LOAD * slots);
+  }
+
+  public MappedStateSet () {
+    this( null, DEFAULT_CAPACITY);
+  }
+
+  protected File getFile (String ext) {
+    if (baseFile != null){
+      return new File(baseFile.getPath() + '.' + ext);
+    } else {
+      return null;
+    }
+  }
+
+  protected OffHeapArray createTable (long slots) {
+    long size = slots * 4;
+    OffHeapArray t = new OffHeapArray(size, getFile("tbl" + nTables++));
+    t.ensureCapacity(size);
+    return t;
+  }
+
+  @Override
+  public int size () {
+    return lastStateId + 1;
+  }
+
+  public boolean isRehashing() {
+    return oldTable != null;
+  }
+
+  @Override
+  public int add (int[] val) {
+    return addFingerprint( JenkinsStateSet.longLookup3Hash(val));
+  }
+
+  /**
+   * this is the actual set operation, split out so that it can be used with
+   * other hash functions
+   */
+  public int addFingerprint (long hash) {
+    long idx = (hash >>> 32) & mask;
+    long delta = (hash | 1) & mask; // must be odd!
+
+    int e;
+    while ((e = table.getInt(idx << 2)) != 0) {
+      int id = e - 1; // in table, 1 higher
+      if (fingerprints.getLong((long)id << 3) == hash){
+        return id;
+      }
+      idx = (idx + delta) & mask;
+    }
+
+    if (oldTable != null){
+      int id = lookup(oldTable, oldMask, hash);
+      if (id >= 0){
+        return id;
+      }
+    }
+
+    //--- only reached if state is new, idx points to empty slot in table
+    if (lastStateId == Integer.MAX_VALUE - 1){
+      throw new JPFConfigException("state storage exhausted");
+    }
+
+    lastStateId++;
+    long addr = (long)lastStateId << 3;
+    fingerprints.ensureCapacity(addr + 8);
+    fingerprints.putLong(addr, hash);
+    table.putInt(idx << 2, lastStateId + 1);
+
+    if (oldTable != null){
+      migrate(REHASH_STEP);
+    }
+
+    if (lastStateId >= nextRehash){
+      startRehash();
+    }
+
+    return lastStateId;
+  }
+
+  protected int lookup (OffHeapArray t, long m, long hash) {
+    long idx = (hash >>> 32) & m;
+    long delta = (hash | 1) & m;
+
+    int e;
+    while ((e = t.getInt(idx << 2)) != 0) {
+      int id = e - 1;
+      if (fingerprints.getLong((long)id << 3) == hash){
+        return id;
+      }
+      idx = (idx + delta) & m;
+    }
+
+    return -1;
+  }
+
+  protected void insert (int id) {
+    long hash = fingerprints.getLong((long)id << 3);
+    long idx = (hash >>> 32) & mask;
+    long delta = (hash | 1) & mask;
+
+    while (table.getInt(idx << 2) != 0) { // we know enough slots exist
+      idx = (idx + delta) & mask;
+    }
+    table.putInt(idx << 2, id + 1);
+  }
+
+  protected void startRehash () {
+    long slots = mask + 1;
+    if (slots >= MAX_SLOTS){
+      return; // can't grow anymore, just get slower
+    }
+
+    if (oldTable != null){ // should not happen with MAX_LOAD and REHASH_STEP
+      migrate(Integer.MAX_VALUE);
+    }
+
+    oldTable = table;
+    oldMask = mask;
+    migrated = 0;
+    migrateEnd = lastStateId + 1;
+
+    slots <<= 1;
+    table = createTable(slots);
+    mask = slots - 1;
+    nextRehash = (int) Math.min( Integer.MAX_VALUE, (long)(MAX_LOAD * slots));
+  }
+
+  protected void migrate (int n) {
+    int end = (n < migrateEnd - migrated) ? migrated + n : migrateEnd;
+    for (int i = migrated; i < end; i++){
+      insert(i);
+    }
+    migrated = end;
+
+    if (migrated == migrateEnd){
+      oldTable.dispose();
+      oldTable = null;
+    }
+  }
+}
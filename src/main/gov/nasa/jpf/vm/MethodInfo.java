@@ -22,6 +22,7 @@ import gov.nasa.jpf.JPF;
 import gov.nasa.jpf.JPFException;
 import gov.nasa.jpf.util.JPFLogger;
 import gov.nasa.jpf.util.LocationSpec;
+import gov.nasa.jpf.vm.bytecode.FusableInstruction;
 import gov.nasa.jpf.vm.bytecode.ReturnInstruction;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
@@ -87,6 +88,9 @@ public class MethodInfo extends InfoObject implements GenericSignatureHolder  {
   /** Instructions associated with the method */
   protected Instruction[] code;
 
+  /** lengths of FusableInstruction runs starting at each code index (lazy eval) */
+  protected int[] fusedBlockLengths;
+
   /** JPFConfigException handlers */
   protected ExceptionHandler[] exceptionHandlers;
 
@@ -308,6 +312,34 @@ public class MethodInfo extends InfoObject implements GenericSignatureHolder  {
       code[i].setMethodInfo(this);
     }
     this.code = code;
+    fusedBlockLengths = null;
+  }
+
+  /**
+   * the number of consecutive FusableInstructions starting with insn, which
+   * can be executed as a fused block (see ThreadInfo.executeTransition()).
+   * Answers 0 if insn is not fusable or not part of our code
+   */
+  public int getFusedBlockLength (Instruction insn) {
+    Instruction[] c = code;
+    int idx = insn.getInstructionIndex();
+
+    if (c == null || idx < 0 || idx >= c.length || c[idx] != insn) {
+      return 0;
+    }
+
+    int[] lengths = fusedBlockLengths;
+    if (lengths == null) {
+      lengths = new int[c.length];
+      for (int i = c.length-1; i >= 0; i--) {
+        if (c[i] instanceof FusableInstruction) {
+          lengths[i] = (i < c.length-1) ? lengths[i+1] + 1 : 1;
+        }
+      }
+      fusedBlockLengths = lengths;
+    }
+
+    return lengths[idx];
   }
   
   
@@ -1358,6 +1390,8 @@ public String getCompleteName () {
       clone.globalId = mthTable.size();
       mthTable.add(this);
 
+      clone.fusedBlockLengths = null;
+
       if(code == null) {
         clone.code = null;
       } else {
@@ -19,9 +19,11 @@
 package gov.nasa.jpf.vm;
 
 import gov.nasa.jpf.JPF;
+import gov.nasa.jpf.JPFException;
 import gov.nasa.jpf.JPFNativePeerException;
 import gov.nasa.jpf.util.JPFLogger;
 
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 
@@ -44,17 +46,23 @@ public class NativeMethodInfo extends MethodInfo {
   }
 
   protected Method mth; // the native method to enter in lieu
+  protected MethodHandle invoker; // (Object,Object[])Object handle, or null
   protected NativePeer peer;
 
-  public NativeMethodInfo (MethodInfo mi, Method mth, NativePeer peer){
+  public NativeMethodInfo (MethodInfo mi, Method mth, MethodHandle invoker, NativePeer peer){
     super(mi);  // <2do> do we want any operands or locals?
 
     this.peer = peer;
     this.mth = mth;
+    this.invoker = invoker;
 
     ci.setNativeCallCode(this);
   }
 
+  public NativeMethodInfo (MethodInfo mi, Method mth, NativePeer peer){
+    this(mi, mth, null, peer);
+  }
+
   public void replace( MethodInfo mi){
     mthTable.set(mi.globalId, this);
     mi.ci.putDeclaredMethod(this);
@@ -90,6 +98,10 @@ public class NativeMethodInfo extends MethodInfo {
     return mth;
   }
 
+  public MethodHandle getInvoker() {
+    return invoker;
+  }
+
   @Override
   public String getStackTraceSource() {
     if (peer != null){
@@ -121,8 +133,7 @@ public class NativeMethodInfo extends MethodInfo {
     try {
       args = nativeFrame.getArguments();
 
-      // this is the reflection call into the native peer
-      ret = mth.invoke(peer, args);
+      ret = invokePeer(args);
 
       if (env.hasException()) {
         // even though we should prefer throwing normal exceptionHandlers,
@@ -187,6 +198,28 @@ public class NativeMethodInfo extends MethodInfo {
     }
   }
 
+  /**
+   * the call into the native peer, either through our MethodHandle or by
+   * reflection. Exceptions of the peer method are always reported as
+   * InvocationTargetExceptions, which our invoker creates itself. Anything else
+   * the handle call throws (e.g. WrongMethodTypeException or ClassCastException
+   * from the argument conversion) is a JPF error
+   */
+  protected Object invokePeer (Object[] args) throws IllegalAccessException, InvocationTargetException {
+    if (invoker != null) {
+      try {
+        return (Object) invoker.invokeExact((Object)peer, args);
+      } catch (InvocationTargetException itx) {
+        throw itx;
+      } catch (Throwable t) {
+        throw new JPFException("failed to invoke native peer method " + mth, t);
+      }
+
+    } else {
+      return mth.invoke(peer, args);
+    }
+  }
+
   protected boolean isUnsatisfiedLinkError(MJIEnv env){
     return(mth == null);
   }
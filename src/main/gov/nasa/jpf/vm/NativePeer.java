@@ -23,12 +23,18 @@ import gov.nasa.jpf.JPFException;
 import gov.nasa.jpf.annotation.MJI;
 import gov.nasa.jpf.util.JPFLogger;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 
 
@@ -49,9 +55,42 @@ public class NativePeer implements Cloneable {
   static HashMap<ClassInfo, NativePeer> peers;
   static Config config;
   static boolean noOrphanMethods;
+  static boolean useMethodHandles;
+
+  // the type of our peer method invokers - they take the peer and the NativeStackFrame argument array
+  static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+
+  // (Throwable)Object handle that re-throws exceptions of the peer method as
+  // InvocationTargetException, so that we can tell them from invoker errors
+  static final MethodHandle TARGET_EXCEPTION;
+  static {
+    try {
+      TARGET_EXCEPTION = MethodHandles.lookup().findStatic(NativePeer.class, "throwTargetException",
+                                                           MethodType.methodType(Object.class, Throwable.class));
+    } catch (NoSuchMethodException | IllegalAccessException x) {
+      throw new JPFException("cannot create peer exception handler", x);
+    }
+  }
+
+  static Object throwTargetException (Throwable t) throws InvocationTargetException {
+    throw new InvocationTargetException(t);
+  }
+
+  // invokers are not bound to peer objects so that we can keep them (and their
+  // compiled LambdaForms) across JPF runs
+  static ConcurrentHashMap<Method, MethodHandle> invokers = new ConcurrentHashMap<Method, MethodHandle>();
 
   static String[] peerPackages;
 
+  // peer class lookup results and the MJI candidates of peer classes only depend on the host
+  // VM loader and the peer packages, i.e. we keep them across JPF runs. This mostly saves
+  // the ClassNotFoundExceptions for all the model classes that don't have peers
+  static final Class<?> NO_PEER = NativePeer.class;
+  static ClassLoader cachedLoader;
+  static String[] cachedPeerPackages;
+  static ConcurrentHashMap<String, Class<?>> peerClasses = new ConcurrentHashMap<String, Class<?>>();
+  static ConcurrentHashMap<Class<?>, Method[]> mjiMethods = new ConcurrentHashMap<Class<?>, Method[]>();
+
   ClassInfo ci;
   Class<?> peerClass;
   HashMap<String, Method> methods;
@@ -63,8 +102,16 @@ public class NativePeer implements Cloneable {
 
     peerPackages = getPeerPackages(conf);
 
+    if (loader != cachedLoader || !Arrays.equals(peerPackages, cachedPeerPackages)) {
+      peerClasses.clear();
+      mjiMethods.clear();
+      cachedLoader = loader;
+      cachedPeerPackages = peerPackages;
+    }
+
     config = conf;
     noOrphanMethods = conf.getBoolean("vm.no_orphan_methods", false);
+    useMethodHandles = conf.getBoolean("vm.peer_method_handles", true);
 
     return true;
   }
@@ -86,6 +133,17 @@ public class NativePeer implements Cloneable {
   }
 
   static Class<?> locatePeerCls (String clsName) {
+    Class<?> peerCls = peerClasses.get(clsName);
+
+    if (peerCls == null) {
+      peerCls = loadPeerCls(clsName);
+      peerClasses.put(clsName, (peerCls != null) ? peerCls : NO_PEER);
+    }
+
+    return (peerCls != NO_PEER) ? peerCls : null;
+  }
+
+  static Class<?> loadPeerCls (String clsName) {
     String cn = "JPF_" + clsName.replace('.', '_');
 
     for (int i=0; i<peerPackages.length; i++) {
@@ -280,6 +338,25 @@ public class NativePeer implements Cloneable {
   }
 
 
+  static Method[] getMJICandidates (Class<?> peerCls) {
+    Method[] candidates = mjiMethods.get(peerCls);
+
+    if (candidates == null) {
+      // since we allow native peer class hierarchies, we have to look at all methods
+      ArrayList<Method> list = new ArrayList<Method>();
+      for (Method mth : peerCls.getMethods()) {
+        if (isMJICandidate(mth)) {
+          list.add(mth);
+        }
+      }
+
+      candidates = list.toArray(new Method[list.size()]);
+      mjiMethods.put(peerCls, candidates);
+    }
+
+    return candidates;
+  }
+
   private Method getMethod (MethodInfo mi) {
     return getMethod(null, mi);
   }
@@ -300,9 +377,7 @@ public class NativePeer implements Cloneable {
    * <2do> pcm - this is too long, break it down
    */
   protected void loadMethods (boolean cacheMethods) {
-    // since we allow native peer class hierarchies, we have to look at all methods
-    //Method[] m = peerClass.getDeclaredMethods();
-    Method[] m = peerClass.getMethods();
+    Method[] m = getMJICandidates(peerClass);
     
     methods = new HashMap<String, Method>(m.length);
 
@@ -312,59 +387,133 @@ public class NativePeer implements Cloneable {
     for (int i = 0; i < m.length; i++) {
       Method  mth = m[i];
 
-      if (isMJICandidate(mth)) {
-        // Note that we can't mangle the name automatically, since we loose the
-        // object type info (all mapped to int). This has to be handled
-        // the same way like with overloaded JNI methods - you have to
-        // mangle them manually
-        String mn = mth.getName();
-
-        // JNI doesn't allow <clinit> or <init> to be native, but MJI does
-        // (you should know what you are doing before you use that, really)
-        if (mn.startsWith("$clinit")) {
-          mn = "<clinit>";
-        } else if (mn.startsWith("$init")) {
-          mn = "<init>" + mn.substring(5);
-        }
+      // Note that we can't mangle the name automatically, since we loose the
+      // object type info (all mapped to int). This has to be handled
+      // the same way like with overloaded JNI methods - you have to
+      // mangle them manually
+      String mn = mth.getName();
+
+      // JNI doesn't allow <clinit> or <init> to be native, but MJI does
+      // (you should know what you are doing before you use that, really)
+      if (mn.startsWith("$clinit")) {
+        mn = "<clinit>";
+      } else if (mn.startsWith("$init")) {
+        mn = "<init>" + mn.substring(5);
+      }
 
-        String mname = Types.getJNIMethodName(mn);
-        String sig = Types.getJNISignature(mn);
+      String mname = Types.getJNIMethodName(mn);
+      String sig = Types.getJNISignature(mn);
+
+      if (sig != null) {
+        mname += sig;
+      }
 
-        if (sig != null) {
-          mname += sig;
+      // now try to find a corresponding MethodInfo object and mark it
+      // as 'peer-ed'
+      // <2do> in case of <clinit>, it wouldn't be strictly required to
+      // have a MethodInfo upfront (we could create it). Might be handy
+      // for classes where we intercept just a few methods, but need
+      // to init before
+      MethodInfo mi = methodInfos.get(mname);
+
+      if ((mi == null) && (sig == null)) {
+        // nothing found, we have to do it the hard way - check if there is
+        // a single method with this name (still unsafe, but JNI behavior)
+        // Note there's no point in doing that if we do have a signature
+        if (mis == null) { // cache it for subsequent lookup
+          mis = new MethodInfo[methodInfos.size()];
+          methodInfos.values().toArray(mis);
         }
 
-        // now try to find a corresponding MethodInfo object and mark it
-        // as 'peer-ed'
-        // <2do> in case of <clinit>, it wouldn't be strictly required to
-        // have a MethodInfo upfront (we could create it). Might be handy
-        // for classes where we intercept just a few methods, but need
-        // to init before
-        MethodInfo mi = methodInfos.get(mname);
-
-        if ((mi == null) && (sig == null)) {
-          // nothing found, we have to do it the hard way - check if there is
-          // a single method with this name (still unsafe, but JNI behavior)
-          // Note there's no point in doing that if we do have a signature
-          if (mis == null) { // cache it for subsequent lookup
-            mis = new MethodInfo[methodInfos.size()];
-            methodInfos.values().toArray(mis);
-          }
+        mi = searchMethod(mname, mis);
+      }
 
-          mi = searchMethod(mname, mis);
-        }
+      if (mi != null) {
+        logger.info("load MJI method: ", mname);
 
-        if (mi != null) {
-          logger.info("load MJI method: ", mname);
+        NativeMethodInfo miNative = new NativeMethodInfo(mi, mth, getInvoker(mth, mi), this);
+        miNative.replace(mi);
 
-          NativeMethodInfo miNative = new NativeMethodInfo(mi, mth, this);
-          miNative.replace(mi);
+      } else {
+        checkOrphan(mth, mname);
+      }
+    }
+  }
 
-        } else {
-          checkOrphan(mth, mname);
+  /**
+   * the host VM parameter type of a MJI method argument - references are
+   * passed as int
+   */
+  static Class<?> getPeerArgumentType (byte argType) {
+    switch (argType) {
+    case Types.T_BOOLEAN: return boolean.class;
+    case Types.T_BYTE:    return byte.class;
+    case Types.T_CHAR:    return char.class;
+    case Types.T_SHORT:   return short.class;
+    case Types.T_LONG:    return long.class;
+    case Types.T_FLOAT:   return float.class;
+    case Types.T_DOUBLE:  return double.class;
+    default:              return int.class;
+    }
+  }
+
+  static boolean hasMatchingParameters (Method mth, MethodInfo mi) {
+    Class<?>[] paramTypes = mth.getParameterTypes();
+    byte[] argTypes = mi.getArgumentTypes();
+
+    if (paramTypes.length != argTypes.length + 2) {
+      return false;
+    }
+
+    for (int i = 0; i < argTypes.length; i++) {
+      if (paramTypes[i+2] != getPeerArgumentType(argTypes[i])) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * bind a MJI method to a MethodHandle of INVOKER_TYPE that spreads the
+   * NativeStackFrame argument array into the (unboxed) peer method parameters.
+   * Other than Method.invoke(), this does not need access checks or argument
+   * array copies for each call. Only exceptions thrown by the peer method are
+   * wrapped into InvocationTargetExceptions, errors of the argument conversion
+   * are passed through.
+   *
+   * Answers null if handles are disabled ('vm.peer_method_handles') or the peer
+   * method parameters do not match the MethodInfo arguments, in which case we
+   * keep calling by reflection so that we get the usual IllegalArgumentException
+   */
+  protected MethodHandle getInvoker (Method mth, MethodInfo mi) {
+    if (!useMethodHandles || !hasMatchingParameters(mth, mi)) {
+      return null;
+    }
+
+    MethodHandle invoker = invokers.get(mth);
+    if (invoker == null) {
+      try {
+        MethodHandle mh = MethodHandles.publicLookup().unreflect(mth);
+        if (Modifier.isStatic(mth.getModifiers())) {
+          mh = MethodHandles.dropArguments(mh, 0, Object.class); // ignore the peer
         }
+
+        MethodType mt = mh.type();
+        MethodHandle handler = MethodHandles.dropArguments(
+            TARGET_EXCEPTION.asType(MethodType.methodType(mt.returnType(), Throwable.class)), 1, mt.parameterList());
+        mh = MethodHandles.catchException(mh, Throwable.class, handler);
+
+        invoker = mh.asSpreader(Object[].class, mth.getParameterCount()).asType(INVOKER_TYPE);
+        invokers.put(mth, invoker);
+
+      } catch (IllegalAccessException iax) {
+        logger.warning("cannot bind MJI method, using reflection: ", mth);
+        return null;
       }
     }
+
+    return invoker;
   }
 
   protected void checkOrphan (Method mth, String mname){
@@ -30,7 +30,9 @@ import java.util.Iterator;
  * are negligible for PersistentMaps, the per-change overhead is not since the container
  * has to duplicate the access path to the changed node on every modification. Efficiency
  * of PSIMHeap therefore relies on accessing objects in a consecutive pattern, i.e.
- * depends on clustered access.
+ * depends on clustered access. To reduce this overhead, the map is kept transient
+ * between snapshots, i.e. nodes are only copied on the first modification after a
+ * state was stored or restored.
  * 
  * <2do> this should not be a GenericSGOIDHeap derived class since this includes
  * a number of non-persistent data structures (allocCounts, intern strings, pinDowns) that
@@ -51,7 +53,8 @@ public class PSIMHeap extends GenericSGOIDHeap {
       super(heap);
       
       heap.elementInfos.process(ElementInfo.storer);
-      eiSnap = heap.elementInfos; // no need to transform anything, it's persistent
+      eiSnap = heap.elementInfos.asPersistent(); // no need to transform anything, just seal it
+      heap.elementInfos = eiSnap.asTransient();
     }
 
     @Override
@@ -59,7 +62,7 @@ public class PSIMHeap extends GenericSGOIDHeap {
       super.restore( inSitu);
       
       PSIMHeap heap = (PSIMHeap) inSitu;
-      heap.elementInfos = eiSnap;
+      heap.elementInfos = eiSnap.asTransient();
       heap.elementInfos.process(ElementInfo.restorer);
       
       return heap;
@@ -103,7 +106,7 @@ public class PSIMHeap extends GenericSGOIDHeap {
   public PSIMHeap (Config config, KernelState ks) {
     super(config,ks);
     
-    elementInfos = new PSIntMap<ElementInfo>();    
+    elementInfos = new PSIntMap<ElementInfo>().asTransient();
     sweepPredicate = new SweepPredicate();
   }
   
@@ -139,6 +142,7 @@ public class PSIMHeap extends GenericSGOIDHeap {
         ei = ei.deepClone(); 
         // freshly created ElementInfos are not frozen, so we don't have to defreeze
         elementInfos = elementInfos.set(ref, ei);
+        markChanged(ref);
       }
 
       return ei;
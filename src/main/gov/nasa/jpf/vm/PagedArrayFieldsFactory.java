@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.nasa.jpf.vm;
+
+import gov.nasa.jpf.Config;
+import gov.nasa.jpf.JPFConfigException;
+import gov.nasa.jpf.util.PagedArray;
+
+/**
+ * a Fields factory that creates large int, long, double, byte and char arrays
+ * with copy-on-write pages of 2^vm.fields_factory.page_bits elements, so that
+ * storing a state and modifying a few elements afterwards does not copy the
+ * whole array. Arrays with less than vm.fields_factory.min_paged_length
+ * elements and all other arrays are created by our DefaultFieldsFactory
+ *
+ * Note that reference arrays are never paged since serializers and garbage
+ * collection access them as int[]
+ */
+public class PagedArrayFieldsFactory extends DefaultFieldsFactory {
+
+  protected int pageBits;
+  protected int minPagedLength;
+
+  public PagedArrayFieldsFactory (Config config) {
+    pageBits = config.getInt("vm.fields_factory.page_bits", PagedArray.DEFAULT_PAGE_BITS);
+    minPagedLength = config.getInt("vm.fields_factory.min_paged_length", 1024);
+
+    if (pageBits < 2 || pageBits > 24) {
+      // we need at least 4 elements per page to keep packed serialization independent of paging
+      throw new JPFConfigException("illegal vm.fields_factory.page_bits value: " + pageBits);
+    }
+  }
+
+  @Override
+  public Fields createArrayFields (String type, ClassInfo ci, int nElements, int typeSize, boolean isReferenceArray) {
+    if (nElements >= minPagedLength) {
+      switch (type.charAt(1)){
+        case 'B': return new PagedByteArrayFields(nElements, pageBits);
+        case 'C': return new PagedCharArrayFields(nElements, pageBits);
+        case 'I': return new PagedIntArrayFields(nElements, pageBits);
+        case 'J': return new PagedLongArrayFields(nElements, pageBits);
+        case 'D': return new PagedDoubleArrayFields(nElements, pageBits);
+      }
+    }
+
+    return super.createArrayFields(type, ci, nElements, typeSize, isReferenceArray);
+  }
+}
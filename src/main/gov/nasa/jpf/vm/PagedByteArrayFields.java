@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ *        http://www.apache.org/licenses/LICENSE-2.0. 
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+package gov.nasa.jpf.vm;
+
+import gov.nasa.jpf.util.HashData;
+import gov.nasa.jpf.util.IntVector;
+import gov.nasa.jpf.util.PagedArray;
+
+import java.io.PrintStream;
+
+/**
+ * element values for large byte[] objects, which are stored in copy-on-write
+ * pages that are shared between clones (see PagedArray). Cloning a frozen
+ * object therefore only copies the page table, and stores only copy the pages
+ * they modify.
+ *
+ * If the backing byte[] is requested (e.g. by a native peer that might modify
+ * it), we fall back to a flat ByteArrayFields representation until we get
+ * cloned again
+ */
+public class PagedByteArrayFields extends ByteArrayFields {
+
+  protected int pageBits;
+  protected PagedArray pages; // null if flat
+
+  public PagedByteArrayFields (int length, int pageBits) {
+    super(0);
+    this.pageBits = pageBits;
+    values = null;
+    pages = new PagedArray(byte.class, length, pageBits);
+  }
+
+  @Override
+  public boolean isPaged() {
+    return pages != null;
+  }
+
+  public PagedArray getPagedArray() {
+    return pages;
+  }
+
+  protected byte[] flatten() {
+    if (pages != null) {
+      values = (byte[]) pages.toArray();
+      pages = null;
+    }
+    return values;
+  }
+
+  @Override
+  public byte[] asByteArray() {
+    return flatten();
+  }
+
+  @Override
+  public Object getValues(){
+    return flatten();
+  }
+
+  @Override
+  public int arrayLength() {
+    return (pages != null) ? pages.length() : values.length;
+  }
+
+  @Override
+  public int getHeapSize() {  // in bytes
+    return arrayLength() * 1;
+  }
+
+  @Override
+  public byte getByteValue (int pos) {
+    PagedArray p = pages;
+    if (p != null) {
+      return ((byte[]) p.getPage(pos >>> pageBits))[pos & p.getPageMask()];
+    } else {
+      return values[pos];
+    }
+  }
+
+  @Override
+  public void setByteValue (int pos, byte newValue) {
+    PagedArray p = pages;
+    if (p != null) {
+      ((byte[]) p.getModifiablePage(pos >>> pageBits))[pos & p.getPageMask()] = newValue;
+    } else {
+      values[pos] = newValue;
+    }
+  }
+
+  @Override
+  protected void copyTo (int srcPos, byte[] dst, int dstPos, int len){
+    if (pages != null) {
+      pages.copyTo(srcPos, dst, dstPos, len);
+    } else {
+      super.copyTo(srcPos, dst, dstPos, len);
+    }
+  }
+
+  @Override
+  public void copyElements (ArrayFields src, int srcPos, int dstPos, int len){
+    if (pages != null) {
+      if (src.isPaged()) {
+        pages.copy(((PagedByteArrayFields)src).pages, srcPos, dstPos, len);
+      } else {
+        pages.copyFrom(((ByteArrayFields)src).values, srcPos, dstPos, len);
+      }
+    } else {
+      super.copyElements(src, srcPos, dstPos, len);
+    }
+  }
+
+  @Override
+  protected void printValue(PrintStream ps, int idx){
+    ps.print(getByteValue(idx));
+  }
+
+  @Override
+  public void setByteValues(byte[] v) {
+    if (pages != null) {
+      pages.copyFrom(v, 0, 0, v.length);
+    } else {
+      super.setByteValues(v);
+    }
+  }
+
+  @Override
+  public void appendTo (IntVector v) {
+    PagedArray p = pages;
+    if (p != null) {
+      for (int i=0; i<p.getNumberOfPages(); i++) {
+        v.appendPacked((byte[]) p.getPage(i), 0, p.getPageLength(i));
+      }
+    } else {
+      super.appendTo(v);
+    }
+  }
+
+  /**
+   * the clone shares our pages, flat values are paged again
+   */
+  @Override
+  public PagedByteArrayFields clone(){
+    PagedByteArrayFields f = (PagedByteArrayFields)cloneFields();
+    if (pages != null) {
+      f.pages = pages.share();
+    } else {
+      f.pages = new PagedArray(values, pageBits);
+      f.values = null;
+    }
+    return f;
+  }
+
+  @Override
+  public boolean equals (Object o) {
+    if (o instanceof ByteArrayFields) {
+      ByteArrayFields other = (ByteArrayFields)o;
+
+      int len = arrayLength();
+      if (len != other.arrayLength()) {
+        return false;
+      }
+
+      for (int i=0; i<len; i++) {
+        if (getByteValue(i) != other.getByteValue(i)) {
+          return false;
+        }
+      }
+
+      return compareAttrs(other);
+
+    } else {
+      return false;
+    }
+  }
+
+  @Override
+  public void hash(HashData hd) {
+    for (int i=0, len=arrayLength(); i < len; i++) {
+      hd.add(getByteValue(i));
+    }
+  }
+
+}
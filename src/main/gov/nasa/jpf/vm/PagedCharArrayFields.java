@@ -0,0 +1,236 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ *        http://www.apache.org/licenses/LICENSE-2.0. 
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+package gov.nasa.jpf.vm;
+
+import gov.nasa.jpf.util.HashData;
+import gov.nasa.jpf.util.IntVector;
+import gov.nasa.jpf.util.PagedArray;
+import gov.nasa.jpf.util.PrintUtils;
+
+import java.io.PrintStream;
+
+/**
+ * element values for large char[] objects, which are stored in copy-on-write
+ * pages that are shared between clones (see PagedArray). Cloning a frozen
+ * object therefore only copies the page table, and stores only copy the pages
+ * they modify.
+ *
+ * If the backing char[] is requested (e.g. by a native peer that might modify
+ * it), we fall back to a flat CharArrayFields representation until we get
+ * cloned again
+ */
+public class PagedCharArrayFields extends CharArrayFields {
+
+  protected int pageBits;
+  protected PagedArray pages; // null if flat
+
+  public PagedCharArrayFields (int length, int pageBits) {
+    super(0);
+    this.pageBits = pageBits;
+    values = null;
+    pages = new PagedArray(char.class, length, pageBits);
+  }
+
+  @Override
+  public boolean isPaged() {
+    return pages != null;
+  }
+
+  public PagedArray getPagedArray() {
+    return pages;
+  }
+
+  protected char[] flatten() {
+    if (pages != null) {
+      values = (char[]) pages.toArray();
+      pages = null;
+    }
+    return values;
+  }
+
+  @Override
+  public char[] asCharArray() {
+    return flatten();
+  }
+
+  @Override
+  public Object getValues(){
+    return flatten();
+  }
+
+  @Override
+  public int arrayLength() {
+    return (pages != null) ? pages.length() : values.length;
+  }
+
+  @Override
+  public int getHeapSize() {  // in bytes
+    return arrayLength() * 2;
+  }
+
+  @Override
+  public char getCharValue (int pos) {
+    PagedArray p = pages;
+    if (p != null) {
+      return ((char[]) p.getPage(pos >>> pageBits))[pos & p.getPageMask()];
+    } else {
+      return values[pos];
+    }
+  }
+
+  @Override
+  public void setCharValue (int pos, char newValue) {
+    PagedArray p = pages;
+    if (p != null) {
+      ((char[]) p.getModifiablePage(pos >>> pageBits))[pos & p.getPageMask()] = newValue;
+    } else {
+      values[pos] = newValue;
+    }
+  }
+
+  @Override
+  protected void copyTo (int srcPos, char[] dst, int dstPos, int len){
+    if (pages != null) {
+      pages.copyTo(srcPos, dst, dstPos, len);
+    } else {
+      super.copyTo(srcPos, dst, dstPos, len);
+    }
+  }
+
+  @Override
+  public void copyElements (ArrayFields src, int srcPos, int dstPos, int len){
+    if (pages != null) {
+      if (src.isPaged()) {
+        pages.copy(((PagedCharArrayFields)src).pages, srcPos, dstPos, len);
+      } else {
+        pages.copyFrom(((CharArrayFields)src).values, srcPos, dstPos, len);
+      }
+    } else {
+      super.copyElements(src, srcPos, dstPos, len);
+    }
+  }
+
+  @Override
+  protected void printValue(PrintStream ps, int idx){
+    ps.print(getCharValue(idx));
+  }
+
+  @Override
+  public void printElements( PrintStream ps, int max){
+    if (pages != null) {
+      PrintUtils.printStringLiteral(ps, (char[]) pages.toArray(), max);
+    } else {
+      super.printElements(ps, max);
+    }
+  }
+
+  @Override
+  public char[] asCharArray (int offset, int length) {
+    char[] result = new char[length];
+    copyTo(offset, result, 0, length);
+    return result;
+  }
+
+  @Override
+  public void setCharValues(char[] v){
+    if (pages != null) {
+      pages.copyFrom(v, 0, 0, v.length);
+    } else {
+      super.setCharValues(v);
+    }
+  }
+
+  @Override
+  public String asString(int offset, int length) {
+    return new String(asCharArray(offset, length));
+  }
+
+  @Override
+  public boolean equals (int offset, int length, String s) {
+    if (offset+length > arrayLength()) {
+      return false;
+    }
+
+    for (int i=offset, j=0; j<length; i++, j++) {
+      if (getCharValue(i) != s.charAt(j)) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  @Override
+  public void appendTo (IntVector v) {
+    PagedArray p = pages;
+    if (p != null) {
+      for (int i=0; i<p.getNumberOfPages(); i++) {
+        v.appendPacked((char[]) p.getPage(i), 0, p.getPageLength(i));
+      }
+    } else {
+      super.appendTo(v);
+    }
+  }
+
+  /**
+   * the clone shares our pages, flat values are paged again
+   */
+  @Override
+  public PagedCharArrayFields clone(){
+    PagedCharArrayFields f = (PagedCharArrayFields)cloneFields();
+    if (pages != null) {
+      f.pages = pages.share();
+    } else {
+      f.pages = new PagedArray(values, pageBits);
+      f.values = null;
+    }
+    return f;
+  }
+
+  @Override
+  public boolean equals (Object o) {
+    if (o instanceof CharArrayFields) {
+      CharArrayFields other = (CharArrayFields)o;
+
+      int len = arrayLength();
+      if (len != other.arrayLength()) {
+        return false;
+      }
+
+      for (int i=0; i<len; i++) {
+        if (getCharValue(i) != other.getCharValue(i)) {
+          return false;
+        }
+      }
+
+      return compareAttrs(other);
+
+    } else {
+      return false;
+    }
+  }
+
+  @Override
+  public void hash(HashData hd) {
+    for (int i=0, len=arrayLength(); i < len; i++) {
+      hd.add(getCharValue(i));
+    }
+  }
+
+}
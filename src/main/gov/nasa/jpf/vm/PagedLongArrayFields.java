@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ *        http://www.apache.org/licenses/LICENSE-2.0. 
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+package gov.nasa.jpf.vm;
+
+import gov.nasa.jpf.util.HashData;
+import gov.nasa.jpf.util.IntVector;
+import gov.nasa.jpf.util.PagedArray;
+
+import java.io.PrintStream;
+
+/**
+ * element values for large long[] objects, which are stored in copy-on-write
+ * pages that are shared between clones (see PagedArray). Cloning a frozen
+ * object therefore only copies the page table, and stores only copy the pages
+ * they modify.
+ *
+ * If the backing long[] is requested (e.g. by a native peer that might modify
+ * it), we fall back to a flat LongArrayFields representation until we get
+ * cloned again
+ */
+public class PagedLongArrayFields extends LongArrayFields {
+
+  protected int pageBits;
+  protected PagedArray pages; // null if flat
+
+  public PagedLongArrayFields (int length, int pageBits) {
+    super(0);
+    this.pageBits = pageBits;
+    values = null;
+    pages = new PagedArray(long.class, length, pageBits);
+  }
+
+  @Override
+  public boolean isPaged() {
+    return pages != null;
+  }
+
+  public PagedArray getPagedArray() {
+    return pages;
+  }
+
+  protected long[] flatten() {
+    if (pages != null) {
+      values = (long[]) pages.toArray();
+      pages = null;
+    }
+    return values;
+  }
+
+  @Override
+  public long[] asLongArray() {
+    return flatten();
+  }
+
+  @Override
+  public Object getValues(){
+    return flatten();
+  }
+
+  @Override
+  public int arrayLength() {
+    return (pages != null) ? pages.length() : values.length;
+  }
+
+  @Override
+  public int getHeapSize() {  // in bytes
+    return arrayLength() * 8;
+  }
+
+  @Override
+  public long getLongValue (int pos) {
+    PagedArray p = pages;
+    if (p != null) {
+      return ((long[]) p.getPage(pos >>> pageBits))[pos & p.getPageMask()];
+    } else {
+      return values[pos];
+    }
+  }
+
+  @Override
+  public void setLongValue (int pos, long newValue) {
+    PagedArray p = pages;
+    if (p != null) {
+      ((long[]) p.getModifiablePage(pos >>> pageBits))[pos & p.getPageMask()] = newValue;
+    } else {
+      values[pos] = newValue;
+    }
+  }
+
+  @Override
+  protected void copyTo (int srcPos, long[] dst, int dstPos, int len){
+    if (pages != null) {
+      pages.copyTo(srcPos, dst, dstPos, len);
+    } else {
+      super.copyTo(srcPos, dst, dstPos, len);
+    }
+  }
+
+  @Override
+  public void copyElements (ArrayFields src, int srcPos, int dstPos, int len){
+    if (pages != null) {
+      if (src.isPaged()) {
+        pages.copy(((PagedLongArrayFields)src).pages, srcPos, dstPos, len);
+      } else {
+        pages.copyFrom(((LongArrayFields)src).values, srcPos, dstPos, len);
+      }
+    } else {
+      super.copyElements(src, srcPos, dstPos, len);
+    }
+  }
+
+  @Override
+  protected void printValue(PrintStream ps, int idx){
+    ps.print(getLongValue(idx));
+  }
+
+  @Override
+  public void appendTo (IntVector v) {
+    PagedArray p = pages;
+    if (p != null) {
+      for (int i=0; i<p.getNumberOfPages(); i++) {
+        v.appendBits((long[]) p.getPage(i), 0, p.getPageLength(i));
+      }
+    } else {
+      super.appendTo(v);
+    }
+  }
+
+  /**
+   * the clone shares our pages, flat values are paged again
+   */
+  @Override
+  public PagedLongArrayFields clone(){
+    PagedLongArrayFields f = (PagedLongArrayFields)cloneFields();
+    if (pages != null) {
+      f.pages = pages.share();
+    } else {
+      f.pages = new PagedArray(values, pageBits);
+      f.values = null;
+    }
+    return f;
+  }
+
+  @Override
+  public boolean equals (Object o) {
+    if (o instanceof LongArrayFields) {
+      LongArrayFields other = (LongArrayFields)o;
+
+      int len = arrayLength();
+      if (len != other.arrayLength()) {
+        return false;
+      }
+
+      for (int i=0; i<len; i++) {
+        if (getLongValue(i) != other.getLongValue(i)) {
+          return false;
+        }
+      }
+
+      return compareAttrs(other);
+
+    } else {
+      return false;
+    }
+  }
+
+  @Override
+  public void hash(HashData hd) {
+    for (int i=0, len=arrayLength(); i < len; i++) {
+      hd.add(getLongValue(i));
+    }
+  }
+
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.nasa.jpf.vm;
+
+import gov.nasa.jpf.util.HashData;
+import gov.nasa.jpf.util.IntSlab;
+import gov.nasa.jpf.util.IntVector;
+
+/**
+ * value container for non-array classes that does not store the values itself,
+ * but keeps them in a block of a (state managed) IntSlab that is owned by
+ * the SlabHeap.
+ *
+ * Cloning a SlabFields object does not copy values - both the original and the
+ * clone refer to the same block, and it is the slab that keeps the
+ * different versions of it. This is what we want for ElementInfo.deepClone(),
+ * but not to create a copy of an object (see copyFrom())
+ *
+ * Field and object attributes are still stored in the Fields object since they
+ * are rare
+ */
+public class SlabFields extends Fields {
+
+  protected IntSlab slab;
+  protected int addr; // slab address of our first slot
+  protected int size; // number of slots
+
+  public SlabFields (IntSlab slab, int addr, int size){
+    this.slab = slab;
+    this.addr = addr;
+    this.size = size;
+  }
+
+  public int size(){
+    return size;
+  }
+
+  /**
+   * this creates a copy of the values, use getFieldSlotStorage() and
+   * getFieldSlotOffset() to access them directly
+   */
+  @Override
+  public int[] asFieldSlots() {
+    int[] a = new int[size];
+    System.arraycopy(slab.getPage(addr), slab.getOffset(addr), a, 0, size);
+    return a;
+  }
+
+  @Override
+  public int[] getFieldSlotStorage() {
+    return slab.getPage(addr);
+  }
+
+  @Override
+  public int getFieldSlotOffset() {
+    return slab.getOffset(addr);
+  }
+
+  @Override
+  public int getNumberOfFieldSlots() {
+    return size;
+  }
+
+  @Override
+  public int getHeapSize () {
+    return size*4;
+  }
+
+  @Override
+  public int getIntValue (int index) {
+    return slab.get(addr + index);
+  }
+
+  @Override
+  public int getReferenceValue (int index) {
+    return slab.get(addr + index);
+  }
+
+  @Override
+  public long getLongValue (int index) {
+    int[] page = slab.getPage(addr);
+    int i = slab.getOffset(addr) + index;
+    return Types.intsToLong(page[i + 1], page[i]);
+  }
+
+  @Override
+  public boolean getBooleanValue (int index) {
+    return Types.intToBoolean(slab.get(addr + index));
+  }
+
+  @Override
+  public byte getByteValue (int index) {
+    return (byte) slab.get(addr + index);
+  }
+
+  @Override
+  public char getCharValue (int index) {
+    return (char) slab.get(addr + index);
+  }
+
+  @Override
+  public short getShortValue (int index) {
+    return (short) slab.get(addr + index);
+  }
+
+  @Override
+  public float getFloatValue (int index) {
+    return Types.intToFloat(slab.get(addr + index));
+  }
+
+  @Override
+  public double getDoubleValue (int index) {
+    int[] page = slab.getPage(addr);
+    int i = slab.getOffset(addr) + index;
+    return Types.intsToDouble(page[i + 1], page[i]);
+  }
+
+  @Override
+  public void setReferenceValue (int index, int newValue) {
+    slab.set(addr + index, newValue);
+  }
+
+  @Override
+  public void setBooleanValue (int index, boolean newValue) {
+    slab.set(addr + index, newValue ? 1 : 0);
+  }
+
+  @Override
+  public void setByteValue (int index, byte newValue) {
+    slab.set(addr + index, newValue);
+  }
+
+  @Override
+  public void setCharValue (int index, char newValue) {
+    slab.set(addr + index, newValue);
+  }
+
+  @Override
+  public void setShortValue (int index, short newValue) {
+    slab.set(addr + index, newValue);
+  }
+
+  @Override
+  public void setFloatValue (int index, float newValue) {
+    slab.set(addr + index, Types.floatToInt(newValue));
+  }
+
+  @Override
+  public void setIntValue (int index, int newValue) {
+    slab.set(addr + index, newValue);
+  }
+
+  @Override
+  public void setLongValue (int index, long newValue) {
+    int[] page = slab.getModifiablePage(addr);
+    int i = slab.getOffset(addr) + index;
+    page[i] = Types.hiLong(newValue);
+    page[i+1] = Types.loLong(newValue);
+  }
+
+  @Override
+  public void setDoubleValue (int index, double newValue) {
+    int[] page = slab.getModifiablePage(addr);
+    int i = slab.getOffset(addr) + index;
+    page[i] = Types.hiDouble(newValue);
+    page[i+1] = Types.loDouble(newValue);
+  }
+
+  /**
+   * note this shares the value block with the original
+   */
+  @Override
+  public SlabFields clone () {
+    return (SlabFields) cloneFields();
+  }
+
+  /**
+   * copy values and attributes of another object of the same type
+   * into our own block
+   */
+  public void copyFrom (Fields other) {
+    int[] page = slab.getModifiablePage(addr);
+    System.arraycopy(other.getFieldSlotStorage(), other.getFieldSlotOffset(),
+                     page, slab.getOffset(addr), size);
+    super.copyAttrs(other);
+  }
+
+  @Override
+  public boolean equals (Object o) {
+    if (o instanceof SlabFields) {
+      SlabFields other = (SlabFields) o;
+      if (size != other.size) {
+        return false;
+      }
+
+      int[] v1 = slab.getPage(addr);
+      int[] v2 = other.slab.getPage(other.addr);
+      for (int i = slab.getOffset(addr), j = other.slab.getOffset(other.addr), end = i + size; i < end; i++, j++) {
+        if (v1[i] != v2[j]) {
+          return false;
+        }
+      }
+
+      return super.compareAttrs(other);
+
+    } else {
+      return false;
+    }
+  }
+
+  // serialization interface
+  @Override
+  public void appendTo (IntVector v) {
+    v.append(slab.getPage(addr), slab.getOffset(addr), size);
+  }
+
+  @Override
+  public void hash (HashData hd) {
+    int[] v = slab.getPage(addr);
+    for (int i = slab.getOffset(addr), end = i + size; i < end; i++) {
+      hd.add(v[i]);
+    }
+  }
+
+  @Override
+  public String toString () {
+    StringBuilder sb = new StringBuilder("SlabFields[addr=");
+    sb.append(addr);
+    sb.append(",values=[");
+
+    for (int i = 0; i < size; i++) {
+      if (i != 0) {
+        sb.append(',');
+      }
+      sb.append(slab.get(addr + i));
+    }
+
+    sb.append("]]");
+    return sb.toString();
+  }
+}
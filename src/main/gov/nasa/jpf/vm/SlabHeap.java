@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.nasa.jpf.vm;
+
+import gov.nasa.jpf.Config;
+import gov.nasa.jpf.util.IntSlab;
+
+/**
+ * a DeltaHeap that does not store instance field values in per-object arrays,
+ * but in blocks of a copy-on-write IntSlab (see SlabFields). Mementos only copy
+ * the slab page table, and a modified object only copies its (small) page
+ * instead of its own value array when it is cloned after a state store.
+ *
+ * Slab blocks are addressed by object reference. Since SGOIDs are search
+ * global and include the allocation type, the block of a reference can be
+ * re-used on all paths that allocate it, i.e. block allocation does not have
+ * to be state managed. Arrays and objects that don't fit into a page still use
+ * the configured FieldsFactory.
+ *
+ * Note that ElementInfos of previous states see the current values of their
+ * objects since they share the slab block. This is not a problem for
+ * backtracking since the slab pages are restored together with the
+ * ElementInfos, but code that keeps ElementInfo references across
+ * transitions should not rely on them being value snapshots
+ */
+public class SlabHeap extends DeltaHeap {
+
+  static class SlabMemento extends DeltaMemento {
+    IntSlab.Snapshot slabSnap;
+
+    SlabMemento (SlabHeap heap){
+      super(heap);
+
+      slabSnap = heap.slab.getSnapshot();
+    }
+
+    @Override
+    public Heap restore(Heap inSitu) {
+      super.restore( inSitu);
+
+      SlabHeap heap = (SlabHeap)inSitu;
+      heap.slab.restore(slabSnap);
+
+      return heap;
+    }
+  }
+
+  //--- instance data
+
+  IntSlab slab;
+
+  // search global block addresses and sizes, indexed by object reference
+  int[] blockAddrs;
+  int[] blockSizes;
+
+  //--- constructors
+
+  public SlabHeap (Config config, KernelState ks){
+    super(config, ks);
+
+    slab = new IntSlab(config.getInt("vm.heap.slab_page_bits", IntSlab.DEFAULT_PAGE_BITS));
+    blockAddrs = new int[1024];
+    blockSizes = new int[1024];
+    for (int i=0; i<blockSizes.length; i++){
+      blockSizes[i] = -1;
+    }
+  }
+
+  public IntSlab getSlab(){
+    return slab;
+  }
+
+  protected int getBlockAddr (int objref, int size){
+    if (objref >= blockAddrs.length){
+      int newLength = Math.max(blockAddrs.length * 2, objref + 1);
+      int[] newAddrs = new int[newLength];
+      int[] newSizes = new int[newLength];
+      System.arraycopy(blockAddrs, 0, newAddrs, 0, blockAddrs.length);
+      System.arraycopy(blockSizes, 0, newSizes, 0, blockSizes.length);
+      for (int i=blockSizes.length; i<newLength; i++){
+        newSizes[i] = -1;
+      }
+      blockAddrs = newAddrs;
+      blockSizes = newSizes;
+    }
+
+    int addr;
+    if (blockSizes[objref] >= size){ // re-use, might contain values from another path
+      addr = blockAddrs[objref];
+      slab.clear(addr, size);
+
+    } else { // SGOID collision if we had a smaller one, blocks of old ElementInfos stay valid
+      addr = slab.allocate(size);
+      blockAddrs[objref] = addr;
+      blockSizes[objref] = size;
+    }
+
+    return addr;
+  }
+
+  @Override
+  protected Fields createInstanceFields (ClassInfo ci, int objref){
+    int size = ci.getInstanceDataSize();
+
+    if (size <= slab.getPageSize()){
+      return new SlabFields( slab, getBlockAddr(objref, size), size);
+    } else {
+      return ci.createInstanceFields();
+    }
+  }
+
+  @Override
+  public Memento<Heap> getMemento(){
+    return new SlabMemento(this);
+  }
+}
@@ -63,6 +63,13 @@ public abstract class StackFrame implements Cloneable {
    */
   public static final int   ATTR_IS_FROZEN  = 0x100;  
   static final int ATTR_IS_REFLECTION = 0x1000;  
+
+  /**
+   * slots, isRef and attrs are shared with a clone and have to be copied before
+   * they are modified. This is what makes cloning frozen frames cheap, since
+   * most frames only get a new pc before they are frozen again
+   */
+  static final int ATTR_SHARED_SLOTS = 0x10000;
    /**
     * the previous StackFrame (usually the caller, null if first). To be set when
     * the frame is pushed on the ThreadInfo callstack
@@ -103,6 +110,8 @@ public abstract class StackFrame implements Cloneable {
   protected Instruction pc;         // the next insn to execute (program counter)
   protected MethodInfo mi;          // which method is executed in this frame
 
+  protected long serializedHash;    // cached serialization hash, only valid while frozen
+
   static final int[] EMPTY_ARRAY = new int[0];
   static final FixedBitSet EMPTY_BITSET = new BitSet64();
 
@@ -366,6 +375,7 @@ public abstract class StackFrame implements Cloneable {
 
 
   public void setOperand (int offset, int v, boolean isRefValue){
+    copySharedSlots();
     int i = top-offset;
     slots[i] = v;
     isRef.set(i, isRefValue);
@@ -482,6 +492,7 @@ public abstract class StackFrame implements Cloneable {
    *  - you constructed callerSlots multi value list with ObjectList.createList()
    */
   public void setOperandAttr (Object a){
+    copySharedSlots();
     assert (top >= stackBase);
     if (attrs == null) {
       if (a == null) return;
@@ -523,6 +534,7 @@ public abstract class StackFrame implements Cloneable {
   
 
   public void addOperandAttr (Object a){
+    copySharedSlots();
     assert (top >= stackBase);
     if (a != null){
       if (attrs == null) {
@@ -534,6 +546,7 @@ public abstract class StackFrame implements Cloneable {
   }
   
   public void removeOperandAttr (Object a){
+    copySharedSlots();
     assert (top >= stackBase) && (a != null);
     if (attrs != null){
       attrs[top] = ObjectList.remove(attrs[top], a);
@@ -541,6 +554,7 @@ public abstract class StackFrame implements Cloneable {
   }
   
   public void replaceOperandAttr (Object oldAttr, Object newAttr){
+    copySharedSlots();
     assert (top >= stackBase) && (oldAttr != null) && (newAttr != null);
     if (attrs != null){
       attrs[top] = ObjectList.replace(attrs[top], oldAttr, newAttr);
@@ -588,6 +602,7 @@ public abstract class StackFrame implements Cloneable {
    *  - you constructed callerSlots multi value list with ObjectList.createList()
    */  
   public void setOperandAttr (int offset, Object a){
+    copySharedSlots();
     int i = top-offset;
     assert (i >= stackBase);
 
@@ -633,6 +648,7 @@ public abstract class StackFrame implements Cloneable {
 
 
   public void addOperandAttr (int offset, Object a){
+    copySharedSlots();
     int i = top-offset;
     assert (i >= stackBase);
 
@@ -645,6 +661,7 @@ public abstract class StackFrame implements Cloneable {
   }
 
   public void removeOperandAttr (int offset, Object a){
+    copySharedSlots();
     int i = top-offset;
     assert (i >= stackBase) && (a != null);
     if (attrs != null){
@@ -653,6 +670,7 @@ public abstract class StackFrame implements Cloneable {
   }
   
   public void replaceOperandAttr (int offset, Object oldAttr, Object newAttr){
+    copySharedSlots();
     int i = top-offset;
     assert (i >= stackBase) && (oldAttr != null) && (newAttr != null);
     if (attrs != null){
@@ -761,6 +779,7 @@ public abstract class StackFrame implements Cloneable {
    *  - you constructed callerSlots multi value list with ObjectList.createList()
    */  
   public void setLocalAttr (int index, Object a) {
+    copySharedSlots();
     assert index < stackBase;
     if (attrs == null){
       if (a == null) return;
@@ -808,6 +827,7 @@ public abstract class StackFrame implements Cloneable {
   
 
   public void addLocalAttr (int index, Object attr){
+    copySharedSlots();
     assert index < stackBase;
     if (attrs == null){
       if (attr == null) return;
@@ -817,6 +837,7 @@ public abstract class StackFrame implements Cloneable {
   }
   
   public void removeLocalAttr (int index, Object attr){
+    copySharedSlots();
     assert index < stackBase && attr != null;
     if (attr != null){
       attrs[index] = ObjectList.remove(attrs[index], attr);    
@@ -824,6 +845,7 @@ public abstract class StackFrame implements Cloneable {
   }
 
   public void replaceLocalAttr (int index, Object oldAttr, Object newAttr){
+    copySharedSlots();
     assert index < stackBase && oldAttr != null && newAttr != null;
     if (attrs != null){
       attrs[index] = ObjectList.replace(attrs[index], oldAttr, newAttr);    
@@ -1031,6 +1053,7 @@ public abstract class StackFrame implements Cloneable {
   // -- end attrs --
   
   public void setLocalReferenceVariable (int index, int ref){
+    copySharedSlots();
     if (slots[index] != MJIEnv.NULL){
       VM.getVM().getSystemState().activateGC();
     }
@@ -1040,6 +1063,7 @@ public abstract class StackFrame implements Cloneable {
   }
 
   public void setLocalVariable (int index, int v){
+    copySharedSlots();
     // Hmm, should we treat this an error?
     if (isRef.get(index) && slots[index] != MJIEnv.NULL){
       VM.getVM().getSystemState().activateGC();      
@@ -1060,6 +1084,7 @@ public abstract class StackFrame implements Cloneable {
   
   // <2do> replace with non-ref version
   public void setLocalVariable (int index, int v, boolean ref) {
+    copySharedSlots();
     // <2do> activateGc should be replaced by local refChanged
     boolean activateGc = ref || (isRef.get(index) && (slots[index] != MJIEnv.NULL));
 
@@ -1155,12 +1180,14 @@ public abstract class StackFrame implements Cloneable {
     return null;
   }  
   public void setSlotAttr (int i, Object a){
+    copySharedSlots();
     if (attrs == null){
       attrs = new Object[slots.length];
     }
     attrs[i] = a;
   }
   public void addSlotAttr (int i, Object a){
+    copySharedSlots();
     if (a != null){
       if (attrs == null) {
         attrs = new Object[slots.length];
@@ -1170,6 +1197,7 @@ public abstract class StackFrame implements Cloneable {
     }        
   }  
   public void replaceSlotAttr (int i, Object oldAttr, Object newAttr){
+    copySharedSlots();
     if (attrs != null){
       attrs[i] = ObjectList.replace(attrs[i], oldAttr, newAttr);
     }        
@@ -1184,6 +1212,7 @@ public abstract class StackFrame implements Cloneable {
   }
 
   public void setLongLocalVariable (int index, long v) {
+    copySharedSlots();
     // WATCH OUT: apparently, slots can change type, so we have to
     // reset the reference flag (happened in JavaSeq)
 
@@ -1309,6 +1338,7 @@ public abstract class StackFrame implements Cloneable {
   // stack operations
   public void clearOperandStack () {
     if (attrs != null){
+      copySharedSlots();
       for (int i=stackBase; i<= top; i++){
         attrs[i] = null;
       }
@@ -1317,20 +1347,17 @@ public abstract class StackFrame implements Cloneable {
     top = stackBase-1;
   }
   
-  // this is callerSlots deep copy
+  // this is a copy-on-write clone - slots, isRef and attrs are shared until
+  // either frame modifies them (see copySharedSlots())
   @Override
   public StackFrame clone () {
     try {
       StackFrame sf = (StackFrame) super.clone();
 
       sf.defreeze();
-      
-      sf.slots = slots.clone();
-      sf.isRef = isRef.clone();
 
-      if (attrs != null){
-        sf.attrs = attrs.clone();
-      }
+      attributes |= ATTR_SHARED_SLOTS;
+      sf.attributes |= ATTR_SHARED_SLOTS;
 
       // frameAttr is not cloned to allow search global use 
 
@@ -1341,6 +1368,22 @@ public abstract class StackFrame implements Cloneable {
   }
   
   //--- change management
+
+  /**
+   * has to be called before modifying slots, isRef or attrs
+   */
+  protected void copySharedSlots() {
+    if ((attributes & ATTR_SHARED_SLOTS) != 0) {
+      slots = slots.clone();
+      isRef = isRef.clone();
+
+      if (attrs != null){
+        attrs = attrs.clone();
+      }
+
+      attributes &= ~ATTR_SHARED_SLOTS;
+    }
+  }
   
   protected void checkIsModifiable() {
     if ((attributes & ATTR_IS_FROZEN) != 0) {
@@ -1354,11 +1397,26 @@ public abstract class StackFrame implements Cloneable {
 
   public void defreeze() {
     attributes &= ~ATTR_IS_FROZEN;
+    serializedHash = 0;
   }
   
   public boolean isFrozen() {
     return ((attributes & ATTR_IS_FROZEN) != 0);    
   }
+
+  //--- serializer support
+
+  public void setSerializedHash (long h){
+    serializedHash = h;
+  }
+
+  /**
+   * answers 0 if there is no valid cached hash, which is the case for all
+   * frames that are not frozen
+   */
+  public long getSerializedHash (){
+    return serializedHash;
+  }
   
   
   public void setReflection(){
@@ -1373,6 +1431,7 @@ public abstract class StackFrame implements Cloneable {
   // on the stack), so skip the GC requests associated with push()/pop()
 
   public void dup () {
+    copySharedSlots();
     // .. A     =>
     // .. A A
     //    ^
@@ -1391,6 +1450,7 @@ public abstract class StackFrame implements Cloneable {
   }
 
   public void dup2 () {
+    copySharedSlots();
     // .. A B        =>
     // .. A B A B
     //      ^
@@ -1418,6 +1478,7 @@ public abstract class StackFrame implements Cloneable {
   }
 
   public void dup2_x1 () {
+    copySharedSlots();
     // .. A B C       =>
     // .. B C A B C
     //        ^
@@ -1474,6 +1535,7 @@ public abstract class StackFrame implements Cloneable {
   }
 
   public void dup2_x2 () {
+    copySharedSlots();
     // .. A B C D       =>
     // .. C D A B C D
     //          ^
@@ -1538,6 +1600,7 @@ public abstract class StackFrame implements Cloneable {
   }
 
   public void dup_x1 () {
+    copySharedSlots();
     // .. A B     =>
     // .. B A B
     //      ^
@@ -1577,6 +1640,7 @@ public abstract class StackFrame implements Cloneable {
   }
 
   public void dup_x2 () {
+    copySharedSlots();
     // .. A B C     =>
     // .. C A B C
     //        ^
@@ -1833,6 +1897,7 @@ public abstract class StackFrame implements Cloneable {
   }
 
   public void swap () {
+    copySharedSlots();
     int t = top-1;
 
     int v = slots[top];
@@ -1983,6 +2048,7 @@ public abstract class StackFrame implements Cloneable {
     int hi = slots[i--];
 
     if (attrs != null){
+      copySharedSlots();
       i = top;
       attrs[i--] = null; // not really required
       attrs[i--] = null; // that's where the attribute should be
@@ -1999,6 +2065,7 @@ public abstract class StackFrame implements Cloneable {
     int hi = slots[i--];
 
     if (attrs != null){
+      copySharedSlots();
       i = top;
       attrs[i--] = null; // not really required
       attrs[i--] = null; // that's where the attribute should be
@@ -2038,6 +2105,7 @@ public abstract class StackFrame implements Cloneable {
     }
 
     if (attrs != null){  // just to avoid memory leaks
+      copySharedSlots();
       for (int i=top; i>t; i--){
         attrs[i] = null;
       }
@@ -2050,6 +2118,7 @@ public abstract class StackFrame implements Cloneable {
     int v = slots[top];
 
     if (attrs != null){ // just to avoid memory leaks
+      copySharedSlots();
       attrs[top] = null;
     }
 
@@ -2071,6 +2140,7 @@ public abstract class StackFrame implements Cloneable {
     }
 
     if (attrs != null){ // just to avoid memory leaks
+      copySharedSlots();
       attrs[top] = null;
     }
 
@@ -2084,6 +2154,7 @@ public abstract class StackFrame implements Cloneable {
   }
   
   public void pushLocal (int index) {
+    copySharedSlots();
     top++;
     slots[top] = slots[index];
     isRef.set(top, isRef.get(index));
@@ -2094,6 +2165,7 @@ public abstract class StackFrame implements Cloneable {
   }
 
   public void pushLongLocal (int index){
+    copySharedSlots();
     int t = top;
 
     slots[++t] = slots[index];
@@ -2110,6 +2182,7 @@ public abstract class StackFrame implements Cloneable {
   }
 
   public void storeOperand (int index){
+    copySharedSlots();
     slots[index] = slots[top];
     isRef.set( index, isRef.get(top));
 
@@ -2122,6 +2195,7 @@ public abstract class StackFrame implements Cloneable {
   }
 
   public void storeLongOperand (int index){
+    copySharedSlots();
     int t = top-1;
     int i = index;
 
@@ -2143,6 +2217,7 @@ public abstract class StackFrame implements Cloneable {
   }
 
   public void push (int v){
+    copySharedSlots();
     top++;
     slots[top] = v;
     isRef.clear(top);
@@ -2153,6 +2228,7 @@ public abstract class StackFrame implements Cloneable {
   }
 
   public void pushRef (int ref){
+    copySharedSlots();
     top++;
     slots[top] = ref;
     isRef.set(top);
@@ -2167,6 +2243,7 @@ public abstract class StackFrame implements Cloneable {
   }
 
   public void push (int v, boolean ref) {
+    copySharedSlots();
     top++;
     slots[top] = v;
     isRef.set(top, ref);
@@ -202,6 +202,9 @@ public class SystemState {
   /** set to true if garbage collection is necessary */
   boolean GCNeeded = false;
 
+  /** set to true if garbage collection also has to collect old objects (explicit System.gc()) */
+  boolean fullGCNeeded = false;
+
   // this is an optimization - long transitions can cause a lot of short-living
   // garbage, which in turn can slow down the system considerably (heap size)
   // by setting 'nAllocGCThreshold', we can do sync. on-the-fly gc when the
@@ -633,6 +636,11 @@ public class SystemState {
     GCNeeded = true;
   }
 
+  public void activateFullGC () {
+    GCNeeded = true;
+    fullGCNeeded = true;
+  }
+
   public boolean hasRestorer (Object key){
     if (restorers != null){
       return restorers.containsKey(key);
@@ -672,8 +680,9 @@ public class SystemState {
   public boolean gcIfNeeded () {
     boolean needed = false;
     if (GCNeeded) {
-      ks.gc();
+      ks.gc(fullGCNeeded);
       GCNeeded = false;
+      fullGCNeeded = false;
       needed = true;
     }
 
@@ -319,6 +319,9 @@ public class ThreadInfo extends InfoObject
    */
   static int maxTransitionLength;
 
+  // execute runs of FusableInstructions without per-instruction bookkeeping if nobody observes them
+  static boolean useFusedBlocks;
+
   /**
    * reset ThreadInfo statics (e.g. to reinitialize JPF) 
    */
@@ -336,6 +339,7 @@ public class ThreadInfo extends InfoObject
     passUncaughtHandler = config.getBoolean( "vm.pass_uncaught_handler", true);
 
     maxTransitionLength = config.getInt("vm.max_transition_length", 5000);
+    useFusedBlocks = config.getBoolean("vm.fused_blocks", true);
 
     return true;
   }
@@ -1858,7 +1862,12 @@ public class ThreadInfo extends InfoObject
       // the transition was explicitly marked as ignored, or we have reached a
       // max insn count and preempt the thread upon the next available backjump
       while (pc != null) {
-        nextPc = executeInstruction();
+        int nFusable = useFusedBlocks ? pc.getMethodInfo().getFusedBlockLength(pc) : 0;
+        if (nFusable > 0 && canFuseInstructions(ss)) {
+          nextPc = executeFusedBlock(ss, pc, nFusable);
+        } else {
+          nextPc = executeInstruction();
+        }
 
         if (ss.breakTransition()) {
           if (ss.extendTransition()){
@@ -1881,6 +1890,64 @@ public class ThreadInfo extends InfoObject
   }
 
 
+  /**
+   * can we currently execute instructions without listener notification,
+   * step recording and logging
+   */
+  protected boolean canFuseInstructions (SystemState ss) {
+    return !vm.hasInstructionListeners() && !ss.recordSteps && (pendingSUTExceptionRequest == null)
+            && !log.isLoggable(Level.FINER);
+  }
+
+  /**
+   * execute a run of up to n FusableInstructions starting with pc. This has the
+   * same effect as executeInstruction() calls if nobody observes instructions,
+   * but skips listener notification and logging.
+   * Since FusableInstruction is inherited by extension instructions (which might
+   * e.g. register CGs or branch), we stop the block after any instruction that
+   * broke the transition or did not continue with its successor, so that our
+   * caller can handle it like a normal instruction.
+   * Answers the next instruction to execute
+   */
+  protected Instruction executeFusedBlock (SystemState ss, Instruction pc, int n) {
+    for (int i = 0; i < n; i++) {
+      resetTransientAttributes();
+
+      try {
+        nextPc = pc.execute(this);
+      } catch (ClassInfoException cie) {
+        nextPc = this.createAndThrowException(cie.getExceptionClass(), cie.getMessage());
+      }
+
+      executedInstructions++;
+      vm.executedInstructions++;
+
+      if ((attributes & ATTR_SKIP_INSN_LOG) == 0) {
+        ss.recordExecutionStep(pc); // only counts since we don't fuse while recording steps
+      }
+
+      pc.cleanupTransients();
+
+      if (pendingSUTExceptionRequest != null) {
+        processPendingSUTExceptionRequest();
+      }
+
+      if (top == null) {
+        break;
+      }
+      setPC(nextPc);
+
+      if (ss.breakTransition() || nextPc != pc.getNext()) {
+        break;
+      }
+      pc = nextPc;
+    }
+
+    vm.getSearch().checkAndResetProbeRequest();
+
+    return (top != null) ? nextPc : null;
+  }
+
   protected void resetTransientAttributes(){
     attributes &= ~(ATTR_SKIP_INSN_EXEC | ATTR_SKIP_INSN_LOG | ATTR_ENABLE_EMPTY_TRANSITION);
   }
@@ -1915,6 +1982,7 @@ public class ThreadInfo extends InfoObject
 
     // we also count the skipped ones
     executedInstructions++;
+    vm.executedInstructions++;
     
     if ((attributes & ATTR_SKIP_INSN_LOG) == 0) {
       ss.recordExecutionStep(pc);
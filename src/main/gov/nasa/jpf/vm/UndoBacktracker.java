@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.nasa.jpf.vm;
+
+import gov.nasa.jpf.JPFException;
+
+/**
+ * a DefaultBacktracker for use with UndoHeap, which replaces the heap part of the
+ * KernelState mementos (the dominant part for non-trivial heaps) with undo log
+ * positions. We still push mementos for threads, statics and class loaders,
+ * which use copy-on-write/memento caching and are typically small.
+ *
+ * Restorable states can only be restored if they are on the current path, i.e.
+ * this is meant for depth first searches
+ */
+public class UndoBacktracker<KState> extends DefaultBacktracker<KState> {
+
+  @Override
+  public void attach(VM vm) {
+    super.attach(vm);
+
+    if (!(vm.getHeap() instanceof UndoHeap)) {
+      throw new JPFException("UndoBacktracker requires vm.heap.class=gov.nasa.jpf.vm.UndoHeap");
+    }
+  }
+}
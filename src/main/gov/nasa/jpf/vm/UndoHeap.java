@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.nasa.jpf.vm;
+
+import gov.nasa.jpf.Config;
+import gov.nasa.jpf.JPFException;
+
+/**
+ * an OVHeap that does not snapshot its ElementInfo vector, but logs the previous
+ * value of each heap slot that gets replaced by a copy-on-write clone, a new
+ * allocation or a release. Mementos just store the log position, and restoring
+ * them rolls back the log in reverse order. Since the old values are frozen
+ * ElementInfos, undoing a slot change restores all field values of the object.
+ *
+ * Per-state memory is therefore proportional to the number of objects changed
+ * in the transition, instead of the heap size. The downside is that we can only
+ * restore states that are on the current path (i.e. backtrack), which is all
+ * a depth first search needs. Searches that restore other states (e.g. a
+ * HeuristicSearch) check Heap.supportsNonPathRestore() when they are created,
+ * remaining attempts to restore such states cause a JPFException. Use together
+ * with UndoBacktracker.
+ *
+ * Log records are 'generation << 32 | ref' values, the generation is
+ * incremented on each roll back so that we can detect stale mementos
+ */
+public class UndoHeap extends OVHeap {
+
+  static class UndoMemento extends GenericSGOIDHeapMemento {
+    final int pos;
+    final long lastRecord;
+
+    UndoMemento (UndoHeap heap) {
+      super(heap);
+
+      heap.freezeLogged();
+      pos = heap.top;
+      lastRecord = (pos > 0) ? heap.records[pos-1] : 0;
+    }
+
+    @Override
+    public Heap restore (Heap inSitu) {
+      super.restore( inSitu);
+
+      UndoHeap heap = (UndoHeap)inSitu;
+      heap.undoTo(pos, lastRecord);
+      heap.elementInfos.process(ElementInfo.restorer);
+
+      return heap;
+    }
+  }
+
+  //--- the undo log
+  protected long[] records;
+  protected ElementInfo[] oldValues;
+  protected int top;       // next free log position
+  protected int frozenPos; // log position up to which new values are frozen
+  protected int generation;
+
+  public UndoHeap (Config config, KernelState ks){
+    super(config, ks);
+
+    records = new long[1024];
+    oldValues = new ElementInfo[1024];
+  }
+
+  protected void log (int ref, ElementInfo oldValue){
+    if (top == records.length) {
+      int newLength = records.length * 2;
+
+      long[] newRecords = new long[newLength];
+      System.arraycopy(records, 0, newRecords, 0, top);
+      records = newRecords;
+
+      ElementInfo[] newOldValues = new ElementInfo[newLength];
+      System.arraycopy(oldValues, 0, newOldValues, 0, top);
+      oldValues = newOldValues;
+    }
+
+    records[top] = ((long)generation << 32) | (ref & 0xffffffffL);
+    oldValues[top] = oldValue;
+    top++;
+  }
+
+  /**
+   * freeze all objects that were set since the last memento. Unchanged
+   * objects are already frozen
+   */
+  protected void freezeLogged (){
+    for (int i = frozenPos; i < top; i++) {
+      ElementInfo ei = elementInfos.get((int)records[i]);
+      if (ei != null) {
+        ei.freeze();
+      }
+    }
+    frozenPos = top;
+  }
+
+  protected void undoTo (int pos, long lastRecord){
+    if (pos > top || (pos > 0 && records[pos-1] != lastRecord)) {
+      throw new JPFException("UndoHeap can only restore states on the current path");
+    }
+
+    for (int i = top-1; i >= pos; i--) {
+      int ref = (int)records[i];
+      ElementInfo ei = oldValues[i];
+      if (ei == null) {
+        elementInfos.remove(ref);
+      } else {
+        elementInfos.set(ref, ei);
+      }
+      oldValues[i] = null;
+    }
+
+    top = pos;
+    frozenPos = pos;
+    generation++;
+  }
+
+  public int getLogSize() {
+    return top;
+  }
+
+  //--- the container interface
+
+  @Override
+  protected void set (int index, ElementInfo ei) {
+    log(index, elementInfos.get(index));
+    elementInfos.set(index, ei);
+  }
+
+  @Override
+  public ElementInfo getModifiable (int ref) {
+    if (ref <= 0) {
+      return null;
+    } else {
+      ElementInfo ei = elementInfos.get(ref);
+
+      if (ei != null && ei.isFrozen()) {
+        log(ref, ei);
+        ei = ei.deepClone();
+        elementInfos.set(ref, ei);
+        markChanged(ref);
+      }
+
+      return ei;
+    }
+  }
+
+  @Override
+  protected void remove(int ref) {
+    ElementInfo ei = elementInfos.remove(ref);
+    if (ei != null) {
+      log(ref, ei);
+    }
+  }
+
+  @Override
+  public Memento<Heap> getMemento(){
+    return new UndoMemento(this);
+  }
+
+  @Override
+  public boolean supportsNonPathRestore() {
+    return false;
+  }
+}
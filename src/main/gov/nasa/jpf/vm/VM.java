@@ -22,6 +22,8 @@ import gov.nasa.jpf.JPF;
 import gov.nasa.jpf.JPFConfigException;
 import gov.nasa.jpf.JPFException;
 import gov.nasa.jpf.JPFListenerException;
+import gov.nasa.jpf.ListenerAdapter;
+import gov.nasa.jpf.PropertyListenerAdapter;
 import gov.nasa.jpf.jvm.ClassFile;
 import gov.nasa.jpf.search.Search;
 import gov.nasa.jpf.util.IntTable;
@@ -32,6 +34,7 @@ import java.io.PrintWriter;
 import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -121,6 +124,20 @@ public abstract class VM {
    creating objects on each notification */
   protected VMListener[] listeners = new VMListener[0];
 
+  /** the subsets of listeners that observe high frequency notifications, which
+   are re-computed when listeners are added or removed. This way, events
+   that are not observed don't cost anything */
+  protected VMListener[] executeInstructionListeners = listeners;
+  protected VMListener[] instructionExecutedListeners = listeners;
+  protected VMListener[] methodEnteredListeners = listeners;
+  protected VMListener[] methodExitedListeners = listeners;
+  protected VMListener[] objectCreatedListeners = listeners;
+  protected VMListener[] objectReleasedListeners = listeners;
+
+  /** number of (non-hidden) instructions executed so far, including the ones of
+   backtracked transitions */
+  protected long executedInstructions;
+
   /** did we get a new transition */
   protected boolean transitionOccurred;
 
@@ -156,6 +173,10 @@ public abstract class VM {
   // we want a (internal) mechanism that is on-demand only, i.e. processed
   // actions are removed from the list
   protected ArrayList<Runnable> postGcActions = new ArrayList<Runnable>();
+
+  // ids of method unique names (name+signature) that are used as keys of the
+  // ClassInfo dispatch caches. Since ClassInfos are per VM, so are the ids
+  protected HashMap<String,Integer> selectorIds = new HashMap<String,Integer>();
   
   /**
    * be prepared this might throw JPFConfigExceptions
@@ -660,6 +681,7 @@ public abstract class VM {
   public void addListener (VMListener newListener) {
     log.info("VMListener added: ", newListener);
     listeners = Misc.appendElement(listeners, newListener);
+    updateListenerDispatch();
   }
 
   public boolean hasListenerOfType (Class<?> listenerCls) {
@@ -672,6 +694,59 @@ public abstract class VM {
   
   public void removeListener (VMListener removeListener) {
     listeners = Misc.removeElement(listeners, removeListener);
+    updateListenerDispatch();
+  }
+
+  /**
+   * does this listener override a notification method, i.e. does not just
+   * inherit the empty implementation of one of our adapter classes
+   */
+  protected static boolean isObserving (VMListener listener, String mthName, Class<?>... argTypes) {
+    try {
+      Class<?> cls = listener.getClass().getMethod(mthName, argTypes).getDeclaringClass();
+      return (cls != ListenerAdapter.class) && (cls != PropertyListenerAdapter.class);
+    } catch (NoSuchMethodException x) {
+      return true; // can't happen for VMListeners, but be conservative
+    }
+  }
+
+  protected VMListener[] getObservingListeners (String mthName, Class<?>... argTypes) {
+    VMListener[] a = new VMListener[listeners.length];
+    int n = 0;
+
+    for (int i = 0; i < listeners.length; i++) {
+      if (isObserving(listeners[i], mthName, argTypes)) {
+        a[n++] = listeners[i];
+      }
+    }
+
+    if (n < a.length) {
+      VMListener[] b = new VMListener[n];
+      System.arraycopy(a, 0, b, 0, n);
+      a = b;
+    }
+    return a;
+  }
+
+  protected void updateListenerDispatch () {
+    executeInstructionListeners = getObservingListeners("executeInstruction", VM.class, ThreadInfo.class, Instruction.class);
+    instructionExecutedListeners = getObservingListeners("instructionExecuted", VM.class, ThreadInfo.class, Instruction.class, Instruction.class);
+    methodEnteredListeners = getObservingListeners("methodEntered", VM.class, ThreadInfo.class, MethodInfo.class);
+    methodExitedListeners = getObservingListeners("methodExited", VM.class, ThreadInfo.class, MethodInfo.class);
+    objectCreatedListeners = getObservingListeners("objectCreated", VM.class, ThreadInfo.class, ElementInfo.class);
+    objectReleasedListeners = getObservingListeners("objectReleased", VM.class, ThreadInfo.class, ElementInfo.class);
+  }
+
+  /**
+   * do we have listeners that observe individual instructions, i.e. have
+   * to be notified about each executed instruction
+   */
+  public boolean hasInstructionListeners() {
+    return (executeInstructionListeners.length > 0) || (instructionExecutedListeners.length > 0);
+  }
+
+  public long getExecutedInstructions() {
+    return executedInstructions;
   }
 
   public void setTraceReplay (boolean isReplay) {
@@ -788,8 +863,8 @@ public abstract class VM {
 
   protected void notifyExecuteInstruction (ThreadInfo ti, Instruction insn) {
     try {
-      for (int i = 0; i < listeners.length; i++) {
-        listeners[i].executeInstruction(this, ti, insn);
+      for (int i = 0; i < executeInstructionListeners.length; i++) {
+        executeInstructionListeners[i].executeInstruction(this, ti, insn);
       }
     } catch (UncaughtException x) {
       throw x;
@@ -803,8 +878,8 @@ public abstract class VM {
   protected void notifyInstructionExecuted (ThreadInfo ti, Instruction insn, Instruction nextInsn) {
     try {
       //listener.instructionExecuted(this);
-      for (int i = 0; i < listeners.length; i++) {
-        listeners[i].instructionExecuted(this, ti, nextInsn, insn);
+      for (int i = 0; i < instructionExecutedListeners.length; i++) {
+        instructionExecutedListeners[i].instructionExecuted(this, ti, nextInsn, insn);
       }
     } catch (UncaughtException x) {
       throw x;
@@ -945,8 +1020,8 @@ public abstract class VM {
 
   protected void notifyObjectCreated(ThreadInfo ti, ElementInfo ei) {
     try {
-      for (int i = 0; i < listeners.length; i++) {
-        listeners[i].objectCreated(this, ti, ei);
+      for (int i = 0; i < objectCreatedListeners.length; i++) {
+        objectCreatedListeners[i].objectCreated(this, ti, ei);
       }
     } catch (UncaughtException x) {
       throw x;
@@ -959,8 +1034,8 @@ public abstract class VM {
 
   protected void notifyObjectReleased(ThreadInfo ti, ElementInfo ei) {
     try {
-      for (int i = 0; i < listeners.length; i++) {
-        listeners[i].objectReleased(this, ti, ei);
+      for (int i = 0; i < objectReleasedListeners.length; i++) {
+        objectReleasedListeners[i].objectReleased(this, ti, ei);
       }
     } catch (UncaughtException x) {
       throw x;
@@ -1141,8 +1216,8 @@ public abstract class VM {
 
   protected void notifyMethodEntered(ThreadInfo ti, MethodInfo mi) {
     try {
-      for (int i = 0; i < listeners.length; i++) {
-        listeners[i].methodEntered(this, ti, mi);
+      for (int i = 0; i < methodEnteredListeners.length; i++) {
+        methodEnteredListeners[i].methodEntered(this, ti, mi);
       }
     } catch (UncaughtException x) {
       throw x;
@@ -1155,8 +1230,8 @@ public abstract class VM {
 
   protected void notifyMethodExited(ThreadInfo ti, MethodInfo mi) {
     try {
-      for (int i = 0; i < listeners.length; i++) {
-        listeners[i].methodExited(this, ti, mi);
+      for (int i = 0; i < methodExitedListeners.length; i++) {
+        methodExitedListeners[i].methodExited(this, ti, mi);
       }
     } catch (UncaughtException x) {
       throw x;
@@ -1334,6 +1409,19 @@ public abstract class VM {
   public FunctionObjectFactory getFunctionObjectFacotry() {
     return funcObjFactory;
   }
+
+  /**
+   * answer the selector id of a method unique name, which is the key for
+   * virtual method lookups (see ClassInfo.getVirtualMethod())
+   */
+  public int getSelectorId (String uniqueName) {
+    Integer id = selectorIds.get(uniqueName);
+    if (id == null) {
+      id = selectorIds.size();
+      selectorIds.put(uniqueName, id);
+    }
+    return id;
+  }
   
   /**
    * return the last registered SystemState's ChoiceGenerator object
@@ -0,0 +1,32 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.nasa.jpf.vm.bytecode;
+
+/**
+ * tag for instructions that only modify operands and locals of the top frame,
+ * cannot throw exceptions and always continue with the next instruction
+ * (loads, stores, constants, arithmetic and stack ops).
+ *
+ * Runs of such instructions can be executed as fused blocks without any
+ * per-instruction bookkeeping (see MethodInfo.getFusedBlockLength()). Subclasses
+ * that add any other side effect must not be tagged, i.e. should not be
+ * derived from tagged instruction classes
+ */
+public interface FusableInstruction {
+  // just a type tag
+}
@@ -224,10 +224,11 @@ public class FilteringSerializer extends AbstractSerializer implements Reference
     // we would have to blank the filtered slots and then visit the
     // non-filtered reference slots, i.e. do two iterations over
     // the mask bit sets
-    int[] values = fields.asFieldSlots();
-    for (int i = 0; i < values.length; i++) {
+    int[] values = fields.getFieldSlotStorage();
+    int off = fields.getFieldSlotOffset();
+    for (int i = 0, n = fields.getNumberOfFieldSlots(); i < n; i++) {
       if (!filtered.get(i)) {
-        int v = values[i];
+        int v = values[off + i];
         if (refs.get(i)) {
           processReference(v);
         } else {
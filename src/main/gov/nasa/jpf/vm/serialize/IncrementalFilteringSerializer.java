@@ -0,0 +1,333 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.nasa.jpf.vm.serialize;
+
+import gov.nasa.jpf.util.FinalBitSet;
+import gov.nasa.jpf.util.IntVector;
+import gov.nasa.jpf.vm.ArrayFields;
+import gov.nasa.jpf.vm.ElementInfo;
+import gov.nasa.jpf.vm.Fields;
+import gov.nasa.jpf.vm.JenkinsStateSet;
+import gov.nasa.jpf.vm.KernelState;
+import gov.nasa.jpf.vm.MJIEnv;
+import gov.nasa.jpf.vm.StackFrame;
+import gov.nasa.jpf.vm.StateFingerprinter;
+import gov.nasa.jpf.vm.StaticElementInfo;
+import gov.nasa.jpf.vm.ThreadInfo;
+
+/**
+ * a FilteringSerializer that only re-serializes what has changed since the
+ * last state got stored.
+ *
+ * The state vector is a sequence of 64bit segment hashes (one per live object,
+ * class and stack frame, in the same traversal order as FilteringSerializer),
+ * plus the small unsegmented parts such as thread states. Segment hashes are
+ * cached in the ElementInfos and StackFrames themselves, and are only reused
+ * if the cache owner is frozen, i.e. has been state stored and therefore cannot
+ * be modified anymore (changes go into a defrozen clone, which resets the
+ * cache). In a typical transition only a handful of objects and the top
+ * frames change, which means most segments don't have to be re-serialized,
+ * and the StateSet only has to hash the short segment hash vector.
+ *
+ * Since references are serialized as raw objrefs, each segment is independent
+ * of traversal order and can be cached. This would not work for the canonical
+ * reference values of CFSerializer, which depend on when an object is first
+ * encountered.
+ *
+ * As a StateFingerprinter, we can also compute a 64bit fingerprint of the state
+ * without creating a state vector. The fingerprint is the modular sum of the
+ * mixed (segment hash, position) pairs, i.e. the StateSet does not have to hash
+ * anything (see FingerprintStateSet).
+ *
+ * NOTE - this relies on all heap, statics and stack modifications going
+ * through the copy-on-write mechanism of ElementInfo and StackFrame. Since
+ * segment hashes are combined, collision probability per segment is slightly
+ * higher than for a monolithic FilteringSerializer state vector
+ */
+public class IncrementalFilteringSerializer extends FilteringSerializer implements StateFingerprinter {
+
+  // the state vector we compute, 'buf' is only used for the current segment
+  protected IntVector out = new IntVector(4096);
+
+  // scratch array to hash segments
+  protected int[] segment = new int[256];
+
+  // if set, processReference() only queues but does not serialize
+  protected boolean queueOnly;
+
+  // if set, we only compute the fingerprint and don't fill 'out'
+  protected boolean fingerprintOnly;
+  protected long fingerprint;
+  protected int position;
+  protected boolean hasFingerprint;
+
+  protected long nSerialized;
+  protected long nReused;
+
+
+  public long getNumberOfSerializedSegments() {
+    return nSerialized;
+  }
+
+  public long getNumberOfReusedSegments() {
+    return nReused;
+  }
+
+  // the Stafford variant 13 finalizer of MurmurHash3
+  protected static long mix (long h) {
+    h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+    h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+    return h ^ (h >>> 31);
+  }
+
+  protected void addSegment (long h){
+    if (fingerprintOnly) {
+      fingerprint += mix(h + (position++ * 0x9e3779b97f4a7c15L));
+    } else {
+      out.add(h);
+    }
+  }
+
+  protected void addData (int v){
+    if (fingerprintOnly) {
+      fingerprint += mix(v + (position++ * 0x9e3779b97f4a7c15L));
+    } else {
+      out.add(v);
+    }
+  }
+
+  protected void addData (IntVector v){
+    if (fingerprintOnly) {
+      int n = v.size();
+      for (int i = 0; i < n; i++) {
+        addData(v.get(i));
+      }
+    } else {
+      out.append(v);
+    }
+  }
+
+  protected long hashSegment() {
+    int len = buf.size();
+    if (len > segment.length) {
+      segment = new int[len + (len >> 1)];
+    }
+    buf.dumpTo(segment, 0);
+
+    long h = JenkinsStateSet.longLookup3Hash(segment, len);
+    return (h != 0) ? h : 1; // 0 means 'not cached'
+  }
+
+  @Override
+  public void processReference(int objref) {
+    if (objref != MJIEnv.NULL) {
+      ElementInfo ei = heap.get(objref);
+      if (!ei.isMarked()) { // only add objects once
+        ei.setMarked();
+        refQueue.add(ei);
+      }
+    }
+
+    if (!queueOnly) {
+      buf.add(objref);
+    }
+  }
+
+  // we still have to traverse the references of unchanged objects
+  protected void queueReferences (ElementInfo ei){
+    Fields fields = ei.getFields();
+    queueOnly = true;
+
+    if (fields instanceof ArrayFields) {
+      ArrayFields afields = (ArrayFields)fields;
+      if (afields.isReferenceArray()) {
+        int[] values = afields.asReferenceArray();
+        for (int i = 0; i < values.length; i++) {
+          processReference(values[i]);
+        }
+      }
+
+    } else {
+      FinalBitSet refs = getInstanceRefMask(ei.getClassInfo());
+      int[] values = fields.getFieldSlotStorage();
+      int off = fields.getFieldSlotOffset();
+      for (int i = 0, n = fields.getNumberOfFieldSlots(); i < n; i++) {
+        if (refs.get(i)) {
+          processReference(values[off + i]);
+        }
+      }
+    }
+
+    queueOnly = false;
+  }
+
+  protected void queueStaticReferences (StaticElementInfo sei){
+    Fields fields = sei.getFields();
+    FinalBitSet refs = getStaticRefMask(sei.getClassInfo());
+    queueOnly = true;
+
+    int max = sei.getClassInfo().getStaticDataSize();
+    for (int i = 0; i < max; i++) {
+      if (refs.get(i)) {
+        processReference(fields.getIntValue(i));
+      }
+    }
+
+    queueOnly = false;
+  }
+
+  @Override
+  public void process (ElementInfo ei) {
+    long h = ei.getSerializedHash();
+
+    if (h != 0 && ei.isFrozen()) {
+      queueReferences(ei);
+      nReused++;
+
+    } else {
+      buf.clear();
+      super.process(ei);
+      h = hashSegment();
+      if (ei.isFrozen()) {
+        ei.setSerializedHash(h);
+      }
+      nSerialized++;
+    }
+
+    addSegment(h);
+  }
+
+  @Override
+  protected void serializeStackFrames(ThreadInfo ti){
+    // the thread object is a root, but not part of any frame segment
+    queueOnly = true;
+    processReference( ti.getThreadObjectRef());
+    queueOnly = false;
+    addData( ti.getThreadObjectRef());
+
+    for (StackFrame frame = ti.getTopFrame(); frame != null; frame = frame.getPrevious()){
+      serializeFrame(frame);
+    }
+  }
+
+  @Override
+  protected void serializeFrame(StackFrame frame){
+    long h = frame.getSerializedHash();
+
+    if (h != 0 && frame.isFrozen()) {
+      queueOnly = true;
+      frame.visitReferenceSlots(this);
+      queueOnly = false;
+      nReused++;
+
+    } else {
+      buf.clear();
+      super.serializeFrame(frame);
+      h = hashSegment();
+      if (frame.isFrozen()) {
+        frame.setSerializedHash(h);
+      }
+      nSerialized++;
+    }
+
+    addSegment(h);
+  }
+
+  @Override
+  protected void serializeClassLoaders(){
+    // the number of class loaders and statics are not cached
+    buf.clear();
+    super.serializeClassLoaders();
+  }
+
+  @Override
+  protected void serializeClass (StaticElementInfo sei){
+    // statics are processed as part of serializeClassLoaders, i.e. we have to
+    // preserve what is in 'buf' so far
+    addData(buf);
+
+    long h = sei.getSerializedHash();
+
+    if (h != 0 && sei.isFrozen()) {
+      queueStaticReferences(sei);
+      nReused++;
+
+    } else {
+      buf.clear();
+      super.serializeClass(sei);
+      h = hashSegment();
+      if (sei.isFrozen()) {
+        sei.setSerializedHash(h);
+      }
+      nSerialized++;
+    }
+
+    addSegment(h);
+    buf.clear();
+  }
+
+  protected void serializeState() {
+    buf.clear();
+    heap = ks.getHeap();
+    initReferenceQueue();
+
+    //--- the cached segments, in FilteringSerializer order
+    serializeStackFrames();
+    serializeClassLoaders();
+    addData(buf);
+    processReferenceQueue();
+
+    //--- the non-cached rest
+    buf.clear();
+    serializeThreadStates();
+    serializeNativeStateHolders();
+    addData(buf);
+  }
+
+  //--- our main purpose in life
+
+  @Override
+  protected int[] computeStoringData() {
+    out.clear();
+    serializeState();
+
+    return out.toArray();
+  }
+
+  @Override
+  public long getFingerprint() {
+    if (!hasFingerprint) {
+      fingerprint = 0;
+      position = 0;
+
+      fingerprintOnly = true;
+      serializeState();
+      fingerprintOnly = false;
+
+      hasFingerprint = true;
+      ks.pushChangeListener(this);
+    }
+    return fingerprint;
+  }
+
+  @Override
+  public void kernelStateChanged (KernelState same) {
+    super.kernelStateChanged(same);
+    hasFingerprint = false;
+  }
+}
@@ -21,9 +21,11 @@ import gov.nasa.jpf.JPFException;
 import gov.nasa.jpf.annotation.MJI;
 import gov.nasa.jpf.vm.ClassInfo;
 import gov.nasa.jpf.vm.ElementInfo;
+import gov.nasa.jpf.vm.Fields;
 import gov.nasa.jpf.vm.Heap;
 import gov.nasa.jpf.vm.MJIEnv;
 import gov.nasa.jpf.vm.NativePeer;
+import gov.nasa.jpf.vm.SlabFields;
 import gov.nasa.jpf.vm.ThreadInfo;
 import gov.nasa.jpf.vm.Types;
 
@@ -70,8 +72,14 @@ public class JPF_java_lang_Object extends NativePeer {
         eiClone = heap.newObject(ci, env.getThreadInfo());
       }
       
-      // Ok, this is nasty but efficient
-      eiClone.fields = ei.getFields().clone();
+      Fields fields = ei.getFields();
+      if (fields instanceof SlabFields) {
+        // clones would share the slab block, we need our own values
+        ((SlabFields)eiClone.fields).copyFrom(fields);
+      } else {
+        // Ok, this is nasty but efficient
+        eiClone.fields = fields.clone();
+      }
 
       return eiClone.getObjectRef();
     }
@@ -26,6 +26,10 @@ import gov.nasa.jpf.vm.MJIEnv;
 import gov.nasa.jpf.vm.NativePeer;
 
 import java.io.UnsupportedEncodingException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
 import java.util.Locale;
 
 /**
@@ -33,6 +37,100 @@ import java.util.Locale;
  */
 public class JPF_java_lang_String extends NativePeer {
 
+  //--- zero copy access to String values
+
+  /**
+   * get the value of a String object without creating a host String, which is only
+   * possible if all bytes are ASCII (i.e. each byte is a char). Otherwise we have to
+   * decode the bytes, and callers have to fall back to env.getStringObject().
+   * 
+   * NOTE - the returned array is the backing store of the String value and must not be modified
+   * 
+   * @return the backing byte array, or null if objRef is null or the value has to be decoded
+   */
+  static byte[] getAsciiValue (MJIEnv env, int objRef) {
+    if (objRef == MJIEnv.NULL) {
+      return null;
+    }
+
+    byte[] v = env.getElementInfo(objRef).getStringBytes();
+    return (v == null || isAscii(v)) ? v : null;
+  }
+
+  // to check 8 bytes at a time
+  static final VarHandle LONG_VIEW = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+  static boolean isAscii (byte[] v) {
+    int i = 0;
+    for (int n = v.length - 7; i < n; i += 8) {
+      if (((long)LONG_VIEW.get(v, i) & 0x8080808080808080L) != 0) {
+        return false;
+      }
+    }
+    for (; i < v.length; i++) {
+      if (v[i] < 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  static boolean regionEquals (byte[] a, int aOff, byte[] b, int bOff, int len) {
+    return (len <= 0) || Arrays.equals(a, aOff, aOff + len, b, bOff, bOff + len);
+  }
+
+  static int indexOf (byte[] v, int c, int fromIndex) {
+    if (fromIndex < 0) {
+      fromIndex = 0;
+    }
+    if (c >= 0 && c < 0x80) {
+      for (int i = fromIndex; i < v.length; i++) {
+        if (v[i] == c) {
+          return i;
+        }
+      }
+    }
+    return -1;
+  }
+
+  static int lastIndexOf (byte[] v, int c, int fromIndex) {
+    if (c >= 0 && c < 0x80) {
+      for (int i = Math.min(fromIndex, v.length - 1); i >= 0; i--) {
+        if (v[i] == c) {
+          return i;
+        }
+      }
+    }
+    return -1;
+  }
+
+  static int indexOf (byte[] v, byte[] str, int fromIndex) {
+    int n = str.length;
+    if (fromIndex >= v.length) {
+      return (n == 0) ? v.length : -1;
+    }
+    if (fromIndex < 0) {
+      fromIndex = 0;
+    }
+
+    for (int i = fromIndex; i <= v.length - n; i++) {
+      if (regionEquals(v, i, str, 0, n)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  static int lastIndexOf (byte[] v, byte[] str, int fromIndex) {
+    int n = str.length;
+    for (int i = Math.min(fromIndex, v.length - n); i >= 0; i--) {
+      if (regionEquals(v, i, str, 0, n)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
   
   @MJI
   public int init___3CII__Ljava_lang_String_2 (MJIEnv env, int objRef, int valueRef, int offset, int count) {
@@ -169,6 +267,15 @@ public class JPF_java_lang_String extends NativePeer {
       return false;
     }
     if (env.isInstanceOf(argRef, "java.lang.String")) {
+      byte[] v1 = env.getElementInfo(objRef).getStringBytes();
+      byte[] v2 = env.getElementInfo(argRef).getStringBytes();
+      if (v1 == v2 || (v1 != null && v2 != null && Arrays.equals(v1, v2))) {
+        return true; // same bytes always decode into the same chars
+      }
+      if (getAsciiValue(env, objRef) != null && getAsciiValue(env, argRef) != null) {
+        return false;
+      }
+
       String s1 = env.getStringObject(objRef);
       String s2 = env.getStringObject(argRef);
       return s1.equals(s2);
@@ -187,6 +294,16 @@ public class JPF_java_lang_String extends NativePeer {
 
   @MJI
   public int compareTo__Ljava_lang_String_2__I (MJIEnv env, int objRef, int anotherStringRef) {
+    byte[] v1 = getAsciiValue(env, objRef);
+    byte[] v2 = getAsciiValue(env, anotherStringRef);
+    if (v1 != null && v2 != null) {
+      int i = Arrays.mismatch(v1, v2);
+      if (i >= 0 && i < v1.length && i < v2.length) {
+        return v1[i] - v2[i];
+      }
+      return v1.length - v2.length;
+    }
+
     String obj = env.getStringObject(objRef);
     String anotherString = env.getStringObject(anotherStringRef);
     return obj.compareTo(anotherString);
@@ -218,6 +335,15 @@ public class JPF_java_lang_String extends NativePeer {
 
   @MJI
   public boolean regionMatches__ILjava_lang_String_2II__Z (MJIEnv env, int objRef, int toffset, int otherRef, int ooffset, int len) {
+    byte[] v = getAsciiValue(env, objRef);
+    byte[] vOther = getAsciiValue(env, otherRef);
+    if (v != null && vOther != null) {
+      if ((ooffset < 0) || (toffset < 0) || (toffset > (long)v.length - len) || (ooffset > (long)vOther.length - len)) {
+        return false;
+      }
+      return regionEquals(v, toffset, vOther, ooffset, len);
+    }
+
     String obj = env.getStringObject(objRef);
     String other = env.getStringObject(otherRef);
     return obj.regionMatches(toffset, other, ooffset, len);
@@ -234,6 +360,15 @@ public class JPF_java_lang_String extends NativePeer {
 
   @MJI
   public boolean startsWith__Ljava_lang_String_2I__Z (MJIEnv env, int objRef, int prefixRef, int toffset) {
+    byte[] v = getAsciiValue(env, objRef);
+    byte[] vPrefix = getAsciiValue(env, prefixRef);
+    if (v != null && vPrefix != null) {
+      if ((toffset < 0) || (toffset > v.length - vPrefix.length)) {
+        return false;
+      }
+      return regionEquals(v, toffset, vPrefix, 0, vPrefix.length);
+    }
+
     String thisStr = env.getStringObject(objRef);
     String prefix = env.getStringObject(prefixRef);
     return thisStr.startsWith(prefix, toffset);
@@ -241,34 +376,37 @@ public class JPF_java_lang_String extends NativePeer {
 
   @MJI
   public boolean startsWith__Ljava_lang_String_2__Z (MJIEnv env, int objRef, int prefixRef) {
-    String thisStr = env.getStringObject(objRef);
-    String prefix = env.getStringObject(prefixRef);
-    return thisStr.startsWith(prefix);
+    return startsWith__Ljava_lang_String_2I__Z(env, objRef, prefixRef, 0);
   }
 
   @MJI
   public int hashCode____I (MJIEnv env, int objref) {
-    String str = env.getStringObject(objref);
-    return str.hashCode();
+    return computeStringHashCode(env, objref);
   }
 
+  /**
+   * compute the hash value of a String object the same way java.lang.String does, and
+   * cache it in its 'hash' field so that subsequent calls don't have to look at the value
+   */
   public static int computeStringHashCode(MJIEnv env, int objref) {
     ElementInfo ei = env.getElementInfo(objref);
     int h = ei.getIntField("hash");
 
     if (h == 0) {
-      int vref = env.getReferenceField(objref, "value");
+      byte[] values = getAsciiValue(env, objref);
 
-      // now get the char array data, but be aware they are stored as ints
-      ElementInfo eiVal = env.getElementInfo(vref);
-      byte[] values = eiVal.asByteArray();
-
-      for (int i = 0; i < values.length; i++) {
-        h = 31 * h + values[i];
+      if (values != null) {
+        for (int i = 0; i < values.length; i++) {
+          h = 31 * h + values[i];
+        }
+      } else {
+        h = ei.asString().hashCode();
       }
 
-      ei = ei.getModifiableInstance();
-      ei.setIntField("hash", h);
+      if (h != 0) {
+        ei = ei.getModifiableInstance();
+        ei.setIntField("hash", h);
+      }
     }
 
     return h;
@@ -281,6 +419,11 @@ public class JPF_java_lang_String extends NativePeer {
 
   @MJI
   public int indexOf__II__I (MJIEnv env, int objref, int c, int fromIndex) {
+    byte[] v = getAsciiValue(env, objref);
+    if (v != null) {
+      return indexOf(v, c, fromIndex);
+    }
+
     String str = env.getStringObject(objref);
     return str.indexOf(c, fromIndex);
   }
@@ -292,20 +435,28 @@ public class JPF_java_lang_String extends NativePeer {
 
   @MJI
   public int lastIndexOf__II__I (MJIEnv env, int objref, int c, int fromIndex) {
+    byte[] v = getAsciiValue(env, objref);
+    if (v != null) {
+      return lastIndexOf(v, c, fromIndex);
+    }
+
     String str = env.getStringObject(objref);
     return str.lastIndexOf(c, fromIndex);
   }
 
   @MJI
   public int indexOf__Ljava_lang_String_2__I (MJIEnv env, int objref, int str) {
-    String thisStr = env.getStringObject(objref);
-    String indexStr = env.getStringObject(str);
-
-    return thisStr.indexOf(indexStr);
+    return indexOf__Ljava_lang_String_2I__I(env, objref, str, 0);
   }
 
   @MJI
   public int indexOf__Ljava_lang_String_2I__I (MJIEnv env, int objref, int str, int fromIndex) {
+    byte[] v = getAsciiValue(env, objref);
+    byte[] vStr = getAsciiValue(env, str);
+    if (v != null && vStr != null) {
+      return indexOf(v, vStr, fromIndex);
+    }
+
     String thisStr = env.getStringObject(objref);
     String indexStr = env.getStringObject(str);
 
@@ -314,6 +465,12 @@ public class JPF_java_lang_String extends NativePeer {
 
   @MJI
   public int lastIndexOf__Ljava_lang_String_2I__I (MJIEnv env, int objref, int str, int fromIndex) {
+    byte[] v = getAsciiValue(env, objref);
+    byte[] vStr = getAsciiValue(env, str);
+    if (v != null && vStr != null) {
+      return lastIndexOf(v, vStr, fromIndex);
+    }
+
     String thisStr = env.getStringObject(objref);
     String indexStr = env.getStringObject(str);
 
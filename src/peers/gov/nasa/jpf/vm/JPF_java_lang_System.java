@@ -275,7 +275,7 @@ public class JPF_java_lang_System extends NativePeer {
 
   @MJI
   public void gc____V (MJIEnv env, int clsObjRef) {
-    env.getSystemState().activateGC();
+    env.getSystemState().activateFullGC();
   }
 
   @MJI
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.nasa.jpf;
+
+import gov.nasa.jpf.jvm.ClassFileCache;
+import gov.nasa.jpf.util.test.TestJPF;
+import gov.nasa.jpf.vm.VM;
+import gov.nasa.jpf.vm.Verify;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+/**
+ * unit test for IsolatingClassLoader, i.e. concurrent JPF runs in one host VM
+ */
+public class IsolatingClassLoaderTest extends TestJPF {
+
+  public static class SUT {
+    public static void main (String[] args){
+      int limit = Integer.parseInt(args[0]);
+      int sum = 0;
+
+      for (int i=0; i<4; i++){
+        sum += Verify.getInt(0, 3);
+      }
+
+      if (sum >= limit){
+        throw new AssertionError("sum exceeds limit: " + sum);
+      }
+    }
+  }
+
+  String[] getArgs (int limit) throws Exception {
+    String testClasses = new File(getClass().getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+
+    return new String[] { "+classpath=" + testClasses,
+                          "+log.level=severe",
+                          "+report.console.start=",
+                          "+report.console.finished=",
+                          "+report.console.property_violation=",
+                          SUT.class.getName(), Integer.toString(limit) };
+  }
+
+  @Test
+  public void testClassSpaces () throws Exception {
+    IsolatingClassLoader a = new IsolatingClassLoader(getClass());
+    IsolatingClassLoader b = new IsolatingClassLoader(getClass());
+
+    Class<?> vmA = a.loadClass(VM.class.getName());
+    Class<?> vmB = b.loadClass(VM.class.getName());
+    assertTrue(vmA != vmB);
+    assertTrue(vmA != VM.class);
+    assertSame(a, vmA.getClassLoader());
+
+    assertSame(ClassFileCache.class, a.loadClass(ClassFileCache.class.getName()));
+    assertSame(String.class, a.loadClass(String.class.getName()));
+  }
+
+  @Test
+  public void testConcurrentRuns () throws Exception {
+    int nThreads = 4;
+    ExecutorService pool = Executors.newFixedThreadPool(nThreads);
+
+    try {
+      List<Future<String>> results = new ArrayList<Future<String>>();
+
+      for (int i=0; i<nThreads; i++){
+        final int limit = 12 + (i % 2); // 12 -> violation, 13 -> none
+
+        results.add( pool.submit(() -> {
+          // each thread needs its own class space, but sequential runs can share it
+          IsolatingClassLoader cl = new IsolatingClassLoader(getClass());
+          String res = null;
+
+          for (int j=0; j<3; j++){
+            List<String> errors = cl.runJPF(getArgs(limit));
+            String r = "errors=" + errors.size();
+            if (res != null && !res.equals(r)){
+              return "inconsistent sequential runs: " + res + ", " + r;
+            }
+            res = r;
+          }
+
+          return res;
+        }));
+      }
+
+      for (int i=0; i<nThreads; i++){
+        String expected = (i % 2 == 0) ? "errors=1" : "errors=0";
+        assertEquals(expected, results.get(i).get());
+      }
+
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
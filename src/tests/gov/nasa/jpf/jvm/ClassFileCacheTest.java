@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.nasa.jpf.jvm;
+
+import gov.nasa.jpf.util.test.TestJPF;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * unit test for the process wide class file data cache
+ */
+public class ClassFileCacheTest extends TestJPF {
+
+  static final String OBJECT_ENTRY = "java.base/java/lang/Object.class";
+  static final String STRING_ENTRY = "java.base/java/lang/String.class";
+
+  @After
+  public void resetCache() {
+    ClassFileCache.setMaxJRTDataSize(ClassFileCache.DEFAULT_MAX_JRT_DATA_SIZE);
+  }
+
+  @Test
+  public void testJRTClassData() {
+    ClassFileCache.clearJRTClassData();
+
+    byte[] data = ClassFileCache.getJRTClassData(OBJECT_ENTRY);
+    assertTrue(data != null);
+    assertTrue(data.length > 4);
+    assertEquals(0xca, data[0] & 0xff); // 0xcafebabe
+    assertEquals(0xfe, data[1] & 0xff);
+    assertEquals(data.length, ClassFileCache.getJRTDataSize());
+
+    assertSame(data, ClassFileCache.getJRTClassData(OBJECT_ENTRY));
+    assertEquals(data.length, ClassFileCache.getJRTDataSize());
+  }
+
+  @Test
+  public void testMissingJRTClassData() {
+    ClassFileCache.clearJRTClassData();
+
+    assertNull(ClassFileCache.getJRTClassData("java.base/gov/nasa/jpf/NoSuchClass.class"));
+    assertEquals(0, ClassFileCache.getJRTDataSize());
+  }
+
+  @Test
+  public void testSizeLimit() {
+    ClassFileCache.clearJRTClassData();
+
+    byte[] objData = ClassFileCache.getJRTClassData(OBJECT_ENTRY);
+    ClassFileCache.setMaxJRTDataSize(objData.length);
+    assertSame(objData, ClassFileCache.getJRTClassData(OBJECT_ENTRY));
+
+    // String is bigger than the limit, i.e. it is not cached and doesn't evict Object
+    byte[] strData = ClassFileCache.getJRTClassData(STRING_ENTRY);
+    assertTrue(strData.length > objData.length);
+    assertTrue(strData != ClassFileCache.getJRTClassData(STRING_ENTRY));
+    assertSame(objData, ClassFileCache.getJRTClassData(OBJECT_ENTRY));
+
+    // now Object has to go since both don't fit
+    ClassFileCache.setMaxJRTDataSize(strData.length);
+    strData = ClassFileCache.getJRTClassData(STRING_ENTRY);
+    assertSame(strData, ClassFileCache.getJRTClassData(STRING_ENTRY));
+    assertEquals(strData.length, ClassFileCache.getJRTDataSize());
+    assertTrue(objData != ClassFileCache.getJRTClassData(OBJECT_ENTRY));
+
+    ClassFileCache.setMaxJRTDataSize(0);
+    assertEquals(0, ClassFileCache.getJRTDataSize());
+  }
+
+  @Test
+  public void testModuleName() {
+    assertEquals("java.base", ClassFileCache.getModuleName("java.lang.String"));
+    assertEquals("java.base", ClassFileCache.getModuleName("java.lang.String"));
+    assertNull(ClassFileCache.getModuleName("gov.nasa.jpf.NoSuchClass"));
+    assertNull(ClassFileCache.getModuleName("gov.nasa.jpf.NoSuchClass"));
+  }
+}
@@ -156,6 +156,26 @@ public class MJITest extends TestJPF {
   }
 
 
+  @Test
+  public void testReflectionDispatch () {
+    // peer methods are called through MethodHandles by default
+    if (verifyNoPropertyViolation("+vm.peer_method_handles=false")){
+      int res = nativeInstanceMethod(2.0, '?', true, 40);
+      assert (res == 42) : "reflective native instance method failed: " + res;
+
+      long lres = nativeStaticMethod(40, "Blah");
+      assert (lres == 42L) : "reflective native static method failed";
+    }
+  }
+
+  @Test
+  public void testReflectionDispatchCrash () {
+    if (verifyJPFException(new TypeRef("gov.nasa.jpf.JPFNativePeerException"), "+vm.peer_method_handles=false")){
+      nativeCrash();
+    }
+  }
+
+
   int roundtrip (int a){ // that's called from the native testRoundtripLoop0
     System.out.println("### roundtrip " + a);
     return nativeInnerRoundtrip(a);
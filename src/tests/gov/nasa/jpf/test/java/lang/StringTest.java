@@ -89,6 +89,64 @@ public class StringTest extends TestJPF {
 		}
 	}
 
+	@Test
+	public void testHashCode() {
+		if (verifyNoPropertyViolation()) {
+			String a = "hello";
+			assertEquals(99162322, a.hashCode());
+			assertEquals(99162322, a.hashCode()); // cached
+			assertEquals(a.hashCode(), new StringBuilder("hel").append("lo").toString().hashCode());
+			assertEquals(0, "".hashCode());
+		}
+	}
+
+	@Test
+	public void testHashCodeStateMatching() {
+		if (!isJPFRun()) {
+			Verify.resetCounter(0);
+		}
+
+		if (verifyNoPropertyViolation()) {
+			String a = new StringBuilder("hel").append("lo").toString();
+			if (Verify.getBoolean()) {
+				a.hashCode(); // the cached hash must not change the state
+			}
+			Verify.breakTransition("hashCode");
+			Verify.incrementCounter(0);
+		}
+
+		if (!isJPFRun()) {
+			assertEquals(1, Verify.getCounter(0));
+		}
+	}
+
+	@Test
+	public void testLastIndexOf() {
+		if (verifyNoPropertyViolation()) {
+			String a = "bla.bla";
+			assertEquals(4, a.lastIndexOf("bla"));
+			assertEquals(0, a.lastIndexOf("bla", 3));
+			assertEquals(3, a.lastIndexOf('.'));
+			assertEquals(-1, a.lastIndexOf('.', 2));
+			assertEquals(7, a.lastIndexOf(""));
+			assertEquals(-1, a.lastIndexOf("x"));
+			assertEquals(5, "gr\u00fc\u00dfe.x".lastIndexOf('.'));
+		}
+	}
+
+	@Test
+	public void testRegionMatches() {
+		if (verifyNoPropertyViolation()) {
+			String a = "one two three";
+			assertTrue(a.regionMatches(4, "two", 0, 3));
+			assertTrue(a.regionMatches(4, "xtwo", 1, 3));
+			assertFalse(a.regionMatches(4, "two", 0, 4));
+			assertFalse(a.regionMatches(-1, "two", 0, 3));
+			assertTrue(a.regionMatches(true, 4, "TWO", 0, 3));
+			assertTrue("gr\u00fc\u00dfe".regionMatches(2, "\u00fc\u00df", 0, 2));
+		}
+	}
+
 	@Test
 	public void testCompareTo() {
 		if (verifyNoPropertyViolation()) {
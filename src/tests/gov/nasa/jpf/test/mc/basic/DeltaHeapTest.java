@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ *        http://www.apache.org/licenses/LICENSE-2.0. 
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+package gov.nasa.jpf.test.mc.basic;
+
+import org.junit.Test;
+
+import gov.nasa.jpf.vm.Verify;
+
+/**
+ * unit test for DeltaHeap, which also runs the OVHeapTest tests
+ */
+public class DeltaHeapTest extends OVHeapTest {
+
+  @Override
+  protected String getHeapClassArg() {
+    return "+vm.heap.class=.vm.DeltaHeap";
+  }
+
+  @Test
+  public void testBacktrackedObjects() {
+    if (verifyNoPropertyViolation(getHeapClassArg())) {
+      X[] xs = new X[100]; // spans a number of chunks
+      for (int i=0; i<xs.length; i++) {
+        xs[i] = new X("x" + i);
+      }
+      
+      int n = Verify.getInt(0, 99);
+      xs[n].id = "changed";
+      xs[(n * 7) % xs.length] = new Y("new");
+      Verify.breakTransition("testBacktrackedObjects");
+      
+      for (int i=0; i<xs.length; i++) {
+        if (i == (n * 7) % xs.length) {
+          assertEquals("new", xs[i].id);
+        } else if (i == n) {
+          assertEquals("changed", xs[i].id);
+        } else {
+          assertEquals("x" + i, xs[i].id);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.nasa.jpf.test.mc.basic;
+
+import gov.nasa.jpf.util.test.TestJPF;
+import gov.nasa.jpf.vm.Verify;
+
+import org.junit.Test;
+
+/**
+ * regression test for FingerprintStateSet, which uses the state fingerprints
+ * of IncrementalFilteringSerializer instead of hashing state vectors
+ */
+public class FingerprintStateSetTest extends TestJPF {
+
+  static final String[] ARGS = {
+    "+vm.storage.class=.vm.FingerprintStateSet",
+    "+vm.serializer.class=.vm.serialize.IncrementalFilteringSerializer",
+    "+vm.storage.check_collisions"
+  };
+
+  static class X {
+    int x;
+    X next;
+  }
+
+  @Test
+  public void testArrayChanges() {
+    if (!isJPFRun()){
+      Verify.resetCounter(0);
+    }
+
+    if (verifyNoPropertyViolation(ARGS)){
+      int[] a = new int[3];
+      a[Verify.getInt(0, 2)] = 1;
+      Verify.breakTransition("testArrayChanges");
+      a[Verify.getInt(0, 2)] = 1;
+      Verify.breakTransition("testArrayChanges");
+
+      Verify.incrementCounter(0);
+    }
+
+    if (!isJPFRun()){
+      assertEquals(6, Verify.getCounter(0)); // all non-empty subsets of size <= 2
+    }
+  }
+
+  @Test
+  public void testPositionDependence() {
+    if (!isJPFRun()){
+      Verify.resetCounter(0);
+    }
+
+    if (verifyNoPropertyViolation(ARGS)){
+      // same object values in different positions have to produce different states
+      X a = new X();
+      X b = new X();
+      a.next = b;
+      if (Verify.getBoolean()){
+        a.x = 1;
+      } else {
+        b.x = 1;
+      }
+      Verify.breakTransition("testPositionDependence");
+
+      Verify.incrementCounter(0);
+    }
+
+    if (!isJPFRun()){
+      assertEquals(2, Verify.getCounter(0));
+    }
+  }
+}
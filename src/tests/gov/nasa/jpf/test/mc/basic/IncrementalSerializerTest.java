@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.nasa.jpf.test.mc.basic;
+
+import gov.nasa.jpf.util.test.TestJPF;
+import gov.nasa.jpf.vm.Verify;
+
+import org.junit.Test;
+
+/**
+ * regression test for IncrementalFilteringSerializer. We count new states after
+ * breaking transitions, which would go down if we use stale segment hashes
+ */
+public class IncrementalSerializerTest extends TestJPF {
+
+  static final String SERIALIZER = "+vm.serializer.class=.vm.serialize.IncrementalFilteringSerializer";
+
+  static class X {
+    int x;
+  }
+
+  static int s;
+
+  @Test
+  public void testFieldChanges() {
+    if (!isJPFRun()){
+      Verify.resetCounter(0);
+    }
+
+    if (verifyNoPropertyViolation(SERIALIZER)){
+      X o = new X();
+      o.x = Verify.getInt(0, 3) % 2;
+      Verify.breakTransition("testFieldChanges");
+
+      Verify.incrementCounter(0);
+    }
+
+    if (!isJPFRun()){
+      assertEquals(2, Verify.getCounter(0));
+    }
+  }
+
+  @Test
+  public void testArrayChanges() {
+    if (!isJPFRun()){
+      Verify.resetCounter(0);
+    }
+
+    if (verifyNoPropertyViolation(SERIALIZER)){
+      int[] a = new int[3];
+      a[Verify.getInt(0, 2)] = 1;
+      Verify.breakTransition("testArrayChanges");
+      a[Verify.getInt(0, 2)] = 1;
+      Verify.breakTransition("testArrayChanges");
+
+      Verify.incrementCounter(0);
+    }
+
+    if (!isJPFRun()){
+      assertEquals(6, Verify.getCounter(0)); // all non-empty subsets of size <= 2
+    }
+  }
+
+  @Test
+  public void testStaticChanges() {
+    if (!isJPFRun()){
+      Verify.resetCounter(0);
+    }
+
+    if (verifyNoPropertyViolation(SERIALIZER)){
+      s = 0;
+      s += Verify.getInt(0, 2);
+      Verify.breakTransition("testStaticChanges");
+      s += Verify.getInt(0, 2);
+      Verify.breakTransition("testStaticChanges");
+
+      Verify.incrementCounter(0);
+    }
+
+    if (!isJPFRun()){
+      assertEquals(5, Verify.getCounter(0)); // s = 0..4
+    }
+  }
+
+  int sum (int[] a, int i) {
+    int r = a[i];
+    Verify.breakTransition("sum");
+    return r;
+  }
+
+  @Test
+  public void testFrameChanges() {
+    if (!isJPFRun()){
+      Verify.resetCounter(0);
+    }
+
+    if (verifyNoPropertyViolation(SERIALIZER)){
+      int[] a = { 1, 1, 2 };
+      int r = sum(a, Verify.getInt(0, 2));
+      Verify.breakTransition("testFrameChanges");
+
+      Verify.incrementCounter(0);
+    }
+
+    if (!isJPFRun()){
+      assertEquals(2, Verify.getCounter(0)); // r = 1, 2
+    }
+  }
+}
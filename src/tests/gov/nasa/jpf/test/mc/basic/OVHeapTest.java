@@ -66,10 +66,17 @@ public class OVHeapTest extends TestJPF {
   X allocX (String id) {
     return new X(id);
   }
+
+  /**
+   * the heap under test, subclasses use this to run our tests with other heaps
+   */
+  protected String getHeapClassArg() {
+    return "+vm.heap.class=.vm.OVHeap";
+  }
     
   @Test
   public void testSGOIDs() {
-    if (verifyNoPropertyViolation("+vm.heap.class=.vm.OVHeap")) {
+    if (verifyNoPropertyViolation(getHeapClassArg())) {
       Thread t = new Thread() {
         @Override
 		public void run() {
@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.nasa.jpf.test.mc.basic;
+
+import org.junit.Test;
+
+import gov.nasa.jpf.util.test.TestJPF;
+import gov.nasa.jpf.vm.Verify;
+
+/**
+ * unit test for arrays created by PagedArrayFieldsFactory
+ */
+public class PagedArrayFieldsTest extends TestJPF {
+
+  static final String[] PAGED = { "+vm.fields_factory.class=.vm.PagedArrayFieldsFactory",
+                                  "+vm.fields_factory.page_bits=3",
+                                  "+vm.fields_factory.min_paged_length=20" };
+
+  @Test
+  public void testBacktrackedElements() {
+    if (verifyNoPropertyViolation(PAGED)) {
+      int[] a = new int[100];
+      long[] l = new long[100];
+      double[] d = new double[100];
+      byte[] b = new byte[100];
+      char[] c = new char[100];
+      for (int i=0; i<a.length; i++) {
+        a[i] = i;
+        l[i] = i;
+        d[i] = i;
+        b[i] = (byte)i;
+        c[i] = (char)('a' + i % 26);
+      }
+
+      int n = Verify.getInt(0, 99);
+      a[n] = -1;
+      l[n] = -1;
+      d[n] = -1;
+      b[n] = -1;
+      c[n] = '?';
+      Verify.breakTransition("testBacktrackedElements");
+
+      for (int i=0; i<a.length; i++) {
+        if (i == n) {
+          assertEquals(-1, a[i]);
+          assertEquals(-1L, l[i]);
+          assertEquals(-1.0, d[i], 0.0);
+          assertEquals((byte)-1, b[i]);
+          assertEquals('?', c[i]);
+        } else {
+          assertEquals(i, a[i]);
+          assertEquals(i, l[i]);
+          assertEquals(i, d[i], 0.0);
+          assertEquals((byte)i, b[i]);
+          assertEquals((char)('a' + i % 26), c[i]);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testArrayCopy() {
+    if (verifyNoPropertyViolation(PAGED)) {
+      int[] a = new int[100];
+      for (int i=0; i<a.length; i++) {
+        a[i] = i;
+      }
+
+      int[] b = new int[100];
+      System.arraycopy(a, 3, b, 3, 90); // aligned, shares pages
+      int[] c = new int[100];
+      System.arraycopy(a, 0, c, 5, 90); // not aligned
+      int[] small = new int[10];
+      System.arraycopy(a, 50, small, 0, 10); // paged to flat
+      int[] d = a.clone();
+      System.arraycopy(small, 0, d, 0, 10); // flat to paged
+      System.arraycopy(d, 10, d, 11, 50); // overlapping
+
+      a[50] = -1; // must not change any copy
+
+      for (int i=0; i<100; i++) {
+        assertEquals((i >= 3 && i < 93) ? i : 0, b[i]);
+        assertEquals((i >= 5 && i < 95) ? i - 5 : 0, c[i]);
+      }
+      for (int i=0; i<10; i++) {
+        assertEquals(50 + i, small[i]);
+        assertEquals(50 + i, d[i]);
+      }
+      assertEquals(10, d[10]);
+      for (int i=11; i<61; i++) {
+        assertEquals(i - 1, d[i]);
+      }
+
+      try {
+        System.arraycopy(a, 95, b, 0, 10);
+        fail("out of bounds arraycopy not detected");
+      } catch (IndexOutOfBoundsException x) {
+        // expected
+      }
+    }
+  }
+
+  @Test
+  public void testNativeAccess() {
+    if (verifyNoPropertyViolation(PAGED)) {
+      char[] c = new char[40];
+      for (int i=0; i<c.length; i++) {
+        c[i] = (char)('a' + i % 26);
+      }
+
+      String s = new String(c); // peer might flatten
+      Verify.breakTransition("testNativeAccess");
+
+      c[0] = 'X'; // has to be copied again
+      assertEquals('a', s.charAt(0));
+      assertEquals('X', c[0]);
+      assertEquals("abcdefghijklmnopqrstuvwxyzabcdefghijklmn", s);
+      assertEquals(s.substring(1), new String(c, 1, 39));
+    }
+  }
+
+  @Test
+  public void testStateMatching() {
+    if (verifyNoPropertyViolation(PAGED)) {
+      int[] a = new int[100];
+      a[42] = Verify.getBoolean() ? 1 : 0;
+      a[42] = 0;
+      Verify.breakTransition("testStateMatching");
+
+      // both paths end in the same state
+      Verify.incrementCounter(0);
+      if (Verify.getCounter(0) > 1) {
+        fail("state was not matched");
+      }
+    }
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.nasa.jpf.test.mc.basic;
+
+import gov.nasa.jpf.JPF;
+import gov.nasa.jpf.util.test.TestJPF;
+import gov.nasa.jpf.vm.Verify;
+
+import org.junit.Test;
+
+/**
+ * regression test for ParallelDFSearch. Since workers run in their own class
+ * spaces we can't use Verify counters, we count the (replayed) errors of the
+ * main search instead
+ */
+public class ParallelDFSearchTest extends TestJPF {
+
+  static final String SEARCH = "+search.class=.search.ParallelDFSearch";
+  static final String STATES = "+vm.storage.class=.vm.ConcurrentStateSet";
+  static final String CAPACITY = "+vm.storage.capacity=100000";
+
+  @Test
+  public void testAllPaths() {
+    if (!isJPFRun()){
+      JPF jpf = assertionError(SEARCH, "+vm.storage.class=", "+search.parallel.workers=3", "+search.multiple_errors");
+      assertEquals(4 * 2 * 3, jpf.getSearchErrors().size());
+
+    } else {
+      int a = Verify.getInt(0, 3);
+      boolean b = Verify.getBoolean();
+      int c = Verify.getInt(0, 2);
+
+      assert false : "end of path";
+    }
+  }
+
+  @Test
+  public void testMatchedStates() {
+    if (!isJPFRun()){
+      JPF jpf = assertionError(SEARCH, STATES, CAPACITY, "+search.parallel.workers=3", "+search.multiple_errors");
+      assertEquals(1, jpf.getSearchErrors().size());
+
+    } else {
+      int a = Verify.getInt(0, 3);
+      a = 0; // all choices end up in the same state
+      Verify.breakTransition("testMatchedStates");
+
+      assert false : "only reached once";
+    }
+  }
+
+  @Test
+  public void testAssertion() {
+    if (verifyAssertionError(SEARCH, STATES, CAPACITY, "+search.parallel.workers=2")){
+      int a = Verify.getInt(0, 5);
+      int b = Verify.getInt(0, 5);
+
+      assert (a + b) != 7 : "found sum";
+    }
+  }
+
+  @Test
+  public void testMultipleErrors() {
+    if (!isJPFRun()){
+      JPF jpf = assertionError(SEARCH, STATES, CAPACITY, "+search.parallel.workers=2", "+search.multiple_errors");
+      assertEquals(4 * 2, jpf.getSearchErrors().size());
+
+    } else {
+      int a = Verify.getInt(0, 3);
+      boolean b = Verify.getBoolean();
+
+      assert false : "blow up here";
+    }
+  }
+
+  @Test
+  public void testDeadlock() {
+    if (verifyDeadlock(SEARCH, STATES, CAPACITY, "+search.parallel.workers=4")){
+      final Object lock = new Object();
+      Thread t = new Thread() {
+        @Override
+        public void run() {
+          synchronized (lock) {
+            try {
+              lock.wait();
+            } catch (InterruptedException ix) {
+            }
+          }
+        }
+      };
+      t.start();
+
+      synchronized (lock) {
+        lock.notify(); // the notification can get lost
+      }
+    }
+  }
+}
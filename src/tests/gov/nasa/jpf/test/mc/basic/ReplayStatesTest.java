@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.nasa.jpf.test.mc.basic;
+
+import gov.nasa.jpf.util.test.TestJPF;
+import gov.nasa.jpf.vm.Verify;
+
+import org.junit.Test;
+
+/**
+ * regression test for heuristic searches that queue ReplayNodes instead of
+ * RestorableVMStates. We check that we reach the same end states regardless of
+ * how many expanded states we cache
+ */
+public class ReplayStatesTest extends TestJPF {
+
+  static final String SEARCH = "+search.class=.search.heuristic.BFSHeuristic";
+  static final String REPLAY = "+search.heuristic.replay_states";
+
+  void runChoices () {
+    int[] choices = new int[3];
+    int a = 0;
+
+    for (int i=0; i<3; i++) {
+      int c = Verify.getInt(0, 3);
+      choices[i] = c;
+      a = a*4 + c;
+      Verify.breakTransition("runChoices");
+    }
+
+    assertEquals(choices[0]*16 + choices[1]*4 + choices[2], a);
+    Verify.incrementCounter(0);
+  }
+
+  @Test
+  public void testCachedParents() {
+    if (!isJPFRun()){
+      Verify.resetCounter(0);
+    }
+
+    if (verifyNoPropertyViolation(SEARCH, REPLAY)){
+      runChoices();
+    }
+
+    if (!isJPFRun()){
+      assertEquals(64, Verify.getCounter(0));
+    }
+  }
+
+  @Test
+  public void testNoCache() {
+    if (!isJPFRun()){
+      Verify.resetCounter(0);
+    }
+
+    if (verifyNoPropertyViolation(SEARCH, REPLAY, "+search.heuristic.replay_cache=0")){
+      runChoices();
+    }
+
+    if (!isJPFRun()){
+      assertEquals(64, Verify.getCounter(0));
+    }
+  }
+
+  @Test
+  public void testSpilledNodes() {
+    if (!isJPFRun()){
+      Verify.resetCounter(0);
+    }
+
+    if (verifyNoPropertyViolation(SEARCH, REPLAY, "+search.heuristic.replay_cache=2",
+                                  "+search.heuristic.spill", "+search.heuristic.queue_limit=4")){
+      runChoices();
+    }
+
+    if (!isJPFRun()){
+      assertEquals(64, Verify.getCounter(0));
+    }
+  }
+}
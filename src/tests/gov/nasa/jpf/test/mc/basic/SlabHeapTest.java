@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.nasa.jpf.test.mc.basic;
+
+import org.junit.Test;
+
+import gov.nasa.jpf.util.test.TestJPF;
+import gov.nasa.jpf.vm.Verify;
+
+/**
+ * unit test for SlabHeap
+ */
+public class SlabHeapTest extends TestJPF {
+
+  static class X implements Cloneable {
+    int i;
+    long l;
+    double d;
+    String id;
+
+    X (String id){
+      this.id = id;
+    }
+
+    @Override
+    public X clone() {
+      try {
+        return (X) super.clone();
+      } catch (CloneNotSupportedException x) {
+        return null;
+      }
+    }
+  }
+
+  @Test
+  public void testBacktrackedValues() {
+    if (verifyNoPropertyViolation("+vm.heap.class=.vm.SlabHeap", "+vm.heap.slab_page_bits=4")) {
+      X[] xs = new X[50]; // spans a number of pages
+      for (int i=0; i<xs.length; i++) {
+        xs[i] = new X("x" + i);
+        xs[i].i = i;
+      }
+
+      int n = Verify.getInt(0, 49);
+      xs[n].i = -1;
+      xs[n].l = Long.MAX_VALUE - n;
+      xs[n].d = n + 0.5;
+      Verify.breakTransition("testBacktrackedValues");
+
+      for (int i=0; i<xs.length; i++) {
+        if (i == n) {
+          assertEquals(-1, xs[i].i);
+          assertEquals(Long.MAX_VALUE - n, xs[i].l);
+          assertEquals(n + 0.5, xs[i].d, 0.0);
+        } else {
+          assertEquals(i, xs[i].i);
+          assertEquals(0L, xs[i].l);
+          assertEquals(0.0, xs[i].d, 0.0);
+        }
+        assertEquals("x" + i, xs[i].id);
+      }
+    }
+  }
+
+  @Test
+  public void testReallocatedObjects() {
+    if (verifyNoPropertyViolation("+vm.heap.class=.vm.SlabHeap")) {
+      int n = Verify.getInt(0, 2);
+
+      // same allocation on all paths, but block has to be re-initialized
+      X x = new X("x");
+      assertEquals(0, x.i);
+      assertEquals(0L, x.l);
+      x.i = n;
+      x.l = n;
+    }
+  }
+
+  @Test
+  public void testClone() {
+    if (verifyNoPropertyViolation("+vm.heap.class=.vm.SlabHeap")) {
+      X x = new X("x");
+      x.i = 42;
+      x.l = 4242L;
+
+      X y = x.clone();
+      assertEquals(42, y.i);
+      assertEquals(4242L, y.l);
+      assertSame(x.id, y.id);
+
+      y.i = 1;
+      assertEquals(42, x.i);
+      assertEquals(1, y.i);
+    }
+  }
+
+  @Test
+  public void testStateMatching() {
+    if (verifyNoPropertyViolation("+vm.heap.class=.vm.SlabHeap")) {
+      X x = new X("x");
+      x.i = Verify.getBoolean() ? 1 : 0;
+      x.i = 0;
+      Verify.breakTransition("testStateMatching");
+
+      // both paths end in the same state
+      Verify.incrementCounter(0);
+      if (Verify.getCounter(0) > 1) {
+        fail("state was not matched");
+      }
+    }
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.nasa.jpf.test.mc.basic;
+
+import gov.nasa.jpf.util.test.TestJPF;
+import gov.nasa.jpf.vm.Verify;
+
+import org.junit.Test;
+
+/**
+ * regression test for SpillingPriorityQueue. The queue limit is small enough
+ * so that most states are spilled and have to be replayed from their choice
+ * trace, which should not change the number of end states we reach
+ */
+public class SpillingQueueTest extends TestJPF {
+
+  static final String[] ARGS = {
+    "+search.class=.search.heuristic.BFSHeuristic",
+    "+search.heuristic.spill",
+    "+search.heuristic.queue_limit=4"
+  };
+
+  static class X {
+    int[] choices = new int[3];
+  }
+
+  @Test
+  public void testSpilledStates() {
+    if (!isJPFRun()){
+      Verify.resetCounter(0);
+    }
+
+    if (verifyNoPropertyViolation(ARGS)){
+      X x = new X();
+      int a = 0;
+
+      for (int i=0; i<3; i++) {
+        int c = Verify.getInt(0, 3);
+        x.choices[i] = c;
+        a = a*4 + c;
+        Verify.breakTransition("testSpilledStates");
+      }
+
+      assertEquals(x.choices[0]*16 + x.choices[1]*4 + x.choices[2], a);
+      Verify.incrementCounter(0);
+    }
+
+    if (!isJPFRun()){
+      assertEquals(64, Verify.getCounter(0));
+    }
+  }
+
+  @Test
+  public void testQueueLimitOne() {
+    if (!isJPFRun()){
+      Verify.resetCounter(0);
+    }
+
+    if (verifyNoPropertyViolation("+search.class=.search.heuristic.BFSHeuristic",
+                                  "+search.heuristic.spill",
+                                  "+search.heuristic.queue_limit=1")){
+      X x = new X();
+
+      for (int i=0; i<3; i++) {
+        x.choices[i] = Verify.getInt(0, 2);
+        Verify.breakTransition("testQueueLimitOne");
+      }
+
+      Verify.incrementCounter(0);
+    }
+
+    if (!isJPFRun()){
+      assertEquals(27, Verify.getCounter(0));
+    }
+  }
+
+  @Test
+  public void testThreadStates() {
+    if (!isJPFRun()){
+      Verify.resetCounter(0);
+    }
+
+    if (verifyNoPropertyViolation(ARGS)){
+      final X x = new X();
+
+      Thread t = new Thread() {
+        @Override
+        public void run() {
+          x.choices[0]++;
+          x.choices[1]++;
+        }
+      };
+      t.start();
+
+      x.choices[1] += 2;
+      x.choices[2] = Verify.getInt(0, 1);
+
+      try {
+        t.join();
+      } catch (InterruptedException ix) {
+        fail("unexpected InterruptedException");
+      }
+
+      assertEquals(1, x.choices[0]);
+      Verify.incrementCounter(0);
+    }
+
+    if (!isJPFRun()){
+      assertTrue(Verify.getCounter(0) > 0);
+    }
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ *        http://www.apache.org/licenses/LICENSE-2.0. 
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package gov.nasa.jpf.test.mc.basic;
+
+import gov.nasa.jpf.util.TypeRef;
+import gov.nasa.jpf.util.test.TestJPF;
+import gov.nasa.jpf.vm.Verify;
+
+import org.junit.Test;
+
+/**
+ * regression test for UndoHeap / UndoBacktracker
+ */
+public class UndoHeapTest extends TestJPF {
+
+  static final String[] ARGS = {
+    "+vm.heap.class=.vm.UndoHeap",
+    "+vm.backtracker.class=.vm.UndoBacktracker"
+  };
+
+  static class X {
+    String id;
+
+    X (String id){
+      this.id = id;
+    }
+  }
+
+  @Test
+  public void testBacktrackedObjects() {
+    if (verifyNoPropertyViolation(ARGS)) {
+      X[] xs = new X[20];
+      for (int i=0; i<xs.length; i++) {
+        xs[i] = new X("x" + i);
+      }
+
+      int n = Verify.getInt(0, 19);
+      xs[n].id = "changed";
+      xs[(n * 7) % xs.length] = new X("new");
+      Verify.breakTransition("testBacktrackedObjects");
+
+      int m = Verify.getInt(0, 1);
+      xs[(n + 1) % xs.length].id = "changed-" + m;
+      Verify.breakTransition("testBacktrackedObjects");
+
+      for (int i=0; i<xs.length; i++) {
+        if (i == (n + 1) % xs.length) {
+          assertEquals("changed-" + m, xs[i].id);
+        } else if (i == (n * 7) % xs.length) {
+          assertEquals("new", xs[i].id);
+        } else if (i == n) {
+          assertEquals("changed", xs[i].id);
+        } else {
+          assertEquals("x" + i, xs[i].id);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testMatchedStates() {
+    if (!isJPFRun()){
+      Verify.resetCounter(0);
+    }
+
+    if (verifyNoPropertyViolation(ARGS)) {
+      X x = new X("x");
+      x.id = (Verify.getInt(0, 3) % 2 == 0) ? "even" : "odd";
+      Verify.breakTransition("testMatchedStates");
+
+      Verify.incrementCounter(0);
+    }
+
+    if (!isJPFRun()){
+      assertEquals(2, Verify.getCounter(0));
+    }
+  }
+
+  @Test
+  public void testNonPathRestore() {
+    // heuristic searches restore states that are not on the current path, so they should not start
+    if (verifyJPFException(new TypeRef("gov.nasa.jpf.JPFConfigException"), "+vm.heap.class=.vm.UndoHeap",
+                           "+vm.backtracker.class=.vm.UndoBacktracker",
+                           "+search.class=.search.heuristic.BFSHeuristic")) {
+      X x = new X("x");
+      x.id = "" + Verify.getInt(0, 3);
+      Verify.breakTransition("testNonPathRestore");
+      x.id = "" + Verify.getInt(0, 3);
+    }
+  }
+}
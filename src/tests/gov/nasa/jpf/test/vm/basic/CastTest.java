@@ -72,6 +72,46 @@ public class CastTest extends TestJPF {
     }
   }
   
+  @Test public void testInstanceOf () {
+    if (verifyNoPropertyViolation()){
+      Object[] objs = { new A(), new B(), new C(), "nope", new int[1], new C[1] };
+
+      // each instanceof is one instruction that sees all receiver types
+      for (int round = 0; round < 2; round++) {
+        int nA = 0, nB = 0, nC = 0, nI = 0, nJ = 0, nK = 0, nCloneable = 0;
+
+        for (Object o : objs) {
+          if (o instanceof A) nA++;
+          if (o instanceof B) nB++;
+          if (o instanceof C) nC++;
+          if (o instanceof I) nI++;
+          if (o instanceof J) nJ++;
+          if (o instanceof K) nK++;
+          if (o instanceof Cloneable) nCloneable++;
+        }
+
+        assertEquals(3, nA);
+        assertEquals(2, nB);
+        assertEquals(1, nC);
+        assertEquals(2, nI);
+        assertEquals(2, nJ);
+        assertEquals(3, nK);
+        assertEquals(2, nCloneable);
+      }
+    }
+  }
+
+  @Test public void testCastReuse () {
+    if (verifyUnhandledException("java.lang.ClassCastException")){
+      Object[] objs = { new C(), new B(), new A() };
+
+      // the same checkcast succeeds for the first two, and fails for the last one
+      for (Object o : objs) {
+        J j = (J) o;
+      }
+    }
+  }
+
   //--- helper types and methods
   
   static interface I {
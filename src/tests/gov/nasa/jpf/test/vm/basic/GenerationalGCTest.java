@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ *        http://www.apache.org/licenses/LICENSE-2.0. 
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package gov.nasa.jpf.test.vm.basic;
+
+import java.lang.ref.WeakReference;
+import java.util.BitSet;
+
+import org.junit.Test;
+
+import gov.nasa.jpf.ListenerAdapter;
+import gov.nasa.jpf.util.test.TestJPF;
+import gov.nasa.jpf.vm.ElementInfo;
+import gov.nasa.jpf.vm.Heap;
+import gov.nasa.jpf.vm.ThreadInfo;
+import gov.nasa.jpf.vm.VM;
+import gov.nasa.jpf.vm.Verify;
+
+/**
+ * regression test for generational gc (vm.gc.generational)
+ */
+public class GenerationalGCTest extends TestJPF {
+
+  static final String[] GENERATIONAL = { "+vm.gc.generational=true",
+                                         "+vm.gc.max_promoted=-1" }; // no implicit full gc
+
+  static class Node {
+    Node next;
+    int value;
+  }
+
+  // end the transition with an implicit gc, which is a minor one
+  static void gc (String id) {
+    Object o = new Object();
+    o = null; // overwriting a reference activates gc
+    Verify.breakTransition(id);
+  }
+
+  @Test
+  public void testYoungGarbage() {
+    if (verifyNoPropertyViolation(GENERATIONAL)) {
+      Node n = new Node();
+      WeakReference<Node> ref = new WeakReference<Node>(n);
+      n = null;
+      gc("testYoungGarbage");
+
+      assertNull(ref.get());
+    }
+  }
+
+  @Test
+  public void testOldGarbage() {
+    if (verifyNoPropertyViolation(GENERATIONAL)) {
+      Node n = new Node();
+      WeakReference<Node> ref = new WeakReference<Node>(n);
+      gc("testOldGarbage"); // n gets promoted
+
+      n = null;
+      gc("testOldGarbage"); // minor gc doesn't collect old objects
+      assertNotNull(ref.get());
+
+      System.gc(); // but a full gc does
+      Verify.breakTransition("testOldGarbage");
+      assertNull(ref.get());
+    }
+  }
+
+  @Test
+  public void testOldToYoungReference() {
+    if (verifyNoPropertyViolation(GENERATIONAL)) {
+      Node old = new Node();
+      gc("testOldToYoungReference"); // old gets promoted and stored
+
+      old.next = new Node(); // only reachable through the remembered old object
+      WeakReference<Node> ref = new WeakReference<Node>(old.next);
+      gc("testOldToYoungReference");
+      assertSame(old.next, ref.get());
+
+      old.next.next = new Node(); // reachable through a promoted object
+      ref = new WeakReference<Node>(old.next.next);
+      gc("testOldToYoungReference");
+      assertSame(old.next.next, ref.get());
+    }
+  }
+
+  @Test
+  public void testStateMatching() {
+    if (verifyNoPropertyViolation(GENERATIONAL)) {
+      Node n = new Node();
+      Runtime.getRuntime().gc(); // n gets promoted
+
+      if (Verify.getBoolean()) {
+        n.next = new Node(); // young garbage that was referenced by an old object
+        n.next = null;
+      }
+      gc("testStateMatching");
+
+      // both paths end in the same state
+      Verify.incrementCounter(0);
+      if (Verify.getCounter(0) > 1) {
+        fail("state was not matched");
+      }
+    }
+  }
+
+  static String aliveError;
+
+  /**
+   * checks that Heap.isAlive() (which FieldLockInfos use to clean up) reports
+   * all gc survivors as alive, and survivors of the previous gc that get
+   * released as dead
+   */
+  public static class AliveChecker extends ListenerAdapter {
+    BitSet survivors = new BitSet();
+
+    @Override
+    public void gcEnd (VM vm) {
+      Heap heap = vm.getHeap();
+      survivors.clear();
+
+      for (ElementInfo ei : heap.liveObjects()) {
+        if (!heap.isAlive(ei) && aliveError == null) {
+          aliveError = "survivor not alive: " + ei;
+        }
+        survivors.set(ei.getObjectRef());
+      }
+    }
+
+    @Override
+    public void objectReleased (VM vm, ThreadInfo ti, ElementInfo ei) {
+      if (survivors.get(ei.getObjectRef()) && vm.getHeap().isAlive(ei) && aliveError == null) {
+        aliveError = "released object alive: " + ei;
+      }
+      survivors.clear(ei.getObjectRef());
+    }
+  }
+
+  @Test
+  public void testFullAfterMinorCycle() {
+    if (!isJPFRun()) {
+      aliveError = null;
+    }
+
+    if (verifyNoPropertyViolation("+vm.gc.generational=true", "+vm.gc.max_promoted=-1",
+                                  "+listener=gov.nasa.jpf.test.vm.basic.GenerationalGCTest$AliveChecker")) {
+      Node n = new Node();
+      WeakReference<Node> ref = new WeakReference<Node>(n);
+      gc("testFullAfterMinorCycle"); // n gets promoted
+
+      n = null;
+      gc("testFullAfterMinorCycle"); // minor gc, n is old garbage
+
+      System.gc(); // full gc, n has to be dead now
+      Verify.breakTransition("testFullAfterMinorCycle");
+      assertNull(ref.get());
+    }
+
+    if (!isJPFRun()) {
+      assertNull(aliveError, aliveError);
+    }
+  }
+}
@@ -257,6 +257,73 @@ public class MethodTest extends TestMethodBase {
   }
 
 
+  static class A2 extends A1 {
+    @Override
+	public int foo () {
+      return 2;
+    }
+  }
+
+  static class A3 extends A2 {
+    @Override
+	public int foo () {
+      return 3;
+    }
+  }
+
+  static class A4 extends A3 {
+    // inherits foo() from A3
+  }
+
+  static class A5 extends A0 {
+    @Override
+	public int foo () {
+      return 5;
+    }
+  }
+
+  /**
+   * one call site with more receiver types than fit into its inline cache
+   */
+  @Test public void testMegamorphicCall () {
+    if (verifyNoPropertyViolation()){
+      A[] as = { new A0(), new A1(), new A2(), new A3(), new A4(), new A5() };
+      int[] expected = { 0, 1, 2, 3, 3, 5 };
+
+      for (int round = 0; round < 3; round++) {
+        for (int i = 0; i < as.length; i++) {
+          int r = as[i].foo();
+          assert r == expected[i] : "wrong foo() called for " + as[i].getClass().getName() + ": " + r;
+        }
+      }
+    }
+  }
+
+  @Test public void testMegamorphicInterfaceCall () {
+    if (verifyNoPropertyViolation()){
+      TMI[] ifcs = { new MethodTest(), new TestMethodBase(42), new MethodTest(), new TMI() {
+        @Override
+        public void gna() {
+          sData = 3;
+        }
+      }};
+
+      for (int round = 0; round < 2; round++) {
+        for (TMI ifc : ifcs) {
+          sData = 0;
+          ifc.gna();
+
+          if (ifc instanceof TestMethodBase) {
+            TestMethodBase b = (TestMethodBase)ifc;
+            assert b.baseData == ((b instanceof MethodTest) ? 45 : 0) : "wrong gna() called";
+          } else {
+            assert sData == 3 : "wrong anonymous gna() called";
+          }
+        }
+      }
+    }
+  }
+
   interface InterfaceWithDefaultMethod {
     default int foo() {
       return 42;
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ *        http://www.apache.org/licenses/LICENSE-2.0. 
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package gov.nasa.jpf.util;
+
+import org.junit.Test;
+
+import gov.nasa.jpf.util.test.TestJPF;
+
+/**
+ * regression test for ChunkedObjVector
+ */
+public class ChunkedObjVectorTest extends TestJPF {
+
+  static class Counter implements Processor<Integer> {
+    int n;
+
+    @Override
+    public void process (Integer i) {
+      n++;
+    }
+  }
+
+  @Test
+  public void testSetGetRemove () {
+    ChunkedObjVector<Integer> v = new ChunkedObjVector<Integer>(2);
+
+    assertTrue(v.size() == 0 && v.get(0) == null && v.get(100) == null);
+
+    v.set(5, 5);
+    v.set(42, 42);
+    assertTrue(v.size() == 43);
+    assertTrue(v.get(5) == 5 && v.get(42) == 42 && v.get(6) == null);
+
+    assertTrue(v.remove(42) == 42);
+    assertTrue(v.size() == 6);
+    assertTrue(v.remove(42) == null);
+
+    int n = 0;
+    for (Integer i : v) {
+      assertTrue(i == 5);
+      n++;
+    }
+    assertTrue(n == 1);
+  }
+
+  @Test
+  public void testSnapshot () {
+    ChunkedObjVector<Integer> v = new ChunkedObjVector<Integer>(2); // 4 elements per chunk
+
+    ChunkedObjVector.Snapshot<Integer> snap = v.getSnapshot();
+    v.set(0, 0);
+    v.restore(snap);
+    assertTrue(v.size() == 0 && v.get(0) == null);
+
+    for (int i=0; i<20; i++) {
+      v.set(i, i);
+    }
+    ChunkedObjVector.Snapshot<Integer> snap0 = v.getSnapshot();
+    assertTrue(snap0.getNumberOfChunks() == 5);
+
+    v.set(5, -5);
+    v.remove(19);
+    v.set(30, 30);
+    ChunkedObjVector.Snapshot<Integer> snap1 = v.getSnapshot();
+
+    // unmodified chunks are shared, i.e. must not be changed by subsequent writes
+    v.restore(snap0);
+    assertTrue(v.size() == 20);
+    for (int i=0; i<20; i++) {
+      assertTrue(v.get(i) == i);
+    }
+    assertTrue(v.get(30) == null);
+
+    v.set(1, -1);
+    v.restore(snap1);
+    assertTrue(v.size() == 31);
+    assertTrue(v.get(1) == 1 && v.get(5) == -5 && v.get(19) == null && v.get(30) == 30);
+
+    v.restore(snap0);
+    assertTrue(v.get(1) == 1 && v.get(5) == 5);
+  }
+
+  @Test
+  public void testProcessModified () {
+    ChunkedObjVector<Integer> v = new ChunkedObjVector<Integer>(2);
+    for (int i=0; i<20; i++) {
+      v.set(i, i);
+    }
+
+    Counter c = new Counter();
+    v.processModified(c);
+    assertTrue(c.n == 20);
+
+    v.getSnapshot();
+    c.n = 0;
+    v.processModified(c);
+    assertTrue(c.n == 0);
+
+    v.set(9, -9); // modifies chunk 2 (8..11)
+    c.n = 0;
+    v.processModified(c);
+    assertTrue(c.n == 4);
+
+    c.n = 0;
+    v.process(c);
+    assertTrue(c.n == 20);
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.nasa.jpf.util;
+
+import org.junit.Test;
+
+import gov.nasa.jpf.util.test.TestJPF;
+
+/**
+ * regression test for IntSlab
+ */
+public class IntSlabTest extends TestJPF {
+
+  @Test
+  public void testAllocate () {
+    IntSlab slab = new IntSlab(2); // 4 ints per page
+
+    int a = slab.allocate(3);
+    int b = slab.allocate(2); // doesn't fit into first page
+    int c = slab.allocate(2);
+    int d = slab.allocate(0);
+
+    assertTrue(a == 0);
+    assertTrue(b == 4);
+    assertTrue(c == 6);
+    assertTrue(d == 8);
+    assertTrue(slab.getNumberOfPages() == 3);
+
+    try {
+      slab.allocate(5);
+      fail("block exceeding page size not detected");
+    } catch (IllegalArgumentException x){
+      // expected
+    }
+
+    slab.set(b, 42);
+    slab.set(b+1, 43);
+    assertTrue(slab.get(b) == 42 && slab.get(b+1) == 43);
+    assertTrue(slab.getPage(b)[slab.getOffset(b)] == 42);
+
+    slab.clear(b, 2);
+    assertTrue(slab.get(b) == 0 && slab.get(b+1) == 0);
+  }
+
+  @Test
+  public void testSnapshot () {
+    IntSlab slab = new IntSlab(2);
+    for (int i=0; i<5; i++) {
+      int addr = slab.allocate(4);
+      for (int j=0; j<4; j++) {
+        slab.set(addr+j, addr+j);
+      }
+    }
+
+    IntSlab.Snapshot snap0 = slab.getSnapshot();
+    assertTrue(snap0.getNumberOfPages() == 5);
+    int[] page1 = slab.getPage(4);
+
+    slab.set(5, -5);
+    assertTrue(slab.getPage(4) != page1); // copied on write
+    assertTrue(slab.getPage(0) == slab.getPage(0));
+
+    int[] page1Mod = slab.getPage(4);
+    slab.set(6, -6);
+    assertTrue(slab.getPage(4) == page1Mod); // owned now
+
+    int addr = slab.allocate(4);
+    slab.set(addr, 100);
+    IntSlab.Snapshot snap1 = slab.getSnapshot();
+
+    slab.restore(snap0);
+    assertTrue(slab.getPage(4) == page1);
+    for (int i=0; i<20; i++) {
+      assertTrue(slab.get(i) == i);
+    }
+    assertTrue(slab.get(addr) == 100); // not in snapshot, keeps value
+
+    slab.set(addr, 200); // has to be copied, might be shared with snap1
+    slab.restore(snap1);
+    assertTrue(slab.get(5) == -5 && slab.get(6) == -6 && slab.get(7) == 7);
+    assertTrue(slab.get(addr) == 100);
+  }
+}
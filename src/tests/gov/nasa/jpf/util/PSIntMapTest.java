@@ -19,6 +19,7 @@
 package gov.nasa.jpf.util;
 
 import gov.nasa.jpf.util.test.TestJPF;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
 import java.util.HashMap;
@@ -338,7 +339,75 @@ public class PSIntMapTest extends TestJPF {
     }
     assertTrue( n == (max - nRemoved));
   }
+
+  @Test
+  public void testTransientSnapshots(){
+    Random r = new Random(42);
+    final HashMap<Integer,Integer> model = new HashMap<Integer,Integer>();
+    ArrayList<PSIntMap<Integer>> snapshots = new ArrayList<PSIntMap<Integer>>();
+    ArrayList<HashMap<Integer,Integer>> expected = new ArrayList<HashMap<Integer,Integer>>();
+    
+    Predicate<Integer> pred = new Predicate<Integer>(){
+      @Override
+      public boolean isTrue (Integer n){
+        return (n.intValue() % 3) == 0;
+      }
+    };
+    
+    PSIntMap<Integer> m = createPersistentIntMap().asTransient();
+    assertTrue( m.isTransient());
     
+    for (int i=0; i<200; i++){
+      for (int j=0; j<50; j++){
+        // mix of clustered and scattered keys to exercise staging node hits and misses
+        int key = (j % 2 == 0) ? (i*16 + j) : r.nextInt(5000);
+        Integer v = model.containsKey(key) ? model.get(key) + 3 : key * 3 + 1; // never removed by pred
+        
+        if (r.nextInt(5) == 0){
+          m = m.remove(key);
+          model.remove(key);
+        } else {
+          m = m.set(key, v);
+          model.put(key, v);
+        }
+      }
+      
+      if (i % 20 == 19){
+        m = m.set( 30000 + i, 30000 + i*3);
+        m = m.removeAllSatisfying(pred);
+      }
+      
+      PSIntMap<Integer> snap = m.asPersistent();
+      assertTrue( !snap.isTransient() && !m.isTransient());
+      snapshots.add(snap);
+      expected.add( new HashMap<Integer,Integer>(model));
+      
+      // continue either from the current state or from a random older snapshot
+      if (r.nextInt(4) == 0){
+        int k = r.nextInt(snapshots.size());
+        m = snapshots.get(k).asTransient();
+        model.clear();
+        model.putAll(expected.get(k));
+      } else {
+        m = snap.asTransient();
+      }
+    }
+    
+    for (int k=0; k<snapshots.size(); k++){
+      PSIntMap<Integer> snap = snapshots.get(k);
+      HashMap<Integer,Integer> e = expected.get(k);
+      
+      assertTrue( snap.size() == e.size());
+      for (Map.Entry<Integer,Integer> entry : e.entrySet()){
+        assertTrue( entry.getValue().equals( snap.get(entry.getKey())));
+      }
+      int n = 0;
+      for (Integer v : snap){
+        n++;
+      }
+      assertTrue( n == e.size());
+    }
+  }
   
   //--- benchmarks
   
@@ -381,6 +450,31 @@ public class PSIntMapTest extends TestJPF {
     }
     t2 = System.currentTimeMillis();
     System.out.println("PersistentIntMap (" + NSTATES + " cycles): " + (t2 - t1));
+    
+    //--- transient PersistentIntMap
+    Runtime.getRuntime().gc();
+    t1 = System.currentTimeMillis();
+    for (int l=0; l<NSTATES; l++) {
+      PSIntMap<Integer> t = createPersistentIntMap().asTransient();
+      
+      //--- allocations
+      for (int i=0; i<NOBJECTS; i++){
+        t = t.set(i,  Integer.valueOf(i));
+      }
+
+      //--- lookup
+      for (int i=0; i<NOBJECTS; i++) {
+        Integer o = t.get(i);
+      }
+      
+      //--- gc
+      t = t.removeAllSatisfying(pred);
+      
+      //--- store just seals the map
+      t = t.asPersistent();
+    }
+    t2 = System.currentTimeMillis();
+    System.out.println("transient PersistentIntMap (" + NSTATES + " cycles): " + (t2 - t1));
   
 
     //--- HashMap
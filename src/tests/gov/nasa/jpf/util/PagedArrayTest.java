@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.nasa.jpf.util;
+
+import org.junit.Test;
+
+import gov.nasa.jpf.util.test.TestJPF;
+
+/**
+ * regression test for PagedArray
+ */
+public class PagedArrayTest extends TestJPF {
+
+  static int[] values (int n){
+    int[] a = new int[n];
+    for (int i=0; i<n; i++){
+      a[i] = i;
+    }
+    return a;
+  }
+
+  static void set (PagedArray a, int i, int v){
+    ((int[])a.getModifiablePage(i >>> a.getPageBits()))[i & a.getPageMask()] = v;
+  }
+
+  static int get (PagedArray a, int i){
+    return ((int[])a.getPage(i >>> a.getPageBits()))[i & a.getPageMask()];
+  }
+
+  @Test
+  public void testCreate (){
+    PagedArray a = new PagedArray(int.class, 10, 2); // 4 elements per page
+    assertTrue(a.length() == 10);
+    assertTrue(a.getNumberOfPages() == 3);
+    assertTrue(a.getPageLength(2) == 2);
+    assertTrue(a.getPage(0) == a.getPage(2)); // shared zero page
+    assertTrue(a.isSharedPage(0));
+
+    set(a, 9, 42);
+    assertTrue(get(a, 9) == 42 && get(a, 1) == 0);
+    assertTrue(!a.isSharedPage(2) && a.isSharedPage(0));
+
+    PagedArray b = new PagedArray(values(10), 2);
+    assertTrue(b.length() == 10);
+    int[] flat = (int[]) b.toArray();
+    assertTrue(flat.length == 10);
+    for (int i=0; i<10; i++){
+      assertTrue(flat[i] == i && get(b, i) == i);
+    }
+  }
+
+  @Test
+  public void testShare (){
+    PagedArray a = new PagedArray(values(10), 2);
+    PagedArray b = a.share();
+
+    for (int i=0; i<3; i++){
+      assertTrue(a.getPage(i) == b.getPage(i));
+      assertTrue(a.isSharedPage(i) && b.isSharedPage(i));
+    }
+
+    set(b, 5, -5);
+    assertTrue(get(a, 5) == 5 && get(b, 5) == -5);
+    assertTrue(a.getPage(0) == b.getPage(0) && a.getPage(1) != b.getPage(1));
+  }
+
+  @Test
+  public void testCopy (){
+    // aligned, shares whole pages
+    PagedArray a = new PagedArray(values(20), 2);
+    PagedArray b = new PagedArray(int.class, 20, 2);
+    b.copy(a, 2, 2, 15);
+    assertTrue(b.getPage(1) == a.getPage(1) && b.getPage(3) == a.getPage(3));
+    assertTrue(b.getPage(0) != a.getPage(0) && b.getPage(4) != a.getPage(4));
+    for (int i=0; i<20; i++){
+      assertTrue(get(b, i) == ((i >= 2 && i < 17) ? i : 0));
+    }
+    set(a, 5, -5); // shared page has to be copied
+    assertTrue(get(b, 5) == 5);
+
+    // not aligned
+    PagedArray c = new PagedArray(int.class, 20, 2);
+    c.copy(a, 0, 3, 10);
+    for (int i=0; i<20; i++){
+      int v = (i >= 3 && i < 13) ? get(a, i - 3) : 0;
+      assertTrue(get(c, i) == v);
+    }
+
+    // overlapping
+    PagedArray d = new PagedArray(values(20), 2);
+    d.copy(d, 0, 1, 19);
+    assertTrue(get(d, 0) == 0);
+    for (int i=1; i<20; i++){
+      assertTrue(get(d, i) == i-1);
+    }
+    d.copy(d, 2, 0, 18);
+    for (int i=0; i<18; i++){
+      assertTrue(get(d, i) == i+1);
+    }
+
+    // flat arrays
+    int[] flat = new int[5];
+    a.copyTo(3, flat, 0, 5);
+    assertTrue(flat[0] == 3 && flat[2] == -5 && flat[4] == 7);
+    PagedArray e = new PagedArray(int.class, 20, 2);
+    e.copyFrom(flat, 1, 15, 4);
+    assertTrue(get(e, 14) == 0 && get(e, 15) == 4 && get(e, 18) == 7 && get(e, 19) == 0);
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.nasa.jpf.util.test;
+
+import gov.nasa.jpf.JPFException;
+import gov.nasa.jpf.vm.Verify;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import org.junit.Test;
+
+/**
+ * unit test for ParallelTestRunner
+ */
+public class ParallelTestRunnerTest extends TestJPF {
+
+  /**
+   * the suite we run in parallel, which is not a test by itself
+   */
+  public static class Suite extends TestJPF {
+
+    @Test
+    public void testOk (){
+      if (verifyNoPropertyViolation()){
+        int i = Verify.getInt(0, 2);
+        System.out.println("testOk " + i);
+      }
+    }
+
+    @Test
+    public void testAssertionError (){
+      if (verifyAssertionError()){
+        throw new AssertionError("expected");
+      }
+    }
+
+    @Test
+    public void testFailure (){
+      if (verifyNoPropertyViolation()){
+        throw new RuntimeException("this should fail");
+      }
+    }
+
+    @Test
+    public void testDirect (){
+      System.out.println("direct output");
+    }
+  }
+
+  TestResult getResult (ParallelTestRunner runner, String mthName){
+    for (TestResult r : runner.getResults()){
+      if (r.getMethodName().equals(mthName)){
+        return r;
+      }
+    }
+    fail("no result for " + mthName);
+    return null;
+  }
+
+  @Test
+  public void testParallelRun () throws Exception {
+    ParallelTestRunner runner = new ParallelTestRunner(2);
+    runner.setQuiet(true);
+    runner.addTests(Suite.class);
+    assertEquals(4, runner.getResults().size());
+
+    assertFalse(runner.run());
+
+    TestResult r = getResult(runner, "testOk");
+    assertTrue(r.isOk());
+    assertEquals(1, r.getJPFRuns());
+    assertTrue(r.getStates() > 1);
+    assertTrue(r.getInstructions() > 0);
+    assertTrue(r.getOutput().contains("testOk 0"));
+    assertTrue(r.getOutput().contains("testOk 2"));
+    assertFalse(r.getOutput().contains("direct output"));
+
+    assertTrue(getResult(runner, "testAssertionError").isOk());
+    assertTrue(getResult(runner, "testFailure").isFailed());
+
+    r = getResult(runner, "testDirect");
+    assertTrue(r.isOk());
+    assertEquals(0, r.getJPFRuns());
+    assertTrue(r.getOutput().contains("direct output"));
+
+    File dir = Files.createTempDirectory("jpf-test-report").toFile();
+    try {
+      runner.writeReports(dir);
+
+      File report = new File(dir, "TEST-" + Suite.class.getName() + ".xml");
+      String xml = new String(Files.readAllBytes(report.toPath()), "UTF-8");
+      assertTrue(xml.contains("tests=\"4\" failures=\"1\" errors=\"0\""));
+      assertTrue(xml.contains("<testcase name=\"testFailure\""));
+      assertTrue(xml.contains("<property name=\"jpf.states\""));
+      assertTrue(xml.contains("<failure message="));
+      report.delete();
+
+    } finally {
+      dir.delete();
+    }
+  }
+
+  @Test
+  public void testRunnerFailureCause () {
+    ParallelTestRunner runner = new ParallelTestRunner(1) {
+      @Override
+      protected synchronized void reportTestFinished (TestResult r){
+        throw new IllegalStateException("report failed");
+      }
+    };
+    runner.setQuiet(true);
+    runner.addTests(Suite.class);
+
+    try {
+      runner.run();
+      fail("runner failure not reported");
+    } catch (JPFException x){
+      assertTrue(x.getCause() instanceof IllegalStateException);
+      assertEquals("report failed", x.getCause().getMessage());
+    }
+  }
+}
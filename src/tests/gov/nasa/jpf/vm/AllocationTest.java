@@ -3,6 +3,8 @@ package gov.nasa.jpf.vm;
 import gov.nasa.jpf.util.test.TestJPF;
 import org.junit.Test;
 
+import java.util.Arrays;
+
 public class AllocationTest extends TestJPF {
     @Test
     public void testEqualsHashCollisionSameContext() {
@@ -14,4 +16,34 @@ public class AllocationTest extends TestJPF {
 
         assertFalse(alloc1.equals(alloc2));
     }
+
+    static int allocate() {
+        // peer allocations (strings, arrays) and system allocations (box objects)
+        String s = Integer.toString(42) + "-" + Arrays.toString(new int[] {1, 2, 3});
+        String[] parts = s.split("-");
+        Object[] objs = { s, parts, parts[0], parts[1], new Object(), Long.valueOf(12345L) };
+
+        int h = 0;
+        for (Object o : objs) {
+            h = h * 31 + System.identityHashCode(o);
+        }
+        return h;
+    }
+
+    @Test
+    public void testDeterministicReferences() {
+        if (verifyNoPropertyViolation()) {
+            Verify.resetCounter(0);
+
+            // both paths have to allocate from the same SUT context
+            boolean secondPath = Verify.getBoolean();
+            int h = allocate();
+
+            if (!secondPath) {
+                Verify.setCounter(0, h);
+            } else {
+                assertEquals(Verify.getCounter(0), h);
+            }
+        }
+    }
 }
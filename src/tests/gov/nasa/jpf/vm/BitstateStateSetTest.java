@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.nasa.jpf.vm;
+
+import gov.nasa.jpf.util.test.TestJPF;
+
+import java.io.File;
+
+import org.junit.Test;
+
+/**
+ * unit test for the bitstate hashing BitstateStateSet
+ */
+public class BitstateStateSetTest extends TestJPF {
+
+  @Test
+  public void testAddAndQuery() {
+    BitstateStateSet set = new BitstateStateSet(null, 1 << 20, 3);
+    assertEquals(1L << 23, set.getNumberOfBits());
+
+    int[] v = new int[17];
+    for (int i = 0; i < 10000; i++) {
+      v[0] = i;
+      assertEquals(i, set.add(v));
+    }
+    assertEquals(10000, set.size());
+
+    for (int i = 0; i < 10000; i++) {
+      v[0] = i;
+      assertEquals(StateSet.UNKNOWN_ID, set.add(v));
+    }
+    assertEquals(10000, set.size());
+
+    assertTrue(set.getNumberOfSetBits() <= 30000);
+    assertTrue(set.getOmissionProbability() > 0 && set.getOmissionProbability() < 1e-6);
+  }
+
+  @Test
+  public void testOmissions() {
+    BitstateStateSet set = new BitstateStateSet(null, 64, 2); // only 512 bits
+
+    int[] v = new int[5];
+    int nOmitted = 0;
+    double p = 0;
+    for (int i = 0; i < 1000; i++) {
+      v[0] = i;
+      if (set.add(v) == StateSet.UNKNOWN_ID){
+        nOmitted++;
+      }
+
+      assertTrue(set.getOmissionProbability() >= p);
+      p = set.getOmissionProbability();
+    }
+
+    assertTrue(nOmitted > 0);
+    assertEquals(1000 - nOmitted, set.size());
+    assertTrue(p > 0.5);
+  }
+
+  @Test
+  public void testMapped() throws Exception {
+    File f = File.createTempFile("jpf-bitstate", "");
+    try {
+      BitstateStateSet set = new BitstateStateSet(f.getPath(), 1 << 16, 3);
+      assertEquals(0, set.addFingerprint(42L));
+      assertEquals(StateSet.UNKNOWN_ID, set.addFingerprint(42L));
+      assertEquals(1, set.addFingerprint(43L));
+
+      assertTrue(new File(f.getPath() + ".bits").isFile());
+    } finally {
+      f.delete();
+    }
+  }
+
+  @Test
+  public void testSearch() {
+    if (!isJPFRun()){
+      Verify.resetCounter(0);
+    }
+
+    if (verifyNoPropertyViolation("+vm.storage.class=.vm.BitstateStateSet",
+                                  "+vm.storage.bitstate_size=1M")){
+      int a = 0;
+      for (int i=0; i<3; i++) {
+        a = a*4 + Verify.getInt(0, 3);
+        Verify.breakTransition("testSearch");
+      }
+      Verify.incrementCounter(0);
+    }
+
+    if (!isJPFRun()){
+      assertEquals(64, Verify.getCounter(0));
+    }
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.nasa.jpf.vm;
+
+import gov.nasa.jpf.JPFException;
+import gov.nasa.jpf.util.test.TestJPF;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * unit and stress test for ConcurrentStateSet
+ */
+public class ConcurrentStateSetTest extends TestJPF {
+
+  @Test
+  public void testSequential() {
+    ConcurrentStateSet set = new ConcurrentStateSet(1000);
+    int[] v = { 1, 2, 3 };
+
+    assertEquals(0, set.add(v));
+    assertTrue(set.isNewState());
+    assertEquals(0, set.add(v));
+    assertFalse(set.isNewState());
+
+    v[0] = 42;
+    assertEquals(1, set.add(v));
+    assertTrue(set.isNewState());
+    assertEquals(2, set.size());
+
+    assertEquals(2, set.addFingerprint(0L));
+    assertEquals(~2, set.addFingerprint(0L));
+  }
+
+  @Test
+  public void testShare() {
+    ConcurrentStateSet set = new ConcurrentStateSet(1000);
+    ConcurrentStateSet other = set.share();
+
+    assertEquals(0, set.addFingerprint(42L));
+    assertEquals(~0, other.addFingerprint(42L));
+    assertEquals(1, other.addFingerprint(43L));
+    assertEquals(2, set.size());
+  }
+
+  @Test
+  public void testSetTable() {
+    ConcurrentStateSet set = new ConcurrentStateSet(1000);
+    ConcurrentStateSet other = new ConcurrentStateSet(1000);
+
+    assertEquals(0, set.addFingerprint(42L));
+    other.setTable(set.getTable());
+    assertEquals(~0, other.addFingerprint(42L));
+    assertEquals(1, other.addFingerprint(43L));
+    assertEquals(2, set.size());
+
+    try {
+      set.setTable(new ConcurrentStateSet.Table(1000));
+      fail("replaced non-empty table");
+    } catch (JPFException x){
+      System.out.println("got expected " + x);
+    }
+  }
+
+  @Test
+  public void testCapacityExhausted() {
+    ConcurrentStateSet set = new ConcurrentStateSet(10);
+    int n = set.getCapacity();
+
+    for (int i=0; i<n; i++){
+      assertEquals(i, set.addFingerprint(i+1));
+    }
+
+    try {
+      set.addFingerprint(n+1);
+      fail("capacity exhaustion not detected");
+    } catch (JPFException x){
+      System.out.println("got expected " + x);
+    }
+  }
+
+  @Test
+  public void testConcurrentAdd() throws InterruptedException {
+    final int N = 50000;
+    final int T = 8;
+    final ConcurrentStateSet set = new ConcurrentStateSet(N);
+    final int[][] results = new int[T][N];
+    final AtomicInteger nAdded = new AtomicInteger();
+
+    Thread[] threads = new Thread[T];
+    for (int k=0; k<T; k++){
+      final int tid = k;
+      threads[k] = new Thread() {
+        @Override
+        public void run() {
+          // all threads add the same fingerprints, starting at different offsets
+          for (int j=0; j<N; j++){
+            int i = (j + tid * (N / T)) % N;
+            long fp = (i + 1) * 0x9e3779b97f4a7c15L; // bijective, never 0
+            int id = set.addFingerprint(fp);
+            if (id >= 0){
+              nAdded.incrementAndGet();
+            } else {
+              id = ~id;
+            }
+            results[tid][i] = id;
+          }
+        }
+      };
+    }
+
+    for (Thread t : threads){
+      t.start();
+    }
+    for (Thread t : threads){
+      t.join();
+    }
+
+    // every state was added exactly once
+    assertEquals(N, nAdded.get());
+    assertEquals(N, set.size());
+
+    // all threads see the same ids, and ids are 0..N-1
+    boolean[] seen = new boolean[N];
+    for (int i=0; i<N; i++){
+      int id = results[0][i];
+      assertTrue(id >= 0 && id < N);
+      assertFalse(seen[id]);
+      seen[id] = true;
+
+      for (int k=1; k<T; k++){
+        assertEquals(id, results[k][i]);
+      }
+    }
+  }
+}
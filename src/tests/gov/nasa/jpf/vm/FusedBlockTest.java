@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.nasa.jpf.vm;
+
+import gov.nasa.jpf.ListenerAdapter;
+import gov.nasa.jpf.jvm.bytecode.IADD;
+import gov.nasa.jpf.jvm.bytecode.InstructionFactory;
+import gov.nasa.jpf.search.Search;
+import gov.nasa.jpf.util.test.TestJPF;
+import gov.nasa.jpf.vm.choice.IntIntervalGenerator;
+
+import org.junit.Test;
+
+/**
+ * test for the execution of fusable instruction blocks, which has to be
+ * transparent for both the program and instruction listeners
+ */
+public class FusedBlockTest extends TestJPF {
+
+  static int compute (int n) {
+    int a = 1, b = 2;
+    long l = 3;
+    double d = 0.5;
+
+    for (int i = 0; i < n; i++) {
+      a = (a * 31 + b) ^ (i << 3);
+      b = -(b - a) >>> 1;
+      l = (l * a) + (l >> 2);
+      d = d * 1.5 - (double)a / 7;
+    }
+
+    return a + b + (int)l + (int)d;
+  }
+
+  @Test
+  public void testFusedBlocks() {
+    if (verifyNoPropertyViolation()) {
+      assertEquals(compute(42), 2086927163);
+    }
+  }
+
+  @Test
+  public void testSingleStep() {
+    if (verifyNoPropertyViolation("+vm.fused_blocks=false")) {
+      assertEquals(compute(42), 2086927163);
+    }
+  }
+
+  static long nObserved;
+  static long nExecuted;
+
+  public static class InsnCounter extends ListenerAdapter {
+    @Override
+    public void instructionExecuted (VM vm, ThreadInfo ti, Instruction nextInsn, Instruction executedInsn) {
+      nObserved++;
+    }
+
+    @Override
+    public void searchFinished (Search search) {
+      nExecuted = search.getVM().getExecutedInstructions();
+    }
+  }
+
+  @Test
+  public void testObservedInstructions() {
+    if (!isJPFRun()) {
+      nObserved = 0;
+      nExecuted = 0;
+    }
+
+    if (verifyNoPropertyViolation("+listener=gov.nasa.jpf.vm.FusedBlockTest$InsnCounter")) {
+      compute(42);
+    }
+
+    if (!isJPFRun()) {
+      assertTrue(nExecuted > 0);
+      assertEquals(nExecuted, nObserved);
+    }
+  }
+
+  static long nSteps;
+
+  public static class StepCounter extends ListenerAdapter {
+    @Override
+    public void stateAdvanced (Search search) {
+      nSteps += search.getVM().getLastTransition().getStepCount();
+    }
+  }
+
+  @Test
+  public void testTransitionSteps() {
+    long fusedSteps = 0;
+
+    if (!isJPFRun()) {
+      nSteps = 0;
+    }
+    if (verifyNoPropertyViolation("+listener=gov.nasa.jpf.vm.FusedBlockTest$StepCounter")) {
+      compute(42);
+    }
+
+    if (!isJPFRun()) {
+      fusedSteps = nSteps;
+      nSteps = 0;
+    }
+    if (verifyNoPropertyViolation("+listener=gov.nasa.jpf.vm.FusedBlockTest$StepCounter", "+vm.fused_blocks=false")) {
+      compute(42);
+    }
+
+    if (!isJPFRun()) {
+      assertTrue(fusedSteps > 0);
+      assertEquals(nSteps, fusedSteps);
+    }
+  }
+
+  /**
+   * an extension instruction that inherits FusableInstruction but breaks the
+   * transition (like symbolic compares), which has to end the fused block
+   */
+  public static class ChoiceIADD extends IADD {
+    @Override
+    public Instruction execute (ThreadInfo ti) {
+      if (!mi.getName().equals("addChoice")) {
+        return super.execute(ti);
+      }
+
+      SystemState ss = ti.getVM().getSystemState();
+      if (!ti.isFirstStepInsn()) {
+        if (ss.setNextChoiceGenerator(new IntIntervalGenerator("addChoice", 0, 1))) {
+          return this;
+        }
+      }
+
+      IntIntervalGenerator cg = ss.getCurrentChoiceGenerator("addChoice", IntIntervalGenerator.class);
+      StackFrame frame = ti.getModifiableTopFrame();
+      int v1 = frame.pop();
+      int v2 = frame.pop();
+      frame.push(v1 + v2 + cg.getNextChoice());
+
+      return getNext(ti);
+    }
+  }
+
+  public static class ChoiceInsnFactory extends InstructionFactory {
+    @Override
+    public Instruction iadd() {
+      return new ChoiceIADD();
+    }
+  }
+
+  static int addChoice (int a, int b) {
+    int c = a + b;
+    return c * 2;
+  }
+
+  @Test
+  public void testTransitionBreakingExtension() {
+    if (verifyAssertionError("+jvm.insn_factory.class=gov.nasa.jpf.vm.FusedBlockTest$ChoiceInsnFactory")) {
+      int r = addChoice(1, 2);
+      assertTrue("unexpected result: " + r, r == 6 || r == 8);
+      assertTrue("second choice", r == 6);
+    }
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.nasa.jpf.vm;
+
+import gov.nasa.jpf.JPF;
+import gov.nasa.jpf.ListenerAdapter;
+import gov.nasa.jpf.PropertyListenerAdapter;
+import gov.nasa.jpf.report.Statistics;
+import gov.nasa.jpf.search.Search;
+import gov.nasa.jpf.util.test.TestJPF;
+
+import org.junit.Test;
+
+/**
+ * test for the listener dispatch arrays of the VM, which should only contain
+ * listeners that override the respective notification
+ */
+public class ListenerDispatchTest extends TestJPF {
+
+  static class SearchOnly extends ListenerAdapter {
+    @Override
+    public void stateAdvanced (Search search) {}
+  }
+
+  static class InsnObserver extends PropertyListenerAdapter {
+    @Override
+    public void instructionExecuted (VM vm, ThreadInfo ti, Instruction nextInsn, Instruction executedInsn) {}
+  }
+
+  static class DerivedInsnObserver extends InsnObserver {
+    @Override
+    public void objectCreated (VM vm, ThreadInfo ti, ElementInfo ei) {}
+  }
+
+  @Test
+  public void testObservingListeners() {
+    SearchOnly searchOnly = new SearchOnly();
+    InsnObserver insn = new InsnObserver();
+    DerivedInsnObserver derived = new DerivedInsnObserver();
+
+    assertFalse(VM.isObserving(searchOnly, "instructionExecuted", VM.class, ThreadInfo.class, Instruction.class, Instruction.class));
+    assertTrue(VM.isObserving(insn, "instructionExecuted", VM.class, ThreadInfo.class, Instruction.class, Instruction.class));
+    assertFalse(VM.isObserving(insn, "objectCreated", VM.class, ThreadInfo.class, ElementInfo.class));
+    assertTrue(VM.isObserving(derived, "instructionExecuted", VM.class, ThreadInfo.class, Instruction.class, Instruction.class));
+    assertTrue(VM.isObserving(derived, "objectCreated", VM.class, ThreadInfo.class, ElementInfo.class));
+  }
+
+  static int nCreated;
+
+  public static class ObjectCounter extends ListenerAdapter {
+    @Override
+    public void objectCreated (VM vm, ThreadInfo ti, ElementInfo ei) {
+      nCreated++;
+    }
+  }
+
+  static class X {}
+
+  @Test
+  public void testNotification() {
+    if (!isJPFRun()) {
+      nCreated = 0;
+    }
+
+    if (verifyNoPropertyViolation("+listener=gov.nasa.jpf.vm.ListenerDispatchTest$ObjectCounter")) {
+      for (int i = 0; i < 10; i++) {
+        new X();
+      }
+    }
+
+    if (!isJPFRun()) {
+      assertTrue(nCreated >= 10);
+    }
+  }
+
+  @Test
+  public void testStatisticsInstructions() {
+    // Statistics samples the VM instruction counter, which has to include
+    // the instructions executed after the last stateAdvanced() notification
+    if (!isJPFRun()) {
+      JPF jpf = assertionError("+search.class=.search.heuristic.BFSHeuristic", "+search.heuristic.replay_states",
+                               "+report.statistics");
+      Statistics stat = jpf.getReporter().getRegisteredStatistics();
+      assertEquals(jpf.getVM().getExecutedInstructions(), stat.insns);
+
+    } else {
+      int a = Verify.getInt(0, 2);
+      Verify.breakTransition("testStatisticsInstructions");
+      int b = Verify.getInt(0, 2);
+
+      assert a + b < 4 : "last choices";
+    }
+  }
+}
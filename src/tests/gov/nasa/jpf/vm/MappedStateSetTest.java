@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.nasa.jpf.vm;
+
+import gov.nasa.jpf.util.test.TestJPF;
+
+import java.io.File;
+
+import org.junit.Test;
+
+/**
+ * unit test for the off-heap MappedStateSet
+ */
+public class MappedStateSetTest extends TestJPF {
+
+  static final int N = 200000; // enough for a couple of rehashes
+
+  void checkAddAndQuery (MappedStateSet set) {
+    int[] v = new int[17];
+    for (int i = 0; i < v.length; i++) {
+      v[i] = i - 42;
+    }
+
+    boolean sawRehash = false;
+
+    for (int i = 0; i < N; i++) {
+      v[0] = i * 3;
+      int id = set.add(v);
+      assertEquals(i, id);
+      assertEquals(i + 1, set.size());
+
+      if (set.isRehashing()){
+        sawRehash = true;
+        // ids of states that are not yet migrated have to be found
+        v[0] = 0;
+        assertEquals(0, set.add(v));
+      }
+    }
+    assertTrue(sawRehash);
+
+    for (int i = N-1; i >= 0; i--) {
+      v[0] = i * 3;
+      assertEquals(i, set.add(v));
+    }
+    assertEquals(N, set.size());
+  }
+
+  @Test
+  public void testDirect() {
+    checkAddAndQuery( new MappedStateSet(null, 1000));
+  }
+
+  @Test
+  public void testMapped() throws Exception {
+    File f = File.createTempFile("jpf-states", "");
+    try {
+      MappedStateSet set = new MappedStateSet(f.getPath(), 1000);
+      checkAddAndQuery(set);
+
+      assertTrue(new File(f.getPath() + ".fp").isFile());
+    } finally {
+      f.delete();
+    }
+  }
+
+  @Test
+  public void testCapacityHint() {
+    MappedStateSet set = new MappedStateSet(null, 1000000);
+    assertTrue( (set.mask + 1) * MappedStateSet.MAX_LOAD >= 1000000);
+
+    set.addFingerprint(42L);
+    assertEquals(0, set.addFingerprint(42L));
+    assertEquals(1, set.addFingerprint(43L));
+    assertEquals(2, set.size());
+  }
+}
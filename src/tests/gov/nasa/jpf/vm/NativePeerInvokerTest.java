@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2014, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The Java Pathfinder core (jpf-core) platform is licensed under the
+ * Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.nasa.jpf.vm;
+
+import gov.nasa.jpf.util.test.TestJPF;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import org.junit.Test;
+
+/**
+ * test for the MethodHandle invokers of native peer methods, which should only
+ * wrap exceptions of the peer method itself into InvocationTargetExceptions
+ */
+public class NativePeerInvokerTest extends TestJPF {
+
+  public static class Peer extends NativePeer {
+    public int inc__I__I (MJIEnv env, int objRef, int a) {
+      return a + 1;
+    }
+
+    public int crash__I__I (MJIEnv env, int objRef, int a) {
+      throw new IllegalStateException("peer crash");
+    }
+  }
+
+  MethodHandle getInvoker (String name) throws NoSuchMethodException {
+    boolean useMethodHandles = NativePeer.useMethodHandles;
+    try {
+      NativePeer.useMethodHandles = true;
+
+      Method mth = Peer.class.getMethod(name + "__I__I", MJIEnv.class, int.class, int.class);
+      MethodInfo mi = new MethodInfo(name, "(I)I", Modifier.PUBLIC | Modifier.NATIVE);
+      MethodHandle invoker = new Peer().getInvoker(mth, mi);
+      assertTrue(invoker != null);
+      return invoker;
+
+    } finally {
+      NativePeer.useMethodHandles = useMethodHandles;
+    }
+  }
+
+  @Test
+  public void testReturnValue() throws Throwable {
+    MethodHandle invoker = getInvoker("inc");
+    Object ret = (Object) invoker.invokeExact((Object)new Peer(), new Object[] { null, 0, 41 });
+    assertEquals(42, ((Integer)ret).intValue());
+  }
+
+  @Test
+  public void testTargetException() throws Throwable {
+    MethodHandle invoker = getInvoker("crash");
+    try {
+      Object ret = (Object) invoker.invokeExact((Object)new Peer(), new Object[] { null, 0, 41 });
+      fail("peer exception not thrown");
+    } catch (InvocationTargetException itx) {
+      assertTrue(itx.getTargetException() instanceof IllegalStateException);
+    }
+  }
+
+  @Test
+  public void testArgumentConversionError() throws Throwable {
+    MethodHandle invoker = getInvoker("inc");
+    try {
+      Object ret = (Object) invoker.invokeExact((Object)new Peer(), new Object[] { null, 0, "41" });
+      fail("argument conversion error not thrown");
+    } catch (InvocationTargetException itx) {
+      fail("argument conversion error reported as peer exception: " + itx.getTargetException());
+    } catch (ClassCastException ccx) {
+      System.out.println("got expected " + ccx);
+    }
+  }
+}
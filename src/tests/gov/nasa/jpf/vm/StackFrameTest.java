@@ -51,6 +51,45 @@ public class StackFrameTest extends TestJPF {
 		assertTrue(newAttr != null && newAttr == obj2);
 	}
 	
+	@Test
+	public void testCopyOnWriteClone() {
+
+		MethodInfo mInfo = new MethodInfo("[methodName]", "()V", Modifier.PUBLIC, 2, 10);
+		JVMStackFrame frame = new JVMStackFrame(mInfo);
+		frame.setLocalVariable(0, 42);
+		frame.push(1);
+		frame.addOperandAttr("Attribute1");
+		frame.freeze();
+
+		// clones share the slots until they get modified
+		StackFrame clone = frame.clone();
+		assertTrue(clone.getSlots() == frame.getSlots());
+
+		clone.setLocalVariable(1, 43);
+		clone.push(2);
+		clone.setOperand(0, 2, true);
+		clone.setOperandAttr("Attribute2");
+		assertTrue(clone.getSlots() != frame.getSlots());
+
+		assertEquals(42, frame.getLocalVariable(0));
+		assertEquals(0, frame.getLocalVariable(1));
+		assertEquals(1, frame.peek());
+		assertTrue(!frame.isReferenceSlot(frame.getTopPos()));
+		assertEquals("Attribute1", frame.getOperandAttr());
+
+		assertEquals(42, clone.getLocalVariable(0));
+		assertEquals(43, clone.getLocalVariable(1));
+		assertEquals(2, clone.peek());
+		assertTrue(clone.isReferenceSlot(clone.getTopPos()));
+		assertEquals("Attribute2", clone.getOperandAttr());
+
+		// a pop that clears the attribute must not change the original either
+		StackFrame clone2 = frame.clone();
+		clone2.pop();
+		assertEquals("Attribute1", frame.getOperandAttr());
+		assertEquals(1, frame.peek());
+	}
+
 	public static void main(String[] args) {
 		runTestsOfThisClass(null);
 	}